@@ -0,0 +1,10 @@
+package bicicletario.aluguel.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Liga os @Scheduled (ex: NotificacaoDispatcher drenando a outbox de emails)
+@Configuration
+@EnableScheduling
+public class AgendamentoConfig {
+}
@@ -0,0 +1,75 @@
+package bicicletario.aluguel.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dois pools de conexões quando aluguel.datasource.relatorio.url está
+ * configurada (perfil postgresql):
+ *
+ * - OLTP (spring.datasource.hikari.*): pequeno, espera curta por conexão,
+ *   statement_timeout curto. Aluguel, devolução e cadastro.
+ * - relatório (aluguel.datasource.relatorio.hikari.*): poucas conexões,
+ *   somente leitura, timeouts longos. Histórico e exportações (RotaBanco),
+ *   que podem apontar para uma réplica de leitura.
+ *
+ * Uma varredura longa do histórico nunca ocupa uma conexão que o aluguel
+ * precisa, e o pool OLTP pode ser pequeno sem estourar o prazo delas.
+ * O DataSource principal (JPA, Flyway) é o roteador, OLTP por padrão.
+ */
+@Configuration
+@ConditionalOnProperty("aluguel.datasource.relatorio.url")
+public class BancoConfig {
+
+@Bean
+@ConfigurationProperties("spring.datasource.hikari")
+public HikariDataSource dataSourceOltp(DataSourceProperties propriedades) {
+    return propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+}
+
+// Usuário e senha: os do spring.datasource, se o relatório não tiver os seus
+@Bean
+@ConfigurationProperties("aluguel.datasource.relatorio.hikari")
+public HikariDataSource dataSourceRelatorio(DataSourceProperties propriedades,
+        @Value("${aluguel.datasource.relatorio.url}") String url,
+        @Value("${aluguel.datasource.relatorio.username:${spring.datasource.username:}}") String usuario,
+        @Value("${aluguel.datasource.relatorio.password:${spring.datasource.password:}}") String senha) {
+    return propriedades.initializeDataSourceBuilder().type(HikariDataSource.class)
+            .url(url).username(usuario).password(senha).build();
+}
+
+@Bean
+@Primary
+public DataSource dataSource(@Qualifier("dataSourceOltp") DataSource oltp,
+        @Qualifier("dataSourceRelatorio") DataSource relatorio) {
+    Map<Object, Object> pools = new HashMap<>();
+    pools.put(RotaBanco.OLTP, oltp);
+    pools.put(RotaBanco.RELATORIO, relatorio);
+    RoteamentoDataSource roteamento = new RoteamentoDataSource();
+    roteamento.setTargetDataSources(pools);
+    roteamento.setDefaultTargetDataSource(oltp);
+    roteamento.afterPropertiesSet();
+    // Preguiçoso: a transação começa sem conexão e o pool é escolhido no primeiro comando
+    return new LazyConnectionDataSourceProxy(roteamento);
+}
+
+private static class RoteamentoDataSource extends AbstractRoutingDataSource {
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return RotaBanco.atual();
+    }
+}
+}
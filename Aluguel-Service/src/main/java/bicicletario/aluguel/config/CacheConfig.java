@@ -0,0 +1,39 @@
+package bicicletario.aluguel.config;
+
+import bicicletario.aluguel.service.CacheCiclistas;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches de leitura do CacheCiclistas: limitados por tamanho e com validade,
+ * para o caso de uma escrita que não passe pelo JPA (sem listener para invalidar).
+ * As estatísticas (recordStats) aparecem em /admin/caches e como cache.gets no
+ * /actuator/prometheus.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+@Value("${cache.cadastro.max-entradas:10000}")
+private long maxEntradas;
+
+@Value("${cache.cadastro.ttl-ms:300000}")
+private long ttlMs;
+
+@Bean
+public CacheManager cacheManager() {
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheCiclistas.CICLISTAS, CacheCiclistas.CARTOES);
+    cacheManager.setCaffeine(Caffeine.newBuilder()
+            .maximumSize(maxEntradas)
+            .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+            .recordStats());
+    return cacheManager;
+}
+}
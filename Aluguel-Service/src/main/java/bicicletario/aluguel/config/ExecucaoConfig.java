@@ -0,0 +1,60 @@
+package bicicletario.aluguel.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Modo de execução do aluguel e da devolução (aluguel.execucao.modo):
+ *
+ * - bloqueante (padrão): uma thread do Tomcat por requisição, presa durante
+ *   as chamadas ao Equipamento e ao Externo (RestTemplate).
+ * - reativo: POST /aluguel e /devolucao devolvem um CompletableFuture montado
+ *   com WebClient (AluguelReativoController); a thread do Tomcat é liberada
+ *   logo após receber o pedido e nenhuma fica esperando a rede.
+ * - virtual: o mesmo código bloqueante, mas cada requisição (e cada validação
+ *   paralela) roda numa thread virtual. Exige Java 21+ na execução.
+ */
+@Configuration
+public class ExecucaoConfig {
+
+private static final Logger logger = LoggerFactory.getLogger(ExecucaoConfig.class);
+
+public static final String MODO = "aluguel.execucao.modo";
+public static final String BLOQUEANTE = "bloqueante";
+public static final String REATIVO = "reativo";
+public static final String VIRTUAL = "virtual";
+
+private static final List<String> MODOS = Arrays.asList(BLOQUEANTE, REATIVO, VIRTUAL);
+
+@Value("${" + MODO + ":" + BLOQUEANTE + "}")
+private String modo;
+
+@PostConstruct
+public void validarModo() {
+    if (!MODOS.contains(modo)) {
+        throw new IllegalStateException(MODO + " inválido: '" + modo + "' (use " + MODOS + ")");
+    }
+    logger.info(" Aluguel em modo de execução {}.", modo);
+}
+
+/**
+ * Tomcat atendendo cada requisição numa thread virtual nova, no lugar do pool
+ * server.tomcat.threads.max. O pool de conexões do banco continua sendo o
+ * limite real de requisições simultâneas tocando o banco.
+ */
+@Bean
+@ConditionalOnProperty(name = MODO, havingValue = VIRTUAL)
+public TomcatProtocolHandlerCustomizer<ProtocolHandler> threadsVirtuaisTomcat() {
+    return protocolo -> protocolo.setExecutor(ThreadsVirtuais.executorPorTarefa("tomcat-virtual-"));
+}
+}
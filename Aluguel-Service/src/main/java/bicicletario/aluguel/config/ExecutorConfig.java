@@ -0,0 +1,74 @@
+package bicicletario.aluguel.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool limitado usado para rodar em paralelo as validações do aluguel
+ * (consultas locais + busca remota da bicicleta na tranca), e o pool do
+ * trabalho com banco no modo reativo.
+ */
+@Configuration
+public class ExecutorConfig {
+
+@Value("${aluguel.validacao.threads:16}")
+private int threads;
+
+@Value("${aluguel.validacao.fila:256}")
+private int capacidadeFila;
+
+@Value("${" + ExecucaoConfig.MODO + ":" + ExecucaoConfig.BLOQUEANTE + "}")
+private String modo;
+
+@Value("${aluguel.banco.threads:10}")
+private int threadsBanco;
+
+@Value("${aluguel.banco.fila:1000}")
+private int capacidadeFilaBanco;
+
+/**
+ * Fila limitada: se o pool estiver saturado a própria thread da requisição
+ * executa a tarefa (CallerRunsPolicy), em vez de rejeitar o aluguel.
+ */
+@Bean(destroyMethod = "shutdown")
+public ExecutorService validacaoAluguelExecutor() {
+    if (ExecucaoConfig.VIRTUAL.equals(modo)) {
+        // Thread virtual por validação: esperar o Equipamento não ocupa thread de plataforma
+        return ThreadsVirtuais.executorPorTarefa("validacao-aluguel-");
+    }
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threads, threads,
+            60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(capacidadeFila),
+            new CustomizableThreadFactory("validacao-aluguel-"),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+}
+
+/**
+ * Modo reativo: as etapas que tocam o banco (ou o cache de Ciclista, que pode
+ * ir ao banco) saem da thread de I/O do netty e rodam aqui. Do tamanho do pool
+ * de conexões do banco, já que mais threads só esperariam conexão. Fila cheia
+ * rejeita (RejectedExecutionException): rodar na thread de quem chamou
+ * bloquearia o netty.
+ */
+@Bean(destroyMethod = "shutdown")
+public ExecutorService bancoAluguelExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threadsBanco, threadsBanco,
+            60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(capacidadeFilaBanco),
+            new CustomizableThreadFactory("banco-aluguel-"),
+            new ThreadPoolExecutor.AbortPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+}
+}
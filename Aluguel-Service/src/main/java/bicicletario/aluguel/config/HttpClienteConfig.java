@@ -0,0 +1,146 @@
+package bicicletario.aluguel.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cliente HTTP de saída compartilhado por EquipamentoService e ExternoService:
+ * pool de conexões com limite por host, keep-alive e limpeza de conexões ociosas.
+ */
+@Configuration
+@EnableConfigurationProperties(HttpClienteProperties.class)
+public class HttpClienteConfig {
+
+@Bean(destroyMethod = "shutdown")
+public PoolingHttpClientConnectionManager poolConexoesHttp(HttpClienteProperties properties) {
+    HttpClienteProperties.Pool pool = properties.getPool();
+    PoolingHttpClientConnectionManager gerenciador = new PoolingHttpClientConnectionManager();
+    gerenciador.setMaxTotal(pool.getMaxTotal());
+    gerenciador.setDefaultMaxPerRoute(pool.getMaxPorHost());
+    gerenciador.setValidateAfterInactivity(pool.getValidarAposInatividadeMs());
+
+    // Limite próprio por host remoto (cada host é uma rota no pool)
+    for (HttpClienteProperties.Host host : properties.getHosts().values()) {
+        if (host.getUrl() != null) {
+            gerenciador.setMaxPerRoute(rotaPara(host.getUrl()), host.getMaxConexoes());
+        }
+    }
+    return gerenciador;
+}
+
+@Bean(destroyMethod = "close")
+public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager poolConexoesHttp,
+                                      HttpClienteProperties properties) {
+    HttpClienteProperties.Pool pool = properties.getPool();
+    RequestConfig configPadrao = RequestConfig.custom()
+            .setConnectionRequestTimeout(pool.getEsperaConexaoMs())
+            .setConnectTimeout(properties.getPadrao().getConexaoMs())
+            .setSocketTimeout(properties.getPadrao().getLeituraMs())
+            .build();
+
+    return HttpClients.custom()
+            .setConnectionManager(poolConexoesHttp)
+            .setDefaultRequestConfig(configPadrao)
+            .setKeepAliveStrategy(keepAlive(pool.getKeepAliveMs()))
+            .evictExpiredConnections()
+            .evictIdleConnections(pool.getOciosaMaxMs(), TimeUnit.MILLISECONDS)
+            .build();
+}
+
+/**
+ * Thread única que aborta requisições que estouram o prazo total da operação.
+ * O abort de cada requisição é cancelado quando ela termina e sai da fila na
+ * hora (removeOnCancelPolicy), em vez de esperar o prazo vencer.
+ */
+@Bean(destroyMethod = "shutdownNow")
+public ScheduledExecutorService prazoHttpScheduler() {
+    CustomizableThreadFactory fabrica = new CustomizableThreadFactory("http-prazo-");
+    fabrica.setDaemon(true);
+    ScheduledThreadPoolExecutor agendador = new ScheduledThreadPoolExecutor(1, fabrica);
+    agendador.setRemoveOnCancelPolicy(true);
+    return agendador;
+}
+
+/**
+ * Métricas do pool: conexões alugadas, disponíveis e requisições esperando
+ * conexão, no total e por host configurado.
+ */
+@Bean
+public MeterBinder metricasPoolHttp(PoolingHttpClientConnectionManager poolConexoesHttp,
+                                    HttpClienteProperties properties) {
+    return registry -> {
+        registrarGauges(registry, poolConexoesHttp, "total", null);
+        for (Map.Entry<String, HttpClienteProperties.Host> host : properties.getHosts().entrySet()) {
+            if (host.getValue().getUrl() != null) {
+                registrarGauges(registry, poolConexoesHttp, host.getKey(), rotaPara(host.getValue().getUrl()));
+            }
+        }
+    };
+}
+
+private void registrarGauges(MeterRegistry registry,
+                             PoolingHttpClientConnectionManager pool, String host, HttpRoute rota) {
+    Gauge.builder("http.cliente.pool.conexoes", pool,
+                    p -> rota == null ? p.getTotalStats().getLeased() : p.getStats(rota).getLeased())
+            .tag("host", host).tag("estado", "alugadas")
+            .register(registry);
+    Gauge.builder("http.cliente.pool.conexoes", pool,
+                    p -> rota == null ? p.getTotalStats().getAvailable() : p.getStats(rota).getAvailable())
+            .tag("host", host).tag("estado", "disponiveis")
+            .register(registry);
+    Gauge.builder("http.cliente.pool.conexoes", pool,
+                    p -> rota == null ? p.getTotalStats().getPending() : p.getStats(rota).getPending())
+            .tag("host", host).tag("estado", "pendentes")
+            .register(registry);
+    Gauge.builder("http.cliente.pool.conexoes.max", pool,
+                    p -> rota == null ? p.getTotalStats().getMax() : p.getStats(rota).getMax())
+            .tag("host", host)
+            .register(registry);
+}
+
+// Mesma chave de rota que o HttpClient monta (porta padrão explícita)
+private static HttpRoute rotaPara(String url) {
+    URI uri = URI.create(url);
+    boolean seguro = "https".equalsIgnoreCase(uri.getScheme());
+    int porta = uri.getPort() > 0 ? uri.getPort() : (seguro ? 443 : 80);
+    return new HttpRoute(new HttpHost(uri.getHost(), porta, uri.getScheme()), null, seguro);
+}
+
+private static ConnectionKeepAliveStrategy keepAlive(long keepAlivePadraoMs) {
+    return (resposta, contexto) -> {
+        BasicHeaderElementIterator it = new BasicHeaderElementIterator(resposta.headerIterator(HTTP.CONN_KEEP_ALIVE));
+        while (it.hasNext()) {
+            HeaderElement elemento = it.nextElement();
+            if ("timeout".equalsIgnoreCase(elemento.getName()) && elemento.getValue() != null) {
+                try {
+                    return Long.parseLong(elemento.getValue()) * 1000;
+                } catch (NumberFormatException e) {
+                    // Valor inválido: usa o padrão configurado
+                }
+            }
+        }
+        return keepAlivePadraoMs;
+    };
+}
+}
@@ -0,0 +1,87 @@
+package bicicletario.aluguel.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuração do cliente HTTP de saída (prefixo "http.cliente").
+ * Os timeouts podem ser ajustados por operação remota, ex:
+ * http.cliente.operacoes.getBicicletaDaTranca.leitura-ms=1500
+ */
+@ConfigurationProperties(prefix = "http.cliente")
+public class HttpClienteProperties {
+
+private Pool pool = new Pool();
+
+// Hosts remotos conhecidos (ex: "equipamento", "externo"), cada um com seu limite de conexões
+private Map<String, Host> hosts = new HashMap<>();
+
+// Timeouts usados quando a operação não tem configuração própria
+private Timeouts padrao = new Timeouts();
+
+private Map<String, Timeouts> operacoes = new HashMap<>();
+
+public Pool getPool() { return pool; }
+public void setPool(Pool pool) { this.pool = pool; }
+public Map<String, Host> getHosts() { return hosts; }
+public void setHosts(Map<String, Host> hosts) { this.hosts = hosts; }
+public Timeouts getPadrao() { return padrao; }
+public void setPadrao(Timeouts padrao) { this.padrao = padrao; }
+public Map<String, Timeouts> getOperacoes() { return operacoes; }
+public void setOperacoes(Map<String, Timeouts> operacoes) { this.operacoes = operacoes; }
+
+public Timeouts timeoutsDa(String operacao) {
+    Timeouts timeouts = operacoes.get(operacao);
+    return timeouts != null ? timeouts : padrao;
+}
+
+public static class Pool {
+    private int maxTotal = 100;
+    private int maxPorHost = 20;
+    // Tempo máximo esperando uma conexão livre no pool
+    private int esperaConexaoMs = 1000;
+    // Keep-alive usado quando o servidor não informa o header Keep-Alive
+    private long keepAliveMs = 30000;
+    private long ociosaMaxMs = 60000;
+    private int validarAposInatividadeMs = 2000;
+
+    public int getMaxTotal() { return maxTotal; }
+    public void setMaxTotal(int maxTotal) { this.maxTotal = maxTotal; }
+    public int getMaxPorHost() { return maxPorHost; }
+    public void setMaxPorHost(int maxPorHost) { this.maxPorHost = maxPorHost; }
+    public int getEsperaConexaoMs() { return esperaConexaoMs; }
+    public void setEsperaConexaoMs(int esperaConexaoMs) { this.esperaConexaoMs = esperaConexaoMs; }
+    public long getKeepAliveMs() { return keepAliveMs; }
+    public void setKeepAliveMs(long keepAliveMs) { this.keepAliveMs = keepAliveMs; }
+    public long getOciosaMaxMs() { return ociosaMaxMs; }
+    public void setOciosaMaxMs(long ociosaMaxMs) { this.ociosaMaxMs = ociosaMaxMs; }
+    public int getValidarAposInatividadeMs() { return validarAposInatividadeMs; }
+    public void setValidarAposInatividadeMs(int validarAposInatividadeMs) { this.validarAposInatividadeMs = validarAposInatividadeMs; }
+}
+
+public static class Host {
+    private String url;
+    private int maxConexoes = 20;
+
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+    public int getMaxConexoes() { return maxConexoes; }
+    public void setMaxConexoes(int maxConexoes) { this.maxConexoes = maxConexoes; }
+}
+
+public static class Timeouts {
+    private int conexaoMs = 2000;
+    private int leituraMs = 5000;
+    // Prazo total da chamada (conexão + envio + resposta); 0 desliga
+    private long prazoTotalMs = 8000;
+
+    public int getConexaoMs() { return conexaoMs; }
+    public void setConexaoMs(int conexaoMs) { this.conexaoMs = conexaoMs; }
+    public int getLeituraMs() { return leituraMs; }
+    public void setLeituraMs(int leituraMs) { this.leituraMs = leituraMs; }
+    public long getPrazoTotalMs() { return prazoTotalMs; }
+    public void setPrazoTotalMs(long prazoTotalMs) { this.prazoTotalMs = prazoTotalMs; }
+}
+}
@@ -0,0 +1,39 @@
+package bicicletario.aluguel.config;
+
+import bicicletario.idempotencia.ArmazemIdempotencia;
+import bicicletario.idempotencia.IdempotenciaFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Idempotency-Key nos endpoints que alteram estado (AluguelController ou
+ * AluguelReativoController):
+ * POST /aluguel (cobra a taxa e destranca) e POST /devolucao.
+ *
+ * As classes vêm de bicicletario.idempotencia (código comum com o Externo, em
+ * idempotencia/ na raiz do repositório). O pacote entra no escaneamento de
+ * entidades e repositórios do Spring Boot (RespostaIdempotente).
+ */
+@Configuration
+@AutoConfigurationPackage(basePackageClasses = ArmazemIdempotencia.class)
+public class IdempotenciaConfig {
+
+@Bean
+public ArmazemIdempotencia armazemIdempotencia() {
+    return new ArmazemIdempotencia();
+}
+
+@Bean
+public FilterRegistrationBean<IdempotenciaFilter> idempotenciaFilter(
+        ArmazemIdempotencia armazem, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+    FilterRegistrationBean<IdempotenciaFilter> registro =
+            new FilterRegistrationBean<>(new IdempotenciaFilter(armazem, meterRegistry, objectMapper));
+    registro.setName("idempotenciaFilter");
+    registro.addUrlPatterns("/aluguel", "/devolucao");
+    return registro;
+}
+}
@@ -0,0 +1,28 @@
+package bicicletario.aluguel.config;
+
+import bicicletario.aluguel.service.RegistroAlugueisAtivos;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Métricas de negócio expostas em /actuator/prometheus.
+ * Latência dos endpoints (http.server.requests) e das chamadas remotas
+ * (http.client.requests) vem do próprio Spring Boot; os percentis são ligados
+ * no application.properties (management.metrics.distribution.*).
+ */
+@Configuration
+public class MetricasConfig {
+
+// ObjectProvider: o registro carrega do banco na subida, e o JPA por sua vez
+// registra métricas no MeterRegistry; resolver na hora evita a dependência circular
+@Bean
+public MeterBinder metricasAlugueisAtivos(ObjectProvider<RegistroAlugueisAtivos> alugueisAtivos) {
+    return registry -> Gauge.builder("aluguel.ativos", alugueisAtivos, registro -> registro.getObject().quantidade())
+            .description("Aluguéis em andamento (horaFim nula)")
+            .strongReference(true)
+            .register(registry);
+}
+}
@@ -0,0 +1,44 @@
+package bicicletario.aluguel.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Pool de conexões da thread atual (BancoConfig). Tudo vai para o pool OLTP,
+ * dimensionado para as transações curtas de aluguel/devolução/cadastro;
+ * leituras longas (histórico, exportações) rodam dentro de noRelatorio(...)
+ * e usam o pool de relatório, sem tomar conexões das transações curtas.
+ *
+ * Vale para a conexão física pega DENTRO do bloco (o DataSource é preguiçoso,
+ * LazyConnectionDataSourceProxy, e só escolhe o pool no primeiro comando SQL):
+ * o bloco deve envolver a transação inteira, não rodar dentro de uma já aberta.
+ * Sem pool de relatório configurado (H2, o padrão) não muda nada.
+ */
+public final class RotaBanco {
+
+public static final String OLTP = "oltp";
+public static final String RELATORIO = "relatorio";
+
+private static final ThreadLocal<String> atual = new ThreadLocal<>();
+
+private RotaBanco() {
+}
+
+public static <T> T noRelatorio(Supplier<T> leitura) {
+    String anterior = atual.get();
+    atual.set(RELATORIO);
+    try {
+        return leitura.get();
+    } finally {
+        if (anterior == null) {
+            atual.remove();
+        } else {
+            atual.set(anterior);
+        }
+    }
+}
+
+static String atual() {
+    String pool = atual.get();
+    return pool == null ? OLTP : pool;
+}
+}
@@ -0,0 +1,48 @@
+package bicicletario.aluguel.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executores de threads virtuais (Java 21+) para o modo
+ * aluguel.execucao.modo=virtual.
+ *
+ * O código continua compilando para Java 8: a API é acessada por reflexão.
+ * Numa JVM sem threads virtuais a subida falha aqui, com a versão encontrada,
+ * em vez de cair silenciosamente em threads de plataforma.
+ */
+public final class ThreadsVirtuais {
+
+private ThreadsVirtuais() {
+}
+
+/**
+ * Uma thread virtual nova por tarefa (Executors.newThreadPerTaskExecutor),
+ * com nomes prefixo0, prefixo1, ...
+ */
+public static ExecutorService executorPorTarefa(String prefixo) {
+    try {
+        Object construtor = Thread.class.getMethod("ofVirtual").invoke(null);
+        Class<?> tipoConstrutor = Class.forName("java.lang.Thread$Builder");
+        construtor = tipoConstrutor.getMethod("name", String.class, long.class).invoke(construtor, prefixo, 0L);
+        ThreadFactory fabrica = (ThreadFactory) tipoConstrutor.getMethod("factory").invoke(construtor);
+        Method porTarefa = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        return (ExecutorService) porTarefa.invoke(null, fabrica);
+    } catch (NoSuchMethodException | ClassNotFoundException e) {
+        throw indisponivel(e);
+    } catch (InvocationTargetException e) {
+        // Java 19/20: API em preview, sem --enable-preview lança UnsupportedOperationException
+        throw indisponivel(e.getCause());
+    } catch (IllegalAccessException e) {
+        throw indisponivel(e);
+    }
+}
+
+private static IllegalStateException indisponivel(Throwable causa) {
+    return new IllegalStateException("aluguel.execucao.modo=virtual requer Java 21 ou mais recente (JVM atual: "
+            + System.getProperty("java.version") + ")", causa);
+}
+}
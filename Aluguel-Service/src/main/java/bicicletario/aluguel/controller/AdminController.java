@@ -0,0 +1,212 @@
+package bicicletario.aluguel.controller;
+
+import bicicletario.aluguel.dto.EstadoCacheDTO;
+import bicicletario.aluguel.dto.ErroDTO;
+import bicicletario.aluguel.dto.EstadoFiltroEmailsDTO;
+import bicicletario.aluguel.dto.EstadoPoolDTO;
+import bicicletario.aluguel.dto.EstadoSnapshotDTO;
+import bicicletario.aluguel.model.TabelaTarifa;
+import bicicletario.aluguel.resiliencia.CircuitBreakerRegistry;
+import bicicletario.aluguel.resiliencia.EstadoCircuito;
+import bicicletario.aluguel.service.FiltroEmailsCiclistas;
+import bicicletario.aluguel.service.SnapshotInicializacao;
+import bicicletario.aluguel.tarifa.MotorTarifa;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Endpoints de diagnóstico para a operação (não fazem parte dos casos de uso).
+ */
+@RestController
+public class AdminController {
+
+@Autowired
+private CircuitBreakerRegistry circuitos;
+@Autowired
+private FiltroEmailsCiclistas filtroEmails;
+@Autowired
+private CacheManager cacheManager;
+@Autowired
+private MotorTarifa motorTarifa;
+@Autowired
+private SnapshotInicializacao snapshot;
+@Autowired
+private ObjectProvider<HikariDataSource> pools;
+@Autowired
+private MeterRegistry meterRegistry;
+
+/**
+ * Estado dos circuit breakers das chamadas remotas.
+ * ABERTO = as chamadas daquela operação estão sendo atendidas pelo Mock.
+ * [GET /admin/circuitos]
+ */
+@GetMapping("/admin/circuitos")
+public ResponseEntity<List<EstadoCircuito>> listarCircuitos() {
+    return ResponseEntity.ok(circuitos.listarEstados());
+}
+
+/**
+ * Tamanho, taxa de falso positivo estimada e contadores do filtro de emails
+ * usado pelo GET /ciclista/existeEmail.
+ * [GET /admin/emails]
+ */
+@GetMapping("/admin/emails")
+public ResponseEntity<EstadoFiltroEmailsDTO> estadoFiltroEmails() {
+    return ResponseEntity.ok(filtroEmails.getEstado());
+}
+
+/**
+ * Remonta o filtro a partir do banco (descarta emails alterados/apagados e
+ * redimensiona se a base cresceu além da capacidade).
+ * [POST /admin/emails/reconstruir]
+ */
+@PostMapping("/admin/emails/reconstruir")
+public ResponseEntity<EstadoFiltroEmailsDTO> reconstruirFiltroEmails() {
+    return ResponseEntity.ok(filtroEmails.reconstruir());
+}
+
+/**
+ * Taxa de acerto dos caches de leitura de Ciclista e CartaoDeCredito.
+ * [GET /admin/caches]
+ */
+@GetMapping("/admin/caches")
+public ResponseEntity<List<EstadoCacheDTO>> listarCaches() {
+    List<EstadoCacheDTO> estados = new ArrayList<>();
+    for (String nome : cacheManager.getCacheNames()) {
+        Cache cache = cacheManager.getCache(nome);
+        if (!(cache instanceof CaffeineCache)) {
+            continue;
+        }
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativo = ((CaffeineCache) cache).getNativeCache();
+        CacheStats stats = nativo.stats();
+        EstadoCacheDTO estado = new EstadoCacheDTO();
+        estado.setNome(nome);
+        estado.setEntradas(nativo.estimatedSize());
+        estado.setAcertos(stats.hitCount());
+        estado.setFaltas(stats.missCount());
+        estado.setTaxaAcerto(stats.hitRate());
+        estado.setRemocoes(stats.evictionCount());
+        estados.add(estado);
+    }
+    return ResponseEntity.ok(estados);
+}
+
+/**
+ * Estado dos pools de conexões (OLTP e relatório no perfil postgresql) e o
+ * tempo de espera por conexão (métrica hikaricp.connections.acquire).
+ * [GET /admin/pools]
+ */
+@GetMapping("/admin/pools")
+public ResponseEntity<List<EstadoPoolDTO>> listarPools() {
+    List<EstadoPoolDTO> estados = new ArrayList<>();
+    for (HikariDataSource pool : pools) {
+        EstadoPoolDTO estado = new EstadoPoolDTO();
+        estado.setNome(pool.getPoolName());
+        estado.setMaximo(pool.getMaximumPoolSize());
+        estado.setMinimoOcioso(pool.getMinimumIdle());
+        estado.setPrazoConexaoMs(pool.getConnectionTimeout());
+        // Nulo até a primeira conexão (o Hikari só abre o pool quando é usado)
+        HikariPoolMXBean situacao = pool.getHikariPoolMXBean();
+        if (situacao != null) {
+            estado.setAtivas(situacao.getActiveConnections());
+            estado.setOciosas(situacao.getIdleConnections());
+            estado.setTotal(situacao.getTotalConnections());
+            estado.setAguardando(situacao.getThreadsAwaitingConnection());
+            estado.setSaturacao((double) situacao.getActiveConnections() / pool.getMaximumPoolSize());
+            medirEspera(pool.getPoolName(), estado);
+        }
+        estados.add(estado);
+    }
+    estados.sort(Comparator.comparing(EstadoPoolDTO::getNome, Comparator.nullsFirst(Comparator.<String>naturalOrder())));
+    return ResponseEntity.ok(estados);
+}
+
+private void medirEspera(String pool, EstadoPoolDTO estado) {
+    Timer espera = meterRegistry.find("hikaricp.connections.acquire").tag("pool", pool).timer();
+    if (espera != null) {
+        estado.setEsperaMediaMs(espera.mean(TimeUnit.MILLISECONDS));
+        estado.setEsperaMaximaMs(espera.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentil : espera.takeSnapshot().percentileValues()) {
+            if (percentil.percentile() == 0.99) {
+                estado.setEsperaP99Ms(percentil.value(TimeUnit.MILLISECONDS));
+            }
+        }
+    }
+    Counter timeouts = meterRegistry.find("hikaricp.connections.timeout").tag("pool", pool).counter();
+    if (timeouts != null) {
+        estado.setTimeouts((long) timeouts.count());
+    }
+}
+
+/**
+ * Todas as versões da tabela de tarifa da taxa extra.
+ * [GET /admin/tarifas]
+ */
+@GetMapping("/admin/tarifas")
+public ResponseEntity<List<TabelaTarifa>> listarTarifas() {
+    return ResponseEntity.ok(motorTarifa.listar());
+}
+
+/**
+ * Publica uma nova versão da tabela (o número da versão é gerado). Aluguéis
+ * retirados antes de 'vigenteDesde' continuam na versão anterior.
+ * 409 se outras instâncias publicaram ao mesmo tempo e o número não foi obtido.
+ * [POST /admin/tarifas]
+ */
+@PostMapping("/admin/tarifas")
+public ResponseEntity<TabelaTarifa> publicarTarifa(@RequestBody TabelaTarifa tabela) {
+    try {
+        return ResponseEntity.status(HttpStatus.CREATED).body(motorTarifa.publicar(tabela));
+    } catch (IllegalArgumentException e) {
+        return ResponseEntity.unprocessableEntity().build();
+    } catch (DataIntegrityViolationException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+}
+
+/**
+ * Snapshot de inicialização: última gravação e tempo economizado na subida.
+ * [GET /admin/snapshot]
+ */
+@GetMapping("/admin/snapshot")
+public ResponseEntity<EstadoSnapshotDTO> estadoSnapshot() {
+    return ResponseEntity.ok(snapshot.getEstado());
+}
+
+/**
+ * Grava o snapshot agora (ex: antes de um restart planejado que não passa
+ * pelo desligamento normal).
+ * [POST /admin/snapshot/gravar]
+ */
+@PostMapping("/admin/snapshot/gravar")
+public ResponseEntity<?> gravarSnapshot() {
+    try {
+        return ResponseEntity.ok(snapshot.gravar());
+    } catch (IOException e) {
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ErroDTO("snapshot", e.getMessage()));
+    }
+}
+}
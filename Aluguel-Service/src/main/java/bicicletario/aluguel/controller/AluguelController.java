@@ -0,0 +1,67 @@
+package bicicletario.aluguel.controller;
+
+import bicicletario.aluguel.dto.DevolucaoDTO;
+import bicicletario.aluguel.dto.NovoAluguelDTO;
+import bicicletario.aluguel.model.Aluguel;
+import bicicletario.aluguel.model.Devolucao;
+import bicicletario.aluguel.service.AluguelService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+/**
+ * Aluguel e devolução nos modos bloqueante (padrão) e virtual: a thread da
+ * requisição acompanha o fluxo inteiro. No modo reativo quem atende é o
+ * AluguelReativoController.
+ */
+@RestController
+@ConditionalOnExpression("'${aluguel.execucao.modo:bloqueante}' != 'reativo'")
+public class AluguelController {
+
+@Autowired
+private AluguelService aluguelService;
+
+/**
+ * Caso de Uso: UC03 - Alugar bicicleta
+ */
+@PostMapping("/aluguel")
+public ResponseEntity<?> realizarAluguel(@Valid @RequestBody NovoAluguelDTO dto) {
+    try {
+        Aluguel aluguel = aluguelService.realizarAluguel(dto);
+        return ResponseEntity.ok(aluguel);
+    } catch (IllegalArgumentException e) {
+        return aluguelRecusado(e);
+    }
+}
+
+/**
+ * Caso de Uso: UC04 - Devolver bicicleta
+ */
+@PostMapping("/devolucao")
+public ResponseEntity<Devolucao> realizarDevolucao(@Valid @RequestBody DevolucaoDTO dto) {
+    try {
+        Devolucao devolucao = aluguelService.realizarDevolucao(dto);
+        return ResponseEntity.ok(devolucao);
+    } catch (IllegalArgumentException e) {
+        return devolucaoRecusada(e);
+    }
+}
+
+// CORREÇÃO RÁPIDA: Retorna a mensagem de erro no corpo (que contém o JSON do Equipamento)
+static ResponseEntity<?> aluguelRecusado(IllegalArgumentException e) {
+    return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+}
+
+static ResponseEntity<Devolucao> devolucaoRecusada(IllegalArgumentException e) {
+    if (e.getMessage() != null && e.getMessage().contains("Nenhum aluguel ativo")) {
+        return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+}
+}
@@ -0,0 +1,65 @@
+package bicicletario.aluguel.controller;
+
+import bicicletario.aluguel.config.ExecucaoConfig;
+import bicicletario.aluguel.dto.DevolucaoDTO;
+import bicicletario.aluguel.dto.NovoAluguelDTO;
+import bicicletario.aluguel.service.AluguelService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Aluguel e devolução no modo reativo (aluguel.execucao.modo=reativo).
+ * Mesmas respostas do AluguelController, mas devolvendo o CompletableFuture:
+ * o Spring MVC libera a thread do Tomcat e escreve a resposta quando o futuro
+ * completar (servlet assíncrono).
+ */
+@RestController
+@ConditionalOnProperty(name = ExecucaoConfig.MODO, havingValue = ExecucaoConfig.REATIVO)
+public class AluguelReativoController {
+
+@Autowired
+private AluguelService aluguelService;
+
+/**
+ * Caso de Uso: UC03 - Alugar bicicleta
+ */
+@PostMapping("/aluguel")
+public CompletableFuture<ResponseEntity<?>> realizarAluguel(@Valid @RequestBody NovoAluguelDTO dto) {
+    return aluguelService.realizarAluguelAsync(dto).<ResponseEntity<?>>handle((aluguel, erro) -> {
+        if (erro == null) {
+            return ResponseEntity.ok(aluguel);
+        }
+        return AluguelController.aluguelRecusado(recusa(erro));
+    });
+}
+
+/**
+ * Caso de Uso: UC04 - Devolver bicicleta
+ */
+@PostMapping("/devolucao")
+public CompletableFuture<ResponseEntity<?>> realizarDevolucao(@Valid @RequestBody DevolucaoDTO dto) {
+    return aluguelService.realizarDevolucaoAsync(dto).<ResponseEntity<?>>handle((devolucao, erro) -> {
+        if (erro == null) {
+            return ResponseEntity.ok(devolucao);
+        }
+        return AluguelController.devolucaoRecusada(recusa(erro));
+    });
+}
+
+// Recusa de negócio (IllegalArgumentException) vira resposta; o resto segue como erro (500)
+private static IllegalArgumentException recusa(Throwable erro) {
+    Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+    if (causa instanceof IllegalArgumentException) {
+        return (IllegalArgumentException) causa;
+    }
+    throw erro instanceof CompletionException ? (CompletionException) erro : new CompletionException(causa);
+}
+}
@@ -8,10 +8,10 @@ import bicicletario.aluguel.mock.EquipamentoService;
 import bicicletario.aluguel.model.Aluguel;
 import bicicletario.aluguel.model.CartaoDeCredito;
 import bicicletario.aluguel.model.Ciclista;
-import bicicletario.aluguel.repository.AluguelRepository;
-import bicicletario.aluguel.repository.CartaoDeCreditoRepository;
-import bicicletario.aluguel.repository.CiclistaRepository;
+import bicicletario.aluguel.service.CacheCiclistas;
 import bicicletario.aluguel.service.CiclistaService;
+import bicicletario.aluguel.service.FiltroEmailsCiclistas;
+import bicicletario.aluguel.service.RegistroAlugueisAtivos;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -26,15 +26,16 @@ public class CiclistaController {
 @Autowired
 private CiclistaService ciclistaService; // O novo Service
 
-// Repositórios mantidos apenas para LEITURA (GET) direta
+// Leituras (GET) por id passam pelo cache; escritas ficam no CiclistaService
 @Autowired
-private CiclistaRepository ciclistaRepository;
+private CacheCiclistas cacheCiclistas;
+// Aluguéis ativos ficam em memória: permiteAluguel/bicicletaAlugada só vão ao banco na falta
 @Autowired
-private CartaoDeCreditoRepository cartaoRepository;
-@Autowired
-private AluguelRepository aluguelRepository;
+private RegistroAlugueisAtivos alugueisAtivos;
 @Autowired
 private EquipamentoService equipamentoService;
+@Autowired
+private FiltroEmailsCiclistas filtroEmails;
 
 /**
  * Caso de Uso: UC01 - Cadastrar Ciclista
@@ -56,7 +57,7 @@ public ResponseEntity<Ciclista> cadastrarCiclista(@Valid @RequestBody CadastroCi
  */
 @GetMapping("/ciclista/{idCiclista}")
 public ResponseEntity<Ciclista> recuperarCiclista(@PathVariable Integer idCiclista) {
-    Optional<Ciclista> ciclistaOptional = ciclistaRepository.findById(idCiclista);
+    Optional<Ciclista> ciclistaOptional = cacheCiclistas.buscarCiclista(idCiclista);
     if (ciclistaOptional.isPresent()) {
         return ResponseEntity.ok(ciclistaOptional.get());
     } else {
@@ -103,11 +104,10 @@ public ResponseEntity<Ciclista> ativarCiclista(@PathVariable Integer idCiclista)
  */
 @GetMapping("/ciclista/{idCiclista}/permiteAluguel")
 public ResponseEntity<Boolean> permiteAluguel(@PathVariable Integer idCiclista) {
-    if (!ciclistaRepository.existsById(idCiclista)) {
+    if (!cacheCiclistas.buscarCiclista(idCiclista).isPresent()) {
         return ResponseEntity.notFound().build();
     }
-    Optional<Aluguel> aluguelAtivo = aluguelRepository.findByCiclistaAndHoraFimIsNull(idCiclista);
-    boolean podeAlugar = !aluguelAtivo.isPresent();
+    boolean podeAlugar = !alugueisAtivos.ciclistaTemAluguelAtivo(idCiclista);
     return ResponseEntity.ok(podeAlugar);
 }
 
@@ -117,12 +117,12 @@ public ResponseEntity<Boolean> permiteAluguel(@PathVariable Integer idCiclista)
  */
 @GetMapping("/ciclista/{idCiclista}/bicicletaAlugada")
 public ResponseEntity<Object> getBicicletaAlugada(@PathVariable Integer idCiclista) {
-    if (!ciclistaRepository.existsById(idCiclista)) {
+    if (!cacheCiclistas.buscarCiclista(idCiclista).isPresent()) {
         return ResponseEntity.notFound().build();
     }
-    Optional<Aluguel> aluguelAtivo = aluguelRepository.findByCiclistaAndHoraFimIsNull(idCiclista);
-    if (aluguelAtivo.isPresent()) {
-        Integer bicicletaId = aluguelAtivo.get().getBicicleta();
+    Optional<Integer> bicicletaAlugada = alugueisAtivos.doCiclista(idCiclista).map(Aluguel::getBicicleta);
+    if (bicicletaAlugada.isPresent()) {
+        Integer bicicletaId = bicicletaAlugada.get();
         BicicletaDTO bicicletaMock = equipamentoService.getBicicleta(bicicletaId);
         return ResponseEntity.ok(bicicletaMock);
     } else {
@@ -136,7 +136,8 @@ public ResponseEntity<Object> getBicicletaAlugada(@PathVariable Integer idCiclis
  */
 @GetMapping("/ciclista/existeEmail/{email}")
 public ResponseEntity<Boolean> existeEmail(@PathVariable String email) {
-    boolean emailEmUso = ciclistaRepository.existsByEmail(email);
+    // Filtro de Bloom na frente: email nunca cadastrado responde sem ir ao banco
+    boolean emailEmUso = filtroEmails.emailEmUso(email);
     return ResponseEntity.ok(emailEmUso);
 }
 
@@ -146,7 +147,7 @@ public ResponseEntity<Boolean> existeEmail(@PathVariable String email) {
  */
 @GetMapping("/cartaoDeCredito/{idCiclista}")
 public ResponseEntity<CartaoDeCredito> getCartaoDeCredito(@PathVariable Integer idCiclista) {
-    Optional<CartaoDeCredito> cartaoOptional = cartaoRepository.findByIdCiclista(idCiclista);
+    Optional<CartaoDeCredito> cartaoOptional = cacheCiclistas.buscarCartao(idCiclista);
     if (cartaoOptional.isPresent()) {
         return ResponseEntity.ok(cartaoOptional.get());
     } else {
@@ -1,21 +1,41 @@
 package bicicletario.aluguel.controller;
 
+import bicicletario.aluguel.config.RotaBanco;
 import bicicletario.aluguel.dto.NovoFuncionarioDTO;
 import bicicletario.aluguel.model.Funcionario;
 import bicicletario.aluguel.repository.FuncionarioRepository;
 import bicicletario.aluguel.service.FuncionarioService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @RestController
 public class FuncionarioController {
 
+public static final String CABECALHO_TOTAL = "X-Total-Count";
+private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+// Linhas acumuladas antes de cada flush na exportação
+private static final int LINHAS_POR_FLUSH = 500;
+
 @Autowired
 private FuncionarioService funcionarioService;
 
@@ -23,6 +43,9 @@ private FuncionarioService funcionarioService;
 @Autowired
 private FuncionarioRepository repository;
 
+@Autowired
+private ObjectMapper objectMapper;
+
 /**
  * Caso de Uso: UC15 - Manter Cadastro de Funcionário (Fluxo Principal, Passo 3-8)
  * [POST /funcionario]
@@ -40,12 +63,65 @@ public ResponseEntity<Funcionario> cadastrarFuncionario(@Valid @RequestBody Novo
 
 /**
  * Caso de Uso: UC15 - Manter Cadastro de Funcionário (Fluxo Principal, Passo 1)
- * [GET /funcionario]
+ * [GET /funcionario?page=0&size=50&sort=nome,asc]
+ * O corpo continua sendo a lista (só da página pedida); o total vai em
+ * X-Total-Count e as páginas vizinhas no cabeçalho Link.
  */
 @GetMapping("/funcionario")
-public ResponseEntity<List<Funcionario>> recuperarFuncionarios() {
-    List<Funcionario> funcionarios = funcionarioService.recuperarTodos();
-    return ResponseEntity.ok(funcionarios);
+public ResponseEntity<List<Funcionario>> recuperarFuncionarios(
+        @PageableDefault(size = 50, sort = "id", direction = Sort.Direction.ASC) Pageable pagina) {
+    Page<Funcionario> funcionarios = funcionarioService.recuperarPagina(pagina);
+    HttpHeaders cabecalhos = new HttpHeaders();
+    cabecalhos.set(CABECALHO_TOTAL, String.valueOf(funcionarios.getTotalElements()));
+    List<String> links = new ArrayList<>();
+    if (funcionarios.hasPrevious()) {
+        links.add(link(funcionarios.getNumber() - 1, "prev"));
+    }
+    if (funcionarios.hasNext()) {
+        links.add(link(funcionarios.getNumber() + 1, "next"));
+    }
+    if (!links.isEmpty()) {
+        cabecalhos.set(HttpHeaders.LINK, String.join(", ", links));
+    }
+    return ResponseEntity.ok().headers(cabecalhos).body(funcionarios.getContent());
+}
+
+/**
+ * Exportação completa em NDJSON (um funcionário JSON por linha), escrita
+ * enquanto o banco é lido: memória constante qualquer que seja o tamanho da tabela.
+ * [GET /funcionario/exportar]
+ */
+@GetMapping(value = "/funcionario/exportar", produces = "application/x-ndjson")
+public ResponseEntity<StreamingResponseBody> exportarFuncionarios() {
+    StreamingResponseBody corpo = saida -> {
+        JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida);
+        gerador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gerador.setRootValueSeparator(null);
+        try {
+            // Pool de relatório: a exportação segura a conexão enquanto o cliente lê
+            RotaBanco.noRelatorio(() -> funcionarioService.paraCada(new Consumer<Funcionario>() {
+                private int linhas;
+
+                @Override
+                public void accept(Funcionario funcionario) {
+                    try {
+                        gerador.writeObject(funcionario);
+                        gerador.writeRaw('\n');
+                        if (++linhas % LINHAS_POR_FLUSH == 0) {
+                            gerador.flush();
+                        }
+                    } catch (IOException e) {
+                        // Cliente desconectou: interrompe a leitura do banco
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        gerador.flush();
+    };
+    return ResponseEntity.ok().contentType(NDJSON).body(corpo);
 }
 
 /**
@@ -95,4 +171,11 @@ public ResponseEntity<Void> removerFuncionario(@PathVariable Integer idFuncionar
         return ResponseEntity.notFound().build();
     }
 }
+
+private String link(int numeroPagina, String rel) {
+    String uri = ServletUriComponentsBuilder.fromCurrentRequest()
+            .replaceQueryParam("page", numeroPagina)
+            .toUriString();
+    return "<" + uri + ">; rel=\"" + rel + "\"";
+}
 }
\ No newline at end of file
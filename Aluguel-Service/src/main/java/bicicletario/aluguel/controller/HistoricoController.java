@@ -0,0 +1,89 @@
+package bicicletario.aluguel.controller;
+
+import bicicletario.aluguel.dto.ErroDTO;
+import bicicletario.aluguel.dto.PaginaAlugueisDTO;
+import bicicletario.aluguel.service.HistoricoAluguelService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+/**
+ * Histórico de aluguéis para a operação (antes feito com SQL direto na tabela).
+ * Todos aceitam ?de=&ate= (ISO, ex: 2024-03-01T00:00:00; 'ate' exclusivo),
+ * ?limite= (padrão 50, máximo 500) e ?cursor= (o proximoCursor da página anterior).
+ */
+@RestController
+public class HistoricoController {
+
+@Autowired
+private HistoricoAluguelService historicoService;
+
+/**
+ * [GET /ciclista/{idCiclista}/alugueis]
+ */
+@GetMapping("/ciclista/{idCiclista}/alugueis")
+public ResponseEntity<Object> alugueisDoCiclista(
+        @PathVariable Integer idCiclista,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limite) {
+    return responder(() -> historicoService.doCiclista(idCiclista, de, ate, cursor, limite));
+}
+
+/**
+ * [GET /bicicleta/{idBicicleta}/alugueis]
+ */
+@GetMapping("/bicicleta/{idBicicleta}/alugueis")
+public ResponseEntity<Object> alugueisDaBicicleta(
+        @PathVariable Integer idBicicleta,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limite) {
+    return responder(() -> historicoService.daBicicleta(idBicicleta, de, ate, cursor, limite));
+}
+
+/**
+ * Aluguéis retirados na tranca.
+ * [GET /tranca/{idTranca}/alugueis]
+ */
+@GetMapping("/tranca/{idTranca}/alugueis")
+public ResponseEntity<Object> alugueisDaTranca(
+        @PathVariable Integer idTranca,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limite) {
+    return responder(() -> historicoService.daTranca(idTranca, de, ate, cursor, limite));
+}
+
+/**
+ * Todos os aluguéis iniciados no período.
+ * [GET /alugueis?de=&ate=]
+ */
+@GetMapping("/alugueis")
+public ResponseEntity<Object> alugueisDoPeriodo(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limite) {
+    return responder(() -> historicoService.doPeriodo(de, ate, cursor, limite));
+}
+
+// Cursor adulterado ou período invertido: 400
+private ResponseEntity<Object> responder(Supplier<PaginaAlugueisDTO> consulta) {
+    try {
+        return ResponseEntity.ok(consulta.get());
+    } catch (IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(new ErroDTO("consulta", e.getMessage()));
+    }
+}
+}
@@ -1,30 +1,19 @@
 package bicicletario.aluguel.controller;
 
-import bicicletario.aluguel.dto.DevolucaoDTO;
-import bicicletario.aluguel.dto.NovoAluguelDTO;
-import bicicletario.aluguel.model.Aluguel;
 import bicicletario.aluguel.model.CartaoDeCredito;
 import bicicletario.aluguel.model.Ciclista;
-import bicicletario.aluguel.model.Devolucao;
 import bicicletario.aluguel.repository.*;
-import bicicletario.aluguel.service.AluguelService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.*;
 
-import javax.validation.Valid;
-
+// POST /aluguel e /devolucao: AluguelController ou AluguelReativoController, conforme aluguel.execucao.modo
 @RestController
 public class OperacaoController {
 
-@Autowired
-private AluguelService aluguelService;
-
 // Repositórios para o Restaurar Dados
 @Autowired private AluguelRepository aluguelRepository;
-@Autowired private DevolucaoRepository devolucaoRepository;
 @Autowired private FuncionarioRepository funcionarioRepository;
 @Autowired private CiclistaRepository ciclistaRepository;
 @Autowired private CartaoDeCreditoRepository cartaoDeCreditoRepository;
@@ -32,36 +21,6 @@ private AluguelService aluguelService;
 // Utilitário para resetar os IDs do banco (Essencial para o H2)
 @Autowired private JdbcTemplate jdbcTemplate;
 
-/**
- * Caso de Uso: UC03 - Alugar bicicleta
- */
-@PostMapping("/aluguel")
-public ResponseEntity<?> realizarAluguel(@Valid @RequestBody NovoAluguelDTO dto) {
-    try {
-        Aluguel aluguel = aluguelService.realizarAluguel(dto);
-        return ResponseEntity.ok(aluguel);
-    } catch (IllegalArgumentException e) {
-        // CORREÇÃO RÁPIDA: Retorna a mensagem de erro no corpo (que contém o JSON do Equipamento)
-        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
-    }
-}
-
-/**
- * Caso de Uso: UC04 - Devolver bicicleta
- */
-@PostMapping("/devolucao")
-public ResponseEntity<Devolucao> realizarDevolucao(@Valid @RequestBody DevolucaoDTO dto) {
-    try {
-        Devolucao devolucao = aluguelService.realizarDevolucao(dto);
-        return ResponseEntity.ok(devolucao);
-    } catch (IllegalArgumentException e) {
-        if (e.getMessage() != null && e.getMessage().contains("Nenhum aluguel ativo")) {
-            return ResponseEntity.notFound().build();
-        }
-        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
-    }
-}
-
 @GetMapping("/")
 public String getRootStatus() {
     return "O Microsserviço de Aluguel está online e operacional.";
@@ -75,7 +34,6 @@ public String getRootStatus() {
 public ResponseEntity<String> restaurarDados() {
     try {
         // 1. Limpar tabelas (Ordem importa para não dar erro de chave estrangeira)
-        devolucaoRepository.deleteAll();
         aluguelRepository.deleteAll();
         cartaoDeCreditoRepository.deleteAll();
         ciclistaRepository.deleteAll();
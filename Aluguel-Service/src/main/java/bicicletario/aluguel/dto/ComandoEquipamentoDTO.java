@@ -0,0 +1,50 @@
+package bicicletario.aluguel.dto;
+
+// Um item de POST /comandos/lote do Equipamento (trancar, destrancar ou alterar status)
+public class ComandoEquipamentoDTO {
+
+public static final String DESTRANCAR = "DESTRANCAR";
+public static final String TRANCAR = "TRANCAR";
+public static final String ALTERAR_STATUS = "ALTERAR_STATUS";
+
+private Long id; // Gerado pelo CanalComandosEquipamento; volta no ResultadoComandoDTO
+private String tipo;
+private Integer idTranca;
+private Integer idBicicleta;
+private String status; // Só em ALTERAR_STATUS
+
+public ComandoEquipamentoDTO() {
+    // Requerido pelo Jackson
+}
+
+private ComandoEquipamentoDTO(String tipo, Integer idTranca, Integer idBicicleta, String status) {
+    this.tipo = tipo;
+    this.idTranca = idTranca;
+    this.idBicicleta = idBicicleta;
+    this.status = status;
+}
+
+public static ComandoEquipamentoDTO destrancar(Integer idTranca) {
+    return new ComandoEquipamentoDTO(DESTRANCAR, idTranca, null, null);
+}
+
+public static ComandoEquipamentoDTO trancar(Integer idTranca, Integer idBicicleta) {
+    return new ComandoEquipamentoDTO(TRANCAR, idTranca, idBicicleta, null);
+}
+
+public static ComandoEquipamentoDTO alterarStatus(Integer idBicicleta, String status) {
+    return new ComandoEquipamentoDTO(ALTERAR_STATUS, null, idBicicleta, status);
+}
+
+// Getters e Setters
+public Long getId() { return id; }
+public void setId(Long id) { this.id = id; }
+public String getTipo() { return tipo; }
+public void setTipo(String tipo) { this.tipo = tipo; }
+public Integer getIdTranca() { return idTranca; }
+public void setIdTranca(Integer idTranca) { this.idTranca = idTranca; }
+public Integer getIdBicicleta() { return idBicicleta; }
+public void setIdBicicleta(Integer idBicicleta) { this.idBicicleta = idBicicleta; }
+public String getStatus() { return status; }
+public void setStatus(String status) { this.status = status; }
+}
@@ -0,0 +1,26 @@
+package bicicletario.aluguel.dto;
+
+// Estatísticas de um cache de leitura, expostas em /admin/caches
+public class EstadoCacheDTO {
+
+private String nome;
+private long entradas;
+private long acertos;
+private long faltas; // Foram ao banco
+private double taxaAcerto; // acertos / (acertos + faltas)
+private long remocoes; // Por tamanho ou validade (invalidações não contam)
+
+// Getters e Setters
+public String getNome() { return nome; }
+public void setNome(String nome) { this.nome = nome; }
+public long getEntradas() { return entradas; }
+public void setEntradas(long entradas) { this.entradas = entradas; }
+public long getAcertos() { return acertos; }
+public void setAcertos(long acertos) { this.acertos = acertos; }
+public long getFaltas() { return faltas; }
+public void setFaltas(long faltas) { this.faltas = faltas; }
+public double getTaxaAcerto() { return taxaAcerto; }
+public void setTaxaAcerto(double taxaAcerto) { this.taxaAcerto = taxaAcerto; }
+public long getRemocoes() { return remocoes; }
+public void setRemocoes(long remocoes) { this.remocoes = remocoes; }
+}
@@ -0,0 +1,32 @@
+package bicicletario.aluguel.dto;
+
+// Foto do filtro de emails, exposta em /admin/emails
+public class EstadoFiltroEmailsDTO {
+
+private long elementos;
+private long bits;
+private int funcoesHash;
+private long memoriaBytes;
+private double taxaFalsoPositivoEstimada;
+private long consultasNegativas; // Respondidas sem ir ao banco
+private long consultasTalvez; // Foram ao banco
+private long falsosPositivos; // Foram ao banco e o email não existia
+
+// Getters e Setters
+public long getElementos() { return elementos; }
+public void setElementos(long elementos) { this.elementos = elementos; }
+public long getBits() { return bits; }
+public void setBits(long bits) { this.bits = bits; }
+public int getFuncoesHash() { return funcoesHash; }
+public void setFuncoesHash(int funcoesHash) { this.funcoesHash = funcoesHash; }
+public long getMemoriaBytes() { return memoriaBytes; }
+public void setMemoriaBytes(long memoriaBytes) { this.memoriaBytes = memoriaBytes; }
+public double getTaxaFalsoPositivoEstimada() { return taxaFalsoPositivoEstimada; }
+public void setTaxaFalsoPositivoEstimada(double taxaFalsoPositivoEstimada) { this.taxaFalsoPositivoEstimada = taxaFalsoPositivoEstimada; }
+public long getConsultasNegativas() { return consultasNegativas; }
+public void setConsultasNegativas(long consultasNegativas) { this.consultasNegativas = consultasNegativas; }
+public long getConsultasTalvez() { return consultasTalvez; }
+public void setConsultasTalvez(long consultasTalvez) { this.consultasTalvez = consultasTalvez; }
+public long getFalsosPositivos() { return falsosPositivos; }
+public void setFalsosPositivos(long falsosPositivos) { this.falsosPositivos = falsosPositivos; }
+}
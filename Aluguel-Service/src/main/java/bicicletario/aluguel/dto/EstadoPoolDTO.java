@@ -0,0 +1,47 @@
+package bicicletario.aluguel.dto;
+
+// Foto de um pool de conexões (Hikari), exposta em /admin/pools
+public class EstadoPoolDTO {
+
+private String nome;
+private int maximo;
+private int minimoOcioso;
+private int ativas;
+private int ociosas;
+private int total;
+private int aguardando; // Threads esperando uma conexão agora
+private double saturacao; // ativas / maximo
+private long prazoConexaoMs; // connectionTimeout: espera máxima antes do erro
+private Double esperaMediaMs; // Tempo para obter conexão (null = sem métrica)
+private Double esperaP99Ms;
+private Double esperaMaximaMs;
+private Long timeouts; // Pedidos de conexão que estouraram o prazo
+
+// Getters e Setters
+public String getNome() { return nome; }
+public void setNome(String nome) { this.nome = nome; }
+public int getMaximo() { return maximo; }
+public void setMaximo(int maximo) { this.maximo = maximo; }
+public int getMinimoOcioso() { return minimoOcioso; }
+public void setMinimoOcioso(int minimoOcioso) { this.minimoOcioso = minimoOcioso; }
+public int getAtivas() { return ativas; }
+public void setAtivas(int ativas) { this.ativas = ativas; }
+public int getOciosas() { return ociosas; }
+public void setOciosas(int ociosas) { this.ociosas = ociosas; }
+public int getTotal() { return total; }
+public void setTotal(int total) { this.total = total; }
+public int getAguardando() { return aguardando; }
+public void setAguardando(int aguardando) { this.aguardando = aguardando; }
+public double getSaturacao() { return saturacao; }
+public void setSaturacao(double saturacao) { this.saturacao = saturacao; }
+public long getPrazoConexaoMs() { return prazoConexaoMs; }
+public void setPrazoConexaoMs(long prazoConexaoMs) { this.prazoConexaoMs = prazoConexaoMs; }
+public Double getEsperaMediaMs() { return esperaMediaMs; }
+public void setEsperaMediaMs(Double esperaMediaMs) { this.esperaMediaMs = esperaMediaMs; }
+public Double getEsperaP99Ms() { return esperaP99Ms; }
+public void setEsperaP99Ms(Double esperaP99Ms) { this.esperaP99Ms = esperaP99Ms; }
+public Double getEsperaMaximaMs() { return esperaMaximaMs; }
+public void setEsperaMaximaMs(Double esperaMaximaMs) { this.esperaMaximaMs = esperaMaximaMs; }
+public Long getTimeouts() { return timeouts; }
+public void setTimeouts(Long timeouts) { this.timeouts = timeouts; }
+}
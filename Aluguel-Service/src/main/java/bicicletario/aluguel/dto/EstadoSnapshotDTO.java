@@ -0,0 +1,34 @@
+package bicicletario.aluguel.dto;
+
+import java.time.LocalDateTime;
+
+// Situação do snapshot de inicialização, exposta em /admin/snapshot
+public class EstadoSnapshotDTO {
+
+private boolean habilitado;
+private String arquivo;
+private LocalDateTime ultimaGravacao; // Gravado por esta instância ou lido na subida
+private long tamanhoBytes;
+private Long custoCargaCompletaMs; // Última carga completa medida (null = nunca)
+private Long restauracaoMs; // Subida por este snapshot (null = carga completa)
+private long tempoEconomizadoMs;
+private String ultimoErro;
+
+// Getters e Setters
+public boolean isHabilitado() { return habilitado; }
+public void setHabilitado(boolean habilitado) { this.habilitado = habilitado; }
+public String getArquivo() { return arquivo; }
+public void setArquivo(String arquivo) { this.arquivo = arquivo; }
+public LocalDateTime getUltimaGravacao() { return ultimaGravacao; }
+public void setUltimaGravacao(LocalDateTime ultimaGravacao) { this.ultimaGravacao = ultimaGravacao; }
+public long getTamanhoBytes() { return tamanhoBytes; }
+public void setTamanhoBytes(long tamanhoBytes) { this.tamanhoBytes = tamanhoBytes; }
+public Long getCustoCargaCompletaMs() { return custoCargaCompletaMs; }
+public void setCustoCargaCompletaMs(Long custoCargaCompletaMs) { this.custoCargaCompletaMs = custoCargaCompletaMs; }
+public Long getRestauracaoMs() { return restauracaoMs; }
+public void setRestauracaoMs(Long restauracaoMs) { this.restauracaoMs = restauracaoMs; }
+public long getTempoEconomizadoMs() { return tempoEconomizadoMs; }
+public void setTempoEconomizadoMs(long tempoEconomizadoMs) { this.tempoEconomizadoMs = tempoEconomizadoMs; }
+public String getUltimoErro() { return ultimoErro; }
+public void setUltimoErro(String ultimoErro) { this.ultimoErro = ultimoErro; }
+}
@@ -0,0 +1,23 @@
+package bicicletario.aluguel.dto;
+
+// Um item de POST /cobrancas/lote do Externo (schema 'NovaCobranca')
+public class NovaCobrancaDTO {
+
+private Double valor;
+private Integer ciclista;
+
+public NovaCobrancaDTO() {
+    // Requerido pelo Jackson
+}
+
+public NovaCobrancaDTO(Double valor, Integer ciclista) {
+    this.valor = valor;
+    this.ciclista = ciclista;
+}
+
+// Getters e Setters
+public Double getValor() { return valor; }
+public void setValor(Double valor) { this.valor = valor; }
+public Integer getCiclista() { return ciclista; }
+public void setCiclista(Integer ciclista) { this.ciclista = ciclista; }
+}
@@ -0,0 +1,27 @@
+package bicicletario.aluguel.dto;
+
+import bicicletario.aluguel.model.Aluguel;
+
+import java.util.List;
+
+// Resposta das consultas de histórico (GET /ciclista/{id}/alugueis etc.):
+// uma página de aluguéis, do mais recente para o mais antigo, e o cursor da próxima
+// (null na última página)
+public class PaginaAlugueisDTO {
+
+private List<Aluguel> alugueis;
+private String proximoCursor;
+
+public PaginaAlugueisDTO(List<Aluguel> alugueis, String proximoCursor) {
+    this.alugueis = alugueis;
+    this.proximoCursor = proximoCursor;
+}
+
+public List<Aluguel> getAlugueis() {
+    return alugueis;
+}
+
+public String getProximoCursor() {
+    return proximoCursor;
+}
+}
@@ -0,0 +1,20 @@
+package bicicletario.aluguel.dto;
+
+// Resposta do Externo para cada item de POST /cobrancas/lote, na ordem do pedido
+public class ResultadoCobrancaLoteDTO {
+
+private int indice; // Posição do item no lote enviado
+private Integer id; // ID da cobrança criada (null se rejeitada)
+private String status; // ex: 'PAGA', 'PENDENTE', 'REJEITADA'
+private String erro;
+
+// Getters e Setters
+public int getIndice() { return indice; }
+public void setIndice(int indice) { this.indice = indice; }
+public Integer getId() { return id; }
+public void setId(Integer id) { this.id = id; }
+public String getStatus() { return status; }
+public void setStatus(String status) { this.status = status; }
+public String getErro() { return erro; }
+public void setErro(String erro) { this.erro = erro; }
+}
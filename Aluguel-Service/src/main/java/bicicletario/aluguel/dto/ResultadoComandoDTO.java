@@ -0,0 +1,48 @@
+package bicicletario.aluguel.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+// Confirmação de um ComandoEquipamentoDTO (resposta de POST /comandos/lote, casada pelo id)
+public class ResultadoComandoDTO {
+
+public static final String OK = "OK";
+// O Equipamento respondeu e recusou (4xx): regra de negócio
+public static final String RECUSADO = "RECUSADO";
+// Sem confirmação (5xx, conexão, circuito aberto): quem chamou decide o Mock
+public static final String FALHA = "FALHA";
+
+private Long id;
+private String status;
+private Integer codigo; // Status HTTP equivalente (ex: 422 na recusa)
+private String mensagem;
+
+public ResultadoComandoDTO() {
+    // Requerido pelo Jackson
+}
+
+public ResultadoComandoDTO(Long id, String status, Integer codigo, String mensagem) {
+    this.id = id;
+    this.status = status;
+    this.codigo = codigo;
+    this.mensagem = mensagem;
+}
+
+public static ResultadoComandoDTO falha(Long id, String mensagem) {
+    return new ResultadoComandoDTO(id, FALHA, null, mensagem);
+}
+
+@JsonIgnore
+public boolean isOk() { return OK.equals(status); }
+@JsonIgnore
+public boolean isRecusado() { return RECUSADO.equals(status); }
+
+// Getters e Setters
+public Long getId() { return id; }
+public void setId(Long id) { this.id = id; }
+public String getStatus() { return status; }
+public void setStatus(String status) { this.status = status; }
+public Integer getCodigo() { return codigo; }
+public void setCodigo(Integer codigo) { this.codigo = codigo; }
+public String getMensagem() { return mensagem; }
+public void setMensagem(String mensagem) { this.mensagem = mensagem; }
+}
@@ -0,0 +1,45 @@
+package bicicletario.aluguel.http;
+
+import bicicletario.aluguel.config.HttpClienteProperties;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Ponto único de acesso HTTP para os serviços remotos.
+ * Cada operação (ex: "getBicicletaDaTranca", "realizarCobranca") ganha um
+ * RestTemplate com seus próprios timeouts, mas todos compartilham o mesmo
+ * pool de conexões.
+ */
+@Component
+public class ClienteHttp {
+
+@Autowired
+private CloseableHttpClient httpClient;
+@Autowired
+private HttpClienteProperties properties;
+@Autowired
+private ScheduledExecutorService prazoHttpScheduler;
+@Autowired
+private RestTemplateBuilder restTemplateBuilder;
+
+private final Map<String, RestTemplate> porOperacao = new ConcurrentHashMap<>();
+
+public RestTemplate para(String operacao) {
+    return porOperacao.computeIfAbsent(operacao, this::criar);
+}
+
+private RestTemplate criar(String operacao) {
+    HttpClienteProperties.Timeouts timeouts = properties.timeoutsDa(operacao);
+    int esperaConexaoMs = properties.getPool().getEsperaConexaoMs();
+    return restTemplateBuilder
+            .requestFactory(() -> new PrazoHttpRequestFactory(httpClient, timeouts, esperaConexaoMs, prazoHttpScheduler))
+            .build();
+}
+}
@@ -0,0 +1,92 @@
+package bicicletario.aluguel.http;
+
+import bicicletario.aluguel.config.HttpClienteProperties;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versão não bloqueante do ClienteHttp, usada no modo reativo
+ * (aluguel.execucao.modo=reativo): um WebClient por operação, com os mesmos
+ * timeouts (http.cliente.operacoes.*), sobre um pool de conexões próprio do
+ * reactor-netty com os limites de http.cliente.pool.
+ *
+ * Nada é criado antes da primeira chamada: nos outros modos o pool e as
+ * threads de I/O do netty nem chegam a existir.
+ */
+@Component
+public class ClienteHttpReativo {
+
+@Autowired
+private HttpClienteProperties properties;
+// Builder do Spring Boot: já vem com as métricas http.client.requests
+@Autowired
+private WebClient.Builder webClientBuilder;
+
+private final Map<String, WebClient> porOperacao = new ConcurrentHashMap<>();
+private volatile ConnectionProvider conexoes;
+
+public WebClient para(String operacao) {
+    return porOperacao.computeIfAbsent(operacao, this::criar);
+}
+
+/**
+ * Assina a chamada aplicando o prazo total da operação. O futuro completa na
+ * thread de I/O do netty: quem encadeia trabalho bloqueante nele deve mudar
+ * de executor (ex: thenApplyAsync).
+ */
+public <T> CompletableFuture<T> executar(String operacao, Mono<T> chamada) {
+    long prazoTotalMs = properties.timeoutsDa(operacao).getPrazoTotalMs();
+    if (prazoTotalMs > 0) {
+        chamada = chamada.timeout(Duration.ofMillis(prazoTotalMs));
+    }
+    return chamada.toFuture();
+}
+
+private WebClient criar(String operacao) {
+    HttpClienteProperties.Timeouts timeouts = properties.timeoutsDa(operacao);
+    HttpClient httpClient = HttpClient.create(conexoes())
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, timeouts.getConexaoMs())
+            .responseTimeout(Duration.ofMillis(timeouts.getLeituraMs()));
+    return webClientBuilder.clone()
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+}
+
+private ConnectionProvider conexoes() {
+    ConnectionProvider atual = conexoes;
+    if (atual == null) {
+        synchronized (this) {
+            atual = conexoes;
+            if (atual == null) {
+                HttpClienteProperties.Pool pool = properties.getPool();
+                atual = ConnectionProvider.builder("http-cliente-reativo")
+                        .maxConnections(pool.getMaxTotal())
+                        .pendingAcquireTimeout(Duration.ofMillis(pool.getEsperaConexaoMs()))
+                        .maxIdleTime(Duration.ofMillis(pool.getOciosaMaxMs()))
+                        .build();
+                conexoes = atual;
+            }
+        }
+    }
+    return atual;
+}
+
+@PreDestroy
+public void encerrar() {
+    if (conexoes != null) {
+        conexoes.dispose();
+    }
+}
+}
@@ -0,0 +1,162 @@
+package bicicletario.aluguel.http;
+
+import bicicletario.aluguel.config.HttpClienteProperties;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.AbstractExecutionAwareRequest;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fábrica de requisições com os timeouts de UMA operação remota.
+ * Além de conexão e leitura (que valem por pacote), aplica um prazo total:
+ * passado esse tempo a requisição é abortada, mesmo que o servidor continue
+ * mandando bytes devagar.
+ *
+ * O abort agendado é cancelado quando a resposta é fechada (o RestTemplate
+ * sempre fecha, depois de ler o corpo) ou quando a execução falha: a fila do
+ * agendador só guarda as requisições em andamento, não uma por requisição
+ * feita nos últimos prazo-total-ms.
+ */
+class PrazoHttpRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+private final long prazoTotalMs;
+private final ScheduledExecutorService agendador;
+// Entre postProcessHttpRequest e o fim do createRequest, na mesma thread
+private final ThreadLocal<HttpUriRequest> criada = new ThreadLocal<>();
+
+PrazoHttpRequestFactory(HttpClient httpClient, HttpClienteProperties.Timeouts timeouts,
+                        int esperaConexaoMs, ScheduledExecutorService agendador) {
+    super(httpClient);
+    setConnectTimeout(timeouts.getConexaoMs());
+    setReadTimeout(timeouts.getLeituraMs());
+    setConnectionRequestTimeout(esperaConexaoMs);
+    this.prazoTotalMs = timeouts.getPrazoTotalMs();
+    this.agendador = agendador;
+}
+
+@Override
+public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+    ClientHttpRequest requisicao;
+    HttpUriRequest httpRequest;
+    try {
+        requisicao = super.createRequest(uri, httpMethod);
+        httpRequest = criada.get();
+    } finally {
+        criada.remove();
+    }
+    return httpRequest == null ? requisicao : new RequisicaoComPrazo(requisicao, httpRequest);
+}
+
+@Override
+protected void postProcessHttpRequest(HttpUriRequest request) {
+    if (prazoTotalMs > 0 && request instanceof AbstractExecutionAwareRequest) {
+        criada.set(request);
+    }
+}
+
+// O HttpClient é compartilhado (bean): não pode ser fechado junto com a fábrica
+@Override
+public void destroy() {
+    // Ciclo de vida do HttpClient fica com o HttpClienteConfig
+}
+
+// O prazo conta a partir do execute (o corpo da requisição já foi escrito no buffer)
+private class RequisicaoComPrazo implements ClientHttpRequest {
+    private final ClientHttpRequest requisicao;
+    private final HttpUriRequest httpRequest;
+
+    RequisicaoComPrazo(ClientHttpRequest requisicao, HttpUriRequest httpRequest) {
+        this.requisicao = requisicao;
+        this.httpRequest = httpRequest;
+    }
+
+    @Override
+    public ClientHttpResponse execute() throws IOException {
+        // abort() numa requisição já concluída (conexão devolvida ao pool) não tem efeito
+        ScheduledFuture<?> abortar = agendador.schedule(httpRequest::abort, prazoTotalMs, TimeUnit.MILLISECONDS);
+        try {
+            return new RespostaComPrazo(requisicao.execute(), abortar);
+        } catch (IOException | RuntimeException e) {
+            abortar.cancel(false);
+            throw e;
+        }
+    }
+
+    @Override
+    public OutputStream getBody() throws IOException {
+        return requisicao.getBody();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return requisicao.getHeaders();
+    }
+
+    @Override
+    public String getMethodValue() {
+        return requisicao.getMethodValue();
+    }
+
+    @Override
+    public URI getURI() {
+        return requisicao.getURI();
+    }
+}
+
+private static class RespostaComPrazo implements ClientHttpResponse {
+    private final ClientHttpResponse resposta;
+    private final ScheduledFuture<?> abortar;
+
+    RespostaComPrazo(ClientHttpResponse resposta, ScheduledFuture<?> abortar) {
+        this.resposta = resposta;
+        this.abortar = abortar;
+    }
+
+    @Override
+    public void close() {
+        try {
+            resposta.close();
+        } finally {
+            abortar.cancel(false);
+        }
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+        return resposta.getBody();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return resposta.getHeaders();
+    }
+
+    @Override
+    public HttpStatus getStatusCode() throws IOException {
+        return resposta.getStatusCode();
+    }
+
+    @Override
+    public int getRawStatusCode() throws IOException {
+        return resposta.getRawStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+        return resposta.getStatusText();
+    }
+}
+}
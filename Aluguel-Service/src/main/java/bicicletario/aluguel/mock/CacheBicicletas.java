@@ -0,0 +1,178 @@
+package bicicletario.aluguel.mock;
+
+import bicicletario.aluguel.dto.BicicletaDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache das bicicletas lidas do Equipamento (GET /bicicleta/{id}).
+ *
+ * Marca, modelo, ano e número quase nunca mudam: valem por 'ttlMs'. O status
+ * muda a cada aluguel/devolução: vale só por 'statusTtlMs' e é atualizado
+ * (ou invalidado) pelas nossas próprias chamadas de alterarStatusBicicleta e
+ * trancarTranca. Status vencido = nova chamada remota.
+ *
+ * Faltas simultâneas da mesma bicicleta viram uma única chamada remota: as
+ * outras threads esperam o resultado dela. Só respostas reais entram no
+ * cache (o carregador devolve null quando o Equipamento falha); nesse caso a
+ * última leitura ainda dentro de 'ttlMs' é servida mesmo com o status vencido.
+ *
+ * Uma escrita nossa (atualizarStatus/invalidarStatus) durante o carregamento
+ * da MESMA bicicleta marca o carregamento como obsoleto e ele não entra no
+ * cache; as outras bicicletas não são afetadas. A marca e a gravação acontecem
+ * dentro do compute da entrada, sob a trava da chave.
+ */
+public class CacheBicicletas {
+
+private final long ttlMs;
+private final long statusTtlMs;
+private final Cache<Integer, Entrada> entradas;
+// Carregamentos em andamento, um por bicicleta
+private final ConcurrentMap<Integer, Carregamento> emVoo = new ConcurrentHashMap<>();
+private final MeterRegistry meterRegistry;
+
+LongSupplier relogio = System::currentTimeMillis;
+
+public CacheBicicletas(long ttlMs, long statusTtlMs, long maxEntradas, MeterRegistry meterRegistry) {
+    this.ttlMs = ttlMs;
+    this.statusTtlMs = statusTtlMs;
+    this.entradas = Caffeine.newBuilder().maximumSize(maxEntradas).build();
+    this.meterRegistry = meterRegistry;
+}
+
+/**
+ * Bicicleta do cache ou, se vencida, do 'carregador' (uma chamada por vez por
+ * bicicleta). Null só quando o carregador falha e não há leitura anterior válida.
+ */
+public BicicletaDTO buscar(Integer idBicicleta, Function<Integer, BicicletaDTO> carregador) {
+    long agora = relogio.getAsLong();
+    Entrada entrada = valida(idBicicleta, agora);
+    if (entrada != null && agora < entrada.statusValidoAte) {
+        contar("acerto");
+        return copiar(entrada.bicicleta);
+    }
+
+    Carregamento novo = new Carregamento();
+    Carregamento existente = emVoo.putIfAbsent(idBicicleta, novo);
+    BicicletaDTO carregada;
+    if (existente != null) {
+        contar("coalescida");
+        carregada = existente.futuro.join();
+    } else {
+        contar("falta");
+        carregada = carregar(idBicicleta, carregador, novo);
+    }
+
+    if (carregada != null) {
+        return copiar(carregada);
+    }
+    if (entrada != null) {
+        // Equipamento fora: os dados fixos ainda valem, o status é o último conhecido
+        contar("obsoleta");
+        return copiar(entrada.bicicleta);
+    }
+    return null;
+}
+
+private BicicletaDTO carregar(Integer idBicicleta, Function<Integer, BicicletaDTO> carregador,
+                              Carregamento carregamento) {
+    BicicletaDTO carregada = null;
+    try {
+        carregada = carregador.apply(idBicicleta);
+        if (carregada != null) {
+            BicicletaDTO copia = copiar(carregada);
+            long agora = relogio.getAsLong();
+            entradas.asMap().compute(idBicicleta, (id, atual) ->
+                    carregamento.obsoleto ? atual : new Entrada(copia, agora + ttlMs, agora + statusTtlMs));
+        }
+    } finally {
+        emVoo.remove(idBicicleta, carregamento);
+        carregamento.futuro.complete(carregada);
+    }
+    return carregada;
+}
+
+// Nosso alterarStatusBicicleta deu certo: o novo status já é conhecido
+public void atualizarStatus(Integer idBicicleta, String status) {
+    long agora = relogio.getAsLong();
+    entradas.asMap().compute(idBicicleta, (id, entrada) -> {
+        marcarObsoleto(id);
+        if (entrada == null || agora >= entrada.validaAte) {
+            return null;
+        }
+        BicicletaDTO atualizada = copiar(entrada.bicicleta);
+        atualizada.setStatus(status);
+        return new Entrada(atualizada, entrada.validaAte, agora + statusTtlMs);
+    });
+}
+
+// Status mudou de forma que não sabemos (tranca, falha no alterarStatus): próxima leitura vai ao Equipamento
+public void invalidarStatus(Integer idBicicleta) {
+    entradas.asMap().compute(idBicicleta, (id, entrada) -> {
+        marcarObsoleto(id);
+        return entrada == null ? null : new Entrada(entrada.bicicleta, entrada.validaAte, 0);
+    });
+}
+
+// Chamado dentro do compute da entrada: o carregamento ainda não gravou (ou já gravou antes da escrita)
+private void marcarObsoleto(Integer idBicicleta) {
+    Carregamento carregamento = emVoo.get(idBicicleta);
+    if (carregamento != null) {
+        carregamento.obsoleto = true;
+    }
+}
+
+public long quantidade() {
+    return entradas.estimatedSize();
+}
+
+private Entrada valida(Integer idBicicleta, long agora) {
+    Entrada entrada = entradas.getIfPresent(idBicicleta);
+    if (entrada != null && agora >= entrada.validaAte) {
+        entradas.invalidate(idBicicleta);
+        return null;
+    }
+    return entrada;
+}
+
+private void contar(String resultado) {
+    meterRegistry.counter("equipamento.bicicleta.cache", "resultado", resultado).increment();
+}
+
+// Quem chama pode alterar o DTO: o cache nunca entrega a própria instância
+private static BicicletaDTO copiar(BicicletaDTO origem) {
+    BicicletaDTO copia = new BicicletaDTO();
+    copia.setId(origem.getId());
+    copia.setMarca(origem.getMarca());
+    copia.setModelo(origem.getModelo());
+    copia.setAno(origem.getAno());
+    copia.setNumero(origem.getNumero());
+    copia.setStatus(origem.getStatus());
+    return copia;
+}
+
+private static class Carregamento {
+    final CompletableFuture<BicicletaDTO> futuro = new CompletableFuture<>();
+    // Escrita nossa na bicicleta durante o carregamento: o resultado não entra no cache
+    volatile boolean obsoleto;
+}
+
+private static class Entrada {
+    final BicicletaDTO bicicleta;
+    final long validaAte;
+    final long statusValidoAte;
+
+    Entrada(BicicletaDTO bicicleta, long validaAte, long statusValidoAte) {
+        this.bicicleta = bicicleta;
+        this.validaAte = validaAte;
+        this.statusValidoAte = statusValidoAte;
+    }
+}
+}
@@ -0,0 +1,257 @@
+package bicicletario.aluguel.mock;
+
+import bicicletario.aluguel.dto.ComandoEquipamentoDTO;
+import bicicletario.aluguel.dto.ResultadoComandoDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Canal de comandos para o Equipamento (trancar, destrancar, alterar status)
+ * em lote: os comandos que chegam numa janela curta viram UMA requisição
+ * (POST /comandos/lote). A janela fecha com maxComandos comandos ou maxEsperaMs
+ * depois do primeiro, o que vier antes. Numa rajada de devoluções (40
+ * bicicletas chegando juntas na estação) são poucas requisições em vez de 80.
+ *
+ * Cada comando leva um id e recebe a própria confirmação (ResultadoComandoDTO,
+ * casada pelo id): um comando recusado não derruba os outros do lote.
+ *
+ * Se o Equipamento não tiver o endpoint de lote (enviarLote devolve null:
+ * 404/405/501), os comandos seguem um a um por enviarUm, e o lote só é
+ * tentado de novo depois de novaTentativaLoteMs.
+ *
+ * Os envios rodam só nas threads de envio, com fila limitada (filaEnvio
+ * tarefas). Fila cheia (Equipamento lento para a demanda) = os comandos do
+ * lote falham na hora, em vez de o agendador ou a requisição que fechou a
+ * janela fazerem a chamada HTTP.
+ */
+public class CanalComandosEquipamento {
+
+private static final Logger logger = LoggerFactory.getLogger(CanalComandosEquipamento.class);
+
+private final int maxComandos;
+private final long maxEsperaMs;
+private final long novaTentativaLoteMs;
+// Lista de resultados (qualquer ordem); null = Equipamento sem endpoint de lote
+private final Function<List<ComandoEquipamentoDTO>, List<ResultadoComandoDTO>> enviarLote;
+// Um comando sozinho; não lança: falha vira ResultadoComandoDTO FALHA
+private final Function<ComandoEquipamentoDTO, ResultadoComandoDTO> enviarUm;
+private final MeterRegistry meterRegistry;
+private final DistributionSummary tamanhoDoLote;
+
+// Fecha as janelas por tempo
+private final ScheduledExecutorService agendador;
+// Envia os lotes (e os comandos um a um): o agendador nunca espera a rede
+private final ThreadPoolExecutor envio;
+
+private final AtomicLong sequencia = new AtomicLong();
+private final AtomicInteger aguardandoConfirmacao = new AtomicInteger();
+private List<Pendente> janela = new ArrayList<>();
+private ScheduledFuture<?> fechamentoAgendado;
+private volatile long loteIndisponivelAte;
+
+// Relógio injetável para testes
+private LongSupplier relogio = System::currentTimeMillis;
+
+public CanalComandosEquipamento(int maxComandos, long maxEsperaMs, long novaTentativaLoteMs,
+                                int threadsEnvio, int filaEnvio,
+                                Function<List<ComandoEquipamentoDTO>, List<ResultadoComandoDTO>> enviarLote,
+                                Function<ComandoEquipamentoDTO, ResultadoComandoDTO> enviarUm,
+                                MeterRegistry meterRegistry) {
+    this.maxComandos = Math.max(1, maxComandos);
+    this.maxEsperaMs = maxEsperaMs;
+    this.novaTentativaLoteMs = novaTentativaLoteMs;
+    this.enviarLote = enviarLote;
+    this.enviarUm = enviarUm;
+    this.meterRegistry = meterRegistry;
+
+    CustomizableThreadFactory fabricaAgendador = new CustomizableThreadFactory("comandos-equipamento-janela-");
+    fabricaAgendador.setDaemon(true);
+    this.agendador = Executors.newSingleThreadScheduledExecutor(fabricaAgendador);
+    CustomizableThreadFactory fabricaEnvio = new CustomizableThreadFactory("comandos-equipamento-envio-");
+    fabricaEnvio.setDaemon(true);
+    // Fila limitada e AbortPolicy: nem o agendador nem a thread da requisição fazem o envio
+    int threads = Math.max(1, threadsEnvio);
+    this.envio = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(Math.max(1, filaEnvio)), fabricaEnvio, new ThreadPoolExecutor.AbortPolicy());
+    this.envio.allowCoreThreadTimeOut(true);
+
+    this.tamanhoDoLote = DistributionSummary.builder("equipamento.comandos.lote.tamanho")
+            .description("Comandos por requisição de lote ao Equipamento")
+            .register(meterRegistry);
+    Gauge.builder("equipamento.comandos.aguardando", aguardandoConfirmacao, AtomicInteger::get)
+            .description("Comandos enviados (ou na janela) ainda sem confirmação")
+            .register(meterRegistry);
+}
+
+/**
+ * Entra na janela atual. O futuro completa com a confirmação do comando
+ * (nunca com exceção).
+ */
+public CompletableFuture<ResultadoComandoDTO> enfileirar(ComandoEquipamentoDTO comando) {
+    comando.setId(sequencia.incrementAndGet());
+    Pendente pendente = new Pendente(comando);
+    aguardandoConfirmacao.incrementAndGet();
+
+    List<Pendente> cheia = null;
+    synchronized (this) {
+        janela.add(pendente);
+        if (janela.size() >= maxComandos) {
+            cheia = trocarJanela();
+        } else if (janela.size() == 1) {
+            fechamentoAgendado = agendador.schedule(this::fecharJanelaPorTempo, maxEsperaMs, TimeUnit.MILLISECONDS);
+        }
+    }
+    if (cheia != null) {
+        List<Pendente> lote = cheia;
+        despachar(lote, () -> enviar(lote));
+    }
+    return pendente.resultado;
+}
+
+public int getAguardandoConfirmacao() {
+    return aguardandoConfirmacao.get();
+}
+
+public boolean isLoteDisponivel() {
+    return relogio.getAsLong() >= loteIndisponivelAte;
+}
+
+public void encerrar() {
+    agendador.shutdownNow();
+    envio.shutdown();
+}
+
+private void fecharJanelaPorTempo() {
+    List<Pendente> lote;
+    synchronized (this) {
+        if (janela.isEmpty()) {
+            return;
+        }
+        lote = trocarJanela();
+    }
+    despachar(lote, () -> enviar(lote));
+}
+
+// Entrega a tarefa às threads de envio; fila cheia ou canal encerrado = os comandos falham
+private void despachar(List<Pendente> comandos, Runnable tarefa) {
+    try {
+        envio.execute(tarefa);
+    } catch (RejectedExecutionException e) {
+        logger.warn(" Fila de envio ao Equipamento cheia: {} comandos recusados", comandos.size());
+        contar("rejeitado", comandos.size());
+        for (Pendente pendente : comandos) {
+            concluir(pendente, ResultadoComandoDTO.falha(pendente.comando.getId(), "Fila de envio ao Equipamento cheia"));
+        }
+    }
+}
+
+// Chamado com o lock: a próxima janela começa vazia
+private List<Pendente> trocarJanela() {
+    List<Pendente> fechada = janela;
+    janela = new ArrayList<>();
+    if (fechamentoAgendado != null) {
+        fechamentoAgendado.cancel(false);
+        fechamentoAgendado = null;
+    }
+    return fechada;
+}
+
+private void enviar(List<Pendente> lote) {
+    if (lote.size() > 1 && isLoteDisponivel()) {
+        List<ComandoEquipamentoDTO> comandos = new ArrayList<>(lote.size());
+        for (Pendente pendente : lote) {
+            comandos.add(pendente.comando);
+        }
+        List<ResultadoComandoDTO> resultados;
+        try {
+            resultados = enviarLote.apply(comandos);
+        } catch (RuntimeException e) {
+            // Equipamento fora (5xx, conexão, prazo): nenhum comando confirmado
+            logger.warn(" Lote de {} comandos ao Equipamento falhou: {}", lote.size(), e.getMessage());
+            contar("lote_falha", lote.size());
+            for (Pendente pendente : lote) {
+                concluir(pendente, ResultadoComandoDTO.falha(pendente.comando.getId(), e.getMessage()));
+            }
+            return;
+        }
+        if (resultados != null) {
+            tamanhoDoLote.record(lote.size());
+            contar("lote", lote.size());
+            confirmar(lote, resultados);
+            return;
+        }
+        loteIndisponivelAte = relogio.getAsLong() + novaTentativaLoteMs;
+        logger.warn(" Equipamento sem POST /comandos/lote. Enviando um a um pelos próximos {} ms.", novaTentativaLoteMs);
+    }
+
+    // Um comando só (não compensa o lote) ou Equipamento sem lote: um a um, em paralelo
+    contar("individual", lote.size());
+    for (Pendente pendente : lote) {
+        despachar(Collections.singletonList(pendente), () -> concluir(pendente, enviarUmSemExcecao(pendente.comando)));
+    }
+}
+
+private void confirmar(List<Pendente> lote, List<ResultadoComandoDTO> resultados) {
+    Map<Long, ResultadoComandoDTO> porId = new HashMap<>();
+    for (ResultadoComandoDTO resultado : resultados) {
+        if (resultado != null && resultado.getId() != null) {
+            porId.put(resultado.getId(), resultado);
+        }
+    }
+    for (Pendente pendente : lote) {
+        ResultadoComandoDTO resultado = porId.get(pendente.comando.getId());
+        concluir(pendente, resultado != null ? resultado
+                : ResultadoComandoDTO.falha(pendente.comando.getId(), "Comando sem confirmação no lote"));
+    }
+}
+
+private ResultadoComandoDTO enviarUmSemExcecao(ComandoEquipamentoDTO comando) {
+    try {
+        return enviarUm.apply(comando);
+    } catch (RuntimeException e) {
+        return ResultadoComandoDTO.falha(comando.getId(), e.getMessage());
+    }
+}
+
+private void concluir(Pendente pendente, ResultadoComandoDTO resultado) {
+    if (pendente.resultado.complete(resultado)) {
+        aguardandoConfirmacao.decrementAndGet();
+        meterRegistry.counter("equipamento.comandos.confirmacoes", "status", resultado.getStatus()).increment();
+    }
+}
+
+private void contar(String envio, int comandos) {
+    meterRegistry.counter("equipamento.comandos", "envio", envio).increment(comandos);
+}
+
+private static class Pendente {
+    final ComandoEquipamentoDTO comando;
+    final CompletableFuture<ResultadoComandoDTO> resultado = new CompletableFuture<>();
+
+    Pendente(ComandoEquipamentoDTO comando) {
+        this.comando = comando;
+    }
+}
+}
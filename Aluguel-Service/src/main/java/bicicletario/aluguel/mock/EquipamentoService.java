@@ -1,15 +1,35 @@
 package bicicletario.aluguel.mock;
 
 import bicicletario.aluguel.dto.BicicletaDTO;
+import bicicletario.aluguel.dto.ComandoEquipamentoDTO;
+import bicicletario.aluguel.dto.ResultadoComandoDTO;
+import bicicletario.aluguel.http.ClienteHttp;
+import bicicletario.aluguel.http.ClienteHttpReativo;
+import bicicletario.aluguel.resiliencia.CircuitBreaker;
+import bicicletario.aluguel.resiliencia.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Service
 public class EquipamentoService {
 
@@ -19,20 +39,102 @@ private static final Logger logger = LoggerFactory.getLogger(EquipamentoService.
 @Value("${url.equipamento:https://es2-microsservico-equipamento.onrender.com}")
 private String equipamentoUrl;
 
-private final RestTemplate restTemplate = new RestTemplate();
+// Pool de conexões compartilhado; timeouts por operação (http.cliente.operacoes.*)
+@Autowired
+private ClienteHttp clienteHttp;
+
+// Mesmas operações sem prender thread (variantes *Async, modo reativo)
+@Autowired
+private ClienteHttpReativo clienteHttpReativo;
+
+// Um circuito por operação: com o Equipamento fora do ar, o circuito abre e
+// as chamadas vão direto para o Mock, sem esperar o timeout de conexão
+@Autowired
+private CircuitBreakerRegistry circuitos;
+
+@Autowired
+private MeterRegistry meterRegistry;
+
+// Dados fixos da bicicleta (marca, modelo, ano, número) mudam raramente; o status, a cada aluguel
+@Value("${equipamento.bicicleta.cache.ttl-ms:3600000}")
+private long bicicletaTtlMs;
+
+@Value("${equipamento.bicicleta.cache.status-ttl-ms:5000}")
+private long bicicletaStatusTtlMs;
+
+@Value("${equipamento.bicicleta.cache.max-entradas:10000}")
+private long bicicletaMaxEntradas;
+
+private CacheBicicletas cacheBicicletas;
+
+// Trancar/destrancar/alterar status em lote (CanalComandosEquipamento); desligado = uma chamada por comando
+@Value("${equipamento.comandos.lote.habilitado:false}")
+private boolean comandosEmLote;
+
+@Value("${equipamento.comandos.lote.max-comandos:50}")
+private int loteMaxComandos;
+
+@Value("${equipamento.comandos.lote.max-espera-ms:20}")
+private long loteMaxEsperaMs;
+
+// Equipamento sem POST /comandos/lote: quanto tempo seguir um a um antes de tentar o lote de novo
+@Value("${equipamento.comandos.lote.nova-tentativa-ms:600000}")
+private long loteNovaTentativaMs;
+
+@Value("${equipamento.comandos.lote.threads-envio:16}")
+private int loteThreadsEnvio;
+
+// Envios esperando thread livre; passou disso, os comandos falham na hora
+@Value("${equipamento.comandos.lote.fila-envio:1000}")
+private int loteFilaEnvio;
+
+// Limite de espera pela confirmação de um comando; passou disso, Mock
+@Value("${equipamento.comandos.lote.confirmacao-ms:15000}")
+private long loteConfirmacaoMs;
+
+private CanalComandosEquipamento canalComandos;
+
+@PostConstruct
+public void registrarCircuitos() {
+    // Já cria os circuitos para aparecerem em /admin/circuitos antes da 1ª chamada
+    for (String operacao : new String[] {"getBicicletaDaTranca", "destrancarTranca",
+            "trancarTranca", "alterarStatusBicicleta", "getBicicleta", "enviarComandosEmLote"}) {
+        circuitos.para(operacao);
+    }
+    cacheBicicletas = new CacheBicicletas(bicicletaTtlMs, bicicletaStatusTtlMs, bicicletaMaxEntradas, meterRegistry);
+    if (comandosEmLote) {
+        canalComandos = new CanalComandosEquipamento(loteMaxComandos, loteMaxEsperaMs, loteNovaTentativaMs,
+                loteThreadsEnvio, loteFilaEnvio, this::enviarComandosEmLote, this::enviarComando, meterRegistry);
+    }
+}
+
+@PreDestroy
+public void encerrarCanalComandos() {
+    if (canalComandos != null) {
+        canalComandos.encerrar();
+    }
+}
 
 /**
  * Tenta buscar a bicicleta na tranca real.
  * Se 4xx, lança exceção (Falha Rápida). Se 5xx/Conexão, retorna Mock (Resiliência).
  */
 public BicicletaDTO getBicicletaDaTranca(Integer idTranca) {
+    CircuitBreaker circuito = circuitos.para("getBicicletaDaTranca");
     try {
-        // Tenta conectar no serviço real do colega
-        String url = equipamentoUrl + "/tranca/" + idTranca + "/bicicleta";
-        return restTemplate.getForObject(url, BicicletaDTO.class);
+        if (circuito.permiteChamada()) {
+            // Tenta conectar no serviço real do colega
+            String url = equipamentoUrl + "/tranca/{idTranca}/bicicleta";
+            BicicletaDTO bicicleta = clienteHttp.para("getBicicletaDaTranca").getForObject(url, BicicletaDTO.class, idTranca);
+            circuito.registrarSucesso();
+            return bicicleta;
+        }
+        logCircuitoAberto(circuito, idTranca);
 
     } catch (HttpClientErrorException e) {
         //  FALHA NO NEGÓCIO (4xx: 404, 422, 415, etc.) - Lançamos exceção
+        // O serviço respondeu: para o circuito isso é sucesso
+        circuito.registrarSucesso();
         logger.error(" Erro de Negócio/Validação ({}). Rejeitando o aluguel. Tranca: {}",
                 e.getStatusCode(), idTranca);
         // Lança a exceção para o Controller abortar o aluguel com 422/404
@@ -41,23 +143,17 @@ public BicicletaDTO getBicicletaDaTranca(Integer idTranca) {
     } catch (HttpServerErrorException | ResourceAccessException e) {
         //  RESILIÊNCIA/MOCK (5xx ou Conexão Recusada)
         // HttpServerErrorException (5xx) e ResourceAccessException (Conexão) não são subclasses uma da outra.
+        circuito.registrarFalha();
         logger.warn(" Serviço Indisponível (5xx ou Conexão). Usando Mock. Tranca: {}. Erro: {}",
                 idTranca, e.getMessage());
 
     } catch (Exception e) {
         // Catch-all para qualquer erro inesperado que deve ativar o Mock
+        circuito.registrarFalha();
         logger.error(" Erro Genérico. Usando Mock. Tranca: {}. Erro: {}", idTranca, e.getMessage());
     }
 
-    // FALLBACK (PLANO B): Retorna um dado fictício para não travar a demo
-    logger.warn(" >>> SIMULANDO BUSCA DA BICICLETA {}/{} com sucesso (MOCK DE RESILIÊNCIA).", 999, idTranca);
-    BicicletaDTO mock = new BicicletaDTO();
-    mock.setId(999);
-    mock.setNumero(123);
-    mock.setMarca("Caloi Mock");
-    mock.setModelo("Veloz");
-    mock.setStatus("DISPONIVEL");
-    return mock;
+    return mockBicicletaDaTranca(idTranca);
 }
 
 /**
@@ -65,30 +161,42 @@ public BicicletaDTO getBicicletaDaTranca(Integer idTranca) {
  * Se 4xx, lança exceção (Falha Rápida). Se 5xx/Conexão, finge que destrancou (Mock).
  */
 public void destrancarTranca(Integer idTranca) {
+    if (canalComandos != null) {
+        tratarDestrancamento(idTranca, aguardar(ComandoEquipamentoDTO.destrancar(idTranca)));
+        return;
+    }
+    CircuitBreaker circuito = circuitos.para("destrancarTranca");
     try {
-        String url = equipamentoUrl + "/tranca/" + idTranca + "/destrancar";
-        restTemplate.postForLocation(url, null);
-        logger.info(" Tranca {} destrancada no serviço real.", idTranca);
+        if (circuito.permiteChamada()) {
+            String url = equipamentoUrl + "/tranca/{idTranca}/destrancar";
+            clienteHttp.para("destrancarTranca").postForLocation(url, null, idTranca);
+            circuito.registrarSucesso();
+            logger.info(" Tranca {} destrancada no serviço real.", idTranca);
+            return;
+        }
+        logCircuitoAberto(circuito, idTranca);
 
     } catch (HttpClientErrorException e) {
         //  FALHA NO NEGÓCIO (4xx)
+        circuito.registrarSucesso();
         logger.error(" Erro de Negócio/Validação ({}) no destrancamento. Abortando. Tranca: {}",
                 e.getStatusCode(), idTranca);
         throw new IllegalArgumentException("Equipamento recusou o destrancamento: " + e.getStatusCode(), e);
 
     } catch (HttpServerErrorException | ResourceAccessException e) {
         //  RESILIÊNCIA/MOCK (5xx ou Conexão)
+        circuito.registrarFalha();
         logger.warn(" Serviço Indisponível (5xx ou Conexão). Usando Mock. Tranca: {}. Erro: {}",
                 idTranca, e.getMessage());
 
     } catch (Exception e) {
         // Catch-all
+        circuito.registrarFalha();
         logger.error(" Erro Genérico no destrancamento. Usando Mock. Tranca: {}. Erro: {}",
                 idTranca, e.getMessage());
     }
 
-    // ATIVAÇÃO DO MOCK (Apenas para logar o aviso de que o Mock foi usado, caso tenha caído no 5xx/Conexão)
-    logger.warn(" >>> SIMULANDO DESTANCAMENTO da tranca {} com sucesso (MOCK DE RESILIÊNCIA).", idTranca);
+    mockDestrancamento(idTranca);
 }
 
 // --- Métodos trancarTranca, alterarStatusBicicleta, getBicicleta (Mantendo a lógica anterior) ---
@@ -97,41 +205,66 @@ public void destrancarTranca(Integer idTranca) {
  * Tenta trancar no serviço real. Se falhar, finge que trancou.
  */
 public void trancarTranca(Integer idTranca, Integer idBicicleta) {
+    // Trancar muda o status da bicicleta no Equipamento, com ou sem sucesso aqui
+    cacheBicicletas.invalidarStatus(idBicicleta);
+    if (canalComandos != null) {
+        tratarTrancamento(idTranca, aguardar(ComandoEquipamentoDTO.trancar(idTranca, idBicicleta)));
+        return;
+    }
+    CircuitBreaker circuito = circuitos.para("trancarTranca");
     try {
-        String url = equipamentoUrl + "/tranca/" + idTranca + "/trancar";
-        restTemplate.postForLocation(url, idBicicleta);
-        logger.info(" Tranca {} trancada no serviço real.", idTranca);
+        if (circuito.permiteChamada()) {
+            String url = equipamentoUrl + "/tranca/{idTranca}/trancar";
+            clienteHttp.para("trancarTranca").postForLocation(url, idBicicleta, idTranca);
+            circuito.registrarSucesso();
+            logger.info(" Tranca {} trancada no serviço real.", idTranca);
+            return;
+        }
+        logCircuitoAberto(circuito, idTranca);
     } catch (Exception e) {
+        registrarResultado(circuito, e);
         logger.warn(" Falha na comunicação em trancar. Usando Mock. Erro: {}", e.getMessage());
     }
-    logger.warn(" >>> SIMULANDO TRANCAMENTO da tranca {} com sucesso (MOCK).", idTranca);
+    mockTrancamento(idTranca);
 }
 
 /**
  * Altera status no serviço real. Se falhar, finge que alterou.
  */
 public void alterarStatusBicicleta(Integer idBicicleta, String status) {
+    if (canalComandos != null) {
+        tratarAlteracaoDeStatus(idBicicleta, status, aguardar(ComandoEquipamentoDTO.alterarStatus(idBicicleta, status)));
+        return;
+    }
+    CircuitBreaker circuito = circuitos.para("alterarStatusBicicleta");
     try {
-        String url = equipamentoUrl + "/bicicleta/" + idBicicleta + "/status/" + status;
-        restTemplate.postForLocation(url, null);
-        logger.info(" Status da bike {} alterado para {} no serviço real.", idBicicleta, status);
+        if (circuito.permiteChamada()) {
+            String url = equipamentoUrl + "/bicicleta/{idBicicleta}/status/{status}";
+            clienteHttp.para("alterarStatusBicicleta").postForLocation(url, null, idBicicleta, status);
+            circuito.registrarSucesso();
+            cacheBicicletas.atualizarStatus(idBicicleta, status);
+            logger.info(" Status da bike {} alterado para {} no serviço real.", idBicicleta, status);
+            return;
+        }
+        logCircuitoAberto(circuito, idBicicleta);
     } catch (Exception e) {
+        registrarResultado(circuito, e);
         logger.warn(" Falha na comunicação em alterar status. Usando Mock. Erro: {}", e.getMessage());
     }
-    logger.warn(" >>> SIMULANDO ALTERAÇÃO DE STATUS da bike {} com sucesso (MOCK).", idBicicleta);
+    mockAlteracaoDeStatus(idBicicleta);
 }
 
 /**
- * Busca bike alugada. Se falhar, retorna mock.
+ * Busca bike alugada (via CacheBicicletas). Se falhar e não houver leitura
+ * anterior no cache, retorna mock.
  */
 public BicicletaDTO getBicicleta(Integer idBicicleta) {
-    try {
-        String url = equipamentoUrl + "/bicicleta/" + idBicicleta;
-        return restTemplate.getForObject(url, BicicletaDTO.class);
-    } catch (Exception e) {
-        logger.warn(" Falha na comunicação em buscar bicicleta. Usando Mock. Erro: {}", e.getMessage());
+    BicicletaDTO bicicleta = cacheBicicletas.buscar(idBicicleta, this::buscarBicicletaRemota);
+    if (bicicleta != null) {
+        return bicicleta;
     }
 
+    contarFallback("getBicicleta");
     logger.warn(" >>> SIMULANDO BUSCA DA BICICLETA {} com sucesso (MOCK).", idBicicleta);
     BicicletaDTO mock = new BicicletaDTO();
     mock.setId(idBicicleta);
@@ -141,4 +274,357 @@ public BicicletaDTO getBicicleta(Integer idBicicleta) {
     mock.setStatus("EM_USO");
     return mock;
 }
-}
\ No newline at end of file
+
+// Chamada real do getBicicleta; null quando o Equipamento falha (o mock não entra no cache)
+private BicicletaDTO buscarBicicletaRemota(Integer idBicicleta) {
+    CircuitBreaker circuito = circuitos.para("getBicicleta");
+    try {
+        if (circuito.permiteChamada()) {
+            String url = equipamentoUrl + "/bicicleta/{idBicicleta}";
+            BicicletaDTO bicicleta = clienteHttp.para("getBicicleta").getForObject(url, BicicletaDTO.class, idBicicleta);
+            circuito.registrarSucesso();
+            return bicicleta;
+        }
+        logCircuitoAberto(circuito, idBicicleta);
+    } catch (Exception e) {
+        registrarResultado(circuito, e);
+        logger.warn(" Falha na comunicação em buscar bicicleta. Erro: {}", e.getMessage());
+    }
+    return null;
+}
+
+// --- Variantes não bloqueantes (WebClient), usadas pelo modo reativo ---
+// Mesmo circuito, mesmas regras e mesmo Mock das versões acima: 4xx vira
+// IllegalArgumentException no futuro; 5xx/conexão/prazo, o Mock.
+
+public CompletableFuture<BicicletaDTO> getBicicletaDaTrancaAsync(Integer idTranca) {
+    CircuitBreaker circuito = circuitos.para("getBicicletaDaTranca");
+    if (!circuito.permiteChamada()) {
+        logCircuitoAberto(circuito, idTranca);
+        return CompletableFuture.completedFuture(mockBicicletaDaTranca(idTranca));
+    }
+    return clienteHttpReativo.executar("getBicicletaDaTranca",
+            clienteHttpReativo.para("getBicicletaDaTranca").get()
+                    .uri(equipamentoUrl + "/tranca/{idTranca}/bicicleta", idTranca)
+                    .retrieve()
+                    .bodyToMono(BicicletaDTO.class))
+            .handle((bicicleta, erro) -> {
+                if (erro == null) {
+                    circuito.registrarSucesso();
+                    return bicicleta;
+                }
+                Throwable causa = causa(erro);
+                registrarResultado(circuito, causa);
+                if (erroDeNegocio(causa)) {
+                    logger.error(" Erro de Negócio/Validação ({}). Rejeitando o aluguel. Tranca: {}",
+                            statusDo(causa), idTranca);
+                    throw new IllegalArgumentException("Falha na validação do Equipamento: " + statusDo(causa), causa);
+                }
+                logger.warn(" Serviço Indisponível (5xx ou Conexão). Usando Mock. Tranca: {}. Erro: {}",
+                        idTranca, causa.getMessage());
+                return mockBicicletaDaTranca(idTranca);
+            });
+}
+
+public CompletableFuture<Void> destrancarTrancaAsync(Integer idTranca) {
+    if (canalComandos != null) {
+        return canalComandos.enfileirar(ComandoEquipamentoDTO.destrancar(idTranca))
+                .thenAccept(resultado -> tratarDestrancamento(idTranca, resultado));
+    }
+    CircuitBreaker circuito = circuitos.para("destrancarTranca");
+    if (!circuito.permiteChamada()) {
+        logCircuitoAberto(circuito, idTranca);
+        mockDestrancamento(idTranca);
+        return CompletableFuture.completedFuture(null);
+    }
+    return clienteHttpReativo.executar("destrancarTranca",
+            clienteHttpReativo.para("destrancarTranca").post()
+                    .uri(equipamentoUrl + "/tranca/{idTranca}/destrancar", idTranca)
+                    .retrieve()
+                    .toBodilessEntity())
+            .handle((resposta, erro) -> {
+                if (erro == null) {
+                    circuito.registrarSucesso();
+                    logger.info(" Tranca {} destrancada no serviço real.", idTranca);
+                    return null;
+                }
+                Throwable causa = causa(erro);
+                registrarResultado(circuito, causa);
+                if (erroDeNegocio(causa)) {
+                    logger.error(" Erro de Negócio/Validação ({}) no destrancamento. Abortando. Tranca: {}",
+                            statusDo(causa), idTranca);
+                    throw new IllegalArgumentException("Equipamento recusou o destrancamento: " + statusDo(causa), causa);
+                }
+                logger.warn(" Serviço Indisponível (5xx ou Conexão). Usando Mock. Tranca: {}. Erro: {}",
+                        idTranca, causa.getMessage());
+                mockDestrancamento(idTranca);
+                return null;
+            });
+}
+
+public CompletableFuture<Void> trancarTrancaAsync(Integer idTranca, Integer idBicicleta) {
+    cacheBicicletas.invalidarStatus(idBicicleta);
+    if (canalComandos != null) {
+        return canalComandos.enfileirar(ComandoEquipamentoDTO.trancar(idTranca, idBicicleta))
+                .thenAccept(resultado -> tratarTrancamento(idTranca, resultado));
+    }
+    CircuitBreaker circuito = circuitos.para("trancarTranca");
+    if (!circuito.permiteChamada()) {
+        logCircuitoAberto(circuito, idTranca);
+        mockTrancamento(idTranca);
+        return CompletableFuture.completedFuture(null);
+    }
+    return clienteHttpReativo.executar("trancarTranca",
+            clienteHttpReativo.para("trancarTranca").post()
+                    .uri(equipamentoUrl + "/tranca/{idTranca}/trancar", idTranca)
+                    .bodyValue(idBicicleta)
+                    .retrieve()
+                    .toBodilessEntity())
+            .handle((resposta, erro) -> {
+                if (erro == null) {
+                    circuito.registrarSucesso();
+                    logger.info(" Tranca {} trancada no serviço real.", idTranca);
+                    return null;
+                }
+                Throwable causa = causa(erro);
+                registrarResultado(circuito, causa);
+                logger.warn(" Falha na comunicação em trancar. Usando Mock. Erro: {}", causa.getMessage());
+                mockTrancamento(idTranca);
+                return null;
+            });
+}
+
+public CompletableFuture<Void> alterarStatusBicicletaAsync(Integer idBicicleta, String status) {
+    if (canalComandos != null) {
+        return canalComandos.enfileirar(ComandoEquipamentoDTO.alterarStatus(idBicicleta, status))
+                .thenAccept(resultado -> tratarAlteracaoDeStatus(idBicicleta, status, resultado));
+    }
+    CircuitBreaker circuito = circuitos.para("alterarStatusBicicleta");
+    if (!circuito.permiteChamada()) {
+        logCircuitoAberto(circuito, idBicicleta);
+        mockAlteracaoDeStatus(idBicicleta);
+        return CompletableFuture.completedFuture(null);
+    }
+    return clienteHttpReativo.executar("alterarStatusBicicleta",
+            clienteHttpReativo.para("alterarStatusBicicleta").post()
+                    .uri(equipamentoUrl + "/bicicleta/{idBicicleta}/status/{status}", idBicicleta, status)
+                    .retrieve()
+                    .toBodilessEntity())
+            .handle((resposta, erro) -> {
+                if (erro == null) {
+                    circuito.registrarSucesso();
+                    cacheBicicletas.atualizarStatus(idBicicleta, status);
+                    logger.info(" Status da bike {} alterado para {} no serviço real.", idBicicleta, status);
+                    return null;
+                }
+                Throwable causa = causa(erro);
+                registrarResultado(circuito, causa);
+                logger.warn(" Falha na comunicação em alterar status. Usando Mock. Erro: {}", causa.getMessage());
+                mockAlteracaoDeStatus(idBicicleta);
+                return null;
+            });
+}
+
+// --- Comandos em lote (equipamento.comandos.lote.habilitado=true) ---
+
+/**
+ * POST /comandos/lote: lista de ComandoEquipamentoDTO, resposta com um
+ * ResultadoComandoDTO por comando (casado pelo id). null quando o Equipamento
+ * não tem o endpoint (404/405/501): o canal passa a mandar um a um.
+ */
+private List<ResultadoComandoDTO> enviarComandosEmLote(List<ComandoEquipamentoDTO> comandos) {
+    CircuitBreaker circuito = circuitos.para("enviarComandosEmLote");
+    if (!circuito.permiteChamada()) {
+        throw new IllegalStateException("Circuito " + circuito.getEstado() + " para enviarComandosEmLote");
+    }
+    try {
+        ResultadoComandoDTO[] resultados = clienteHttp.para("enviarComandosEmLote")
+                .postForObject(equipamentoUrl + "/comandos/lote", comandos, ResultadoComandoDTO[].class);
+        circuito.registrarSucesso();
+        return resultados == null ? Collections.<ResultadoComandoDTO>emptyList() : Arrays.asList(resultados);
+    } catch (HttpClientErrorException e) {
+        circuito.registrarSucesso();
+        if (e.getStatusCode() == HttpStatus.NOT_FOUND || e.getStatusCode() == HttpStatus.METHOD_NOT_ALLOWED) {
+            return null;
+        }
+        throw e;
+    } catch (HttpServerErrorException e) {
+        if (e.getStatusCode() == HttpStatus.NOT_IMPLEMENTED) {
+            circuito.registrarSucesso();
+            return null;
+        }
+        circuito.registrarFalha();
+        throw e;
+    } catch (RuntimeException e) {
+        circuito.registrarFalha();
+        throw e;
+    }
+}
+
+// Um comando na chamada de sempre (Equipamento sem lote), com o circuito da operação
+private ResultadoComandoDTO enviarComando(ComandoEquipamentoDTO comando) {
+    String operacao;
+    if (ComandoEquipamentoDTO.DESTRANCAR.equals(comando.getTipo())) {
+        operacao = "destrancarTranca";
+    } else if (ComandoEquipamentoDTO.TRANCAR.equals(comando.getTipo())) {
+        operacao = "trancarTranca";
+    } else {
+        operacao = "alterarStatusBicicleta";
+    }
+    CircuitBreaker circuito = circuitos.para(operacao);
+    if (!circuito.permiteChamada()) {
+        return ResultadoComandoDTO.falha(comando.getId(), "Circuito " + circuito.getEstado() + " para " + operacao);
+    }
+    try {
+        if ("destrancarTranca".equals(operacao)) {
+            clienteHttp.para(operacao).postForLocation(equipamentoUrl + "/tranca/{idTranca}/destrancar",
+                    null, comando.getIdTranca());
+        } else if ("trancarTranca".equals(operacao)) {
+            clienteHttp.para(operacao).postForLocation(equipamentoUrl + "/tranca/{idTranca}/trancar",
+                    comando.getIdBicicleta(), comando.getIdTranca());
+        } else {
+            clienteHttp.para(operacao).postForLocation(equipamentoUrl + "/bicicleta/{idBicicleta}/status/{status}",
+                    null, comando.getIdBicicleta(), comando.getStatus());
+        }
+        circuito.registrarSucesso();
+        return new ResultadoComandoDTO(comando.getId(), ResultadoComandoDTO.OK, HttpStatus.OK.value(), null);
+    } catch (HttpClientErrorException e) {
+        circuito.registrarSucesso();
+        return new ResultadoComandoDTO(comando.getId(), ResultadoComandoDTO.RECUSADO,
+                e.getRawStatusCode(), e.getStatusText());
+    } catch (RuntimeException e) {
+        circuito.registrarFalha();
+        return ResultadoComandoDTO.falha(comando.getId(), e.getMessage());
+    }
+}
+
+private ResultadoComandoDTO aguardar(ComandoEquipamentoDTO comando) {
+    CompletableFuture<ResultadoComandoDTO> confirmacao = canalComandos.enfileirar(comando);
+    try {
+        return confirmacao.get(loteConfirmacaoMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return ResultadoComandoDTO.falha(comando.getId(), "Espera pela confirmação interrompida");
+    } catch (ExecutionException | TimeoutException e) {
+        return ResultadoComandoDTO.falha(comando.getId(), "Sem confirmação em " + loteConfirmacaoMs + " ms");
+    }
+}
+
+// Mesmas regras das chamadas diretas: recusa (4xx) aborta o aluguel; sem confirmação, Mock
+private void tratarDestrancamento(Integer idTranca, ResultadoComandoDTO resultado) {
+    if (resultado.isOk()) {
+        logger.info(" Tranca {} destrancada no serviço real.", idTranca);
+        return;
+    }
+    if (resultado.isRecusado()) {
+        logger.error(" Erro de Negócio/Validação ({}) no destrancamento. Abortando. Tranca: {}",
+                descreverStatus(resultado.getCodigo()), idTranca);
+        throw new IllegalArgumentException("Equipamento recusou o destrancamento: " + descreverStatus(resultado.getCodigo()));
+    }
+    logger.warn(" Serviço Indisponível (5xx ou Conexão). Usando Mock. Tranca: {}. Erro: {}",
+            idTranca, resultado.getMensagem());
+    mockDestrancamento(idTranca);
+}
+
+private void tratarTrancamento(Integer idTranca, ResultadoComandoDTO resultado) {
+    if (resultado.isOk()) {
+        logger.info(" Tranca {} trancada no serviço real.", idTranca);
+        return;
+    }
+    logger.warn(" Falha na comunicação em trancar. Usando Mock. Erro: {}", resultado.getMensagem());
+    mockTrancamento(idTranca);
+}
+
+private void tratarAlteracaoDeStatus(Integer idBicicleta, String status, ResultadoComandoDTO resultado) {
+    if (resultado.isOk()) {
+        cacheBicicletas.atualizarStatus(idBicicleta, status);
+        logger.info(" Status da bike {} alterado para {} no serviço real.", idBicicleta, status);
+        return;
+    }
+    logger.warn(" Falha na comunicação em alterar status. Usando Mock. Erro: {}", resultado.getMensagem());
+    mockAlteracaoDeStatus(idBicicleta);
+}
+
+private static Object descreverStatus(Integer codigo) {
+    HttpStatus status = codigo == null ? null : HttpStatus.resolve(codigo);
+    return status != null ? status : codigo;
+}
+
+// --- Mocks de resiliência (5xx/Conexão ou circuito aberto) ---
+
+// FALLBACK (PLANO B): Retorna um dado fictício para não travar a demo.
+// Id simulado POR TRANCA (negativo: nunca colide com uma bicicleta real). Com um
+// id fixo, a reserva da bicicleta e o índice único do banco deixariam um único
+// aluguel ativo no sistema inteiro enquanto o Equipamento estivesse fora.
+private BicicletaDTO mockBicicletaDaTranca(Integer idTranca) {
+    contarFallback("getBicicletaDaTranca");
+    int idSimulado = -idTranca;
+    logger.warn(" >>> SIMULANDO BUSCA DA BICICLETA {}/{} com sucesso (MOCK DE RESILIÊNCIA).", idSimulado, idTranca);
+    BicicletaDTO mock = new BicicletaDTO();
+    mock.setId(idSimulado);
+    mock.setNumero(123);
+    mock.setMarca("Caloi Mock");
+    mock.setModelo("Veloz");
+    mock.setStatus("DISPONIVEL");
+    return mock;
+}
+
+// ATIVAÇÃO DO MOCK (Apenas para logar o aviso de que o Mock foi usado)
+private void mockDestrancamento(Integer idTranca) {
+    contarFallback("destrancarTranca");
+    logger.warn(" >>> SIMULANDO DESTANCAMENTO da tranca {} com sucesso (MOCK DE RESILIÊNCIA).", idTranca);
+}
+
+private void mockTrancamento(Integer idTranca) {
+    contarFallback("trancarTranca");
+    logger.warn(" >>> SIMULANDO TRANCAMENTO da tranca {} com sucesso (MOCK).", idTranca);
+}
+
+private void mockAlteracaoDeStatus(Integer idBicicleta) {
+    // Não sabemos se o Equipamento aplicou a alteração
+    cacheBicicletas.invalidarStatus(idBicicleta);
+    contarFallback("alterarStatusBicicleta");
+    logger.warn(" >>> SIMULANDO ALTERAÇÃO DE STATUS da bike {} com sucesso (MOCK).", idBicicleta);
+}
+
+// --- Apoio ao circuit breaker ---
+
+// 4xx = o Equipamento respondeu (regra de negócio); só 5xx/conexão/erro inesperado conta como falha
+private void registrarResultado(CircuitBreaker circuito, Throwable e) {
+    if (erroDeNegocio(e)) {
+        circuito.registrarSucesso();
+    } else {
+        circuito.registrarFalha();
+    }
+}
+
+private static boolean erroDeNegocio(Throwable e) {
+    return e instanceof HttpClientErrorException
+            || (e instanceof WebClientResponseException
+                && ((WebClientResponseException) e).getStatusCode().is4xxClientError());
+}
+
+private static Object statusDo(Throwable e) {
+    return e instanceof WebClientResponseException
+            ? ((WebClientResponseException) e).getStatusCode()
+            : ((HttpClientErrorException) e).getStatusCode();
+}
+
+// O erro que chega ao handle() vem embrulhado pelo CompletableFuture
+private static Throwable causa(Throwable erro) {
+    if ((erro instanceof CompletionException || erro instanceof ExecutionException) && erro.getCause() != null) {
+        return erro.getCause();
+    }
+    return erro;
+}
+
+// Quantas vezes cada operação foi atendida pelo Mock (falha remota ou circuito aberto)
+private void contarFallback(String operacao) {
+    meterRegistry.counter("equipamento.fallback", "operacao", operacao).increment();
+}
+
+private void logCircuitoAberto(CircuitBreaker circuito, Integer id) {
+    logger.warn(" Circuito {} para {}. Usando Mock sem chamar o serviço. Id: {}",
+            circuito.getEstado(), circuito.getNome(), id);
+}
+}
@@ -1,13 +1,24 @@
 package bicicletario.aluguel.mock;
 
 import bicicletario.aluguel.dto.CobrancaDTO;
+import bicicletario.aluguel.dto.NovaCobrancaDTO;
 import bicicletario.aluguel.dto.NovoCartaoDeCreditoDTO;
+import bicicletario.aluguel.dto.ResultadoCobrancaLoteDTO;
+import bicicletario.aluguel.http.ClienteHttp;
+import bicicletario.aluguel.http.ClienteHttpReativo;
+import bicicletario.idempotencia.IdempotenciaFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ExternoService {
@@ -16,12 +27,17 @@ public class ExternoService {
 @Value("${url.externo:http://localhost:8081}")
 private String externoUrl;
 
-private final RestTemplate restTemplate = new RestTemplate();
+// Pool de conexões compartilhado; timeouts por operação (http.cliente.operacoes.*)
+@Autowired
+private ClienteHttp clienteHttp;
+
+@Autowired
+private ClienteHttpReativo clienteHttpReativo;
 
 public boolean validarCartaoDeCredito(NovoCartaoDeCreditoDTO cartaoDTO) {
     try {
         // CHAMA O SERVIÇO REAL AGORA!
-        restTemplate.postForEntity(externoUrl + "/validaCartaoDeCredito", cartaoDTO, Void.class);
+        clienteHttp.para("validarCartaoDeCredito").postForEntity(externoUrl + "/validaCartaoDeCredito", cartaoDTO, Void.class);
         return true;
     } catch (HttpClientErrorException e) {
         return false;
@@ -31,32 +47,92 @@ public boolean validarCartaoDeCredito(NovoCartaoDeCreditoDTO cartaoDTO) {
     }
 }
 
+/**
+ * Envia o email de forma síncrona. Erros de comunicação são propagados para que
+ * o NotificacaoDispatcher possa reagendar o envio (não usar direto nos fluxos de negócio).
+ */
 public void enviarEmail(String email, String assunto, String mensagem) {
     Map<String, String> body = new HashMap<>();
     body.put("email", email);
     body.put("assunto", assunto);
     body.put("mensagem", mensagem);
 
-    try {
-        restTemplate.postForEntity(externoUrl + "/enviarEmail", body, Void.class);
-    } catch (Exception e) {
-        System.err.println("Erro ao enviar email: " + e.getMessage());
-    }
+    clienteHttp.para("enviarEmail").postForEntity(externoUrl + "/enviarEmail", body, Void.class);
 }
 
-public CobrancaDTO realizarCobranca(Double valor, Integer ciclistaId) {
-    Map<String, Object> body = new HashMap<>();
-    body.put("valor", valor);
-    body.put("ciclista", ciclistaId);
+/**
+ * Cobranças levam a chave de idempotência de quem chama (uma por aluguel e
+ * etapa): se a resposta se perder e a chamada for repetida, o Externo devolve
+ * a cobrança já feita em vez de cobrar de novo.
+ */
+public CobrancaDTO realizarCobranca(Double valor, Integer ciclistaId, String chaveIdempotencia) {
     // Chama o POST /cobranca real
-    return restTemplate.postForObject(externoUrl + "/cobranca", body, CobrancaDTO.class);
+    return clienteHttp.para("realizarCobranca").postForObject(externoUrl + "/cobranca",
+            comChave(corpoCobranca(valor, ciclistaId), chaveIdempotencia), CobrancaDTO.class);
 }
 
-public CobrancaDTO enviarParaFilaCobranca(Double valor, Integer ciclistaId) {
+public CobrancaDTO enviarParaFilaCobranca(Double valor, Integer ciclistaId, String chaveIdempotencia) {
+    // Chama o POST /filaCobranca real
+    return clienteHttp.para("enviarParaFilaCobranca").postForObject(externoUrl + "/filaCobranca",
+            comChave(corpoCobranca(valor, ciclistaId), chaveIdempotencia), CobrancaDTO.class);
+}
+
+/**
+ * realizarCobranca sem prender thread (modo reativo). Como na versão
+ * síncrona, erros do Externo não têm Mock: o futuro completa com o erro.
+ */
+public CompletableFuture<CobrancaDTO> realizarCobrancaAsync(Double valor, Integer ciclistaId,
+                                                            String chaveIdempotencia) {
+    return clienteHttpReativo.executar("realizarCobranca",
+            clienteHttpReativo.para("realizarCobranca").post()
+                    .uri(externoUrl + "/cobranca")
+                    .header(IdempotenciaFilter.CABECALHO_CHAVE, chaveIdempotencia)
+                    .bodyValue(corpoCobranca(valor, ciclistaId))
+                    .retrieve()
+                    .bodyToMono(CobrancaDTO.class));
+}
+
+public CompletableFuture<CobrancaDTO> enviarParaFilaCobrancaAsync(Double valor, Integer ciclistaId,
+                                                                  String chaveIdempotencia) {
+    return clienteHttpReativo.executar("enviarParaFilaCobranca",
+            clienteHttpReativo.para("enviarParaFilaCobranca").post()
+                    .uri(externoUrl + "/filaCobranca")
+                    .header(IdempotenciaFilter.CABECALHO_CHAVE, chaveIdempotencia)
+                    .bodyValue(corpoCobranca(valor, ciclistaId))
+                    .retrieve()
+                    .bodyToMono(CobrancaDTO.class));
+}
+
+private static Map<String, Object> corpoCobranca(Double valor, Integer ciclistaId) {
     Map<String, Object> body = new HashMap<>();
     body.put("valor", valor);
     body.put("ciclista", ciclistaId);
-    // Chama o POST /filaCobranca real
-    return restTemplate.postForObject(externoUrl + "/filaCobranca", body, CobrancaDTO.class);
+    return body;
+}
+
+private static <T> HttpEntity<T> comChave(T corpo, String chaveIdempotencia) {
+    HttpHeaders cabecalhos = new HttpHeaders();
+    cabecalhos.set(IdempotenciaFilter.CABECALHO_CHAVE, chaveIdempotencia);
+    return new HttpEntity<>(corpo, cabecalhos);
+}
+
+/**
+ * Várias cobranças numa única requisição (POST /cobrancas/lote), gravadas pelo
+ * Externo numa só transação. Itens inválidos não derrubam o lote: voltam com
+ * status 'REJEITADA' e o erro, na mesma posição em que foram enviados.
+ *
+ * @param fila true = cobranças PENDENTE na fila do Externo, false = cobradas na hora
+ * @param chaveIdempotencia chave do lote inteiro: repetir o envio com a mesma
+ *                          chave devolve os resultados da primeira vez
+ */
+public List<ResultadoCobrancaLoteDTO> enviarCobrancasEmLote(List<NovaCobrancaDTO> cobrancas, boolean fila,
+                                                            String chaveIdempotencia) {
+    if (cobrancas.isEmpty()) {
+        return Collections.emptyList();
+    }
+    ResultadoCobrancaLoteDTO[] resultados = clienteHttp.para("enviarCobrancasEmLote")
+            .postForObject(externoUrl + "/cobrancas/lote?fila={fila}", comChave(cobrancas, chaveIdempotencia),
+                    ResultadoCobrancaLoteDTO[].class, fila);
+    return resultados == null ? Collections.<ResultadoCobrancaLoteDTO>emptyList() : Arrays.asList(resultados);
+}
 }
-}
\ No newline at end of file
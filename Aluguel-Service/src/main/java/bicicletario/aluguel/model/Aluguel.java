@@ -4,13 +4,31 @@ package bicicletario.aluguel.model;
 // (Note que o schema 'Devolucao' é quase idêntico, talvez possamos
 // usar esta única entidade para ambos os casos)
 
+import bicicletario.aluguel.service.AluguelListener;
+
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import java.time.LocalDateTime;
 
+// Índices para as buscas do aluguel ATIVO (horaFim nula), feitas a cada aluguel/devolução.
+// Quem cria os índices são as migrações do Flyway (db/migration/{h2,postgresql}); no
+// PostgreSQL os do aluguel ativo são parciais (V1_1__indices_aluguel_ativo.sql).
+// Os *_hora_inicio servem à paginação por chave do histórico (V1_4__indices_historico_aluguel.sql)
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_aluguel_ciclista_hora_fim", columnList = "ciclista, horaFim"),
+        @Index(name = "idx_aluguel_bicicleta_hora_fim", columnList = "bicicleta, horaFim"),
+        @Index(name = "idx_aluguel_ciclista_hora_inicio", columnList = "ciclista, horaInicio, id"),
+        @Index(name = "idx_aluguel_bicicleta_hora_inicio", columnList = "bicicleta, horaInicio, id"),
+        @Index(name = "idx_aluguel_tranca_inicio_hora_inicio", columnList = "trancaInicio, horaInicio, id"),
+        @Index(name = "idx_aluguel_hora_inicio", columnList = "horaInicio, id")
+})
+@EntityListeners(AluguelListener.class)
 public class Aluguel {
 
 @Id
@@ -30,6 +48,20 @@ public Aluguel() {
     // Requerido pelo framework JPA
 }
 
+// Cópia solta (não gerenciada pelo JPA), usada pelo registro de aluguéis ativos
+public Aluguel copiar() {
+    Aluguel copia = new Aluguel();
+    copia.id = id;
+    copia.ciclista = ciclista;
+    copia.trancaInicio = trancaInicio;
+    copia.bicicleta = bicicleta;
+    copia.horaInicio = horaInicio;
+    copia.trancaFim = trancaFim;
+    copia.horaFim = horaFim;
+    copia.cobranca = cobranca;
+    return copia;
+}
+
 public Integer getId() {
     return id;
 }
@@ -1,13 +1,20 @@
 package bicicletario.aluguel.model;
 
+import bicicletario.aluguel.service.CartaoDeCreditoListener;
+
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToOne;
+import javax.persistence.Table;
 
 @Entity
+@EntityListeners(CartaoDeCreditoListener.class) // Invalida o cartão no CacheCiclistas
+@Table(indexes = @Index(name = "idx_cartao_de_credito_id_ciclista", columnList = "idCiclista")) // findByIdCiclista
 public class CartaoDeCredito {
 
 @Id
@@ -1,13 +1,24 @@
 package bicicletario.aluguel.model;
 
+import bicicletario.aluguel.service.CiclistaListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.persistence.Column;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(CiclistaListener.class) // Mantém o FiltroEmailsCiclistas em dia
+@Table(indexes = @Index(name = "idx_ciclista_atualizado_em", columnList = "atualizadoEm"))
 public class Ciclista
 {
     @Id
@@ -24,11 +35,20 @@ public class Ciclista
     private String urlFotoDocumento;
     private String senha;
     private String status; // 'ATIVO', 'INATIVO', 'AGUARDANDO_CONFIRMACAO'
+    private String plano; // Plano tarifário (ex: 'ESTUDANTE'); null = tarifa padrão. Definido pela operação
+    @JsonIgnore
+    private LocalDateTime atualizadoEm; // Última gravação: recuperação do snapshot na subida (SnapshotInicializacao)
 
     public Ciclista() {
         // Construtor vazio (obrigatório pelo JPA)
     }
 
+    @PrePersist
+    @PreUpdate
+    void marcarAtualizacao() {
+        atualizadoEm = LocalDateTime.now();
+    }
+
     // Getters e Setters
     public void setId(Integer id) {this.id = id;}
     public Integer getId() {return id;}
@@ -50,4 +70,8 @@ public class Ciclista
     public String getSenha() {return senha;}
     public void setStatus(String status) {this.status = status;}
     public String getStatus() {return status;}
+    public void setPlano(String plano) {this.plano = plano;}
+    public String getPlano() {return plano;}
+    public void setAtualizadoEm(LocalDateTime atualizadoEm) {this.atualizadoEm = atualizadoEm;}
+    public LocalDateTime getAtualizadoEm() {return atualizadoEm;}
 }
\ No newline at end of file
@@ -1,17 +1,26 @@
 package bicicletario.aluguel.model;
 
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
 import javax.persistence.Entity;
-import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import java.time.LocalDateTime;
 
+// Devolução = aluguel já fechado (horaFim preenchida). Não tem tabela própria:
+// é uma projeção somente leitura sobre 'aluguel', então a devolução custa um único
+// UPDATE no aluguel. @Synchronize faz o Hibernate descarregar alterações pendentes
+// em Aluguel antes de consultar Devolucao.
 @Entity
+@Immutable
+@Subselect("select a.id, a.ciclista, a.bicicleta, a.hora_inicio, a.tranca_fim, a.hora_fim, a.cobranca "
+        + "from aluguel a where a.hora_fim is not null")
+@Synchronize("aluguel")
 public class Devolucao {
 
 @Id
-@GeneratedValue(strategy = GenerationType.IDENTITY)
-private Integer id; // Boa prática, mesmo que o schema não liste um 'id'
+private Integer id; // Mesmo id do aluguel
 
 // Campos baseados nos schemas 'NovoDevolucao' e 'Devolucao'
 private Integer ciclista;
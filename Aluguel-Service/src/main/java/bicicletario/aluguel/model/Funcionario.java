@@ -1,5 +1,7 @@
 package bicicletario.aluguel.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -14,6 +16,7 @@ private Integer id; // Este é o 'idFuncionario' (Integer) usado nos paths da AP
 private String matricula;
 private String nome;
 private String email;
+@JsonProperty(access = JsonProperty.Access.WRITE_ONLY) // Nunca sai nas respostas (consulta, listagem, exportação)
 private String senha;
 private int idade;
 private String funcao;
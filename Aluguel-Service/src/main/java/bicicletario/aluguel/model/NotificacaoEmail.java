@@ -0,0 +1,139 @@
+package bicicletario.aluguel.model;
+
+// Linha da "caixa de saída" (outbox) de emails: gravada na mesma transação
+// da operação de negócio e enviada depois pelo NotificacaoDispatcher.
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_notificacao_status_proxima", columnList = "status, proximaTentativa"),
+        @Index(name = "idx_notificacao_lote", columnList = "lote")})
+public class NotificacaoEmail {
+
+@Id
+@GeneratedValue(strategy = GenerationType.IDENTITY)
+private Integer id;
+
+private String email;
+private String assunto;
+@Column(length = 2000)
+private String mensagem;
+
+private String status; // 'PENDENTE', 'ENVIANDO', 'ENVIADO', 'FALHA'
+private int tentativas;
+private LocalDateTime proximaTentativa;
+private LocalDateTime criadoEm;
+private LocalDateTime enviadoEm;
+@Column(length = 500)
+private String ultimoErro;
+private String lote; // Token da instância que reivindicou o email (NotificacaoDispatcher)
+private LocalDateTime reivindicadaEm;
+
+public NotificacaoEmail() {
+    // Requerido pelo framework JPA
+}
+
+public Integer getId() {
+    return id;
+}
+
+public void setId(Integer id) {
+    this.id = id;
+}
+
+public String getEmail() {
+    return email;
+}
+
+public void setEmail(String email) {
+    this.email = email;
+}
+
+public String getAssunto() {
+    return assunto;
+}
+
+public void setAssunto(String assunto) {
+    this.assunto = assunto;
+}
+
+public String getMensagem() {
+    return mensagem;
+}
+
+public void setMensagem(String mensagem) {
+    this.mensagem = mensagem;
+}
+
+public String getStatus() {
+    return status;
+}
+
+public void setStatus(String status) {
+    this.status = status;
+}
+
+public int getTentativas() {
+    return tentativas;
+}
+
+public void setTentativas(int tentativas) {
+    this.tentativas = tentativas;
+}
+
+public LocalDateTime getProximaTentativa() {
+    return proximaTentativa;
+}
+
+public void setProximaTentativa(LocalDateTime proximaTentativa) {
+    this.proximaTentativa = proximaTentativa;
+}
+
+public LocalDateTime getCriadoEm() {
+    return criadoEm;
+}
+
+public void setCriadoEm(LocalDateTime criadoEm) {
+    this.criadoEm = criadoEm;
+}
+
+public LocalDateTime getEnviadoEm() {
+    return enviadoEm;
+}
+
+public void setEnviadoEm(LocalDateTime enviadoEm) {
+    this.enviadoEm = enviadoEm;
+}
+
+public String getUltimoErro() {
+    return ultimoErro;
+}
+
+public void setUltimoErro(String ultimoErro) {
+    this.ultimoErro = ultimoErro;
+}
+
+public String getLote() {
+    return lote;
+}
+
+public void setLote(String lote) {
+    this.lote = lote;
+}
+
+public LocalDateTime getReivindicadaEm() {
+    return reivindicadaEm;
+}
+
+public void setReivindicadaEm(LocalDateTime reivindicadaEm) {
+    this.reivindicadaEm = reivindicadaEm;
+}
+}
@@ -0,0 +1,40 @@
+package bicicletario.aluguel.model;
+
+import javax.persistence.Embeddable;
+import java.time.LocalTime;
+
+/**
+ * Ajuste de uma TabelaTarifa para um caso específico. Cada condição nula vale
+ * para qualquer aluguel; cada valor nulo mantém o da tabela. Na tabela, a
+ * primeira regra (ordem da lista) cujas condições batem é aplicada; as demais
+ * são ignoradas.
+ */
+@Embeddable
+public class RegraTarifa {
+
+// --- Condições ---
+private String plano;           // Ciclista.plano
+private String trancas;         // Ids das trancas de retirada separados por vírgula (uma estação)
+private LocalTime retiradaDe;   // Faixa de horário da retirada [de, ate); pode virar a meia-noite
+private LocalTime retiradaAte;
+
+// --- Valores ---
+private Integer franquiaMinutos;
+private Integer periodoMinutos;
+private Long valorPeriodoCentavos;
+
+public String getPlano() { return plano; }
+public void setPlano(String plano) { this.plano = plano; }
+public String getTrancas() { return trancas; }
+public void setTrancas(String trancas) { this.trancas = trancas; }
+public LocalTime getRetiradaDe() { return retiradaDe; }
+public void setRetiradaDe(LocalTime retiradaDe) { this.retiradaDe = retiradaDe; }
+public LocalTime getRetiradaAte() { return retiradaAte; }
+public void setRetiradaAte(LocalTime retiradaAte) { this.retiradaAte = retiradaAte; }
+public Integer getFranquiaMinutos() { return franquiaMinutos; }
+public void setFranquiaMinutos(Integer franquiaMinutos) { this.franquiaMinutos = franquiaMinutos; }
+public Integer getPeriodoMinutos() { return periodoMinutos; }
+public void setPeriodoMinutos(Integer periodoMinutos) { this.periodoMinutos = periodoMinutos; }
+public Long getValorPeriodoCentavos() { return valorPeriodoCentavos; }
+public void setValorPeriodoCentavos(Long valorPeriodoCentavos) { this.valorPeriodoCentavos = valorPeriodoCentavos; }
+}
@@ -0,0 +1,78 @@
+package bicicletario.aluguel.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.OrderColumn;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Uma versão da tabela de preços da taxa extra (UC04-R1). Versões não são
+ * alteradas depois de gravadas: mudança de preço = nova versão com outro
+ * 'vigenteDesde'. Cada aluguel é cobrado pela versão vigente na sua retirada.
+ *
+ * Taxa extra = ceil((minutos - franquia) / período) * valor do período,
+ * com franquia/período/valor da primeira regra que se aplica (ou os da tabela).
+ *
+ * Sempre nova para o Spring Data (Persistable): save() faz persist, nunca
+ * merge, e uma versão com número repetido falha na chave primária em vez de
+ * sobrescrever a já gravada (e as regras dela).
+ */
+@Entity
+public class TabelaTarifa implements Persistable<Integer> {
+
+@Id
+private Integer versao;
+private LocalDateTime vigenteDesde;
+private int franquiaMinutos;
+private int periodoMinutos;
+private long valorPeriodoCentavos;
+
+@ElementCollection(fetch = FetchType.EAGER)
+@CollectionTable(name = "regra_tarifa", joinColumns = @JoinColumn(name = "versao"))
+@OrderColumn(name = "prioridade")
+private List<RegraTarifa> regras = new ArrayList<>();
+
+public TabelaTarifa() {
+    // Requerido pelo JPA
+}
+
+// Regra original do UC04: 2h grátis, depois R$ 5,00 a cada 30 minutos (ou fração)
+public static TabelaTarifa padrao() {
+    TabelaTarifa tabela = new TabelaTarifa();
+    tabela.setVersao(1);
+    tabela.setVigenteDesde(LocalDateTime.of(1970, 1, 1, 0, 0));
+    tabela.setFranquiaMinutos(120);
+    tabela.setPeriodoMinutos(30);
+    tabela.setValorPeriodoCentavos(500);
+    return tabela;
+}
+
+@JsonIgnore
+@Override
+public Integer getId() { return versao; }
+@JsonIgnore
+@Override
+public boolean isNew() { return true; }
+
+public Integer getVersao() { return versao; }
+public void setVersao(Integer versao) { this.versao = versao; }
+public LocalDateTime getVigenteDesde() { return vigenteDesde; }
+public void setVigenteDesde(LocalDateTime vigenteDesde) { this.vigenteDesde = vigenteDesde; }
+public int getFranquiaMinutos() { return franquiaMinutos; }
+public void setFranquiaMinutos(int franquiaMinutos) { this.franquiaMinutos = franquiaMinutos; }
+public int getPeriodoMinutos() { return periodoMinutos; }
+public void setPeriodoMinutos(int periodoMinutos) { this.periodoMinutos = periodoMinutos; }
+public long getValorPeriodoCentavos() { return valorPeriodoCentavos; }
+public void setValorPeriodoCentavos(long valorPeriodoCentavos) { this.valorPeriodoCentavos = valorPeriodoCentavos; }
+public List<RegraTarifa> getRegras() { return regras; }
+public void setRegras(List<RegraTarifa> regras) { this.regras = regras; }
+}
@@ -1,17 +1,73 @@
 package bicicletario.aluguel.repository;
 
 import bicicletario.aluguel.model.Aluguel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AluguelRepository extends JpaRepository<Aluguel, Integer>
 {
-// Método para checar se o ciclista PODE alugar (necessário para /permiteAluguel)
+// Busca o aluguel ativo completo (quando a entidade inteira é necessária)
 Optional<Aluguel> findByCiclistaAndHoraFimIsNull(Integer idCiclista);
 
+// Método para checar se o ciclista PODE alugar (necessário para /permiteAluguel)
+// Só consulta o índice; não carrega a linha do aluguel
+boolean existsByCiclistaAndHoraFimIsNull(Integer idCiclista);
+
+// Projeção: só o id da bicicleta do aluguel ativo (necessário para /bicicletaAlugada)
+@Query("select a.bicicleta from Aluguel a where a.ciclista = :idCiclista and a.horaFim is null")
+Optional<Integer> findBicicletaDoAluguelAtivo(@Param("idCiclista") Integer idCiclista);
+
+// Todos os aluguéis em andamento (carga inicial do RegistroAlugueisAtivos)
+List<Aluguel> findByHoraFimIsNull();
+
+// Recuperação do snapshot na subida (SnapshotInicializacao): quais dos aluguéis
+// do snapshot continuam abertos, e os abertos desde então
+@Query("select a.id from Aluguel a where a.id in :ids and a.horaFim is null")
+List<Integer> findIdsAindaAbertos(@Param("ids") Collection<Integer> ids);
+
+List<Aluguel> findByHoraInicioGreaterThanEqualAndHoraFimIsNull(LocalDateTime desde);
+
 // Método CRÍTICO para achar o aluguel que está sendo DEVOLVIDO
 Optional<Aluguel> findByBicicletaAndHoraFimIsNull(Integer idBicicleta);
+
+// Reserva de bicicleta que esbarra num aluguel da memória (RegistroAlugueisAtivos)
+boolean existsByBicicletaAndHoraFimIsNull(Integer idBicicleta);
+
+// --- Histórico (HistoricoAluguelService): paginação por chave (horaInicio, id), do mais recente ---
+// Cada página começa logo abaixo da última linha da anterior ('hora'/'id' do cursor), sem
+// OFFSET: o banco desce direto pelo índice (filtro, horaInicio, id), qualquer que seja a página.
+// 'hora <= :hora and (hora < :hora or id < :id)' é a forma que usa o índice como intervalo.
+
+@Query("select a from Aluguel a where a.ciclista = :idCiclista"
+        + " and a.horaInicio >= :de and a.horaInicio <= :hora and (a.horaInicio < :hora or a.id < :id)"
+        + " order by a.horaInicio desc, a.id desc")
+List<Aluguel> findHistoricoDoCiclista(@Param("idCiclista") Integer idCiclista, @Param("de") LocalDateTime de,
+        @Param("hora") LocalDateTime hora, @Param("id") Integer id, Pageable limite);
+
+@Query("select a from Aluguel a where a.bicicleta = :idBicicleta"
+        + " and a.horaInicio >= :de and a.horaInicio <= :hora and (a.horaInicio < :hora or a.id < :id)"
+        + " order by a.horaInicio desc, a.id desc")
+List<Aluguel> findHistoricoDaBicicleta(@Param("idBicicleta") Integer idBicicleta, @Param("de") LocalDateTime de,
+        @Param("hora") LocalDateTime hora, @Param("id") Integer id, Pageable limite);
+
+@Query("select a from Aluguel a where a.trancaInicio = :idTranca"
+        + " and a.horaInicio >= :de and a.horaInicio <= :hora and (a.horaInicio < :hora or a.id < :id)"
+        + " order by a.horaInicio desc, a.id desc")
+List<Aluguel> findHistoricoDaTranca(@Param("idTranca") Integer idTranca, @Param("de") LocalDateTime de,
+        @Param("hora") LocalDateTime hora, @Param("id") Integer id, Pageable limite);
+
+@Query("select a from Aluguel a where"
+        + " a.horaInicio >= :de and a.horaInicio <= :hora and (a.horaInicio < :hora or a.id < :id)"
+        + " order by a.horaInicio desc, a.id desc")
+List<Aluguel> findHistorico(@Param("de") LocalDateTime de,
+        @Param("hora") LocalDateTime hora, @Param("id") Integer id, Pageable limite);
 }
\ No newline at end of file
@@ -2,11 +2,24 @@ package bicicletario.aluguel.repository;
 
 import bicicletario.aluguel.model.Ciclista;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface CiclistaRepository extends JpaRepository<Ciclista, Integer> {
 // JpaRepository já nos dá: save(), findById(), findAll(), delete(), ...
 // O Spring Data JPA cria a query automaticamente pelo nome do método
 boolean existsByEmail(String email);
+
+// Só a coluna de email, para montar o FiltroEmailsCiclistas
+@Query("select c.email from Ciclista c where c.email is not null")
+List<String> findAllEmails();
+
+// Emails gravados desde o snapshot (recuperação do filtro na subida)
+@Query("select c.email from Ciclista c where c.atualizadoEm >= :desde and c.email is not null")
+List<String> findEmailsAlteradosDesde(@Param("desde") LocalDateTime desde);
 }
\ No newline at end of file
@@ -1,11 +1,19 @@
 package bicicletario.aluguel.repository;
 
 import bicicletario.aluguel.model.Devolucao;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
+// Somente leitura: Devolucao é uma projeção dos aluguéis fechados (ver entidade),
+// por isso não estende JpaRepository (não há save/delete)
 @Repository
-public interface DevolucaoRepository extends JpaRepository<Devolucao, Integer>
+public interface DevolucaoRepository extends org.springframework.data.repository.Repository<Devolucao, Integer>
 {
+Optional<Devolucao> findById(Integer id);
+
+List<Devolucao> findAll();
 
-}
\ No newline at end of file
+long count();
+}
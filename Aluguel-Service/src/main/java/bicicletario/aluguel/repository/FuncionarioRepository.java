@@ -2,10 +2,27 @@ package bicicletario.aluguel.repository;
 
 import bicicletario.aluguel.model.Funcionario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
 public interface FuncionarioRepository extends JpaRepository<Funcionario, Integer>
 {
-// Métodos de busca customizados (ex: findByEmail) podem ser adicionados aqui
-}
\ No newline at end of file
+// Exportação (GET /funcionario/exportar): lê em blocos de 500 linhas pelo cursor do
+// banco, sem montar a lista inteira. Precisa de transação aberta até o fim do Stream.
+@QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READONLY, value = "true"),
+        @QueryHint(name = HINT_CACHEABLE, value = "false")
+})
+@Query("select f from Funcionario f order by f.id")
+Stream<Funcionario> streamTodos();
+}
@@ -0,0 +1,64 @@
+package bicicletario.aluguel.repository;
+
+import bicicletario.aluguel.model.NotificacaoEmail;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificacaoEmailRepository extends JpaRepository<NotificacaoEmail, Integer>
+{
+/**
+ * Candidatos do próximo lote: PENDENTE com a tentativa vencida, ou ENVIANDO
+ * com a reivindicação expirada (a instância caiu no meio do lote).
+ */
+@Query("select n.id from NotificacaoEmail n where (n.status = 'PENDENTE' and n.proximaTentativa <= :agora) "
+        + "or (n.status = 'ENVIANDO' and n.reivindicadaEm < :expiradaAntesDe) order by n.id")
+List<Integer> findIdsDisponiveis(@Param("agora") LocalDateTime agora,
+                                 @Param("expiradaAntesDe") LocalDateTime expiradaAntesDe, Pageable lote);
+
+/**
+ * Reivindica os candidatos para o lote. O próprio WHERE é a trava: se outra
+ * instância reivindicou a linha antes, o banco reavalia a condição após o
+ * commit dela e a linha fica de fora. Retorna quantos foram reivindicados.
+ */
+@Transactional
+@Modifying
+@Query("update NotificacaoEmail n set n.status = 'ENVIANDO', n.lote = :lote, n.reivindicadaEm = :agora "
+        + "where n.id in :ids and ((n.status = 'PENDENTE' and n.proximaTentativa <= :agora) "
+        + "or (n.status = 'ENVIANDO' and n.reivindicadaEm < :expiradaAntesDe))")
+int reivindicar(@Param("ids") Collection<Integer> ids, @Param("lote") String lote,
+                @Param("agora") LocalDateTime agora, @Param("expiradaAntesDe") LocalDateTime expiradaAntesDe);
+
+List<NotificacaoEmail> findByLoteOrderByIdAsc(String lote);
+
+// As gravações abaixo só valem se o email ainda pertence ao lote (a reivindicação não expirou)
+@Transactional
+@Modifying
+@Query("update NotificacaoEmail n set n.status = 'ENVIADO', n.enviadoEm = :agora, n.ultimoErro = null, "
+        + "n.lote = null where n.id = :id and n.lote = :lote")
+int marcarEnviado(@Param("id") Integer id, @Param("lote") String lote, @Param("agora") LocalDateTime agora);
+
+@Transactional
+@Modifying
+@Query("update NotificacaoEmail n set n.status = 'PENDENTE', n.tentativas = :tentativas, n.ultimoErro = :erro, "
+        + "n.proximaTentativa = :proximaTentativa, n.lote = null, n.reivindicadaEm = null "
+        + "where n.id = :id and n.lote = :lote")
+int devolverParaFila(@Param("id") Integer id, @Param("lote") String lote, @Param("tentativas") int tentativas,
+                     @Param("erro") String erro, @Param("proximaTentativa") LocalDateTime proximaTentativa);
+
+@Transactional
+@Modifying
+@Query("update NotificacaoEmail n set n.status = 'FALHA', n.tentativas = :tentativas, n.ultimoErro = :erro, "
+        + "n.lote = null where n.id = :id and n.lote = :lote")
+int marcarFalha(@Param("id") Integer id, @Param("lote") String lote, @Param("tentativas") int tentativas,
+                @Param("erro") String erro);
+}
@@ -0,0 +1,18 @@
+package bicicletario.aluguel.repository;
+
+import bicicletario.aluguel.model.TabelaTarifa;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TabelaTarifaRepository extends JpaRepository<TabelaTarifa, Integer>
+{
+// Versões ainda não carregadas pelo MotorTarifa (versões antigas nunca mudam)
+List<TabelaTarifa> findByVersaoGreaterThanOrderByVersao(Integer versao);
+
+@Query("select coalesce(max(t.versao), 0) from TabelaTarifa t")
+int findUltimaVersao();
+}
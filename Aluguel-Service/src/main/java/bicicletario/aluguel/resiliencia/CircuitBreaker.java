@@ -0,0 +1,148 @@
+package bicicletario.aluguel.resiliencia;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker de uma operação remota.
+ *
+ * FECHADO: chamadas passam; resultados entram numa janela deslizante das
+ * últimas N chamadas. Se a taxa de falha passar do limite, ABRE.
+ * ABERTO: nenhuma chamada passa (vai direto para o fallback) até o tempo de
+ * espera acabar; então vira MEIO_ABERTO.
+ * MEIO_ABERTO: só algumas chamadas de sonda passam. Se todas derem certo o
+ * circuito FECHA; na primeira falha ABRE de novo.
+ */
+public class CircuitBreaker {
+
+public enum Estado { FECHADO, ABERTO, MEIO_ABERTO }
+
+private final String nome;
+private final int minimoChamadas;
+private final int taxaFalhaPercentual;
+private final long tempoAbertoMs;
+private final int sondasMeioAberto;
+private final LongSupplier relogio;
+
+// Janela deslizante (buffer circular): true = falha
+private final boolean[] janela;
+private int posicao;
+private int chamadasNaJanela;
+private int falhasNaJanela;
+
+private Estado estado = Estado.FECHADO;
+private long abertoAte;
+private int sondasEmAndamento;
+private int sondasComSucesso;
+private long chamadasRejeitadas;
+private long ultimaTransicao;
+
+public CircuitBreaker(String nome, int tamanhoJanela, int minimoChamadas, int taxaFalhaPercentual,
+                      long tempoAbertoMs, int sondasMeioAberto, LongSupplier relogio) {
+    this.nome = nome;
+    this.janela = new boolean[tamanhoJanela];
+    this.minimoChamadas = minimoChamadas;
+    this.taxaFalhaPercentual = taxaFalhaPercentual;
+    this.tempoAbertoMs = tempoAbertoMs;
+    this.sondasMeioAberto = sondasMeioAberto;
+    this.relogio = relogio;
+    this.ultimaTransicao = relogio.getAsLong();
+}
+
+/**
+ * Diz se a chamada pode ir ao serviço remoto. Se devolver false, quem chamou
+ * deve usar o fallback direto (sem pagar o timeout de conexão).
+ */
+public synchronized boolean permiteChamada() {
+    if (estado == Estado.ABERTO && relogio.getAsLong() >= abertoAte) {
+        transicionar(Estado.MEIO_ABERTO);
+    }
+    if (estado == Estado.FECHADO) {
+        return true;
+    }
+    if (estado == Estado.MEIO_ABERTO && sondasEmAndamento < sondasMeioAberto) {
+        sondasEmAndamento++;
+        return true;
+    }
+    chamadasRejeitadas++;
+    return false;
+}
+
+public synchronized void registrarSucesso() {
+    if (estado == Estado.MEIO_ABERTO) {
+        sondasComSucesso++;
+        if (sondasComSucesso >= sondasMeioAberto) {
+            transicionar(Estado.FECHADO);
+        }
+    } else if (estado == Estado.FECHADO) {
+        registrarNaJanela(false);
+    }
+}
+
+public synchronized void registrarFalha() {
+    if (estado == Estado.MEIO_ABERTO) {
+        abrir();
+    } else if (estado == Estado.FECHADO) {
+        registrarNaJanela(true);
+        if (chamadasNaJanela >= minimoChamadas
+                && falhasNaJanela * 100 >= taxaFalhaPercentual * chamadasNaJanela) {
+            abrir();
+        }
+    }
+}
+
+public synchronized EstadoCircuito getEstadoAtual() {
+    EstadoCircuito estadoAtual = new EstadoCircuito();
+    estadoAtual.setNome(nome);
+    estadoAtual.setEstado(estado.name());
+    estadoAtual.setChamadasNaJanela(chamadasNaJanela);
+    estadoAtual.setTaxaFalhaPercentual(chamadasNaJanela == 0 ? 0.0 : falhasNaJanela * 100.0 / chamadasNaJanela);
+    estadoAtual.setChamadasRejeitadas(chamadasRejeitadas);
+    estadoAtual.setMsDesdeUltimaTransicao(relogio.getAsLong() - ultimaTransicao);
+    return estadoAtual;
+}
+
+public synchronized Estado getEstado() {
+    return estado;
+}
+
+public synchronized long getChamadasRejeitadas() {
+    return chamadasRejeitadas;
+}
+
+public String getNome() {
+    return nome;
+}
+
+private void registrarNaJanela(boolean falha) {
+    if (chamadasNaJanela == janela.length) {
+        // Janela cheia: o resultado mais antigo sai
+        if (janela[posicao]) {
+            falhasNaJanela--;
+        }
+    } else {
+        chamadasNaJanela++;
+    }
+    janela[posicao] = falha;
+    if (falha) {
+        falhasNaJanela++;
+    }
+    posicao = (posicao + 1) % janela.length;
+}
+
+private void abrir() {
+    abertoAte = relogio.getAsLong() + tempoAbertoMs;
+    transicionar(Estado.ABERTO);
+}
+
+private void transicionar(Estado novoEstado) {
+    estado = novoEstado;
+    ultimaTransicao = relogio.getAsLong();
+    sondasEmAndamento = 0;
+    sondasComSucesso = 0;
+    if (novoEstado == Estado.FECHADO) {
+        posicao = 0;
+        chamadasNaJanela = 0;
+        falhasNaJanela = 0;
+    }
+}
+}
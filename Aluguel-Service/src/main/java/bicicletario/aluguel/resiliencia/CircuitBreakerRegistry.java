@@ -0,0 +1,71 @@
+package bicicletario.aluguel.resiliencia;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Um circuito por operação remota (ex: "getBicicletaDaTranca"), todos com a
+ * mesma configuração (prefixo "circuito.").
+ */
+@Component
+public class CircuitBreakerRegistry {
+
+@Value("${circuito.janela:20}")
+private int tamanhoJanela;
+
+@Value("${circuito.minimo-chamadas:10}")
+private int minimoChamadas;
+
+@Value("${circuito.taxa-falha-percentual:50}")
+private int taxaFalhaPercentual;
+
+@Value("${circuito.aberto-ms:30000}")
+private long tempoAbertoMs;
+
+@Value("${circuito.sondas-meio-aberto:3}")
+private int sondasMeioAberto;
+
+@Autowired
+private MeterRegistry meterRegistry;
+
+// Ordenado por nome para a listagem do /admin/circuitos
+private final Map<String, CircuitBreaker> circuitos = new ConcurrentSkipListMap<>();
+
+public CircuitBreaker para(String operacao) {
+    return circuitos.computeIfAbsent(operacao, nome -> {
+        CircuitBreaker circuito = new CircuitBreaker(
+                nome, tamanhoJanela, minimoChamadas, taxaFalhaPercentual,
+                tempoAbertoMs, sondasMeioAberto, System::currentTimeMillis);
+        registrarMetricas(circuito);
+        return circuito;
+    });
+}
+
+private void registrarMetricas(CircuitBreaker circuito) {
+    Gauge.builder("circuito.estado", circuito, c -> c.getEstado().ordinal())
+            .description("0 = FECHADO, 1 = ABERTO, 2 = MEIO_ABERTO")
+            .tag("operacao", circuito.getNome())
+            .register(meterRegistry);
+    FunctionCounter.builder("circuito.rejeitadas", circuito, CircuitBreaker::getChamadasRejeitadas)
+            .description("Chamadas que foram direto para o fallback com o circuito aberto")
+            .tag("operacao", circuito.getNome())
+            .register(meterRegistry);
+}
+
+public List<EstadoCircuito> listarEstados() {
+    List<EstadoCircuito> estados = new ArrayList<>();
+    for (CircuitBreaker circuito : circuitos.values()) {
+        estados.add(circuito.getEstadoAtual());
+    }
+    return estados;
+}
+}
@@ -0,0 +1,26 @@
+package bicicletario.aluguel.resiliencia;
+
+// Foto do circuito de uma operação, exposta em GET /admin/circuitos
+public class EstadoCircuito {
+
+private String nome;
+private String estado; // 'FECHADO', 'ABERTO', 'MEIO_ABERTO'
+private double taxaFalhaPercentual;
+private int chamadasNaJanela;
+private long chamadasRejeitadas; // Chamadas que foram direto para o Mock
+private long msDesdeUltimaTransicao;
+
+// Getters e Setters
+public String getNome() { return nome; }
+public void setNome(String nome) { this.nome = nome; }
+public String getEstado() { return estado; }
+public void setEstado(String estado) { this.estado = estado; }
+public double getTaxaFalhaPercentual() { return taxaFalhaPercentual; }
+public void setTaxaFalhaPercentual(double taxaFalhaPercentual) { this.taxaFalhaPercentual = taxaFalhaPercentual; }
+public int getChamadasNaJanela() { return chamadasNaJanela; }
+public void setChamadasNaJanela(int chamadasNaJanela) { this.chamadasNaJanela = chamadasNaJanela; }
+public long getChamadasRejeitadas() { return chamadasRejeitadas; }
+public void setChamadasRejeitadas(long chamadasRejeitadas) { this.chamadasRejeitadas = chamadasRejeitadas; }
+public long getMsDesdeUltimaTransicao() { return msDesdeUltimaTransicao; }
+public void setMsDesdeUltimaTransicao(long msDesdeUltimaTransicao) { this.msDesdeUltimaTransicao = msDesdeUltimaTransicao; }
+}
@@ -0,0 +1,53 @@
+package bicicletario.aluguel.service;
+
+import bicicletario.aluguel.model.Aluguel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Mantém o RegistroAlugueisAtivos em dia com o banco.
+ * Dentro de transação, só aplica depois do commit (rollback não suja o registro).
+ */
+@Component
+public class AluguelListener {
+
+// @Lazy: o Hibernate cria o listener junto com o EntityManagerFactory, antes
+// do repositório que o registro usa existir
+@Autowired
+@Lazy
+private RegistroAlugueisAtivos registro;
+
+@PostPersist
+@PostUpdate
+public void aposGravar(Aluguel aluguel) {
+    // Cópia do estado no momento da gravação: a entidade pode mudar até o commit
+    Aluguel gravado = aluguel.copiar();
+    depoisDoCommit(() -> registro.atualizar(gravado));
+}
+
+@PostRemove
+public void aposRemover(Aluguel aluguel) {
+    Aluguel removido = aluguel.copiar();
+    depoisDoCommit(() -> registro.remover(removido));
+}
+
+private void depoisDoCommit(Runnable acao) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+        acao.run();
+        return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+            acao.run();
+        }
+    });
+}
+}
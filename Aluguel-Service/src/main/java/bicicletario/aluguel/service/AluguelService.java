@@ -10,139 +10,491 @@ import bicicletario.aluguel.model.Aluguel;
 import bicicletario.aluguel.model.Ciclista;
 import bicicletario.aluguel.model.Devolucao;
 import bicicletario.aluguel.repository.AluguelRepository;
-import bicicletario.aluguel.repository.CiclistaRepository;
-import bicicletario.aluguel.repository.DevolucaoRepository;
+import bicicletario.aluguel.tarifa.MotorTarifa;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
-import java.time.Duration;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 @Service
 public class AluguelService {
 
+private static final Logger logger = LoggerFactory.getLogger(AluguelService.class);
+
+// UC03-R2: taxa inicial de R$ 10,00
+private static final double TAXA_INICIAL = 10.0;
+
 @Autowired
 private AluguelRepository aluguelRepository;
+// Ciclista só é lido aqui (status e email): vem do cache
 @Autowired
-private DevolucaoRepository devolucaoRepository;
-@Autowired
-private CiclistaRepository ciclistaRepository;
+private CacheCiclistas cacheCiclistas;
 @Autowired
 private EquipamentoService equipamentoService;
 @Autowired
 private ExternoService externoService;
+@Autowired
+private NotificacaoService notificacaoService;
+@Autowired
+private ExecutorService validacaoAluguelExecutor;
+// Modo reativo: etapas com banco/cache (as chamadas remotas não ocupam thread)
+@Autowired
+private ExecutorService bancoAluguelExecutor;
+@Autowired
+private TransactionOperations transactionTemplate;
+@Autowired
+private RegistroAlugueisAtivos alugueisAtivos;
+@Autowired
+private MeterRegistry meterRegistry;
+@Autowired
+private MotorTarifa motorTarifa;
 
 public Aluguel realizarAluguel(NovoAluguelDTO dto) {
-    // UC03-Pré-condição: Ciclista autenticado (implícito) e ATIVO
-    Optional<Ciclista> ciclistaOptional = ciclistaRepository.findById(dto.getCiclista());
-    if (!ciclistaOptional.isPresent() || !"ATIVO".equals(ciclistaOptional.get().getStatus())) {
-        throw new IllegalArgumentException("Ciclista não encontrado ou não está ativo");
+    Aluguel reserva = null;
+    try {
+        // UC03-R1: "só pode pegar uma bicicleta por vez"
+        // Reserva atômica do ciclista: um segundo pedido concorrente do mesmo ciclista
+        // falha aqui, antes de qualquer chamada remota
+        reserva = alugueisAtivos.reservarCiclista(dto.getCiclista());
+        return efetivarAluguel(dto, reserva);
+    } catch (IllegalArgumentException e) {
+        meterRegistry.counter("aluguel.rejeitados", "motivo", motivoDaRejeicao(e)).increment();
+        throw e;
+    } finally {
+        // Gravado com sucesso: a reserva já virou o aluguel real no registro
+        if (reserva != null) {
+            alugueisAtivos.liberar(reserva);
+        }
     }
+}
 
-    // UC03-R1: "só pode pegar uma bicicleta por vez"
-    Optional<Aluguel> aluguelAtivo = aluguelRepository.findByCiclistaAndHoraFimIsNull(dto.getCiclista());
-    if (aluguelAtivo.isPresent()) {
-        throw new IllegalArgumentException("Ciclista já possui um aluguel ativo");
-    }
+private Aluguel efetivarAluguel(NovoAluguelDTO dto, Aluguel reserva) {
+    // Tempo de cada etapa do aluguel (aluguel.etapa): mostra onde a latência está
+    Timer.Sample etapa = Timer.start(meterRegistry);
+
+    // As validações abaixo são independentes entre si: rodam em paralelo e a
+    // primeira que falhar encerra o aluguel sem esperar as outras (ver aguardarValidacoes).
+    CompletionService<Object> validacoes = new ExecutorCompletionService<>(validacaoAluguelExecutor);
+
+    // UC03-Pré-condição: Ciclista autenticado (implícito) e ATIVO
+    Future<Object> ciclistaFuture = validacoes.submit(() -> buscarCiclistaAtivo(dto.getCiclista()));
 
     // UC03-Passo 4, 6 e R5: Validar tranca e bicicleta (status "disponível")
-    BicicletaDTO bicicleta = equipamentoService.getBicicletaDaTranca(dto.getTrancaInicio());
-    if (bicicleta == null || !"DISPONIVEL".equals(bicicleta.getStatus())) {
-        throw new IllegalArgumentException("Bicicleta indisponível ou tranca vazia");
+    Future<Object> bicicletaFuture = validacoes.submit(() -> buscarBicicletaDisponivel(dto.getTrancaInicio()));
+
+    aguardarValidacoes(validacoes, Arrays.asList(ciclistaFuture, bicicletaFuture));
+    Ciclista ciclista = (Ciclista) resultado(ciclistaFuture);
+    BicicletaDTO bicicleta = (BicicletaDTO) resultado(bicicletaFuture);
+
+    // A mesma bicicleta não pode entrar em dois aluguéis (pedidos concorrentes na mesma tranca)
+    alugueisAtivos.reservarBicicleta(reserva, bicicleta.getId());
+    etapa = encerrarEtapa(etapa, "validacoes");
+
+    // UC03-Passo 9: o aluguel é gravado ANTES da cobrança. O índice único do
+    // banco é a palavra final entre instâncias: se ele recusar, nada foi cobrado
+    Aluguel aberto = abrirAluguel(dto, bicicleta);
+    etapa = encerrarEtapa(etapa, "gravacao");
+
+    // UC03-Passo 7 e R2: Cobrança da taxa inicial (R$ 10,00) - só depois de TODAS as validações
+    CobrancaDTO cobranca;
+    try {
+        cobranca = verificarPagamento(externoService.realizarCobranca(TAXA_INICIAL, dto.getCiclista(),
+                chaveCobranca(aberto, "retirada")));
+    } catch (RuntimeException e) {
+        desfazerAluguel(aberto);
+        throw e;
     }
+    etapa = encerrarEtapa(etapa, "cobranca");
 
-    // UC03-Passo 7 e R2: Cobrança da taxa inicial (R$ 10,00)
-    CobrancaDTO cobrancaMock = externoService.realizarCobranca(10.0, dto.getCiclista());
-    if (!"PAGA".equals(cobrancaMock.getStatus())) {
+    Aluguel aluguelSalvo = confirmarAluguel(aberto, ciclista, cobranca);
+    etapa = encerrarEtapa(etapa, "confirmacao");
+
+    // UC03-Passo 10: Abrir tranca
+    equipamentoService.destrancarTranca(aluguelSalvo.getTrancaInicio());
+    encerrarEtapa(etapa, "destrancamento");
+
+    return aluguelSalvo;
+}
+
+/**
+ * Mesmo fluxo do realizarAluguel sem prender thread enquanto espera o
+ * Equipamento e o Externo (modo reativo): as chamadas remotas vão pelo
+ * WebClient e só as etapas com banco/cache ocupam uma thread, do
+ * bancoAluguelExecutor. Recusas chegam no futuro como IllegalArgumentException
+ * (dentro de CompletionException).
+ */
+public CompletableFuture<Aluguel> realizarAluguelAsync(NovoAluguelDTO dto) {
+    Aluguel reserva;
+    try {
+        reserva = alugueisAtivos.reservarCiclista(dto.getCiclista());
+    } catch (IllegalArgumentException e) {
+        meterRegistry.counter("aluguel.rejeitados", "motivo", motivoDaRejeicao(e)).increment();
+        return falha(e);
+    }
+    CompletableFuture<Aluguel> aluguel;
+    try {
+        aluguel = efetivarAluguelAsync(dto, reserva);
+    } catch (RuntimeException e) {
+        // Ex: bancoAluguelExecutor saturado
+        aluguel = falha(e);
+    }
+    return aluguel.whenComplete((salvo, erro) -> {
+        alugueisAtivos.liberar(reserva);
+        Throwable causa = causa(erro);
+        if (causa instanceof IllegalArgumentException) {
+            meterRegistry.counter("aluguel.rejeitados", "motivo",
+                    motivoDaRejeicao((IllegalArgumentException) causa)).increment();
+        }
+    });
+}
+
+private CompletableFuture<Aluguel> efetivarAluguelAsync(NovoAluguelDTO dto, Aluguel reserva) {
+    CompletableFuture<Ciclista> ciclista =
+            CompletableFuture.supplyAsync(() -> buscarCiclistaAtivo(dto.getCiclista()), bancoAluguelExecutor);
+    CompletableFuture<BicicletaDTO> bicicleta = equipamentoService.getBicicletaDaTrancaAsync(dto.getTrancaInicio())
+            .thenApply(this::validarBicicleta);
+
+    return ambas(ciclista, bicicleta)
+            .thenApplyAsync(validado -> {
+                alugueisAtivos.reservarBicicleta(reserva, bicicleta.join().getId());
+                return abrirAluguel(dto, bicicleta.join());
+            }, bancoAluguelExecutor)
+            .thenCompose(aberto -> externoService.realizarCobrancaAsync(TAXA_INICIAL, dto.getCiclista(),
+                            chaveCobranca(aberto, "retirada"))
+                    .thenApply(this::verificarPagamento)
+                    .handleAsync((cobranca, erro) -> {
+                        if (erro != null) {
+                            desfazerAluguel(aberto);
+                            throw erro instanceof CompletionException
+                                    ? (CompletionException) erro : new CompletionException(erro);
+                        }
+                        return confirmarAluguel(aberto, ciclista.join(), cobranca);
+                    }, bancoAluguelExecutor))
+            .thenCompose(salvo -> equipamentoService.destrancarTrancaAsync(salvo.getTrancaInicio())
+                    .thenApply(destrancada -> salvo));
+}
+
+// Uma chave por aluguel e etapa: a repetição de uma cobrança que já passou no
+// Externo (resposta perdida, retentativa) devolve a mesma cobrança
+private static String chaveCobranca(Aluguel aluguel, String etapa) {
+    return "aluguel-" + aluguel.getId() + "-" + etapa;
+}
+
+private CobrancaDTO verificarPagamento(CobrancaDTO cobranca) {
+    if (cobranca == null || !"PAGA".equals(cobranca.getStatus())) {
         throw new IllegalArgumentException("Pagamento não autorizado");
     }
+    return cobranca;
+}
 
-    // UC03-Passo 9: Registra dados
+// UC03-Passo 9: Registra o aluguel, ainda sem a cobrança
+private Aluguel abrirAluguel(NovoAluguelDTO dto, BicicletaDTO bicicleta) {
     Aluguel novoAluguel = new Aluguel();
     novoAluguel.setCiclista(dto.getCiclista());
     novoAluguel.setTrancaInicio(dto.getTrancaInicio());
     novoAluguel.setHoraInicio(LocalDateTime.now());
-    novoAluguel.setCobranca(cobrancaMock.getId());
     novoAluguel.setBicicleta(bicicleta.getId());
 
-    Aluguel aluguelSalvo = aluguelRepository.save(novoAluguel);
-
-    // UC03-Passo 10: Abrir tranca
-    equipamentoService.destrancarTranca(aluguelSalvo.getTrancaInicio());
+    try {
+        return transactionTemplate.execute(status -> aluguelRepository.save(novoAluguel));
+    } catch (DataIntegrityViolationException e) {
+        // Índice único parcial (PostgreSQL): outra instância do serviço abriu um
+        // aluguel para o mesmo ciclista/bicicleta ao mesmo tempo. Ainda não houve cobrança
+        logger.warn(" Aluguel concorrente rejeitado pelo banco. Ciclista: {}, Bicicleta: {}",
+                dto.getCiclista(), bicicleta.getId());
+        throw new IllegalArgumentException("Ciclista já possui um aluguel ativo", e);
+    }
+}
 
-    // UC03-Passo 11: Enviar Email
-    externoService.enviarEmail(
-            ciclistaOptional.get().getEmail(),
-            "Aluguel Realizado com Sucesso!",
-            "Olá, " + ciclistaOptional.get().getNome() + ". Seu aluguel da bicicleta " + aluguelSalvo.getBicicleta() + " foi registrado."
-    );
+// Pagamento recusado (ou Externo fora): o aluguel aberto sem cobrança é apagado
+private void desfazerAluguel(Aluguel aberto) {
+    try {
+        transactionTemplate.executeWithoutResult(status -> aluguelRepository.delete(aberto));
+    } catch (RuntimeException e) {
+        logger.error(" Aluguel {} sem pagamento não pôde ser desfeito. Erro: {}", aberto.getId(), e.getMessage());
+    }
+}
 
-    return aluguelSalvo;
+// UC03-Passo 9 e 11: Anexa a cobrança e agenda o email na MESMA transação (outbox)
+private Aluguel confirmarAluguel(Aluguel aberto, Ciclista ciclista, CobrancaDTO cobranca) {
+    aberto.setCobranca(cobranca.getId());
+    return transactionTemplate.execute(status -> {
+        Aluguel salvo = aluguelRepository.save(aberto);
+        notificacaoService.agendarEmail(
+                ciclista.getEmail(),
+                "Aluguel Realizado com Sucesso!",
+                "Olá, " + ciclista.getNome() + ". Seu aluguel da bicicleta " + salvo.getBicicleta() + " foi registrado."
+        );
+        return salvo;
+    });
 }
 
 public Devolucao realizarDevolucao(DevolucaoDTO dto) {
-    // UC04-Passo 1, 2: Achar aluguel ativo pela bicicleta
-    Optional<Aluguel> aluguelAtivoOptional = aluguelRepository.findByBicicletaAndHoraFimIsNull(dto.getIdBicicleta());
+    // Duas devoluções simultâneas da mesma bicicleta: só a primeira fecha o aluguel
+    if (!alugueisAtivos.iniciarDevolucao(dto.getIdBicicleta())) {
+        throw new IllegalArgumentException("Devolução desta bicicleta já está em andamento");
+    }
+    try {
+        return fecharAluguel(dto);
+    } finally {
+        alugueisAtivos.encerrarDevolucao(dto.getIdBicicleta());
+    }
+}
+
+private Devolucao fecharAluguel(DevolucaoDTO dto) {
+    Fechamento fechamento = prepararDevolucao(dto);
+
+    if (fechamento.valorExtra.signum() > 0) {
+        // UC04-A1: Enviar cobrança extra (a API do Externo recebe o valor como número decimal)
+        CobrancaDTO cobrancaExtra = externoService.enviarParaFilaCobranca(
+                fechamento.valorExtra.doubleValue(), fechamento.aluguel.getCiclista(),
+                chaveCobranca(fechamento.aluguel, "devolucao"));
+        fechamento.idCobrancaExtra = cobrancaExtra.getId();
+    }
+
+    Devolucao devolucaoResposta = gravarDevolucao(fechamento);
+
+    // UC04-Passo 5, 6: Alterar status da bicicleta e trancar
+    Aluguel fechado = fechamento.aluguel;
+    equipamentoService.trancarTranca(fechado.getTrancaFim(), fechado.getBicicleta());
+    equipamentoService.alterarStatusBicicleta(fechado.getBicicleta(), "DISPONIVEL");
+
+    return devolucaoResposta;
+}
+
+/**
+ * Mesmo fluxo do realizarDevolucao para o modo reativo (ver realizarAluguelAsync).
+ */
+public CompletableFuture<Devolucao> realizarDevolucaoAsync(DevolucaoDTO dto) {
+    if (!alugueisAtivos.iniciarDevolucao(dto.getIdBicicleta())) {
+        return falha(new IllegalArgumentException("Devolução desta bicicleta já está em andamento"));
+    }
+    CompletableFuture<Devolucao> devolucao;
+    try {
+        devolucao = CompletableFuture.supplyAsync(() -> prepararDevolucao(dto), bancoAluguelExecutor)
+                .thenCompose(fechamento -> {
+                    if (fechamento.valorExtra.signum() <= 0) {
+                        return CompletableFuture.completedFuture(fechamento);
+                    }
+                    return externoService.enviarParaFilaCobrancaAsync(
+                                    fechamento.valorExtra.doubleValue(), fechamento.aluguel.getCiclista(),
+                                    chaveCobranca(fechamento.aluguel, "devolucao"))
+                            .thenApply(cobrancaExtra -> {
+                                fechamento.idCobrancaExtra = cobrancaExtra.getId();
+                                return fechamento;
+                            });
+                })
+                .thenApplyAsync(fechamento -> {
+                    fechamento.resposta = gravarDevolucao(fechamento);
+                    return fechamento;
+                }, bancoAluguelExecutor)
+                .thenCompose(fechamento -> {
+                    Aluguel fechado = fechamento.aluguel;
+                    return equipamentoService.trancarTrancaAsync(fechado.getTrancaFim(), fechado.getBicicleta())
+                            .thenCompose(trancada -> equipamentoService.alterarStatusBicicletaAsync(
+                                    fechado.getBicicleta(), "DISPONIVEL"))
+                            .thenApply(alterado -> fechamento.resposta);
+                });
+    } catch (RuntimeException e) {
+        devolucao = falha(e);
+    }
+    return devolucao.whenComplete((resposta, erro) -> alugueisAtivos.encerrarDevolucao(dto.getIdBicicleta()));
+}
+
+// UC04-Passo 1, 2 e 3: aluguel ativo, ciclista (do cache) e valor extra
+private Fechamento prepararDevolucao(DevolucaoDTO dto) {
+    // UC04-Passo 1, 2: Achar aluguel ativo pela bicicleta (em memória; na falta, no banco)
+    Optional<Aluguel> aluguelAtivoOptional = alugueisAtivos.daBicicleta(dto.getIdBicicleta());
 
     if (!aluguelAtivoOptional.isPresent()) {
         throw new IllegalArgumentException("Nenhum aluguel ativo encontrado para esta bicicleta");
     }
 
-    Aluguel aluguelParaFechar = aluguelAtivoOptional.get();
-    LocalDateTime horaFimDevolucao = LocalDateTime.now();
+    Fechamento fechamento = new Fechamento();
+    fechamento.aluguel = aluguelAtivoOptional.get();
+    fechamento.idTranca = dto.getIdTranca();
+    fechamento.horaFim = LocalDateTime.now();
+    fechamento.ciclista = cacheCiclistas.buscarCiclista(fechamento.aluguel.getCiclista());
 
-    // UC04-Passo 3 e R1: Calcular valor extra
-    double valorExtra = calcularValorExtra(aluguelParaFechar.getHoraInicio(), horaFimDevolucao);
-    Integer idCobrancaExtra = null;
-    String msgTaxaExtra = "";
+    // UC04-Passo 3 e R1: Calcular valor extra (tabela de tarifa vigente na retirada)
+    String plano = fechamento.ciclista.isPresent() ? fechamento.ciclista.get().getPlano() : null;
+    fechamento.valorExtra = motorTarifa.calcularValorExtra(fechamento.aluguel.getHoraInicio(), fechamento.horaFim,
+            fechamento.aluguel.getTrancaInicio(), plano);
+    return fechamento;
+}
 
-    if (valorExtra > 0.0) {
-        // UC04-A1: Enviar cobrança extra
-        Integer ciclistaId = aluguelParaFechar.getCiclista();
-        CobrancaDTO cobrancaExtraMock = externoService.enviarParaFilaCobranca(valorExtra, ciclistaId);
-        idCobrancaExtra = cobrancaExtraMock.getId();
-        msgTaxaExtra = " Uma taxa extra de R$ " + valorExtra + " foi cobrada.";
-    }
+private Devolucao gravarDevolucao(Fechamento fechamento) {
+    Aluguel aluguelParaFechar = fechamento.aluguel;
+    String msgTaxaExtra = fechamento.valorExtra.signum() <= 0 ? ""
+            : " Uma taxa extra de R$ " + fechamento.valorExtra.toPlainString() + " foi cobrada.";
 
     // UC04-Passo 4: Registrar dados da devolução (fecha o aluguel)
-    aluguelParaFechar.setTrancaFim(dto.getIdTranca());
-    aluguelParaFechar.setHoraFim(horaFimDevolucao);
-    aluguelParaFechar.setCobranca(idCobrancaExtra);
+    aluguelParaFechar.setTrancaFim(fechamento.idTranca);
+    aluguelParaFechar.setHoraFim(fechamento.horaFim);
+    aluguelParaFechar.setCobranca(fechamento.idCobrancaExtra);
 
-    Aluguel aluguelFechado = aluguelRepository.save(aluguelParaFechar);
+    // Só a resposta: a Devolucao é lida do próprio aluguel fechado, não é gravada à parte
+    Devolucao devolucaoResposta = converterAluguelParaDevolucao(aluguelParaFechar);
+    final String msgEmail = "Sua bicicleta foi devolvida com sucesso." + msgTaxaExtra;
+    Optional<Ciclista> ciclistaOptional = fechamento.ciclista;
 
-    // UC04-Passo 5, 6: Alterar status da bicicleta e trancar
-    equipamentoService.trancarTranca(aluguelFechado.getTrancaFim(), aluguelFechado.getBicicleta());
-    equipamentoService.alterarStatusBicicleta(aluguelFechado.getBicicleta(), "DISPONIVEL");
-
-    // UC04-Passo 6 (Complemento): Criar o registro de Devolução
-    Devolucao devolucaoResposta = converterAluguelParaDevolucao(aluguelFechado);
-    devolucaoRepository.save(devolucaoResposta);
-
-    // UC04-Passo 7: Enviar Email
-    Optional<Ciclista> ciclistaOptional = ciclistaRepository.findById(aluguelFechado.getCiclista());
-    if (ciclistaOptional.isPresent()) {
-        externoService.enviarEmail(
-                ciclistaOptional.get().getEmail(),
-                "Devolução Concluída",
-                "Sua bicicleta foi devolvida com sucesso." + msgTaxaExtra
-        );
-    }
+    // UC04-Passo 6 (Complemento) e 7: Fecha o aluguel (uma única escrita) e agenda o
+    // email na mesma transação (outbox)
+    transactionTemplate.executeWithoutResult(status -> {
+        aluguelRepository.save(aluguelParaFechar);
 
+        if (ciclistaOptional.isPresent()) {
+            notificacaoService.agendarEmail(ciclistaOptional.get().getEmail(), "Devolução Concluída", msgEmail);
+        }
+    });
     return devolucaoResposta;
 }
 
-private double calcularValorExtra(LocalDateTime inicio, LocalDateTime fim) {
-    Duration duracao = Duration.between(inicio, fim);
-    long minutosTotais = duracao.toMinutes();
+private Timer.Sample encerrarEtapa(Timer.Sample etapa, String nome) {
+    etapa.stop(meterRegistry.timer("aluguel.etapa", "etapa", nome));
+    return Timer.start(meterRegistry);
+}
+
+// Tag do contador aluguel.rejeitados (valores fixos, nunca a mensagem inteira)
+private String motivoDaRejeicao(IllegalArgumentException e) {
+    String mensagem = e.getMessage() == null ? "" : e.getMessage();
+    if (mensagem.contains("aluguel ativo")) {
+        return "aluguel_ativo";
+    }
+    if (mensagem.contains("Ciclista")) {
+        return "ciclista_inativo";
+    }
+    if (mensagem.contains("Bicicleta") || mensagem.contains("Equipamento")) {
+        return "bicicleta_indisponivel";
+    }
+    if (mensagem.contains("Pagamento")) {
+        return "pagamento";
+    }
+    return "outro";
+}
 
-    if (minutosTotais <= 120) {
-        return 0.0;
+private Ciclista buscarCiclistaAtivo(Integer idCiclista) {
+    Optional<Ciclista> ciclistaOptional = cacheCiclistas.buscarCiclista(idCiclista);
+    if (!ciclistaOptional.isPresent() || !"ATIVO".equals(ciclistaOptional.get().getStatus())) {
+        throw new IllegalArgumentException("Ciclista não encontrado ou não está ativo");
     }
-    long minutosExtras = minutosTotais - 120;
-    long periodosDe30Min = (long) Math.ceil(minutosExtras / 30.0);
-    return periodosDe30Min * 5.0;
+    return ciclistaOptional.get();
+}
+
+private BicicletaDTO buscarBicicletaDisponivel(Integer idTranca) {
+    return validarBicicleta(equipamentoService.getBicicletaDaTranca(idTranca));
+}
+
+private BicicletaDTO validarBicicleta(BicicletaDTO bicicleta) {
+    if (bicicleta == null || !"DISPONIVEL".equals(bicicleta.getStatus())) {
+        throw new IllegalArgumentException("Bicicleta indisponível ou tranca vazia");
+    }
+    return bicicleta;
+}
+
+/**
+ * Espera as validações na ordem em que terminam. Na primeira falha relança o
+ * erro original sem esperar as outras, que são canceladas com interrupção.
+ *
+ * O cancelamento só evita trabalho que ainda não começou (tarefa na fila do
+ * pool). Uma validação já em andamento não para: a leitura de socket do
+ * RestTemplate e a consulta JDBC ignoram a interrupção. A chamada ao
+ * Equipamento continua até responder ou até o prazo total da operação
+ * (http.cliente.operacoes.*.prazo-total-ms), e a thread do pool fica ocupada
+ * até lá. O resultado é descartado.
+ */
+private void aguardarValidacoes(CompletionService<Object> validacoes, List<Future<Object>> pendentes) {
+    try {
+        for (int i = 0; i < pendentes.size(); i++) {
+            Future<Object> concluida = validacoes.take();
+            try {
+                concluida.get();
+            } catch (ExecutionException e) {
+                cancelar(pendentes);
+                throw propagar(e.getCause());
+            }
+        }
+    } catch (InterruptedException e) {
+        cancelar(pendentes);
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Validação do aluguel interrompida", e);
+    }
+}
+
+private Object resultado(Future<Object> validacao) {
+    try {
+        return validacao.get();
+    } catch (ExecutionException e) {
+        throw propagar(e.getCause());
+    } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Validação do aluguel interrompida", e);
+    }
+}
+
+private void cancelar(List<Future<Object>> pendentes) {
+    for (Future<Object> pendente : pendentes) {
+        pendente.cancel(true);
+    }
+}
+
+private RuntimeException propagar(Throwable causa) {
+    if (causa instanceof RuntimeException) {
+        return (RuntimeException) causa;
+    }
+    if (causa instanceof Error) {
+        throw (Error) causa;
+    }
+    return new IllegalStateException(causa);
+}
+
+/**
+ * Completa quando as duas completam, ou na primeira falha (como o
+ * aguardarValidacoes), sem esperar a outra, que termina sozinha sem
+ * ocupar thread.
+ */
+private static CompletableFuture<Void> ambas(CompletableFuture<?> a, CompletableFuture<?> b) {
+    CompletableFuture<Void> resultado = CompletableFuture.allOf(a, b);
+    a.whenComplete((valor, erro) -> falharJunto(resultado, erro));
+    b.whenComplete((valor, erro) -> falharJunto(resultado, erro));
+    return resultado;
+}
+
+private static void falharJunto(CompletableFuture<Void> resultado, Throwable erro) {
+    if (erro != null) {
+        resultado.completeExceptionally(erro);
+    }
+}
+
+// CompletableFuture.failedFuture só existe a partir do Java 9
+private static <T> CompletableFuture<T> falha(Throwable erro) {
+    CompletableFuture<T> futuro = new CompletableFuture<>();
+    futuro.completeExceptionally(erro);
+    return futuro;
+}
+
+private static Throwable causa(Throwable erro) {
+    if (erro instanceof CompletionException && erro.getCause() != null) {
+        return erro.getCause();
+    }
+    return erro;
 }
 
 private Devolucao converterAluguelParaDevolucao(Aluguel aluguel) {
@@ -156,4 +508,15 @@ private Devolucao converterAluguelParaDevolucao(Aluguel aluguel) {
     dev.setCobranca(aluguel.getCobranca());
     return dev;
 }
-}
\ No newline at end of file
+
+// Dados da devolução entre as etapas (preparar, cobrar a taxa extra, gravar)
+private static class Fechamento {
+    Aluguel aluguel;
+    Integer idTranca;
+    LocalDateTime horaFim;
+    Optional<Ciclista> ciclista;
+    BigDecimal valorExtra;
+    Integer idCobrancaExtra;
+    Devolucao resposta;
+}
+}
@@ -0,0 +1,171 @@
+package bicicletario.aluguel.service;
+
+import bicicletario.aluguel.model.Aluguel;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Formato binário do snapshot de inicialização (big-endian):
+ *
+ *   int magia "BICS", int versão, long instante (epoch ms),
+ *   long custo da carga completa dos aluguéis (ms, -1 = nunca medido),
+ *   long custo da carga completa dos emails (ms, -1 = nunca medido),
+ *   int n, n × aluguel ativo (id, ciclista, bicicleta, trancaInicio,
+ *     horaInicio em segundos UTC + nanos, cobranca: 32 bytes),
+ *   filtro de emails (long capacidade, double taxa, int funções de hash,
+ *     long elementos, int n, n × long de bits),
+ *   long CRC32 de tudo o que vem antes.
+ *
+ * Campos Integer nulos viram Integer.MIN_VALUE. Lido com mmap: o arquivo é
+ * validado (CRC) e decodificado direto do mapeamento, sem cópia para o heap.
+ */
+class ArquivoSnapshot {
+
+private static final int MAGIA = 0x42494353;
+private static final int VERSAO = 1;
+private static final int NULO = Integer.MIN_VALUE;
+private static final long NUNCA_MEDIDO = -1;
+
+long instante;
+long custoCargaAlugueisMs = NUNCA_MEDIDO;
+long custoCargaEmailsMs = NUNCA_MEDIDO;
+List<Aluguel> alugueisAtivos = new ArrayList<>();
+long capacidadeFiltro;
+double taxaFiltro;
+int funcoesHashFiltro;
+long elementosFiltro;
+long[] palavrasFiltro;
+
+/**
+ * Grava num arquivo temporário ao lado e troca de uma vez (ATOMIC_MOVE): quem
+ * ler nunca vê um snapshot pela metade. Devolve o tamanho em bytes.
+ */
+long gravar(Path destino) throws IOException {
+    Path pasta = destino.toAbsolutePath().getParent();
+    Files.createDirectories(pasta);
+    Path temporario = Files.createTempFile(pasta, destino.getFileName().toString(), ".tmp");
+    try {
+        CRC32 crc = new CRC32();
+        try (OutputStream arquivo = Files.newOutputStream(temporario);
+             DataOutputStream saida = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(arquivo), crc))) {
+            saida.writeInt(MAGIA);
+            saida.writeInt(VERSAO);
+            saida.writeLong(instante);
+            saida.writeLong(custoCargaAlugueisMs);
+            saida.writeLong(custoCargaEmailsMs);
+            saida.writeInt(alugueisAtivos.size());
+            for (Aluguel aluguel : alugueisAtivos) {
+                saida.writeInt(inteiro(aluguel.getId()));
+                saida.writeInt(inteiro(aluguel.getCiclista()));
+                saida.writeInt(inteiro(aluguel.getBicicleta()));
+                saida.writeInt(inteiro(aluguel.getTrancaInicio()));
+                LocalDateTime horaInicio = aluguel.getHoraInicio();
+                saida.writeLong(horaInicio == null ? Long.MIN_VALUE : horaInicio.toEpochSecond(ZoneOffset.UTC));
+                saida.writeInt(horaInicio == null ? 0 : horaInicio.getNano());
+                saida.writeInt(inteiro(aluguel.getCobranca()));
+            }
+            saida.writeLong(capacidadeFiltro);
+            saida.writeDouble(taxaFiltro);
+            saida.writeInt(funcoesHashFiltro);
+            saida.writeLong(elementosFiltro);
+            saida.writeInt(palavrasFiltro.length);
+            for (long palavra : palavrasFiltro) {
+                saida.writeLong(palavra);
+            }
+            saida.flush();
+            // O próprio CRC fica fora do cálculo: escrito direto no arquivo
+            new DataOutputStream(arquivo).writeLong(crc.getValue());
+        }
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(destino);
+    } finally {
+        Files.deleteIfExists(temporario);
+    }
+}
+
+/**
+ * @throws IOException arquivo ilegível, truncado, de outra versão ou com CRC errado
+ */
+static ArquivoSnapshot ler(Path origem) throws IOException {
+    MappedByteBuffer mapa;
+    try (FileChannel canal = FileChannel.open(origem, StandardOpenOption.READ)) {
+        // O mapeamento continua válido depois de fechar o canal
+        mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+    }
+    if (mapa.capacity() < 8 * 2 + 8 * 3 + 4 + 8) {
+        throw new IOException("Snapshot truncado: " + mapa.capacity() + " bytes");
+    }
+    ByteBuffer conteudo = mapa.duplicate();
+    conteudo.limit(mapa.capacity() - 8);
+    CRC32 crc = new CRC32();
+    crc.update(conteudo);
+    if (crc.getValue() != mapa.getLong(mapa.capacity() - 8)) {
+        throw new IOException("Snapshot corrompido (CRC não confere)");
+    }
+
+    try {
+        ByteBuffer entrada = mapa.duplicate();
+        entrada.limit(mapa.capacity() - 8);
+        if (entrada.getInt() != MAGIA) {
+            throw new IOException("Arquivo não é um snapshot do Aluguel");
+        }
+        int versao = entrada.getInt();
+        if (versao != VERSAO) {
+            throw new IOException("Versão de snapshot não suportada: " + versao);
+        }
+        ArquivoSnapshot snapshot = new ArquivoSnapshot();
+        snapshot.instante = entrada.getLong();
+        snapshot.custoCargaAlugueisMs = entrada.getLong();
+        snapshot.custoCargaEmailsMs = entrada.getLong();
+        int alugueis = entrada.getInt();
+        snapshot.alugueisAtivos = new ArrayList<>(alugueis);
+        for (int i = 0; i < alugueis; i++) {
+            Aluguel aluguel = new Aluguel();
+            aluguel.setId(inteiro(entrada.getInt()));
+            aluguel.setCiclista(inteiro(entrada.getInt()));
+            aluguel.setBicicleta(inteiro(entrada.getInt()));
+            aluguel.setTrancaInicio(inteiro(entrada.getInt()));
+            long segundos = entrada.getLong();
+            int nanos = entrada.getInt();
+            aluguel.setHoraInicio(segundos == Long.MIN_VALUE ? null
+                    : LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC));
+            aluguel.setCobranca(inteiro(entrada.getInt()));
+            snapshot.alugueisAtivos.add(aluguel);
+        }
+        snapshot.capacidadeFiltro = entrada.getLong();
+        snapshot.taxaFiltro = entrada.getDouble();
+        snapshot.funcoesHashFiltro = entrada.getInt();
+        snapshot.elementosFiltro = entrada.getLong();
+        snapshot.palavrasFiltro = new long[entrada.getInt()];
+        entrada.asLongBuffer().get(snapshot.palavrasFiltro);
+        return snapshot;
+    } catch (RuntimeException e) {
+        // BufferUnderflow, tamanho negativo...: CRC certo com conteúdo inconsistente
+        throw new IOException("Snapshot inconsistente: " + e, e);
+    }
+}
+
+private static int inteiro(Integer valor) {
+    return valor == null ? NULO : valor;
+}
+
+private static Integer inteiro(int valor) {
+    return valor == NULO ? null : valor;
+}
+}
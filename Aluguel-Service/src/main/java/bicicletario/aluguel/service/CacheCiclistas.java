@@ -0,0 +1,74 @@
+package bicicletario.aluguel.service;
+
+import bicicletario.aluguel.model.CartaoDeCredito;
+import bicicletario.aluguel.model.Ciclista;
+import bicicletario.aluguel.repository.CartaoDeCreditoRepository;
+import bicicletario.aluguel.repository.CiclistaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+/**
+ * Leituras por chave de Ciclista e CartaoDeCredito com cache (ver CacheConfig),
+ * para os caminhos que só leem: aluguel, devolução e os GETs do CiclistaController.
+ *
+ * O objeto devolvido é compartilhado entre requisições: NÃO altere. Quem vai
+ * alterar e gravar (CiclistaService) lê direto do repositório. As entradas são
+ * invalidadas pelos listeners das entidades (CiclistaListener e
+ * CartaoDeCreditoListener) a cada gravação ou remoção, o que cobre
+ * editarCiclista, ativarCiclista e alterarCartaoDeCredito.
+ */
+@Component
+public class CacheCiclistas {
+
+public static final String CICLISTAS = "ciclistas";
+public static final String CARTOES = "cartoes";
+
+@Autowired
+private CiclistaRepository ciclistaRepository;
+@Autowired
+private CartaoDeCreditoRepository cartaoRepository;
+
+// Ciclista inexistente também fica em cache (vazio) até alguém gravar esse id
+@Cacheable(CICLISTAS)
+public Optional<Ciclista> buscarCiclista(Integer idCiclista) {
+    return ciclistaRepository.findById(idCiclista);
+}
+
+@Cacheable(CARTOES)
+public Optional<CartaoDeCredito> buscarCartao(Integer idCiclista) {
+    return cartaoRepository.findByIdCiclista(idCiclista);
+}
+
+@CacheEvict(CICLISTAS)
+public void esquecerCiclista(Integer idCiclista) {
+    // Só a anotação: remove a entrada do cache
+}
+
+@CacheEvict(CARTOES)
+public void esquecerCartao(Integer idCiclista) {
+    // Só a anotação: remove a entrada do cache
+}
+
+/**
+ * Invalida já e, dentro de transação, de novo após o commit: uma leitura
+ * concorrente entre a gravação e o commit ainda vê a linha antiga no banco e
+ * colocaria o valor velho de volta no cache.
+ */
+static void invalidarAgoraEDepoisDoCommit(Runnable invalidar) {
+    invalidar.run();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidar.run();
+            }
+        });
+    }
+}
+}
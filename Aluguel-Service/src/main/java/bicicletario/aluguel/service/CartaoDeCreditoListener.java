@@ -0,0 +1,33 @@
+package bicicletario.aluguel.service;
+
+import bicicletario.aluguel.model.CartaoDeCredito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Invalida o cartão no CacheCiclistas a cada gravação/remoção
+ * (alterarCartaoDeCredito, cadastro, restaurarDados...).
+ */
+@Component
+public class CartaoDeCreditoListener {
+
+// @Lazy: o Hibernate cria o listener junto com o EntityManagerFactory
+@Autowired
+@Lazy
+private CacheCiclistas cacheCiclistas;
+
+@PostPersist
+@PostUpdate
+@PostRemove
+public void aposAlterar(CartaoDeCredito cartao) {
+    Integer idCiclista = cartao.getIdCiclista();
+    if (idCiclista != null) {
+        CacheCiclistas.invalidarAgoraEDepoisDoCommit(() -> cacheCiclistas.esquecerCartao(idCiclista));
+    }
+}
+}
@@ -0,0 +1,58 @@
+package bicicletario.aluguel.service;
+
+import bicicletario.aluguel.model.Ciclista;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Coloca no FiltroEmailsCiclistas o email de todo ciclista gravado e invalida
+ * o ciclista no CacheCiclistas (cadastrarCiclista, editarCiclista,
+ * ativarCiclista, restaurarDados...).
+ */
+@Component
+public class CiclistaListener {
+
+// @Lazy: o Hibernate cria o listener junto com o EntityManagerFactory, antes
+// do repositório que o filtro usa existir
+@Autowired
+@Lazy
+private FiltroEmailsCiclistas filtroEmails;
+@Autowired
+@Lazy
+private CacheCiclistas cacheCiclistas;
+
+@PostPersist
+@PostUpdate
+public void aposGravar(Ciclista ciclista) {
+    invalidarCache(ciclista);
+    String email = ciclista.getEmail();
+    // Já antes do commit: um email a mais no filtro só custa uma consulta ao banco
+    filtroEmails.adicionar(email);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+        // De novo depois do commit, caso uma reconstrução tenha lido o banco nesse meio tempo
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                filtroEmails.adicionar(email);
+            }
+        });
+    }
+}
+
+@PostRemove
+public void aposRemover(Ciclista ciclista) {
+    invalidarCache(ciclista);
+}
+
+private void invalidarCache(Ciclista ciclista) {
+    Integer idCiclista = ciclista.getId();
+    CacheCiclistas.invalidarAgoraEDepoisDoCommit(() -> cacheCiclistas.esquecerCiclista(idCiclista));
+}
+}
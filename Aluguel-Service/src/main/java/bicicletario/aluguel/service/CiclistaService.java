@@ -12,6 +12,7 @@ import bicicletario.aluguel.repository.CartaoDeCreditoRepository;
 import bicicletario.aluguel.repository.CiclistaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.util.Optional;
 
@@ -24,6 +25,10 @@ private CiclistaRepository ciclistaRepository;
 private CartaoDeCreditoRepository cartaoRepository;
 @Autowired
 private ExternoService externoService;
+@Autowired
+private NotificacaoService notificacaoService;
+@Autowired
+private TransactionOperations transactionTemplate;
 
 public Ciclista cadastrarCiclista(CadastroCiclistaDTO cadastroDTO) {
     // Gap UC01-Passo 7: Validar Cartão
@@ -32,41 +37,46 @@ public Ciclista cadastrarCiclista(CadastroCiclistaDTO cadastroDTO) {
         throw new IllegalArgumentException("Cartão de crédito inválido");
     }
 
-    Ciclista ciclista = converterCiclistaDtoParaEntidade(cadastroDTO.getCiclista());
-    Ciclista ciclistaSalvo = ciclistaRepository.save(ciclista);
+    // Ciclista, cartão e email (outbox) são gravados na mesma transação
+    return transactionTemplate.execute(status -> {
+        Ciclista ciclista = converterCiclistaDtoParaEntidade(cadastroDTO.getCiclista());
+        Ciclista ciclistaSalvo = ciclistaRepository.save(ciclista);
 
-    CartaoDeCredito cartao = converterCartaoDtoParaEntidade(
-            cadastroDTO.getMeioDePagamento(),
-            ciclistaSalvo.getId()
-    );
-    cartaoRepository.save(cartao);
+        CartaoDeCredito cartao = converterCartaoDtoParaEntidade(
+                cadastroDTO.getMeioDePagamento(),
+                ciclistaSalvo.getId()
+        );
+        cartaoRepository.save(cartao);
 
-    // Gap UC01-Passo 9: Enviar Email
-    externoService.enviarEmail(
-            ciclistaSalvo.getEmail(),
-            "Bem-vindo ao VáDeBicicleta!",
-            "Seu cadastro foi recebido. Por favor, ative sua conta."
-    );
+        // Gap UC01-Passo 9: Enviar Email
+        notificacaoService.agendarEmail(
+                ciclistaSalvo.getEmail(),
+                "Bem-vindo ao VáDeBicicleta!",
+                "Seu cadastro foi recebido. Por favor, ative sua conta."
+        );
 
-    return ciclistaSalvo;
+        return ciclistaSalvo;
+    });
 }
 
 public Ciclista editarCiclista(Integer idCiclista, NovoCiclistaDTO dto) {
-    Optional<Ciclista> ciclistaOptional = ciclistaRepository.findById(idCiclista);
-    if (!ciclistaOptional.isPresent()) {
-        throw new IllegalArgumentException("Ciclista não encontrado");
-    }
-    Ciclista ciclistaExistente = ciclistaOptional.get();
-    atualizarEntidadeComDTO(ciclistaExistente, dto);
-    Ciclista ciclistaAtualizado = ciclistaRepository.save(ciclistaExistente);
-
-    // Gap UC06-Passo 4: Enviar Email
-    externoService.enviarEmail(
-            ciclistaAtualizado.getEmail(),
-            "Seus dados foram alterados",
-            "Olá, " + ciclistaAtualizado.getNome() + ". Seus dados de ciclista foram atualizados com sucesso."
-    );
-    return ciclistaAtualizado;
+    return transactionTemplate.execute(status -> {
+        Optional<Ciclista> ciclistaOptional = ciclistaRepository.findById(idCiclista);
+        if (!ciclistaOptional.isPresent()) {
+            throw new IllegalArgumentException("Ciclista não encontrado");
+        }
+        Ciclista ciclistaExistente = ciclistaOptional.get();
+        atualizarEntidadeComDTO(ciclistaExistente, dto);
+        Ciclista ciclistaAtualizado = ciclistaRepository.save(ciclistaExistente);
+
+        // Gap UC06-Passo 4: Enviar Email
+        notificacaoService.agendarEmail(
+                ciclistaAtualizado.getEmail(),
+                "Seus dados foram alterados",
+                "Olá, " + ciclistaAtualizado.getNome() + ". Seus dados de ciclista foram atualizados com sucesso."
+        );
+        return ciclistaAtualizado;
+    });
 }
 
 public Ciclista ativarCiclista(Integer idCiclista) {
@@ -86,26 +96,28 @@ public void alterarCartaoDeCredito(Integer idCiclista, NovoCartaoDeCreditoDTO dt
         throw new IllegalArgumentException("Cartão de crédito inválido");
     }
 
-    Optional<CartaoDeCredito> cartaoOptional = cartaoRepository.findByIdCiclista(idCiclista);
-    if (!cartaoOptional.isPresent()) {
-        throw new IllegalArgumentException("Cartão não encontrado para este ciclista");
-    }
-    CartaoDeCredito cartaoExistente = cartaoOptional.get();
-    cartaoExistente.setNomeTitular(dto.getNomeTitular());
-    cartaoExistente.setNumero(dto.getNumero());
-    cartaoExistente.setValidade(dto.getValidade());
-    cartaoExistente.setCvv(dto.getCvv());
-    cartaoRepository.save(cartaoExistente);
-
-    // Gap UC07-Passo 5: Enviar Email
-    Optional<Ciclista> ciclistaOptional = ciclistaRepository.findById(idCiclista);
-    if (ciclistaOptional.isPresent()) {
-        externoService.enviarEmail(
-                ciclistaOptional.get().getEmail(),
-                "Seu cartão de crédito foi alterado",
-                "Olá. Seu cartão de crédito foi atualizado com sucesso."
-        );
-    }
+    transactionTemplate.executeWithoutResult(status -> {
+        Optional<CartaoDeCredito> cartaoOptional = cartaoRepository.findByIdCiclista(idCiclista);
+        if (!cartaoOptional.isPresent()) {
+            throw new IllegalArgumentException("Cartão não encontrado para este ciclista");
+        }
+        CartaoDeCredito cartaoExistente = cartaoOptional.get();
+        cartaoExistente.setNomeTitular(dto.getNomeTitular());
+        cartaoExistente.setNumero(dto.getNumero());
+        cartaoExistente.setValidade(dto.getValidade());
+        cartaoExistente.setCvv(dto.getCvv());
+        cartaoRepository.save(cartaoExistente);
+
+        // Gap UC07-Passo 5: Enviar Email
+        Optional<Ciclista> ciclistaOptional = ciclistaRepository.findById(idCiclista);
+        if (ciclistaOptional.isPresent()) {
+            notificacaoService.agendarEmail(
+                    ciclistaOptional.get().getEmail(),
+                    "Seu cartão de crédito foi alterado",
+                    "Olá. Seu cartão de crédito foi atualizado com sucesso."
+            );
+        }
+    });
 }
 
 // --- Métodos Auxiliares (Movidos para o Service) ---
@@ -0,0 +1,160 @@
+package bicicletario.aluguel.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Conjunto probabilístico de strings: podeConter() = false é certeza de que o
+ * valor nunca foi adicionado; true pode ser falso positivo (taxa escolhida na
+ * criação). Não remove elementos. Seguro para várias threads sem lock.
+ *
+ * Dimensionado para 'capacidade' elementos com a taxa de falso positivo pedida:
+ * m = -n·ln(p) / ln(2)² bits e k = (m/n)·ln(2) funções de hash, derivadas de um
+ * único hash de 128 bits (h1 + i·h2).
+ */
+public class FiltroBloom {
+
+private final AtomicLongArray palavras;
+private final long bits;
+private final int funcoesHash;
+private final LongAdder elementos = new LongAdder();
+
+public FiltroBloom(long capacidade, double taxaFalsoPositivo) {
+    if (capacidade <= 0 || taxaFalsoPositivo <= 0 || taxaFalsoPositivo >= 1) {
+        throw new IllegalArgumentException("Capacidade deve ser positiva e a taxa entre 0 e 1");
+    }
+    long m = (long) Math.ceil(-capacidade * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)));
+    int palavrasLong = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+    this.palavras = new AtomicLongArray(palavrasLong);
+    this.bits = palavrasLong * 64L;
+    this.funcoesHash = Math.max(1, (int) Math.round((double) bits / capacidade * Math.log(2)));
+}
+
+/**
+ * Filtro com os bits já prontos (SnapshotInicializacao): mesmo conteúdo de um
+ * filtro gravado com copiarPalavras().
+ */
+public FiltroBloom(long[] palavras, int funcoesHash, long elementos) {
+    if (palavras.length == 0 || funcoesHash <= 0) {
+        throw new IllegalArgumentException("Filtro sem bits ou sem funções de hash");
+    }
+    this.palavras = new AtomicLongArray(palavras);
+    this.bits = palavras.length * 64L;
+    this.funcoesHash = funcoesHash;
+    this.elementos.add(elementos);
+}
+
+public void adicionar(String valor) {
+    long[] hash = hash(valor);
+    boolean novo = false;
+    for (int i = 0; i < funcoesHash; i++) {
+        long bit = posicao(hash, i);
+        int indice = (int) (bit >>> 6);
+        long mascara = 1L << bit;
+        long atual;
+        do {
+            atual = palavras.get(indice);
+            if ((atual & mascara) != 0) {
+                break;
+            }
+            novo = true;
+        } while (!palavras.compareAndSet(indice, atual, atual | mascara));
+    }
+    // Estimativa: repetidos que por acaso já tinham todos os bits não contam
+    if (novo) {
+        elementos.increment();
+    }
+}
+
+public boolean podeConter(String valor) {
+    long[] hash = hash(valor);
+    for (int i = 0; i < funcoesHash; i++) {
+        long bit = posicao(hash, i);
+        if ((palavras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+            return false;
+        }
+    }
+    return true;
+}
+
+// Taxa de falso positivo esperada com os elementos atuais: (1 - e^(-k·n/m))^k
+public double taxaFalsoPositivoEstimada() {
+    return Math.pow(1 - Math.exp(-funcoesHash * (double) elementos.sum() / bits), funcoesHash);
+}
+
+// Cópia dos bits, palavra a palavra: um adicionar() concorrente pode ficar de fora
+public long[] copiarPalavras() {
+    long[] copia = new long[palavras.length()];
+    for (int i = 0; i < copia.length; i++) {
+        copia[i] = palavras.get(i);
+    }
+    return copia;
+}
+
+public long getElementos() { return elementos.sum(); }
+public long getBits() { return bits; }
+public int getFuncoesHash() { return funcoesHash; }
+public long getMemoriaBytes() { return bits / 8; }
+
+private long posicao(long[] hash, int i) {
+    return Math.floorMod(hash[0] + i * hash[1], bits);
+}
+
+// MurmurHash3 x64 de 128 bits: as duas metades alimentam h1 + i·h2
+private static long[] hash(String valor) {
+    byte[] dados = valor.getBytes(StandardCharsets.UTF_8);
+    final long c1 = 0x87c37b91114253d5L;
+    final long c2 = 0x4cf5ad432745937fL;
+    long h1 = 0x9747b28cL;
+    long h2 = 0x9747b28cL;
+    int blocos = dados.length / 16;
+    for (int i = 0; i < blocos; i++) {
+        long k1 = lerLong(dados, i * 16);
+        long k2 = lerLong(dados, i * 16 + 8);
+        k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+        h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+        k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+        h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+    }
+    long k1 = 0;
+    long k2 = 0;
+    int resto = blocos * 16;
+    for (int i = dados.length - 1; i >= resto; i--) {
+        long b = dados[i] & 0xffL;
+        if (i - resto >= 8) {
+            k2 ^= b << ((i - resto - 8) * 8);
+        } else {
+            k1 ^= b << ((i - resto) * 8);
+        }
+    }
+    k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+    k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+    h1 ^= dados.length;
+    h2 ^= dados.length;
+    h1 += h2;
+    h2 += h1;
+    h1 = misturar(h1);
+    h2 = misturar(h2);
+    h1 += h2;
+    h2 += h1;
+    return new long[] {h1, h2};
+}
+
+private static long lerLong(byte[] dados, int inicio) {
+    long valor = 0;
+    for (int i = 7; i >= 0; i--) {
+        valor = (valor << 8) | (dados[inicio + i] & 0xffL);
+    }
+    return valor;
+}
+
+private static long misturar(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+}
+}
@@ -0,0 +1,203 @@
+package bicicletario.aluguel.service;
+
+import bicicletario.aluguel.dto.EstadoFiltroEmailsDTO;
+import bicicletario.aluguel.repository.CiclistaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Filtro de Bloom dos emails cadastrados, para o GET /ciclista/existeEmail
+ * (chamado a cada alteração do campo no formulário de cadastro).
+ *
+ * "Não está no filtro" é certeza: responde false sem ir ao banco. "Pode estar"
+ * cai na consulta exata (existsByEmail). Montado na subida a partir do banco e
+ * mantido pelo CiclistaListener a cada cadastro/edição. Emails alterados ou
+ * apagados continuam no filtro (só geram consultas a mais) até a próxima
+ * reconstrução (POST /admin/emails/reconstruir). Com o SnapshotInicializacao
+ * ligado, a subida parte dos bits do último snapshot.
+ *
+ * Com várias instâncias, o listener só vê os cadastros feitos nesta. O resto
+ * entra pela sincronização periódica (sincronizar): os emails com
+ * Ciclista.atualizadoEm desde a última passada, menos a margem de relógio e de
+ * commit entre as instâncias. Até lá, um email cadastrado em outra instância
+ * pode responder "não está em uso"; a restrição única de email continua
+ * recusando o cadastro duplicado.
+ */
+@Component
+public class FiltroEmailsCiclistas {
+
+private static final Logger logger = LoggerFactory.getLogger(FiltroEmailsCiclistas.class);
+
+@Autowired
+private CiclistaRepository ciclistaRepository;
+@Autowired
+private MeterRegistry meterRegistry;
+@Autowired
+private SnapshotInicializacao snapshot;
+
+@Value("${ciclista.email.filtro.capacidade:100000}")
+private long capacidade;
+
+@Value("${ciclista.email.filtro.taxa-falso-positivo:0.01}")
+private double taxaFalsoPositivo;
+
+// Gravações de outras instâncias chegam ao banco com o relógio delas e commit atrasado
+@Value("${ciclista.email.filtro.sincronizar-margem-ms:60000}")
+private long margemSincronizacaoMs;
+
+private volatile FiltroBloom filtro;
+private volatile long capacidadeAtual;
+// Durante a reconstrução os novos emails vão também para o filtro em construção
+private volatile FiltroBloom emConstrucao;
+// Início da última leitura do banco (carga, reconstrução ou sincronização)
+private LocalDateTime sincronizadoAte;
+
+private Counter negativos;
+private Counter positivos;
+private Counter falsosPositivos;
+
+@PostConstruct
+public void carregar() {
+    negativos = meterRegistry.counter("ciclista.email.filtro.consultas", "resultado", "negativo");
+    positivos = meterRegistry.counter("ciclista.email.filtro.consultas", "resultado", "talvez");
+    falsosPositivos = Counter.builder("ciclista.email.filtro.falsos.positivos")
+            .description("'Pode estar' no filtro, mas o email não existe no banco")
+            .register(meterRegistry);
+    Gauge.builder("ciclista.email.filtro.memoria", this, f -> f.filtro.getMemoriaBytes())
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    Gauge.builder("ciclista.email.filtro.elementos", this, f -> f.filtro.getElementos())
+            .register(meterRegistry);
+    Gauge.builder("ciclista.email.filtro.taxa.falso.positivo.estimada", this, f -> f.filtro.taxaFalsoPositivoEstimada())
+            .register(meterRegistry);
+    LocalDateTime inicioLeitura = LocalDateTime.now();
+    Optional<FiltroBloom> restaurado = snapshot.restaurarFiltroEmails(capacidade, taxaFalsoPositivo);
+    if (restaurado.isPresent()) {
+        filtro = restaurado.get();
+        marcarSincronizado(inicioLeitura);
+        capacidadeAtual = snapshot.getCapacidadeFiltroRestaurado();
+        return;
+    }
+    long inicio = System.nanoTime();
+    reconstruir();
+    snapshot.registrarCargaEmails(inicio);
+}
+
+/**
+ * Monta um filtro novo a partir do banco e troca pelo atual. Dimensionado para
+ * o dobro dos emails existentes (mínimo: a capacidade configurada).
+ */
+public synchronized EstadoFiltroEmailsDTO reconstruir() {
+    long existentes = ciclistaRepository.count();
+    long dimensionado = Math.max(capacidade, existentes * 2);
+    FiltroBloom novo = new FiltroBloom(dimensionado, taxaFalsoPositivo);
+    // Publica antes de ler o banco: quem gravar durante a leitura entra nos dois filtros
+    emConstrucao = novo;
+    LocalDateTime inicioLeitura = LocalDateTime.now();
+    try {
+        List<String> emails = ciclistaRepository.findAllEmails();
+        for (String email : emails) {
+            novo.adicionar(normalizar(email));
+        }
+        filtro = novo;
+        capacidadeAtual = dimensionado;
+        marcarSincronizado(inicioLeitura);
+    } finally {
+        emConstrucao = null;
+    }
+    logger.info("Filtro de emails montado: {} emails, {} KB", novo.getElementos(), novo.getMemoriaBytes() / 1024);
+    return getEstado();
+}
+
+/**
+ * Acrescenta ao filtro os emails gravados no banco desde a última leitura,
+ * inclusive os cadastrados por outras instâncias.
+ */
+@Scheduled(fixedDelayString = "${ciclista.email.filtro.sincronizar-ms:30000}",
+        initialDelayString = "${ciclista.email.filtro.sincronizar-ms:30000}")
+public synchronized void sincronizar() {
+    LocalDateTime inicioLeitura = LocalDateTime.now();
+    LocalDateTime desde = sincronizadoAte.minusNanos(margemSincronizacaoMs * 1_000_000L);
+    List<String> alterados = ciclistaRepository.findEmailsAlteradosDesde(desde);
+    for (String email : alterados) {
+        adicionar(email);
+    }
+    marcarSincronizado(inicioLeitura);
+    if (!alterados.isEmpty()) {
+        logger.debug("Filtro de emails sincronizado: {} emails gravados desde {}", alterados.size(), desde);
+    }
+}
+
+public void adicionar(String email) {
+    if (email == null) {
+        return;
+    }
+    String normalizado = normalizar(email);
+    FiltroBloom construindo = emConstrucao;
+    if (construindo != null) {
+        construindo.adicionar(normalizado);
+    }
+    FiltroBloom atual = filtro;
+    if (atual != null) {
+        atual.adicionar(normalizado);
+    }
+}
+
+// UC01-R3: email já usado por outro ciclista?
+public boolean emailEmUso(String email) {
+    if (!filtro.podeConter(normalizar(email))) {
+        negativos.increment();
+        return false;
+    }
+    positivos.increment();
+    boolean existe = ciclistaRepository.existsByEmail(email);
+    if (!existe) {
+        falsosPositivos.increment();
+    }
+    return existe;
+}
+
+public EstadoFiltroEmailsDTO getEstado() {
+    FiltroBloom atual = filtro;
+    EstadoFiltroEmailsDTO estado = new EstadoFiltroEmailsDTO();
+    estado.setElementos(atual.getElementos());
+    estado.setBits(atual.getBits());
+    estado.setFuncoesHash(atual.getFuncoesHash());
+    estado.setMemoriaBytes(atual.getMemoriaBytes());
+    estado.setTaxaFalsoPositivoEstimada(atual.taxaFalsoPositivoEstimada());
+    estado.setConsultasNegativas((long) negativos.count());
+    estado.setConsultasTalvez((long) positivos.count());
+    estado.setFalsosPositivos((long) falsosPositivos.count());
+    return estado;
+}
+
+private void marcarSincronizado(LocalDateTime inicioLeitura) {
+    // Uma reconstrução durante a sincronização já leu tudo até o início dela
+    if (sincronizadoAte == null || inicioLeitura.isAfter(sincronizadoAte)) {
+        sincronizadoAte = inicioLeitura;
+    }
+}
+
+// Filtro atual e o dimensionamento dele (SnapshotInicializacao)
+FiltroBloom getFiltro() { return filtro; }
+long getCapacidadeAtual() { return capacidadeAtual; }
+double getTaxaFalsoPositivo() { return taxaFalsoPositivo; }
+
+// Maiúsculas e minúsculas caem no mesmo bit: no pior caso só gera uma consulta a mais
+static String normalizar(String email) {
+    return email.trim().toLowerCase(Locale.ROOT);
+}
+}
@@ -4,10 +4,16 @@ import bicicletario.aluguel.dto.NovoFuncionarioDTO;
 import bicicletario.aluguel.model.Funcionario;
 import bicicletario.aluguel.repository.FuncionarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class FuncionarioService {
@@ -15,6 +21,9 @@ public class FuncionarioService {
 @Autowired
 private FuncionarioRepository funcionarioRepository;
 
+@PersistenceContext
+private EntityManager entityManager;
+
 public Funcionario cadastrarFuncionario(NovoFuncionarioDTO dto) {
     // Validação de Negócio: Senhas iguais
     if (dto.getSenha() == null || !dto.getSenha().equals(dto.getConfirmacaoSenha())) {
@@ -25,8 +34,26 @@ public Funcionario cadastrarFuncionario(NovoFuncionarioDTO dto) {
     return funcionarioRepository.save(novoFuncionario);
 }
 
-public List<Funcionario> recuperarTodos() {
-    return funcionarioRepository.findAll();
+public Page<Funcionario> recuperarPagina(Pageable pagina) {
+    return funcionarioRepository.findAll(pagina);
+}
+
+/**
+ * Passa todos os funcionários (ordem de id) para 'acao', um por vez, e retorna
+ * quantos foram. Memória constante: o banco entrega em blocos (fetch size) e
+ * cada funcionário sai do contexto de persistência logo depois de usado.
+ */
+@Transactional(readOnly = true)
+public long paraCada(Consumer<Funcionario> acao) {
+    long quantidade = 0;
+    try (Stream<Funcionario> funcionarios = funcionarioRepository.streamTodos()) {
+        for (Funcionario funcionario : (Iterable<Funcionario>) funcionarios::iterator) {
+            acao.accept(funcionario);
+            entityManager.detach(funcionario);
+            quantidade++;
+        }
+    }
+    return quantidade;
 }
 
 public Optional<Funcionario> recuperarPorId(Integer id) {
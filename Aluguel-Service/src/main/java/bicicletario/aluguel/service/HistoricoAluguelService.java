@@ -0,0 +1,127 @@
+package bicicletario.aluguel.service;
+
+import bicicletario.aluguel.config.RotaBanco;
+import bicicletario.aluguel.dto.PaginaAlugueisDTO;
+import bicicletario.aluguel.model.Aluguel;
+import bicicletario.aluguel.repository.AluguelRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Histórico de aluguéis (abertos e fechados) por ciclista, bicicleta, tranca
+ * de retirada ou só por período, do mais recente para o mais antigo.
+ *
+ * Paginação por chave: o cursor guarda (horaInicio, id) da última linha
+ * entregue e a página seguinte começa logo abaixo dela. Ao contrário de
+ * OFFSET, o custo não cresce com o número da página, e aluguéis novos não
+ * deslocam as páginas já lidas. O cursor é opaco para o cliente.
+ */
+@Service
+public class HistoricoAluguelService {
+
+public static final int LIMITE_PADRAO = 50;
+public static final int LIMITE_MAXIMO = 500;
+
+// Limites usados quando o período não é informado
+private static final LocalDateTime INICIO_DOS_TEMPOS = LocalDateTime.of(1970, 1, 1, 0, 0);
+private static final LocalDateTime FIM_DOS_TEMPOS = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+@Autowired
+private AluguelRepository aluguelRepository;
+
+@FunctionalInterface
+private interface Consulta {
+    List<Aluguel> buscar(LocalDateTime de, LocalDateTime hora, Integer id, Pageable limite);
+}
+
+public PaginaAlugueisDTO doCiclista(Integer idCiclista, LocalDateTime de, LocalDateTime ate, String cursor, Integer limite) {
+    return paginar((d, h, i, l) -> aluguelRepository.findHistoricoDoCiclista(idCiclista, d, h, i, l), de, ate, cursor, limite);
+}
+
+public PaginaAlugueisDTO daBicicleta(Integer idBicicleta, LocalDateTime de, LocalDateTime ate, String cursor, Integer limite) {
+    return paginar((d, h, i, l) -> aluguelRepository.findHistoricoDaBicicleta(idBicicleta, d, h, i, l), de, ate, cursor, limite);
+}
+
+// Aluguéis retirados na tranca
+public PaginaAlugueisDTO daTranca(Integer idTranca, LocalDateTime de, LocalDateTime ate, String cursor, Integer limite) {
+    return paginar((d, h, i, l) -> aluguelRepository.findHistoricoDaTranca(idTranca, d, h, i, l), de, ate, cursor, limite);
+}
+
+public PaginaAlugueisDTO doPeriodo(LocalDateTime de, LocalDateTime ate, String cursor, Integer limite) {
+    return paginar(aluguelRepository::findHistorico, de, ate, cursor, limite);
+}
+
+/**
+ * 'de' inclusivo, 'ate' exclusivo (horaInicio). Cursor inválido ou período
+ * invertido: IllegalArgumentException.
+ */
+private PaginaAlugueisDTO paginar(Consulta consulta, LocalDateTime de, LocalDateTime ate, String cursor, Integer limite) {
+    int tamanho = limite == null ? LIMITE_PADRAO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+    LocalDateTime inicio = de != null ? de : INICIO_DOS_TEMPOS;
+    LocalDateTime fim = ate != null ? ate : FIM_DOS_TEMPOS;
+    if (!inicio.isBefore(fim)) {
+        throw new IllegalArgumentException("'de' deve ser anterior a 'ate'");
+    }
+
+    // Primeira página: tudo antes de 'fim' (id mínimo deixa 'fim' de fora)
+    LocalDateTime hora = fim;
+    Integer id = Integer.MIN_VALUE;
+    if (cursor != null) {
+        Posicao posicao = decodificar(cursor);
+        hora = posicao.horaInicio;
+        id = posicao.id;
+    }
+
+    // Uma linha a mais só para saber se existe próxima página. Pool de relatório:
+    // uma varredura longa não toma conexão das transações de aluguel
+    LocalDateTime horaCursor = hora;
+    Integer idCursor = id;
+    List<Aluguel> alugueis = RotaBanco.noRelatorio(
+            () -> consulta.buscar(inicio, horaCursor, idCursor, PageRequest.of(0, tamanho + 1)));
+    String proximo = null;
+    if (alugueis.size() > tamanho) {
+        alugueis = alugueis.subList(0, tamanho);
+        proximo = codificar(alugueis.get(tamanho - 1));
+    }
+    return new PaginaAlugueisDTO(alugueis, proximo);
+}
+
+private static String codificar(Aluguel ultimo) {
+    String posicao = ultimo.getHoraInicio() + "|" + ultimo.getId();
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(posicao.getBytes(StandardCharsets.UTF_8));
+}
+
+private static Posicao decodificar(String cursor) {
+    try {
+        String posicao = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separador = posicao.indexOf('|');
+        if (separador < 0) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        return new Posicao(LocalDateTime.parse(posicao.substring(0, separador)),
+                Integer.valueOf(posicao.substring(separador + 1)));
+    } catch (DateTimeParseException e) {
+        // NumberFormatException já é IllegalArgumentException (assim como o erro de Base64)
+        throw new IllegalArgumentException("Cursor inválido", e);
+    }
+}
+
+// Última linha entregue: a próxima página começa logo abaixo dela
+private static class Posicao {
+    final LocalDateTime horaInicio;
+    final Integer id;
+
+    Posicao(LocalDateTime horaInicio, Integer id) {
+        this.horaInicio = horaInicio;
+        this.id = id;
+    }
+}
+}
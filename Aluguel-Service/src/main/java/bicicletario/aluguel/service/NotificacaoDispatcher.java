@@ -0,0 +1,122 @@
+package bicicletario.aluguel.service;
+
+import bicicletario.aluguel.mock.ExternoService;
+import bicicletario.aluguel.model.NotificacaoEmail;
+import bicicletario.aluguel.repository.NotificacaoEmailRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Drena a outbox de emails em segundo plano, em lotes.
+ * Falhas no Externo não perdem o email: ele volta para a fila com backoff
+ * exponencial até esgotar as tentativas (status FALHA).
+ *
+ * Com várias instâncias, cada lote é reivindicado antes do envio, como a fila
+ * de cobranças do Externo: um UPDATE condicional grava o token do lote no
+ * email (status ENVIANDO), então cada email sai por uma instância só. Se ela
+ * cair no meio do lote, a reivindicação expira e outra retoma os emails.
+ */
+@Component
+public class NotificacaoDispatcher {
+
+private static final Logger logger = LoggerFactory.getLogger(NotificacaoDispatcher.class);
+
+@Autowired
+private NotificacaoEmailRepository notificacaoRepository;
+@Autowired
+private ExternoService externoService;
+
+@Value("${notificacao.dispatcher.lote:50}")
+private int tamanhoLote;
+
+@Value("${notificacao.dispatcher.max-tentativas:8}")
+private int maxTentativas;
+
+@Value("${notificacao.dispatcher.backoff-inicial-ms:2000}")
+private long backoffInicialMs;
+
+@Value("${notificacao.dispatcher.backoff-maximo-ms:300000}")
+private long backoffMaximoMs;
+
+// Bem acima do tempo de um lote: só expira se a instância realmente parou
+@Value("${notificacao.dispatcher.reivindicacao-expira-ms:300000}")
+private long reivindicacaoExpiraMs;
+
+@Scheduled(fixedDelayString = "${notificacao.dispatcher.intervalo-ms:1000}")
+public void despachar() {
+    int reivindicados;
+    do {
+        reivindicados = despacharLote();
+        // Lote cheio: pode haver mais pendentes, continua drenando
+    } while (reivindicados == tamanhoLote);
+}
+
+// Reivindica e envia um lote; retorna quantos emails foram reivindicados
+private int despacharLote() {
+    LocalDateTime agora = LocalDateTime.now();
+    LocalDateTime expiradaAntesDe = agora.minus(Duration.ofMillis(reivindicacaoExpiraMs));
+
+    List<Integer> candidatos = notificacaoRepository.findIdsDisponiveis(agora, expiradaAntesDe, PageRequest.of(0, tamanhoLote));
+    if (candidatos.isEmpty()) {
+        return 0;
+    }
+    String lote = UUID.randomUUID().toString();
+    int reivindicados = notificacaoRepository.reivindicar(candidatos, lote, agora, expiradaAntesDe);
+    if (reivindicados == 0) {
+        // Outra instância levou todos os candidatos: tenta de novo na próxima rodada
+        return 0;
+    }
+    for (NotificacaoEmail notificacao : notificacaoRepository.findByLoteOrderByIdAsc(lote)) {
+        enviar(notificacao, lote);
+    }
+    return reivindicados;
+}
+
+private void enviar(NotificacaoEmail notificacao, String lote) {
+    int atualizadas;
+    try {
+        externoService.enviarEmail(notificacao.getEmail(), notificacao.getAssunto(), notificacao.getMensagem());
+        atualizadas = notificacaoRepository.marcarEnviado(notificacao.getId(), lote, LocalDateTime.now());
+    } catch (Exception e) {
+        int tentativas = notificacao.getTentativas() + 1;
+        String erro = resumir(e.getMessage());
+        if (tentativas >= maxTentativas) {
+            logger.error(" Email {} descartado após {} tentativas. Erro: {}",
+                    notificacao.getId(), tentativas, e.getMessage());
+            atualizadas = notificacaoRepository.marcarFalha(notificacao.getId(), lote, tentativas, erro);
+        } else {
+            LocalDateTime proximaTentativa = LocalDateTime.now().plus(Duration.ofMillis(calcularBackoffMs(tentativas)));
+            logger.warn(" Falha ao enviar email {} (tentativa {}). Nova tentativa agendada. Erro: {}",
+                    notificacao.getId(), tentativas, e.getMessage());
+            atualizadas = notificacaoRepository.devolverParaFila(notificacao.getId(), lote, tentativas, erro, proximaTentativa);
+        }
+    }
+    if (atualizadas == 0) {
+        // A reivindicação expirou e outra instância assumiu o email
+        logger.warn(" Email {} não pertence mais ao lote {}; resultado descartado", notificacao.getId(), lote);
+    }
+}
+
+// backoff-inicial * 2^(tentativas-1), limitado ao backoff máximo
+private long calcularBackoffMs(int tentativas) {
+    int expoente = Math.min(tentativas - 1, 30);
+    return Math.min(backoffInicialMs << expoente, backoffMaximoMs);
+}
+
+private String resumir(String mensagem) {
+    if (mensagem == null || mensagem.length() <= 500) {
+        return mensagem;
+    }
+    return mensagem.substring(0, 500);
+}
+}
@@ -0,0 +1,36 @@
+package bicicletario.aluguel.service;
+
+import bicicletario.aluguel.model.NotificacaoEmail;
+import bicicletario.aluguel.repository.NotificacaoEmailRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+public class NotificacaoService {
+
+@Autowired
+private NotificacaoEmailRepository notificacaoRepository;
+
+/**
+ * Grava o email na outbox. Precisa rodar DENTRO da transação da operação de
+ * negócio: se ela for desfeita, o email também é.
+ */
+@Transactional(propagation = Propagation.MANDATORY)
+public NotificacaoEmail agendarEmail(String email, String assunto, String mensagem) {
+    LocalDateTime agora = LocalDateTime.now();
+
+    NotificacaoEmail notificacao = new NotificacaoEmail();
+    notificacao.setEmail(email);
+    notificacao.setAssunto(assunto);
+    notificacao.setMensagem(mensagem);
+    notificacao.setStatus("PENDENTE");
+    notificacao.setTentativas(0);
+    notificacao.setCriadoEm(agora);
+    notificacao.setProximaTentativa(agora);
+    return notificacaoRepository.save(notificacao);
+}
+}
@@ -0,0 +1,276 @@
+package bicicletario.aluguel.service;
+
+import bicicletario.aluguel.model.Aluguel;
+import bicicletario.aluguel.repository.AluguelRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aluguéis em andamento (horaFim nula), em memória.
+ * No máximo um por ciclista (UC03-R1) e um por bicicleta, então cabe tudo aqui
+ * e as consultas quentes (permiteAluguel, bicicletaAlugada, devolução) não
+ * precisam ir ao banco.
+ *
+ * É carregado do banco na subida e atualizado pelo AluguelListener depois do
+ * commit de cada insert/update/delete de Aluguel: o registro só enxerga o que
+ * já está no banco. Com o SnapshotInicializacao ligado, parte do último
+ * snapshot e só lê do banco o que mudou desde então.
+ *
+ * Com várias instâncias, um aluguel aberto em OUTRA instância não passa pelo
+ * AluguelListener desta: na falta, doCiclista/daBicicleta confirmam no banco
+ * (índices idx_aluguel_*_hora_fim) e guardam o que acharem. O contrário, um
+ * aluguel daqui devolvido em OUTRA instância, deixa a entrada velha: a reserva
+ * que esbarra nela confirma no banco antes de recusar, daBicicleta (devolução)
+ * confirma pelo id que ela ainda está aberta, e sincronizar tira de tempos em
+ * tempos os aluguéis fechados (até lá, doCiclista ainda pode responder com um
+ * aluguel já devolvido).
+ * aluguel.registro.consultar-banco-na-falta=false volta a responder só da
+ * memória (uma instância só).
+ *
+ * Também faz o controle de admissão (UC03-R1) sem lock global: um aluguel em
+ * andamento RESERVA o ciclista e a bicicleta com putIfAbsent, que é atômico por
+ * chave. Dois pedidos concorrentes para o mesmo ciclista (ou bicicleta): só um
+ * consegue a reserva. Pedidos de ciclistas/bicicletas diferentes não disputam nada.
+ */
+@Component
+public class RegistroAlugueisAtivos {
+
+private static final Logger logger = LoggerFactory.getLogger(RegistroAlugueisAtivos.class);
+
+@Autowired
+private AluguelRepository aluguelRepository;
+@Autowired
+private SnapshotInicializacao snapshot;
+
+@Value("${aluguel.registro.consultar-banco-na-falta:true}")
+private boolean consultarBancoNaFalta = true;
+// Ids por consulta em sincronizar (IN do findIdsAindaAbertos)
+@Value("${aluguel.registro.sincronizar-lote:1000}")
+private int loteSincronizacao = 1000;
+
+private final Map<Integer, Aluguel> porCiclista = new ConcurrentHashMap<>();
+private final Map<Integer, Aluguel> porBicicleta = new ConcurrentHashMap<>();
+// Bicicletas com devolução em andamento (evita fechar o mesmo aluguel duas vezes)
+private final Set<Integer> devolucoesEmAndamento = ConcurrentHashMap.newKeySet();
+
+@PostConstruct
+public void carregar() {
+    Optional<List<Aluguel>> restaurados = snapshot.restaurarAlugueisAtivos();
+    if (restaurados.isPresent()) {
+        for (Aluguel aluguel : restaurados.get()) {
+            registrar(aluguel);
+        }
+        logger.info(" {} aluguéis ativos restaurados do snapshot.", porCiclista.size());
+        return;
+    }
+    long inicio = System.nanoTime();
+    for (Aluguel aluguel : aluguelRepository.findByHoraFimIsNull()) {
+        registrar(aluguel);
+    }
+    snapshot.registrarCargaAlugueis(inicio);
+    logger.info(" {} aluguéis ativos carregados na memória.", porCiclista.size());
+}
+
+// Devolve CÓPIAS: quem chamou pode alterar a entidade sem mexer no registro.
+// Reservas (aluguel ainda não gravado, id nulo) não contam como aluguel ativo.
+public Optional<Aluguel> doCiclista(Integer idCiclista) {
+    Optional<Aluguel> emMemoria = Optional.ofNullable(porCiclista.get(idCiclista)).filter(RegistroAlugueisAtivos::gravado);
+    if (emMemoria.isPresent() || !consultarBancoNaFalta) {
+        return emMemoria.map(Aluguel::copiar);
+    }
+    return aprender(aluguelRepository.findByCiclistaAndHoraFimIsNull(idCiclista));
+}
+
+// Usado na devolução: com várias instâncias, confirma pelo id que o aluguel da
+// memória não foi devolvido em outra (fecharia de novo um aluguel já fechado)
+public Optional<Aluguel> daBicicleta(Integer idBicicleta) {
+    Optional<Aluguel> emMemoria = Optional.ofNullable(porBicicleta.get(idBicicleta)).filter(RegistroAlugueisAtivos::gravado);
+    if (!consultarBancoNaFalta) {
+        return emMemoria.map(Aluguel::copiar);
+    }
+    if (emMemoria.isPresent()) {
+        if (!aluguelRepository.findIdsAindaAbertos(Collections.singletonList(emMemoria.get().getId())).isEmpty()) {
+            return emMemoria.map(Aluguel::copiar);
+        }
+        remover(emMemoria.get());
+    }
+    return aprender(aluguelRepository.findByBicicletaAndHoraFimIsNull(idBicicleta));
+}
+
+public boolean ciclistaTemAluguelAtivo(Integer idCiclista) {
+    return doCiclista(idCiclista).isPresent();
+}
+
+// Aluguel aberto por outra instância: entra no registro sem tirar o lugar de uma
+// reserva ou de um aluguel que o AluguelListener desta instância já aplicou
+private Optional<Aluguel> aprender(Optional<Aluguel> doBanco) {
+    if (doBanco.isPresent()) {
+        Aluguel copia = doBanco.get().copiar();
+        if (copia.getCiclista() != null) {
+            porCiclista.putIfAbsent(copia.getCiclista(), copia);
+        }
+        if (copia.getBicicleta() != null) {
+            porBicicleta.putIfAbsent(copia.getBicicleta(), copia);
+        }
+    }
+    return doBanco.map(Aluguel::copiar);
+}
+
+/**
+ * UC03-R1: reserva o ciclista para um novo aluguel.
+ * Falha se ele já tem aluguel ativo OU outro pedido de aluguel em andamento.
+ */
+public Aluguel reservarCiclista(Integer idCiclista) {
+    Aluguel reserva = new Aluguel();
+    reserva.setCiclista(idCiclista);
+    Aluguel atual;
+    while ((atual = porCiclista.putIfAbsent(idCiclista, reserva)) != null) {
+        if (!gravado(atual) || !consultarBancoNaFalta || aluguelRepository.existsByCiclistaAndHoraFimIsNull(idCiclista)) {
+            throw new IllegalArgumentException("Ciclista já possui um aluguel ativo");
+        }
+        // Devolvido em outra instância: sai do registro e a reserva tenta de novo
+        remover(atual);
+    }
+    return reserva;
+}
+
+/**
+ * Reserva a bicicleta para o aluguel já reservado do ciclista.
+ * Falha se ela já está alugada ou sendo alugada por outro pedido.
+ */
+public void reservarBicicleta(Aluguel reserva, Integer idBicicleta) {
+    Aluguel atual;
+    while ((atual = porBicicleta.putIfAbsent(idBicicleta, reserva)) != null) {
+        if (!gravado(atual) || !consultarBancoNaFalta || aluguelRepository.existsByBicicletaAndHoraFimIsNull(idBicicleta)) {
+            throw new IllegalArgumentException("Bicicleta já está em uso em outro aluguel");
+        }
+        remover(atual);
+    }
+    reserva.setBicicleta(idBicicleta);
+}
+
+/**
+ * Solta as reservas de um pedido de aluguel. Se o aluguel foi gravado, o
+ * AluguelListener já trocou a reserva pelo aluguel real e nada é removido.
+ */
+public void liberar(Aluguel reserva) {
+    porCiclista.remove(reserva.getCiclista(), reserva);
+    if (reserva.getBicicleta() != null) {
+        porBicicleta.remove(reserva.getBicicleta(), reserva);
+    }
+}
+
+// UC04: só uma devolução por bicicleta de cada vez
+public boolean iniciarDevolucao(Integer idBicicleta) {
+    return devolucoesEmAndamento.add(idBicicleta);
+}
+
+public void encerrarDevolucao(Integer idBicicleta) {
+    devolucoesEmAndamento.remove(idBicicleta);
+}
+
+// Cópias dos aluguéis já gravados (sem as reservas), para o snapshot
+public List<Aluguel> ativosGravados() {
+    List<Aluguel> ativos = new ArrayList<>(porCiclista.size());
+    for (Aluguel aluguel : porCiclista.values()) {
+        if (gravado(aluguel)) {
+            ativos.add(aluguel.copiar());
+        }
+    }
+    return ativos;
+}
+
+public int quantidade() {
+    return porCiclista.size();
+}
+
+/**
+ * Tira do registro os aluguéis gravados que já foram fechados no banco
+ * (devolvidos em outra instância). Uma consulta por chave primária a cada
+ * sincronizar-lote aluguéis em memória.
+ */
+@Scheduled(fixedDelayString = "${aluguel.registro.sincronizar-ms:30000}",
+        initialDelayString = "${aluguel.registro.sincronizar-ms:30000}")
+public void sincronizar() {
+    if (!consultarBancoNaFalta) {
+        return;
+    }
+    Map<Integer, Aluguel> gravados = new HashMap<>();
+    for (Aluguel aluguel : porCiclista.values()) {
+        if (gravado(aluguel)) {
+            gravados.put(aluguel.getId(), aluguel);
+        }
+    }
+    for (Aluguel aluguel : porBicicleta.values()) {
+        if (gravado(aluguel)) {
+            gravados.put(aluguel.getId(), aluguel);
+        }
+    }
+    List<Integer> ids = new ArrayList<>(gravados.keySet());
+    Set<Integer> abertos = new HashSet<>();
+    for (int i = 0; i < ids.size(); i += loteSincronizacao) {
+        abertos.addAll(aluguelRepository.findIdsAindaAbertos(ids.subList(i, Math.min(ids.size(), i + loteSincronizacao))));
+    }
+    int fechados = 0;
+    for (Aluguel aluguel : gravados.values()) {
+        if (!abertos.contains(aluguel.getId())) {
+            remover(aluguel);
+            fechados++;
+        }
+    }
+    if (fechados > 0) {
+        logger.info(" {} aluguéis devolvidos em outra instância saíram do registro.", fechados);
+    }
+}
+
+/**
+ * Aplica o estado já gravado de um aluguel: aberto entra, fechado sai.
+ */
+public void atualizar(Aluguel aluguel) {
+    if (aluguel.getHoraFim() == null) {
+        registrar(aluguel);
+    } else {
+        remover(aluguel);
+    }
+}
+
+public void remover(Aluguel aluguel) {
+    Integer id = aluguel.getId();
+    // Só remove se a entrada ainda for DESTE aluguel (nunca uma reserva de outro pedido)
+    if (aluguel.getCiclista() != null) {
+        porCiclista.computeIfPresent(aluguel.getCiclista(), (k, atual) -> id.equals(atual.getId()) ? null : atual);
+    }
+    if (aluguel.getBicicleta() != null) {
+        porBicicleta.computeIfPresent(aluguel.getBicicleta(), (k, atual) -> id.equals(atual.getId()) ? null : atual);
+    }
+}
+
+private void registrar(Aluguel aluguel) {
+    Aluguel copia = aluguel.copiar();
+    if (copia.getCiclista() != null) {
+        porCiclista.put(copia.getCiclista(), copia);
+    }
+    if (copia.getBicicleta() != null) {
+        porBicicleta.put(copia.getBicicleta(), copia);
+    }
+}
+
+private static boolean gravado(Aluguel aluguel) {
+    return aluguel.getId() != null;
+}
+}
@@ -0,0 +1,334 @@
+package bicicletario.aluguel.service;
+
+import bicicletario.aluguel.dto.EstadoSnapshotDTO;
+import bicicletario.aluguel.model.Aluguel;
+import bicicletario.aluguel.repository.AluguelRepository;
+import bicicletario.aluguel.repository.CiclistaRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Subida rápida: em vez de ler do banco todos os aluguéis em andamento
+ * (RegistroAlugueisAtivos) e todos os emails (FiltroEmailsCiclistas), a
+ * instância parte do último snapshot binário (ArquivoSnapshot, lido com mmap)
+ * e só busca no banco o que mudou desde que ele foi gravado:
+ *
+ * - aluguéis do snapshot: ficam só os que continuam abertos (consulta por id);
+ * - aluguéis abertos desde o snapshot: horaInicio >= instante - margem;
+ * - emails gravados desde o snapshot: Ciclista.atualizadoEm >= instante - margem.
+ *
+ * A margem cobre o que foi gravado pouco antes do snapshot mas só ficou
+ * visível (commit) depois dele, e relógios um pouco diferentes entre as
+ * instâncias. O snapshot é gravado a cada intervalo e no desligamento normal;
+ * ausente, corrompido, velho demais ou com outro dimensionamento do filtro,
+ * a carga completa de sempre é feita.
+ *
+ * O tempo economizado é o custo da última carga completa medida (levado de
+ * snapshot em snapshot) menos o que a subida pelo snapshot gastou.
+ */
+@Component
+public class SnapshotInicializacao {
+
+private static final Logger logger = LoggerFactory.getLogger(SnapshotInicializacao.class);
+private static final long NUNCA_MEDIDO = -1;
+
+@Autowired
+private AluguelRepository aluguelRepository;
+@Autowired
+private CiclistaRepository ciclistaRepository;
+@Autowired
+private MeterRegistry meterRegistry;
+// Lazy: os dois usam este componente na própria carga
+@Lazy
+@Autowired
+private RegistroAlugueisAtivos registro;
+@Lazy
+@Autowired
+private FiltroEmailsCiclistas filtroEmails;
+
+@Value("${aluguel.snapshot.habilitado:false}")
+private boolean habilitado;
+
+@Value("${aluguel.snapshot.arquivo:snapshot/aluguel.snap}")
+private String arquivo;
+
+@Value("${aluguel.snapshot.margem-ms:300000}")
+private long margemMs;
+
+@Value("${aluguel.snapshot.idade-max-ms:86400000}")
+private long idadeMaxMs;
+
+// Lote do "id in (...)" da recuperação dos aluguéis
+@Value("${aluguel.snapshot.lote-consulta:1000}")
+private int loteConsulta;
+
+LongSupplier relogio = System::currentTimeMillis;
+
+// Snapshot lido na subida; cada parte é consumida por quem a restaura
+private ArquivoSnapshot lido;
+private volatile long leituraMs;
+
+// Custo da carga completa (ms): medido nesta subida ou herdado do snapshot
+private volatile long custoCargaAlugueisMs = NUNCA_MEDIDO;
+private volatile long custoCargaEmailsMs = NUNCA_MEDIDO;
+// Subida pelo snapshot: leitura + recuperação no banco de cada parte (ms)
+private volatile long restauracaoAlugueisMs = NUNCA_MEDIDO;
+private volatile long restauracaoEmailsMs = NUNCA_MEDIDO;
+// Capacidade para a qual o filtro restaurado foi dimensionado (pode ser maior que a configurada)
+private long capacidadeFiltroRestaurado;
+
+private volatile long ultimaGravacao;
+private volatile long ultimaGravacaoBytes;
+private volatile String ultimoErro;
+
+@PostConstruct
+public void ler() {
+    Gauge.builder("aluguel.snapshot.tempo.economizado", this, s -> s.tempoEconomizadoMs())
+            .description("Carga completa medida menos a subida pelo snapshot")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+    Gauge.builder("aluguel.snapshot.idade", this, s -> s.ultimaGravacao == 0 ? 0 : s.relogio.getAsLong() - s.ultimaGravacao)
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+    if (!habilitado) {
+        return;
+    }
+    Path caminho = Paths.get(arquivo);
+    if (!Files.exists(caminho)) {
+        logger.info("Sem snapshot em {}: carga completa do banco.", caminho.toAbsolutePath());
+        return;
+    }
+    long inicio = System.nanoTime();
+    try {
+        ArquivoSnapshot snapshot = ArquivoSnapshot.ler(caminho);
+        long idade = relogio.getAsLong() - snapshot.instante;
+        if (idade > idadeMaxMs) {
+            logger.warn("Snapshot de {} min atrás ignorado (máximo: {} min): carga completa do banco.",
+                    TimeUnit.MILLISECONDS.toMinutes(idade), TimeUnit.MILLISECONDS.toMinutes(idadeMaxMs));
+            return;
+        }
+        lido = snapshot;
+        custoCargaAlugueisMs = snapshot.custoCargaAlugueisMs;
+        custoCargaEmailsMs = snapshot.custoCargaEmailsMs;
+        ultimaGravacao = snapshot.instante;
+        leituraMs = decorrido(inicio);
+        logger.info("Snapshot de {} s atrás lido em {} ms: {} aluguéis ativos, filtro de emails com {} elementos.",
+                TimeUnit.MILLISECONDS.toSeconds(idade), leituraMs, snapshot.alugueisAtivos.size(), snapshot.elementosFiltro);
+    } catch (IOException e) {
+        ultimoErro = e.getMessage();
+        logger.warn("Snapshot {} ilegível ({}): carga completa do banco.", caminho.toAbsolutePath(), e.getMessage());
+    }
+}
+
+/**
+ * Aluguéis em andamento a partir do snapshot, já com o que mudou no banco
+ * desde então. Vazio: sem snapshot utilizável, fazer a carga completa.
+ */
+public synchronized Optional<List<Aluguel>> restaurarAlugueisAtivos() {
+    ArquivoSnapshot snapshot = lido;
+    if (snapshot == null || snapshot.alugueisAtivos == null) {
+        return Optional.empty();
+    }
+    long inicio = System.nanoTime();
+    List<Aluguel> doSnapshot = snapshot.alugueisAtivos;
+    snapshot.alugueisAtivos = null;
+
+    Map<Integer, Aluguel> ativos = new HashMap<>();
+    List<Integer> ids = new ArrayList<>(doSnapshot.size());
+    for (Aluguel aluguel : doSnapshot) {
+        ids.add(aluguel.getId());
+    }
+    Set<Integer> abertos = new HashSet<>();
+    for (int i = 0; i < ids.size(); i += loteConsulta) {
+        abertos.addAll(aluguelRepository.findIdsAindaAbertos(ids.subList(i, Math.min(ids.size(), i + loteConsulta))));
+    }
+    int fechados = 0;
+    for (Aluguel aluguel : doSnapshot) {
+        if (abertos.contains(aluguel.getId())) {
+            ativos.put(aluguel.getId(), aluguel);
+        } else {
+            fechados++;
+        }
+    }
+    // O banco manda: um aluguel aberto depois do snapshot substitui qualquer cópia
+    List<Aluguel> novos = aluguelRepository.findByHoraInicioGreaterThanEqualAndHoraFimIsNull(desde(snapshot));
+    for (Aluguel aluguel : novos) {
+        ativos.put(aluguel.getId(), aluguel);
+    }
+    restauracaoAlugueisMs = leituraMs + decorrido(inicio);
+    logger.info("Aluguéis ativos restaurados do snapshot em {} ms: {} do snapshot ({} já devolvidos), {} abertos depois.",
+            restauracaoAlugueisMs, doSnapshot.size() - fechados, fechados, novos.size());
+    return Optional.of(new ArrayList<>(ativos.values()));
+}
+
+/**
+ * Filtro de emails a partir dos bits do snapshot, mais os emails gravados
+ * desde então. Vazio se o snapshot foi gravado com outra taxa de falso
+ * positivo ou capacidade menor que a configurada: o filtro é remontado.
+ */
+public synchronized Optional<FiltroBloom> restaurarFiltroEmails(long capacidade, double taxaFalsoPositivo) {
+    ArquivoSnapshot snapshot = lido;
+    if (snapshot == null || snapshot.palavrasFiltro == null) {
+        return Optional.empty();
+    }
+    long[] palavras = snapshot.palavrasFiltro;
+    snapshot.palavrasFiltro = null;
+    if (Double.compare(snapshot.taxaFiltro, taxaFalsoPositivo) != 0 || snapshot.capacidadeFiltro < capacidade) {
+        logger.info("Filtro de emails do snapshot dimensionado para outra configuração: será remontado.");
+        return Optional.empty();
+    }
+    long inicio = System.nanoTime();
+    FiltroBloom filtro = new FiltroBloom(palavras, snapshot.funcoesHashFiltro, snapshot.elementosFiltro);
+    List<String> alterados = ciclistaRepository.findEmailsAlteradosDesde(desde(snapshot));
+    for (String email : alterados) {
+        filtro.adicionar(FiltroEmailsCiclistas.normalizar(email));
+    }
+    if (filtro.getElementos() > snapshot.capacidadeFiltro) {
+        logger.info("Filtro de emails do snapshot passou da capacidade ({}): será remontado.", snapshot.capacidadeFiltro);
+        return Optional.empty();
+    }
+    capacidadeFiltroRestaurado = snapshot.capacidadeFiltro;
+    restauracaoEmailsMs = leituraMs + decorrido(inicio);
+    logger.info("Filtro de emails restaurado do snapshot em {} ms: {} emails gravados depois.",
+            restauracaoEmailsMs, alterados.size());
+    return Optional.of(filtro);
+}
+
+synchronized long getCapacidadeFiltroRestaurado() {
+    return capacidadeFiltroRestaurado;
+}
+
+// Carga completa feita agora: é a referência do tempo economizado nas próximas subidas
+public void registrarCargaAlugueis(long inicioNanos) {
+    custoCargaAlugueisMs = decorrido(inicioNanos);
+}
+
+public void registrarCargaEmails(long inicioNanos) {
+    custoCargaEmailsMs = decorrido(inicioNanos);
+}
+
+@Scheduled(fixedDelayString = "${aluguel.snapshot.intervalo-ms:300000}",
+        initialDelayString = "${aluguel.snapshot.intervalo-ms:300000}")
+public void gravarPeriodicamente() {
+    if (habilitado) {
+        gravarComSeguranca();
+    }
+}
+
+// Desligamento normal: antes de destruir os beans, com o registro ainda de pé
+@EventListener(ContextClosedEvent.class)
+public void gravarAoDesligar() {
+    if (habilitado) {
+        gravarComSeguranca();
+    }
+}
+
+/**
+ * Grava o snapshot agora (também pelo POST /admin/snapshot/gravar).
+ */
+public synchronized EstadoSnapshotDTO gravar() throws IOException {
+    // O instante vem ANTES da cópia: o que for gravado durante a cópia cai na recuperação
+    long instante = relogio.getAsLong();
+    long inicio = System.nanoTime();
+    ArquivoSnapshot snapshot = new ArquivoSnapshot();
+    snapshot.instante = instante;
+    snapshot.custoCargaAlugueisMs = custoCargaAlugueisMs;
+    snapshot.custoCargaEmailsMs = custoCargaEmailsMs;
+    snapshot.alugueisAtivos = registro.ativosGravados();
+    FiltroBloom filtro = filtroEmails.getFiltro();
+    snapshot.capacidadeFiltro = filtroEmails.getCapacidadeAtual();
+    snapshot.taxaFiltro = filtroEmails.getTaxaFalsoPositivo();
+    snapshot.funcoesHashFiltro = filtro.getFuncoesHash();
+    snapshot.elementosFiltro = filtro.getElementos();
+    snapshot.palavrasFiltro = filtro.copiarPalavras();
+    ultimaGravacaoBytes = snapshot.gravar(Paths.get(arquivo));
+    ultimaGravacao = instante;
+    ultimoErro = null;
+    logger.info("Snapshot gravado em {} ms: {} aluguéis ativos, {} KB.",
+            decorrido(inicio), snapshot.alugueisAtivos.size(), ultimaGravacaoBytes / 1024);
+    return getEstado();
+}
+
+public EstadoSnapshotDTO getEstado() {
+    EstadoSnapshotDTO estado = new EstadoSnapshotDTO();
+    estado.setHabilitado(habilitado);
+    estado.setArquivo(Paths.get(arquivo).toAbsolutePath().toString());
+    estado.setUltimaGravacao(ultimaGravacao == 0 ? null
+            : LocalDateTime.ofInstant(Instant.ofEpochMilli(ultimaGravacao), ZoneId.systemDefault()));
+    estado.setTamanhoBytes(ultimaGravacaoBytes);
+    estado.setCustoCargaCompletaMs(soma(custoCargaAlugueisMs, custoCargaEmailsMs));
+    estado.setRestauracaoMs(soma(restauracaoAlugueisMs, restauracaoEmailsMs));
+    estado.setTempoEconomizadoMs(tempoEconomizadoMs());
+    estado.setUltimoErro(ultimoErro);
+    return estado;
+}
+
+/**
+ * Só conta a parte restaurada cuja carga completa já foi medida alguma vez;
+ * a leitura do arquivo entra uma vez só.
+ */
+long tempoEconomizadoMs() {
+    long economizado = 0;
+    boolean alguma = false;
+    if (restauracaoAlugueisMs != NUNCA_MEDIDO && custoCargaAlugueisMs != NUNCA_MEDIDO) {
+        economizado += custoCargaAlugueisMs - (restauracaoAlugueisMs - leituraMs);
+        alguma = true;
+    }
+    if (restauracaoEmailsMs != NUNCA_MEDIDO && custoCargaEmailsMs != NUNCA_MEDIDO) {
+        economizado += custoCargaEmailsMs - (restauracaoEmailsMs - leituraMs);
+        alguma = true;
+    }
+    return alguma ? economizado - leituraMs : 0;
+}
+
+private void gravarComSeguranca() {
+    try {
+        gravar();
+    } catch (IOException | RuntimeException e) {
+        ultimoErro = e.getMessage();
+        logger.warn("Falha ao gravar o snapshot em {}: {}", arquivo, e.getMessage());
+    }
+}
+
+private LocalDateTime desde(ArquivoSnapshot snapshot) {
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(snapshot.instante - margemMs), ZoneId.systemDefault());
+}
+
+private static long decorrido(long inicioNanos) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioNanos);
+}
+
+private static Long soma(long alugueis, long emails) {
+    if (alugueis == NUNCA_MEDIDO && emails == NUNCA_MEDIDO) {
+        return null;
+    }
+    return Math.max(0, alugueis) + Math.max(0, emails);
+}
+}
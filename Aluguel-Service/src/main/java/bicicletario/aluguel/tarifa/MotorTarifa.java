@@ -0,0 +1,157 @@
+package bicicletario.aluguel.tarifa;
+
+import bicicletario.aluguel.model.TabelaTarifa;
+import bicicletario.aluguel.repository.TabelaTarifaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cálculo da taxa extra da devolução (UC04-R1) a partir das TabelaTarifa
+ * gravadas no banco.
+ *
+ * Cada versão é compilada uma vez (TarifaCompilada) e guardada pelo número da
+ * versão: como versões não mudam, o cache nunca precisa ser invalidado, só
+ * completado com as versões novas (a cada tarifa.recarregar-ms, para as outras
+ * instâncias verem uma tabela publicada aqui). O cálculo em si trabalha em
+ * centavos (long) e não cria objetos; o BigDecimal só aparece no resultado.
+ */
+@Service
+public class MotorTarifa {
+
+private static final Logger logger = LoggerFactory.getLogger(MotorTarifa.class);
+// Publicações simultâneas em outras instâncias antes de desistir
+private static final int TENTATIVAS_PUBLICACAO = 3;
+
+@Autowired
+private TabelaTarifaRepository tabelaRepository;
+
+private final Map<Integer, TarifaCompilada> compiladas = new ConcurrentHashMap<>();
+// Ordenadas por vigenteDesde; trocadas inteiras a cada carga
+private volatile TarifaCompilada[] vigentes = new TarifaCompilada[0];
+private volatile int ultimaVersaoCarregada;
+
+@PostConstruct
+public void iniciar() {
+    if (tabelaRepository.count() == 0) {
+        try {
+            tabelaRepository.save(TabelaTarifa.padrao());
+            logger.info("Nenhuma tabela de tarifa no banco: gravada a versão 1 (2h grátis, R$ 5,00 por 30 min)");
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Versão 1 da tarifa gravada por outra instância na mesma subida");
+        }
+    }
+    recarregar();
+}
+
+@Scheduled(fixedDelayString = "${tarifa.recarregar-ms:60000}")
+public void recarregar() {
+    carregar(tabelaRepository.findByVersaoGreaterThanOrderByVersao(ultimaVersaoCarregada));
+}
+
+// Compila as versões ainda não vistas e republica a lista de vigências
+public synchronized void carregar(Collection<TabelaTarifa> tabelas) {
+    if (tabelas.isEmpty()) {
+        return;
+    }
+    for (TabelaTarifa tabela : tabelas) {
+        compiladas.computeIfAbsent(tabela.getVersao(), versao -> new TarifaCompilada(tabela));
+        ultimaVersaoCarregada = Math.max(ultimaVersaoCarregada, tabela.getVersao());
+    }
+    List<TarifaCompilada> ordenadas = new ArrayList<>(compiladas.values());
+    ordenadas.sort(Comparator.comparingLong(TarifaCompilada::getVigenteDesdeSegundos)
+            .thenComparingInt(TarifaCompilada::getVersao));
+    vigentes = ordenadas.toArray(new TarifaCompilada[0]);
+    logger.info("Tarifas carregadas: {} versões, última {}", vigentes.length, ultimaVersaoCarregada);
+}
+
+/**
+ * Taxa extra em centavos de um aluguel, pela versão vigente na retirada.
+ * Conta minutos completos (como Duration.toMinutes).
+ */
+public long calcularCentavos(LocalDateTime inicio, LocalDateTime fim, Integer trancaRetirada, String plano) {
+    long inicioSegundos = inicio.toEpochSecond(ZoneOffset.UTC);
+    long segundos = fim.toEpochSecond(ZoneOffset.UTC) - inicioSegundos;
+    if (fim.getNano() < inicio.getNano()) {
+        segundos--;
+    }
+    long minutos = Math.max(0, segundos / 60);
+    int minutoRetirada = inicio.getHour() * 60 + inicio.getMinute();
+    int tranca = trancaRetirada == null ? -1 : trancaRetirada;
+    return vigenteEm(inicioSegundos).calcularCentavos(minutos, minutoRetirada, tranca, plano);
+}
+
+public BigDecimal calcularValorExtra(LocalDateTime inicio, LocalDateTime fim, Integer trancaRetirada, String plano) {
+    return BigDecimal.valueOf(calcularCentavos(inicio, fim, trancaRetirada, plano), 2);
+}
+
+/**
+ * Grava uma nova versão (número = última + 1). Sem 'vigenteDesde' vale a
+ * partir de agora; no passado não é aceita, para não mudar o preço de
+ * aluguéis já retirados. Tabela inválida: IllegalArgumentException.
+ *
+ * O synchronized só vale nesta instância: se outra gravou o mesmo número
+ * antes, o insert falha na chave primária (TabelaTarifa nunca faz merge) e a
+ * publicação tenta com o número seguinte. Depois de TENTATIVAS_PUBLICACAO
+ * conflitos, DataIntegrityViolationException.
+ */
+public synchronized TabelaTarifa publicar(TabelaTarifa nova) {
+    LocalDateTime agora = LocalDateTime.now();
+    if (nova.getVigenteDesde() == null) {
+        nova.setVigenteDesde(agora);
+    } else if (nova.getVigenteDesde().isBefore(agora.minusMinutes(1))) {
+        throw new IllegalArgumentException("Tabela de tarifa inválida: vigenteDesde no passado");
+    }
+    nova.setVersao(tabelaRepository.findUltimaVersao() + 1);
+    // Compila antes de gravar: regra inválida não chega ao banco
+    new TarifaCompilada(nova);
+    for (int tentativa = 1; ; tentativa++) {
+        try {
+            TabelaTarifa gravada = tabelaRepository.save(nova);
+            recarregar();
+            return gravada;
+        } catch (DataIntegrityViolationException e) {
+            if (tentativa >= TENTATIVAS_PUBLICACAO) {
+                throw e;
+            }
+            logger.warn("Versão {} da tarifa publicada por outra instância; tentando a seguinte", nova.getVersao());
+            nova.setVersao(tabelaRepository.findUltimaVersao() + 1);
+            // A lista pode ter virado coleção da sessão que falhou
+            nova.setRegras(new ArrayList<>(nova.getRegras()));
+        }
+    }
+}
+
+public List<TabelaTarifa> listar() {
+    return tabelaRepository.findAll(Sort.by("versao"));
+}
+
+private TarifaCompilada vigenteEm(long segundos) {
+    TarifaCompilada[] tabelas = vigentes;
+    if (tabelas.length == 0) {
+        throw new IllegalStateException("Nenhuma tabela de tarifa carregada");
+    }
+    for (int i = tabelas.length - 1; i > 0; i--) {
+        if (tabelas[i].getVigenteDesdeSegundos() <= segundos) {
+            return tabelas[i];
+        }
+    }
+    // Retirada anterior à primeira versão: vale a primeira
+    return tabelas[0];
+}
+}
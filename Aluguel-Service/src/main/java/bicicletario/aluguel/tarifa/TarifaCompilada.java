@@ -0,0 +1,149 @@
+package bicicletario.aluguel.tarifa;
+
+import bicicletario.aluguel.model.RegraTarifa;
+import bicicletario.aluguel.model.TabelaTarifa;
+
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uma TabelaTarifa pronta para o cálculo: as regras viram arrays paralelos
+ * (trancas ordenadas para busca binária, horários em minutos do dia) e o
+ * cálculo só faz aritmética de long, sem criar objetos. Imutável.
+ */
+public final class TarifaCompilada {
+
+private static final int SEM_VALOR = -1;
+
+private final int versao;
+private final long vigenteDesdeSegundos;
+private final int franquiaMinutos;
+private final int periodoMinutos;
+private final long valorPeriodoCentavos;
+
+// Regra i: condições (null / SEM_VALOR = qualquer) e valores (SEM_VALOR = o da tabela)
+private final String[] planos;
+private final int[][] trancas;
+private final int[] retiradaDe;
+private final int[] retiradaAte;
+private final int[] franquias;
+private final int[] periodos;
+private final long[] valores;
+
+TarifaCompilada(TabelaTarifa tabela) {
+    validar(tabela.getVersao() != null, "versão obrigatória");
+    validar(tabela.getVigenteDesde() != null, "vigenteDesde obrigatório");
+    validar(tabela.getFranquiaMinutos() >= 0, "franquia negativa");
+    validar(tabela.getPeriodoMinutos() > 0, "período deve ser positivo");
+    validar(tabela.getValorPeriodoCentavos() >= 0, "valor negativo");
+    this.versao = tabela.getVersao();
+    this.vigenteDesdeSegundos = tabela.getVigenteDesde().toEpochSecond(ZoneOffset.UTC);
+    this.franquiaMinutos = tabela.getFranquiaMinutos();
+    this.periodoMinutos = tabela.getPeriodoMinutos();
+    this.valorPeriodoCentavos = tabela.getValorPeriodoCentavos();
+
+    List<RegraTarifa> regras = tabela.getRegras();
+    int n = regras.size();
+    planos = new String[n];
+    trancas = new int[n][];
+    retiradaDe = new int[n];
+    retiradaAte = new int[n];
+    franquias = new int[n];
+    periodos = new int[n];
+    valores = new long[n];
+    for (int i = 0; i < n; i++) {
+        RegraTarifa regra = regras.get(i);
+        planos[i] = regra.getPlano();
+        trancas[i] = compilarTrancas(regra.getTrancas());
+        validar((regra.getRetiradaDe() == null) == (regra.getRetiradaAte() == null),
+                "faixa de retirada precisa de início e fim");
+        retiradaDe[i] = minutoDoDia(regra.getRetiradaDe());
+        retiradaAte[i] = minutoDoDia(regra.getRetiradaAte());
+        validar(regra.getFranquiaMinutos() == null || regra.getFranquiaMinutos() >= 0, "franquia negativa");
+        validar(regra.getPeriodoMinutos() == null || regra.getPeriodoMinutos() > 0, "período deve ser positivo");
+        validar(regra.getValorPeriodoCentavos() == null || regra.getValorPeriodoCentavos() >= 0, "valor negativo");
+        franquias[i] = regra.getFranquiaMinutos() == null ? SEM_VALOR : regra.getFranquiaMinutos();
+        periodos[i] = regra.getPeriodoMinutos() == null ? SEM_VALOR : regra.getPeriodoMinutos();
+        valores[i] = regra.getValorPeriodoCentavos() == null ? SEM_VALOR : regra.getValorPeriodoCentavos();
+    }
+}
+
+/**
+ * Taxa extra em centavos.
+ *
+ * @param minutos          duração do aluguel em minutos completos
+ * @param minutoRetirada   minuto do dia da retirada (0..1439)
+ * @param trancaRetirada   id da tranca de retirada
+ * @param plano            plano do ciclista (pode ser null)
+ */
+public long calcularCentavos(long minutos, int minutoRetirada, int trancaRetirada, String plano) {
+    int franquia = franquiaMinutos;
+    int periodo = periodoMinutos;
+    long valor = valorPeriodoCentavos;
+    for (int i = 0; i < planos.length; i++) {
+        if (planos[i] != null && !planos[i].equals(plano)) {
+            continue;
+        }
+        if (trancas[i] != null && Arrays.binarySearch(trancas[i], trancaRetirada) < 0) {
+            continue;
+        }
+        if (retiradaDe[i] != SEM_VALOR && !naFaixa(minutoRetirada, retiradaDe[i], retiradaAte[i])) {
+            continue;
+        }
+        if (franquias[i] != SEM_VALOR) {
+            franquia = franquias[i];
+        }
+        if (periodos[i] != SEM_VALOR) {
+            periodo = periodos[i];
+        }
+        if (valores[i] != SEM_VALOR) {
+            valor = valores[i];
+        }
+        break;
+    }
+    if (minutos <= franquia) {
+        return 0;
+    }
+    // Período iniciado conta inteiro
+    long periodosCobrados = (minutos - franquia + periodo - 1) / periodo;
+    return periodosCobrados * valor;
+}
+
+public int getVersao() { return versao; }
+public long getVigenteDesdeSegundos() { return vigenteDesdeSegundos; }
+public int getQuantidadeRegras() { return planos.length; }
+
+// [de, ate), atravessando a meia-noite quando ate <= de (ex: 22:00-06:00)
+private static boolean naFaixa(int minuto, int de, int ate) {
+    return de < ate ? minuto >= de && minuto < ate : minuto >= de || minuto < ate;
+}
+
+private static int minutoDoDia(LocalTime hora) {
+    return hora == null ? SEM_VALOR : hora.getHour() * 60 + hora.getMinute();
+}
+
+private static int[] compilarTrancas(String lista) {
+    if (lista == null || lista.trim().isEmpty()) {
+        return null;
+    }
+    String[] partes = lista.split(",");
+    int[] ids = new int[partes.length];
+    for (int i = 0; i < partes.length; i++) {
+        try {
+            ids[i] = Integer.parseInt(partes[i].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Tabela de tarifa inválida: tranca '" + partes[i].trim() + "'", e);
+        }
+    }
+    Arrays.sort(ids);
+    return ids;
+}
+
+private static void validar(boolean condicao, String mensagem) {
+    if (!condicao) {
+        throw new IllegalArgumentException("Tabela de tarifa inválida: " + mensagem);
+    }
+}
+}
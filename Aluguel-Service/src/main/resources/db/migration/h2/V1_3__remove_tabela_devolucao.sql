@@ -0,0 +1,4 @@
+-- Como o V1_3 do PostgreSQL: a Devolucao passa a ser uma projeção sobre 'aluguel'.
+-- No H2 (desenvolvimento) não há devoluções a recuperar antes de apagar a tabela.
+
+DROP TABLE IF EXISTS devolucao;
@@ -0,0 +1,5 @@
+-- Como o V1_5 e o índice do V1_6 do PostgreSQL (SnapshotInicializacao).
+
+ALTER TABLE ciclista ADD COLUMN IF NOT EXISTS atualizado_em timestamp;
+
+CREATE INDEX IF NOT EXISTS idx_ciclista_atualizado_em ON ciclista (atualizado_em);
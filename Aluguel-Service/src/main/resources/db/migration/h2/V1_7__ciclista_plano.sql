@@ -0,0 +1,3 @@
+-- Como o V1_7 do PostgreSQL (MotorTarifa).
+
+ALTER TABLE ciclista ADD COLUMN IF NOT EXISTS plano varchar(255);
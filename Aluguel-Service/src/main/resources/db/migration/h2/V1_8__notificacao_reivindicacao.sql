@@ -0,0 +1,6 @@
+-- Como o V1_8 e o índice do V1_9 do PostgreSQL (NotificacaoDispatcher).
+
+ALTER TABLE notificacao_email ADD COLUMN IF NOT EXISTS lote varchar(255);
+ALTER TABLE notificacao_email ADD COLUMN IF NOT EXISTS reivindicada_em timestamp;
+
+CREATE INDEX IF NOT EXISTS idx_notificacao_lote ON notificacao_email (lote);
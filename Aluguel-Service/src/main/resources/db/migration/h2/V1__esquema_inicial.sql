@@ -0,0 +1,112 @@
+-- Esquema do Aluguel-Service no H2 (Flyway: classpath:db/migration/h2).
+--
+-- Mesmas tabelas e mesma sequência de versões dos scripts do PostgreSQL, com
+-- IF NOT EXISTS: o MigracoesTest parte de um banco no formato da linha de base
+-- (o que o ddl-auto=update criava) e confere que as migrações o levam até as
+-- entidades atuais. Como o H2 não tem índice parcial, os índices do aluguel
+-- ativo são os compostos de @Table(indexes).
+-- Devolucao não tem tabela: é uma projeção (@Subselect) dos aluguéis fechados.
+
+CREATE TABLE IF NOT EXISTS aluguel (
+    id            integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    ciclista      integer,
+    tranca_inicio integer,
+    bicicleta     integer,
+    hora_inicio   timestamp,
+    tranca_fim    integer,
+    hora_fim      timestamp,
+    cobranca      integer
+);
+
+CREATE INDEX IF NOT EXISTS idx_aluguel_ciclista_hora_fim ON aluguel (ciclista, hora_fim);
+CREATE INDEX IF NOT EXISTS idx_aluguel_bicicleta_hora_fim ON aluguel (bicicleta, hora_fim);
+CREATE INDEX IF NOT EXISTS idx_aluguel_ciclista_hora_inicio ON aluguel (ciclista, hora_inicio, id);
+CREATE INDEX IF NOT EXISTS idx_aluguel_bicicleta_hora_inicio ON aluguel (bicicleta, hora_inicio, id);
+CREATE INDEX IF NOT EXISTS idx_aluguel_tranca_inicio_hora_inicio ON aluguel (tranca_inicio, hora_inicio, id);
+CREATE INDEX IF NOT EXISTS idx_aluguel_hora_inicio ON aluguel (hora_inicio, id);
+
+CREATE TABLE IF NOT EXISTS ciclista (
+    id                  integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nome                varchar(255),
+    nascimento          varchar(255),
+    cpf                 varchar(255),
+    passaporte_numero   varchar(255),
+    passaporte_validade varchar(255),
+    passaporte_pais     varchar(255),
+    nacionalidade       varchar(255),
+    email               varchar(255),
+    url_foto_documento  varchar(255),
+    senha               varchar(255),
+    status              varchar(255),
+    plano               varchar(255),
+    CONSTRAINT uk_ciclista_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS cartao_de_credito (
+    id           integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id_ciclista  integer,
+    nome_titular varchar(255),
+    numero       varchar(255),
+    validade     varchar(255),
+    cvv          varchar(255)
+);
+
+CREATE INDEX IF NOT EXISTS idx_cartao_de_credito_id_ciclista ON cartao_de_credito (id_ciclista);
+
+CREATE TABLE IF NOT EXISTS funcionario (
+    id        integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    matricula varchar(255),
+    nome      varchar(255),
+    email     varchar(255),
+    senha     varchar(255),
+    idade     integer NOT NULL,
+    funcao    varchar(255),
+    cpf       varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS tabela_tarifa (
+    versao                 integer PRIMARY KEY,
+    vigente_desde          timestamp,
+    franquia_minutos       integer NOT NULL,
+    periodo_minutos        integer NOT NULL,
+    valor_periodo_centavos bigint  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS regra_tarifa (
+    versao                 integer NOT NULL REFERENCES tabela_tarifa (versao),
+    prioridade             integer NOT NULL,
+    plano                  varchar(255),
+    trancas                varchar(255),
+    retirada_de            time,
+    retirada_ate           time,
+    franquia_minutos       integer,
+    periodo_minutos        integer,
+    valor_periodo_centavos bigint,
+    PRIMARY KEY (versao, prioridade)
+);
+
+CREATE TABLE IF NOT EXISTS notificacao_email (
+    id                integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email             varchar(255),
+    assunto           varchar(255),
+    mensagem          varchar(2000),
+    status            varchar(255),
+    tentativas        integer NOT NULL,
+    proxima_tentativa timestamp,
+    criado_em         timestamp,
+    enviado_em        timestamp,
+    ultimo_erro       varchar(500)
+);
+
+CREATE INDEX IF NOT EXISTS idx_notificacao_status_proxima ON notificacao_email (status, proxima_tentativa);
+
+CREATE TABLE IF NOT EXISTS resposta_idempotente (
+    chave             varchar(400) PRIMARY KEY,
+    impressao_digital varchar(64),
+    status            integer,
+    content_type      varchar(255),
+    corpo             blob,
+    expira_em         timestamp
+);
+
+CREATE INDEX IF NOT EXISTS idx_resposta_idempotente_expira ON resposta_idempotente (expira_em);
@@ -0,0 +1,21 @@
+-- Índices para as buscas do aluguel ATIVO (hora_fim IS NULL).
+--
+-- Índices parciais: só entram as linhas de aluguéis em andamento (poucas), não o
+-- histórico inteiro de aluguéis fechados. INCLUDE (bicicleta) deixa a consulta de
+-- /ciclista/{id}/bicicletaAlugada ser respondida só pelo índice (index-only scan).
+--
+-- CONCURRENTLY não trava a tabela para escrita durante a criação, mas não pode
+-- rodar dentro de transação: o Flyway detecta e executa o script sem transação
+-- (por isso nada de ANALYZE aqui; o autovacuum atualiza as estatísticas).
+--
+-- Os nomes são os mesmos declarados em @Table(indexes = ...) na entidade Aluguel.
+-- Em bases que vieram do ddl-auto=update o índice (não parcial) do Hibernate já
+-- existe com esse nome e é mantido.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_aluguel_ciclista_hora_fim
+    ON aluguel (ciclista) INCLUDE (bicicleta)
+    WHERE hora_fim IS NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_aluguel_bicicleta_hora_fim
+    ON aluguel (bicicleta)
+    WHERE hora_fim IS NULL;
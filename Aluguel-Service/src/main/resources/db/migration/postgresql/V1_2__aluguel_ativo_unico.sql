@@ -0,0 +1,21 @@
+-- UC03-R1 garantido também pelo banco: no máximo UM aluguel em andamento
+-- (hora_fim IS NULL) por ciclista e por bicicleta.
+--
+-- Dentro de uma instância o RegistroAlugueisAtivos já serializa os pedidos do
+-- mesmo ciclista/bicicleta; estes índices cobrem várias instâncias do serviço
+-- atrás de um balanceador. O insert que violar o índice é rejeitado e o
+-- AluguelService responde "Ciclista já possui um aluguel ativo".
+--
+-- Antes de criar, confira se não há duplicados (a criação falha se houver):
+--   SELECT ciclista, count(*) FROM aluguel WHERE hora_fim IS NULL GROUP BY ciclista HAVING count(*) > 1;
+--   SELECT bicicleta, count(*) FROM aluguel WHERE hora_fim IS NULL GROUP BY bicicleta HAVING count(*) > 1;
+--
+-- Roda fora de transação (CONCURRENTLY), como o V1_1.
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_aluguel_ciclista_ativo
+    ON aluguel (ciclista)
+    WHERE hora_fim IS NULL;
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_aluguel_bicicleta_ativo
+    ON aluguel (bicicleta)
+    WHERE hora_fim IS NULL;
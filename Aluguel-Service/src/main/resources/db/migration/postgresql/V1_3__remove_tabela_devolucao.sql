@@ -0,0 +1,31 @@
+-- UC04: a devolução deixa de ser gravada numa tabela própria. A entidade
+-- Devolucao passa a ser uma projeção somente leitura sobre 'aluguel'
+-- (aluguel com hora_fim preenchida), então cada devolução custa um único
+-- UPDATE no aluguel em vez de UPDATE + INSERT.
+--
+-- O AluguelService sempre fechou o aluguel e gravou a cópia juntos, então em
+-- princípio não há nada a recuperar. Por garantia, qualquer devolução cujo
+-- aluguel tenha ficado aberto é aplicada ao aluguel antes de apagar a tabela.
+-- Os ids da 'devolucao' eram gerados à parte: o casamento é por bicicleta +
+-- hora_inicio.
+--
+-- Bases novas (criadas pelo V1) nunca tiveram a tabela: nada a fazer. O Flyway
+-- já roda o script numa transação.
+
+DO $$
+BEGIN
+    IF to_regclass('devolucao') IS NOT NULL THEN
+        UPDATE aluguel a
+           SET hora_fim   = d.hora_fim,
+               tranca_fim = d.tranca_fim,
+               cobranca   = COALESCE(d.cobranca, a.cobranca)
+          FROM devolucao d
+         WHERE a.hora_fim IS NULL
+           AND d.hora_fim IS NOT NULL
+           AND a.bicicleta = d.bicicleta
+           AND a.hora_inicio = d.hora_inicio;
+
+        DROP TABLE devolucao;
+    END IF;
+END
+$$;
@@ -0,0 +1,23 @@
+-- Índices da consulta de histórico de aluguéis (GET /ciclista/{id}/alugueis,
+-- /bicicleta/{id}/alugueis, /tranca/{id}/alugueis e /alugueis?de=&ate=).
+--
+-- A paginação é por chave (horaInicio, id) em ordem decrescente: cada página lê
+-- só as linhas que devolve, descendo o índice a partir do cursor, em vez de
+-- pular OFFSET linhas. Índices completos (não parciais): o histórico inclui os
+-- aluguéis fechados.
+--
+-- Como o V1_1, roda fora de transação (CREATE INDEX CONCURRENTLY).
+--
+-- Mesmos nomes de @Table(indexes = ...) na entidade Aluguel.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_aluguel_ciclista_hora_inicio
+    ON aluguel (ciclista, hora_inicio DESC, id DESC);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_aluguel_bicicleta_hora_inicio
+    ON aluguel (bicicleta, hora_inicio DESC, id DESC);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_aluguel_tranca_inicio_hora_inicio
+    ON aluguel (tranca_inicio, hora_inicio DESC, id DESC);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_aluguel_hora_inicio
+    ON aluguel (hora_inicio DESC, id DESC);
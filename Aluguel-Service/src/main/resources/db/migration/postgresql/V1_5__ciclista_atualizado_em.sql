@@ -0,0 +1,6 @@
+-- Última gravação de cada ciclista, usada pela recuperação do snapshot de
+-- inicialização (SnapshotInicializacao) para buscar só os emails alterados
+-- desde o snapshot. Coluna nula sem DEFAULT: só muda o catálogo, não reescreve
+-- a tabela. Linhas antigas ficam nulas (já estão no snapshot ou na carga completa).
+
+ALTER TABLE ciclista ADD COLUMN IF NOT EXISTS atualizado_em timestamp;
@@ -0,0 +1,15 @@
+-- Índices para:
+--   - a recuperação do snapshot de inicialização (emails alterados desde o snapshot);
+--   - a busca do cartão do ciclista (CartaoDeCreditoRepository.findByIdCiclista),
+--     feita a cada aluguel e cadastro.
+--
+-- Como o V1_1, roda fora de transação (CREATE INDEX CONCURRENTLY): o Flyway
+-- detecta e executa o script sem transação, sem travar escritas nas tabelas.
+--
+-- Mesmos nomes de @Table(indexes = ...) nas entidades Ciclista e CartaoDeCredito.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_ciclista_atualizado_em
+    ON ciclista (atualizado_em);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cartao_de_credito_id_ciclista
+    ON cartao_de_credito (id_ciclista);
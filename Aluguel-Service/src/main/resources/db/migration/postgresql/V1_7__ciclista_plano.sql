@@ -0,0 +1,6 @@
+-- Plano tarifário do ciclista (MotorTarifa: regras por plano, ex. 'ESTUDANTE').
+-- O V1 já cria a coluna em bases novas; bases que vieram do ddl-auto=update
+-- (linha de base 0) têm a tabela ciclista sem ela. Nula sem DEFAULT, como o
+-- V1_5: só muda o catálogo. Nulo = tarifa padrão.
+
+ALTER TABLE ciclista ADD COLUMN IF NOT EXISTS plano varchar(255);
@@ -0,0 +1,9 @@
+-- Reivindicação dos lotes da outbox de emails (NotificacaoDispatcher): com
+-- várias instâncias, cada email é enviado por uma só. 'lote' é o token da
+-- instância que reivindicou o email; 'reivindicada_em' permite a outra
+-- instância retomar o lote de uma que caiu.
+--
+-- Nulas sem DEFAULT: só mudam o catálogo, sem reescrever a tabela.
+
+ALTER TABLE notificacao_email ADD COLUMN IF NOT EXISTS lote varchar(255);
+ALTER TABLE notificacao_email ADD COLUMN IF NOT EXISTS reivindicada_em timestamp;
@@ -0,0 +1,12 @@
+-- Emails de um lote reivindicado (NotificacaoEmailRepository.findByLoteOrderByIdAsc,
+-- a cada rodada do dispatcher). Parcial: fora do envio o lote é nulo, e a maior
+-- parte da tabela são emails já enviados.
+--
+-- Separado do V1_8: CREATE INDEX CONCURRENTLY roda fora de transação (o Flyway
+-- detecta e executa o script sem transação), sem travar escritas na outbox.
+--
+-- Mesmo nome de @Table(indexes = ...) na entidade NotificacaoEmail.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_notificacao_lote
+    ON notificacao_email (lote)
+    WHERE lote IS NOT NULL;
@@ -0,0 +1,113 @@
+-- Esquema do Aluguel-Service no PostgreSQL (Flyway: classpath:db/migration/postgresql).
+--
+-- As tabelas são as que o Hibernate criava com ddl-auto=update; em produção o
+-- Hibernate agora só confere (ddl-auto=validate) e quem muda o esquema são estes
+-- scripts, uma vez, na ordem das versões.
+--
+-- Bases criadas antes pelo ddl-auto=update: o Flyway registra a versão 0 como
+-- linha de base (spring.flyway.baseline-on-migrate) e roda este script também,
+-- por isso tudo aqui é IF NOT EXISTS. Os índices novos em tabelas que já podem
+-- estar grandes ficam nos scripts seguintes, com CREATE INDEX CONCURRENTLY.
+--
+-- Devolucao não tem tabela: é uma projeção (@Subselect) dos aluguéis fechados.
+
+CREATE TABLE IF NOT EXISTS aluguel (
+    id            serial PRIMARY KEY,
+    ciclista      integer,
+    tranca_inicio integer,
+    bicicleta     integer,
+    hora_inicio   timestamp,
+    tranca_fim    integer,
+    hora_fim      timestamp,
+    cobranca      integer
+);
+
+CREATE TABLE IF NOT EXISTS ciclista (
+    id                  serial PRIMARY KEY,
+    nome                varchar(255),
+    nascimento          varchar(255),
+    cpf                 varchar(255),
+    passaporte_numero   varchar(255),
+    passaporte_validade varchar(255),
+    passaporte_pais     varchar(255),
+    nacionalidade       varchar(255),
+    email               varchar(255),
+    url_foto_documento  varchar(255),
+    senha               varchar(255),
+    status              varchar(255),
+    plano               varchar(255),
+    CONSTRAINT uk_ciclista_email UNIQUE (email)
+);
+
+CREATE TABLE IF NOT EXISTS cartao_de_credito (
+    id           serial PRIMARY KEY,
+    id_ciclista  integer,
+    nome_titular varchar(255),
+    numero       varchar(255),
+    validade     varchar(255),
+    cvv          varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS funcionario (
+    id        serial PRIMARY KEY,
+    matricula varchar(255),
+    nome      varchar(255),
+    email     varchar(255),
+    senha     varchar(255),
+    idade     integer NOT NULL,
+    funcao    varchar(255),
+    cpf       varchar(255)
+);
+
+-- Versões da tabela de preços da taxa extra (MotorTarifa) e as regras de cada uma
+CREATE TABLE IF NOT EXISTS tabela_tarifa (
+    versao                 integer PRIMARY KEY,
+    vigente_desde          timestamp,
+    franquia_minutos       integer NOT NULL,
+    periodo_minutos        integer NOT NULL,
+    valor_periodo_centavos bigint  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS regra_tarifa (
+    versao                 integer NOT NULL REFERENCES tabela_tarifa (versao),
+    prioridade             integer NOT NULL,
+    plano                  varchar(255),
+    trancas                varchar(255),
+    retirada_de            time,
+    retirada_ate           time,
+    franquia_minutos       integer,
+    periodo_minutos        integer,
+    valor_periodo_centavos bigint,
+    PRIMARY KEY (versao, prioridade)
+);
+
+-- Outbox de emails (NotificacaoDispatcher)
+CREATE TABLE IF NOT EXISTS notificacao_email (
+    id                serial PRIMARY KEY,
+    email             varchar(255),
+    assunto           varchar(255),
+    mensagem          varchar(2000),
+    status            varchar(255),
+    tentativas        integer NOT NULL,
+    proxima_tentativa timestamp,
+    criado_em         timestamp,
+    enviado_em        timestamp,
+    ultimo_erro       varchar(500)
+);
+
+CREATE INDEX IF NOT EXISTS idx_notificacao_status_proxima
+    ON notificacao_email (status, proxima_tentativa);
+
+-- Respostas de Idempotency-Key (idempotencia.persistir=true). @Lob byte[] = oid,
+-- como o Hibernate cria no PostgreSQL
+CREATE TABLE IF NOT EXISTS resposta_idempotente (
+    chave             varchar(400) PRIMARY KEY,
+    impressao_digital varchar(64),
+    status            integer,
+    content_type      varchar(255),
+    corpo             oid,
+    expira_em         timestamp
+);
+
+CREATE INDEX IF NOT EXISTS idx_resposta_idempotente_expira
+    ON resposta_idempotente (expira_em);
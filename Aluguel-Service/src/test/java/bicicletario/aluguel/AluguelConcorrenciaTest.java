@@ -0,0 +1,186 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.dto.BicicletaDTO;
+import bicicletario.aluguel.dto.CobrancaDTO;
+import bicicletario.aluguel.dto.NovoAluguelDTO;
+import bicicletario.aluguel.mock.EquipamentoService;
+import bicicletario.aluguel.mock.ExternoService;
+import bicicletario.aluguel.model.Aluguel;
+import bicicletario.aluguel.model.Ciclista;
+import bicicletario.aluguel.repository.AluguelRepository;
+import bicicletario.aluguel.repository.CiclistaRepository;
+import bicicletario.aluguel.repository.NotificacaoEmailRepository;
+import bicicletario.aluguel.service.AluguelService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.when;
+
+/**
+ * Teste de estresse do UC03-R1: muitos POST /aluguel simultâneos para o mesmo
+ * ciclista (ou a mesma bicicleta) só podem abrir UM aluguel.
+ */
+@SpringBootTest
+class AluguelConcorrenciaTest {
+
+private static final int PEDIDOS = 32;
+
+@Autowired
+private AluguelService aluguelService;
+@Autowired
+private AluguelRepository aluguelRepository;
+@Autowired
+private CiclistaRepository ciclistaRepository;
+@Autowired
+private NotificacaoEmailRepository notificacaoEmailRepository;
+
+// Serviços remotos simulados: sem rede no teste
+@MockBean
+private EquipamentoService equipamentoService;
+@MockBean
+private ExternoService externoService;
+
+private ExecutorService clientes;
+
+@BeforeEach
+void setUp() {
+    aluguelRepository.deleteAll();
+    ciclistaRepository.deleteAll();
+    clientes = Executors.newFixedThreadPool(PEDIDOS);
+
+    // A bicicleta da tranca N é a bicicleta N. A espera alarga a janela da corrida
+    when(equipamentoService.getBicicletaDaTranca(any())).thenAnswer(invocacao -> {
+        Thread.sleep(20);
+        BicicletaDTO bicicleta = new BicicletaDTO();
+        bicicleta.setId(invocacao.getArgument(0));
+        bicicleta.setStatus("DISPONIVEL");
+        return bicicleta;
+    });
+    when(externoService.realizarCobranca(anyDouble(), any(), any())).thenAnswer(invocacao -> {
+        CobrancaDTO cobranca = new CobrancaDTO();
+        cobranca.setId(1);
+        cobranca.setStatus("PAGA");
+        return cobranca;
+    });
+}
+
+@AfterEach
+void tearDown() {
+    clientes.shutdownNow();
+    aluguelRepository.deleteAll();
+    ciclistaRepository.deleteAll();
+    notificacaoEmailRepository.deleteAll();
+}
+
+private Integer criarCiclistaAtivo(int i) {
+    Ciclista ciclista = new Ciclista();
+    ciclista.setStatus("ATIVO");
+    ciclista.setNome("Concorrente " + i);
+    ciclista.setEmail("concorrente" + i + "@teste.com");
+    return ciclistaRepository.save(ciclista).getId();
+}
+
+/**
+ * Dispara todos os pedidos ao mesmo tempo e devolve quantos deram certo.
+ */
+private int dispararAlugueis(IntFunction<NovoAluguelDTO> pedido) throws Exception {
+    CountDownLatch largada = new CountDownLatch(1);
+    List<Future<Boolean>> resultados = new ArrayList<>();
+    for (int i = 0; i < PEDIDOS; i++) {
+        NovoAluguelDTO dto = pedido.apply(i);
+        Callable<Boolean> tarefa = () -> {
+            largada.await();
+            try {
+                aluguelService.realizarAluguel(dto);
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        };
+        resultados.add(clientes.submit(tarefa));
+    }
+    largada.countDown();
+
+    int sucessos = 0;
+    for (Future<Boolean> resultado : resultados) {
+        if (resultado.get(30, TimeUnit.SECONDS)) {
+            sucessos++;
+        }
+    }
+    return sucessos;
+}
+
+private long alugueisAbertos() {
+    return aluguelRepository.findByHoraFimIsNull().size();
+}
+
+@Test
+void mesmoCiclista_PedidosSimultaneos_SoUmAluguelAberto() throws Exception {
+    Integer idCiclista = criarCiclistaAtivo(0);
+
+    int sucessos = dispararAlugueis(i -> {
+        NovoAluguelDTO dto = new NovoAluguelDTO();
+        dto.setCiclista(idCiclista);
+        dto.setTrancaInicio(100 + i); // Bicicletas diferentes
+        return dto;
+    });
+
+    assertEquals(1, sucessos);
+    assertEquals(1, alugueisAbertos());
+}
+
+@Test
+void mesmaBicicleta_CiclistasDiferentes_SoUmAluguelAberto() throws Exception {
+    List<Integer> ciclistas = new ArrayList<>();
+    for (int i = 0; i < PEDIDOS; i++) {
+        ciclistas.add(criarCiclistaAtivo(i));
+    }
+
+    int sucessos = dispararAlugueis(i -> {
+        NovoAluguelDTO dto = new NovoAluguelDTO();
+        dto.setCiclista(ciclistas.get(i));
+        dto.setTrancaInicio(7); // Todos na mesma tranca/bicicleta
+        return dto;
+    });
+
+    assertEquals(1, sucessos);
+    assertEquals(1, alugueisAbertos());
+}
+
+@Test
+void ciclistasEBicicletasDiferentes_NenhumPedidoRejeitado() throws Exception {
+    List<Integer> ciclistas = new ArrayList<>();
+    for (int i = 0; i < PEDIDOS; i++) {
+        ciclistas.add(criarCiclistaAtivo(i));
+    }
+
+    int sucessos = dispararAlugueis(i -> {
+        NovoAluguelDTO dto = new NovoAluguelDTO();
+        dto.setCiclista(ciclistas.get(i));
+        dto.setTrancaInicio(100 + i);
+        return dto;
+    });
+
+    // Sem lock global: pedidos sem conflito não bloqueiam nem rejeitam uns aos outros
+    assertEquals(PEDIDOS, sucessos);
+    List<Aluguel> abertos = aluguelRepository.findByHoraFimIsNull();
+    assertEquals(PEDIDOS, abertos.size());
+}
+}
@@ -0,0 +1,267 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.model.Ciclista;
+import bicicletario.aluguel.repository.AluguelRepository;
+import bicicletario.aluguel.repository.CiclistaRepository;
+import bicicletario.aluguel.repository.NotificacaoEmailRepository;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * POST /aluguel e /devolucao no modo reativo, contra um Equipamento/Externo
+ * falso (HttpServer do JDK, com latência) de verdade na rede: o WebClient,
+ * a classificação 4xx/5xx e a Idempotency-Key no despacho assíncrono.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "aluguel.execucao.modo=reativo",
+        // Menos threads no Tomcat do que pedidos simultâneos
+        "server.tomcat.threads.max=2",
+        "server.tomcat.threads.min-spare=1"})
+class AluguelReativoTest {
+
+private static final long LATENCIA_MS = 300;
+private static final int PEDIDOS = 12;
+
+private static HttpServer remoto;
+private static final Map<String, AtomicInteger> chamadas = new ConcurrentHashMap<>();
+private static final AtomicInteger buscasEmAndamento = new AtomicInteger();
+private static final AtomicInteger maxBuscasSimultaneas = new AtomicInteger();
+
+@LocalServerPort
+private int porta;
+@Autowired
+private AluguelRepository aluguelRepository;
+@Autowired
+private CiclistaRepository ciclistaRepository;
+@Autowired
+private NotificacaoEmailRepository notificacaoEmailRepository;
+
+@DynamicPropertySource
+static void servicosRemotos(DynamicPropertyRegistry registro) throws IOException {
+    remoto = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    remoto.createContext("/", AluguelReativoTest::responder);
+    remoto.setExecutor(Executors.newCachedThreadPool());
+    remoto.start();
+    String url = "http://127.0.0.1:" + remoto.getAddress().getPort();
+    registro.add("url.equipamento", () -> url);
+    registro.add("url.externo", () -> url);
+}
+
+@AfterAll
+static void pararRemoto() {
+    remoto.stop(0);
+}
+
+@BeforeEach
+void setUp() {
+    chamadas.clear();
+    maxBuscasSimultaneas.set(0);
+}
+
+@AfterEach
+void tearDown() {
+    aluguelRepository.deleteAll();
+    ciclistaRepository.deleteAll();
+    notificacaoEmailRepository.deleteAll();
+}
+
+@Test
+void alugarEDevolver_PassaPeloEquipamentoEPeloExterno() throws Exception {
+    Integer idCiclista = criarCiclistaAtivo(0);
+
+    Resposta aluguel = postar("/aluguel", "{\"ciclista\": " + idCiclista + ", \"trancaInicio\": 5}", null);
+    assertEquals(200, aluguel.status, aluguel.corpo);
+    assertTrue(aluguel.corpo.contains("\"bicicleta\":5"), aluguel.corpo);
+    assertTrue(aluguel.corpo.contains("\"cobranca\":77"), aluguel.corpo);
+
+    Resposta devolucao = postar("/devolucao", "{\"idTranca\": 6, \"idBicicleta\": 5}", null);
+    assertEquals(200, devolucao.status, devolucao.corpo);
+    assertTrue(devolucao.corpo.contains("\"trancaFim\":6"), devolucao.corpo);
+
+    assertEquals(1, chamadasA("/tranca/{id}/bicicleta"));
+    assertEquals(1, chamadasA("/cobranca"));
+    assertEquals(1, chamadasA("/tranca/{id}/destrancar"));
+    assertEquals(1, chamadasA("/tranca/{id}/trancar"));
+    assertEquals(1, chamadasA("/bicicleta/{id}/status/DISPONIVEL"));
+    // Dentro das 2h: sem taxa extra
+    assertEquals(0, chamadasA("/filaCobranca"));
+}
+
+@Test
+void equipamentoRecusaATranca_422SemCobrar() throws Exception {
+    Integer idCiclista = criarCiclistaAtivo(0);
+
+    Resposta aluguel = postar("/aluguel", "{\"ciclista\": " + idCiclista + ", \"trancaInicio\": 404}", null);
+
+    assertEquals(422, aluguel.status);
+    assertTrue(aluguel.corpo.contains("Falha na validação do Equipamento"), aluguel.corpo);
+    assertEquals(0, chamadasA("/cobranca"));
+    assertEquals(0, aluguelRepository.count());
+}
+
+@Test
+void pedidosSimultaneos_NaoFicamPresosAsThreadsDoTomcat() throws Exception {
+    List<Integer> ciclistas = new ArrayList<>();
+    for (int i = 0; i < PEDIDOS; i++) {
+        ciclistas.add(criarCiclistaAtivo(i));
+    }
+
+    ExecutorService clientes = Executors.newFixedThreadPool(PEDIDOS);
+    try {
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Resposta>> respostas = new ArrayList<>();
+        for (int i = 0; i < PEDIDOS; i++) {
+            String corpo = "{\"ciclista\": " + ciclistas.get(i) + ", \"trancaInicio\": " + (100 + i) + "}";
+            respostas.add(clientes.submit(() -> {
+                largada.await();
+                return postar("/aluguel", corpo, null);
+            }));
+        }
+        largada.countDown();
+        for (Future<Resposta> resposta : respostas) {
+            assertEquals(200, resposta.get(30, TimeUnit.SECONDS).status);
+        }
+    } finally {
+        clientes.shutdownNow();
+    }
+
+    // Bloqueante, com 2 threads no Tomcat, seriam no máximo 2 buscas ao mesmo tempo
+    assertTrue(maxBuscasSimultaneas.get() > 2, "buscas simultâneas: " + maxBuscasSimultaneas.get());
+    assertEquals(PEDIDOS, aluguelRepository.findByHoraFimIsNull().size());
+}
+
+@Test
+void idempotencyKey_RepeticaoDevolveARespostaDoDespachoAssincrono() throws Exception {
+    Integer idCiclista = criarCiclistaAtivo(0);
+    String corpo = "{\"ciclista\": " + idCiclista + ", \"trancaInicio\": 8}";
+
+    Resposta primeira = postar("/aluguel", corpo, "chave-reativa");
+    Resposta repetida = postar("/aluguel", corpo, "chave-reativa");
+
+    assertEquals(200, primeira.status, primeira.corpo);
+    assertEquals(200, repetida.status);
+    assertNull(primeira.repetida);
+    assertEquals("true", repetida.repetida);
+    assertEquals(primeira.corpo, repetida.corpo);
+    assertEquals(1, chamadasA("/cobranca"));
+}
+
+// --- Equipamento e Externo falsos ---
+
+private static void responder(HttpExchange troca) throws IOException {
+    String caminho = troca.getRequestURI().getPath();
+    String rota = caminho.replaceAll("/\\d+", "/{id}");
+    chamadas.computeIfAbsent(rota, r -> new AtomicInteger()).incrementAndGet();
+    StreamUtils.copyToByteArray(troca.getRequestBody());
+
+    boolean busca = "/tranca/{id}/bicicleta".equals(rota);
+    if (busca) {
+        maxBuscasSimultaneas.accumulateAndGet(buscasEmAndamento.incrementAndGet(), Math::max);
+    }
+    try {
+        Thread.sleep(LATENCIA_MS);
+        if ("/tranca/404/bicicleta".equals(caminho)) {
+            enviar(troca, 404, "{\"codigo\": \"404\", \"mensagem\": \"Tranca não encontrada\"}");
+        } else if (busca) {
+            String id = caminho.split("/")[2];
+            enviar(troca, 200, "{\"id\": " + id + ", \"numero\": " + id + ", \"status\": \"DISPONIVEL\"}");
+        } else if ("/cobranca".equals(rota) || "/filaCobranca".equals(rota)) {
+            enviar(troca, 200, "{\"id\": 77, \"status\": \"PAGA\"}");
+        } else {
+            enviar(troca, 200, null);
+        }
+    } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+    } finally {
+        if (busca) {
+            buscasEmAndamento.decrementAndGet();
+        }
+        troca.close();
+    }
+}
+
+private static void enviar(HttpExchange troca, int status, String json) throws IOException {
+    if (json == null) {
+        troca.sendResponseHeaders(status, -1);
+        return;
+    }
+    byte[] corpo = json.getBytes(StandardCharsets.UTF_8);
+    troca.getResponseHeaders().set("Content-Type", "application/json");
+    troca.sendResponseHeaders(status, corpo.length);
+    troca.getResponseBody().write(corpo);
+}
+
+private int chamadasA(String rota) {
+    AtomicInteger total = chamadas.get(rota);
+    return total == null ? 0 : total.get();
+}
+
+// --- Cliente: HttpURLConnection, sem limite de conexões por host ---
+
+private Resposta postar(String caminho, String json, String chaveIdempotencia) throws IOException {
+    HttpURLConnection conexao = (HttpURLConnection) new URL("http://localhost:" + porta + caminho).openConnection();
+    conexao.setRequestMethod("POST");
+    conexao.setDoOutput(true);
+    conexao.setRequestProperty("Content-Type", "application/json");
+    if (chaveIdempotencia != null) {
+        conexao.setRequestProperty("Idempotency-Key", chaveIdempotencia);
+    }
+    try (OutputStream saida = conexao.getOutputStream()) {
+        saida.write(json.getBytes(StandardCharsets.UTF_8));
+    }
+    int status = conexao.getResponseCode();
+    InputStream entrada = status < 400 ? conexao.getInputStream() : conexao.getErrorStream();
+    String corpo = entrada == null ? "" : StreamUtils.copyToString(entrada, StandardCharsets.UTF_8);
+    return new Resposta(status, corpo, conexao.getHeaderField("Idempotent-Replayed"));
+}
+
+private Integer criarCiclistaAtivo(int i) {
+    Ciclista ciclista = new Ciclista();
+    ciclista.setStatus("ATIVO");
+    ciclista.setNome("Reativo " + i);
+    ciclista.setEmail("reativo" + i + "@teste.com");
+    return ciclistaRepository.save(ciclista).getId();
+}
+
+private static class Resposta {
+    final int status;
+    final String corpo;
+    final String repetida;
+
+    Resposta(int status, String corpo, String repetida) {
+        this.status = status;
+        this.corpo = corpo;
+        this.repetida = repetida;
+    }
+}
+}
@@ -2,25 +2,43 @@ package bicicletario.aluguel;
 
 import bicicletario.aluguel.dto.BicicletaDTO;
 import bicicletario.aluguel.dto.CobrancaDTO;
+import bicicletario.aluguel.dto.DevolucaoDTO;
 import bicicletario.aluguel.dto.NovoAluguelDTO;
 import bicicletario.aluguel.mock.EquipamentoService;
 import bicicletario.aluguel.mock.ExternoService;
 import bicicletario.aluguel.model.Aluguel;
 import bicicletario.aluguel.model.Ciclista;
+import bicicletario.aluguel.model.Devolucao;
+import bicicletario.aluguel.model.TabelaTarifa;
 import bicicletario.aluguel.repository.AluguelRepository;
 import bicicletario.aluguel.repository.CiclistaRepository;
-import bicicletario.aluguel.repository.DevolucaoRepository;
+import bicicletario.aluguel.service.NotificacaoService;
 import bicicletario.aluguel.service.AluguelService;
+import bicicletario.aluguel.service.CacheCiclistas;
+import bicicletario.aluguel.service.RegistroAlugueisAtivos;
+import bicicletario.aluguel.tarifa.MotorTarifa;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class) // ISSO define um Teste Unitário puro (sem Spring Context pesado)
@@ -32,13 +50,49 @@ private AluguelService aluguelService; // A classe que estamos testando
 @Mock
 private AluguelRepository aluguelRepository; // Dependência Mockada
 @Mock
-private DevolucaoRepository devolucaoRepository; // Dependência Mockada
-@Mock
 private CiclistaRepository ciclistaRepository; // Dependência Mockada
 @Mock
 private EquipamentoService equipamentoService; // Dependência Mockada
 @Mock
-private ExternoService externoService; // Dependência Mockada
+private ExternoService externoService;
+@Mock
+private NotificacaoService notificacaoService; // Dependência Mockada
+@Mock
+private RegistroAlugueisAtivos alugueisAtivos; // Dependência Mockada
+
+// Executor real: as validações do aluguel rodam em paralelo
+private ExecutorService executor;
+// Registro de métricas em memória
+private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+@BeforeEach
+void setUp() {
+    executor = Executors.newFixedThreadPool(3);
+    ReflectionTestUtils.setField(aluguelService, "validacaoAluguelExecutor", executor);
+    // Sem Spring: o bloco transacional roda direto, sem transação real
+    ReflectionTestUtils.setField(aluguelService, "transactionTemplate", TransactionOperations.withoutTransaction());
+    ReflectionTestUtils.setField(aluguelService, "meterRegistry", meterRegistry);
+    // Sem Spring não há cache: o CacheCiclistas repassa direto ao repositório mockado
+    CacheCiclistas cacheCiclistas = new CacheCiclistas();
+    ReflectionTestUtils.setField(cacheCiclistas, "ciclistaRepository", ciclistaRepository);
+    ReflectionTestUtils.setField(aluguelService, "cacheCiclistas", cacheCiclistas);
+    // Tabela de tarifa padrão (2h grátis, R$ 5,00 por 30 min), sem banco
+    MotorTarifa motorTarifa = new MotorTarifa();
+    motorTarifa.carregar(Collections.singletonList(TabelaTarifa.padrao()));
+    ReflectionTestUtils.setField(aluguelService, "motorTarifa", motorTarifa);
+}
+
+@AfterEach
+void tearDown() {
+    executor.shutdownNow();
+}
+
+private BicicletaDTO criarBicicletaDisponivel() {
+    BicicletaDTO bicicleta = new BicicletaDTO();
+    bicicleta.setId(100);
+    bicicleta.setStatus("DISPONIVEL");
+    return bicicleta;
+}
 
 @Test
 void realizarAluguel_Sucesso() {
@@ -61,9 +115,8 @@ void realizarAluguel_Sucesso() {
 
     // Ensinando os mocks a responderem
     when(ciclistaRepository.findById(1)).thenReturn(Optional.of(ciclistaMock));
-    when(aluguelRepository.findByCiclistaAndHoraFimIsNull(1)).thenReturn(Optional.empty()); // Não tem aluguel ativo
     when(equipamentoService.getBicicletaDaTranca(10)).thenReturn(bicicletaMock);
-    when(externoService.realizarCobranca(10.0, 1)).thenReturn(cobrancaMock);
+    when(externoService.realizarCobranca(eq(10.0), eq(1), any())).thenReturn(cobrancaMock);
     when(aluguelRepository.save(any(Aluguel.class))).thenAnswer(i -> i.getArguments()[0]); // Retorna o próprio objeto salvo
 
     // 2. Act (Executar a lógica)
@@ -76,7 +129,7 @@ void realizarAluguel_Sucesso() {
 
     // Verificar se os serviços externos foram chamados corretamente
     verify(equipamentoService).destrancarTranca(10);
-    verify(externoService).enviarEmail(any(), anyString(), anyString());
+    verify(notificacaoService).agendarEmail(any(), anyString(), anyString());
 }
 
 @Test
@@ -84,11 +137,14 @@ void realizarAluguel_Falha_CiclistaInativo() {
     // 1. Arrange
     NovoAluguelDTO dto = new NovoAluguelDTO();
     dto.setCiclista(1);
+    dto.setTrancaInicio(10);
 
     Ciclista ciclistaMock = new Ciclista();
     ciclistaMock.setStatus("PENDENTE"); // Cenário de falha
 
     when(ciclistaRepository.findById(1)).thenReturn(Optional.of(ciclistaMock));
+    // As validações correm em paralelo: a bicicleta pode nem chegar a ser consultada
+    lenient().when(equipamentoService.getBicicletaDaTranca(10)).thenReturn(criarBicicletaDisponivel());
 
     // 2. Act & Assert (Esperamos uma exceção)
     IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -99,7 +155,7 @@ void realizarAluguel_Falha_CiclistaInativo() {
 
     // Garante que NADA foi salvo e NENHUM email foi enviado
     verify(aluguelRepository, never()).save(any());
-    verify(externoService, never()).enviarEmail(any(), any(), any());
+    verify(notificacaoService, never()).agendarEmail(any(), any(), any());
 }
 
 @Test
@@ -107,13 +163,14 @@ void realizarAluguel_Falha_AluguelDuplicado() {
     // 1. Arrange
     NovoAluguelDTO dto = new NovoAluguelDTO();
     dto.setCiclista(1);
+    dto.setTrancaInicio(10);
 
     Ciclista ciclistaMock = new Ciclista();
     ciclistaMock.setStatus("ATIVO");
 
-    when(ciclistaRepository.findById(1)).thenReturn(Optional.of(ciclistaMock));
-    // Simulando que JÁ EXISTE um aluguel ativo
-    when(aluguelRepository.findByCiclistaAndHoraFimIsNull(1)).thenReturn(Optional.of(new Aluguel()));
+    lenient().when(ciclistaRepository.findById(1)).thenReturn(Optional.of(ciclistaMock));
+    // Simulando que JÁ EXISTE um aluguel ativo (a reserva do ciclista falha)
+    when(alugueisAtivos.reservarCiclista(1)).thenThrow(new IllegalArgumentException("Ciclista já possui um aluguel ativo"));
 
     // 2. Act & Assert
     IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -121,5 +178,196 @@ void realizarAluguel_Falha_AluguelDuplicado() {
     });
 
     assertEquals("Ciclista já possui um aluguel ativo", exception.getMessage());
+    assertEquals(1.0, meterRegistry.counter("aluguel.rejeitados", "motivo", "aluguel_ativo").count());
+    // Rejeitado antes de qualquer chamada remota
+    verify(equipamentoService, never()).getBicicletaDaTranca(any());
+    verify(externoService, never()).realizarCobranca(any(), any(), any());
+}
+
+@Test
+void realizarAluguel_Falha_BicicletaIndisponivel_NaoCobra() {
+    // 1. Arrange
+    NovoAluguelDTO dto = new NovoAluguelDTO();
+    dto.setCiclista(1);
+    dto.setTrancaInicio(10);
+
+    Ciclista ciclistaMock = new Ciclista();
+    ciclistaMock.setStatus("ATIVO");
+
+    BicicletaDTO bicicletaEmReparo = criarBicicletaDisponivel();
+    bicicletaEmReparo.setStatus("EM_REPARO");
+
+    Aluguel reserva = new Aluguel();
+    when(alugueisAtivos.reservarCiclista(1)).thenReturn(reserva);
+    lenient().when(ciclistaRepository.findById(1)).thenReturn(Optional.of(ciclistaMock));
+    when(equipamentoService.getBicicletaDaTranca(10)).thenReturn(bicicletaEmReparo);
+
+    // 2. Act & Assert
+    IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+        aluguelService.realizarAluguel(dto);
+    });
+
+    assertEquals("Bicicleta indisponível ou tranca vazia", exception.getMessage());
+    // A reserva do ciclista é liberada na falha
+    verify(alugueisAtivos).liberar(reserva);
+
+    // A cobrança só acontece depois que TODAS as validações passam
+    verify(externoService, never()).realizarCobranca(any(), any(), any());
+    verify(aluguelRepository, never()).save(any());
+}
+
+@Test
+void realizarAluguel_Falha_BancoRecusaAluguelConcorrente_NaoCobra() {
+    NovoAluguelDTO dto = new NovoAluguelDTO();
+    dto.setCiclista(1);
+    dto.setTrancaInicio(10);
+
+    Ciclista ciclistaMock = new Ciclista();
+    ciclistaMock.setStatus("ATIVO");
+
+    when(alugueisAtivos.reservarCiclista(1)).thenReturn(new Aluguel());
+    when(ciclistaRepository.findById(1)).thenReturn(Optional.of(ciclistaMock));
+    when(equipamentoService.getBicicletaDaTranca(10)).thenReturn(criarBicicletaDisponivel());
+    // Outra instância abriu o aluguel antes: o índice único parcial recusa o insert
+    when(aluguelRepository.save(any(Aluguel.class))).thenThrow(new DataIntegrityViolationException("uk_aluguel_ciclista_ativo"));
+
+    IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+        aluguelService.realizarAluguel(dto);
+    });
+
+    assertEquals("Ciclista já possui um aluguel ativo", exception.getMessage());
+    // O banco recusou ANTES da cobrança: o ciclista não paga por um aluguel que não leva
+    verify(externoService, never()).realizarCobranca(any(), any(), any());
+    verify(equipamentoService, never()).destrancarTranca(any());
+}
+
+@Test
+void realizarAluguel_Falha_PagamentoRecusado_DesfazAluguel() {
+    NovoAluguelDTO dto = new NovoAluguelDTO();
+    dto.setCiclista(1);
+    dto.setTrancaInicio(10);
+
+    Ciclista ciclistaMock = new Ciclista();
+    ciclistaMock.setStatus("ATIVO");
+
+    CobrancaDTO recusada = new CobrancaDTO();
+    recusada.setStatus("FALHA");
+
+    when(alugueisAtivos.reservarCiclista(1)).thenReturn(new Aluguel());
+    when(ciclistaRepository.findById(1)).thenReturn(Optional.of(ciclistaMock));
+    when(equipamentoService.getBicicletaDaTranca(10)).thenReturn(criarBicicletaDisponivel());
+    when(aluguelRepository.save(any(Aluguel.class))).thenAnswer(i -> {
+        Aluguel salvo = (Aluguel) i.getArguments()[0];
+        salvo.setId(42);
+        return salvo;
+    });
+    when(externoService.realizarCobranca(eq(10.0), eq(1), any())).thenReturn(recusada);
+
+    IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+        aluguelService.realizarAluguel(dto);
+    });
+
+    assertEquals("Pagamento não autorizado", exception.getMessage());
+    // O aluguel aberto para travar ciclista/bicicleta é apagado, sem email nem destrancamento
+    verify(aluguelRepository).delete(argThat(aluguel -> aluguel.getId() == 42 && aluguel.getCobranca() == null));
+    verify(notificacaoService, never()).agendarEmail(any(), any(), any());
+    verify(equipamentoService, never()).destrancarTranca(any());
+}
+
+@Test
+void realizarDevolucao_Sucesso_BuscaAluguelNoRegistro() {
+    // 1. Arrange
+    DevolucaoDTO dto = new DevolucaoDTO();
+    dto.setIdBicicleta(100);
+    dto.setIdTranca(20);
+
+    Aluguel aluguelAtivo = new Aluguel();
+    aluguelAtivo.setId(7);
+    aluguelAtivo.setCiclista(1);
+    aluguelAtivo.setBicicleta(100);
+    aluguelAtivo.setTrancaInicio(10);
+    aluguelAtivo.setHoraInicio(LocalDateTime.now().minusMinutes(30)); // Dentro das 2h: sem taxa extra
+
+    Ciclista ciclistaMock = new Ciclista();
+    ciclistaMock.setEmail("teste@email.com");
+
+    when(alugueisAtivos.iniciarDevolucao(100)).thenReturn(true);
+    when(alugueisAtivos.daBicicleta(100)).thenReturn(Optional.of(aluguelAtivo));
+    when(ciclistaRepository.findById(1)).thenReturn(Optional.of(ciclistaMock));
+
+    // 2. Act
+    Devolucao devolucao = aluguelService.realizarDevolucao(dto);
+
+    // 3. Assert
+    assertEquals(100, devolucao.getBicicleta());
+    assertEquals(20, devolucao.getTrancaFim());
+    verify(aluguelRepository, never()).findByBicicletaAndHoraFimIsNull(any());
+    verify(aluguelRepository).save(aluguelAtivo);
+    verify(externoService, never()).enviarParaFilaCobranca(any(), any(), any());
+    verify(equipamentoService).trancarTranca(20, 100);
+    verify(alugueisAtivos).encerrarDevolucao(100);
+}
+
+@Test
+void realizarDevolucao_ComTaxaExtra_CobraComChaveDoAluguel() {
+    DevolucaoDTO dto = new DevolucaoDTO();
+    dto.setIdBicicleta(100);
+    dto.setIdTranca(20);
+
+    Aluguel aluguelAtivo = new Aluguel();
+    aluguelAtivo.setId(7);
+    aluguelAtivo.setCiclista(1);
+    aluguelAtivo.setBicicleta(100);
+    aluguelAtivo.setTrancaInicio(10);
+    aluguelAtivo.setHoraInicio(LocalDateTime.now().minusHours(3)); // Passou das 2h: taxa extra
+
+    CobrancaDTO cobrancaExtra = new CobrancaDTO();
+    cobrancaExtra.setId(900);
+    cobrancaExtra.setStatus("PENDENTE");
+
+    when(alugueisAtivos.iniciarDevolucao(100)).thenReturn(true);
+    when(alugueisAtivos.daBicicleta(100)).thenReturn(Optional.of(aluguelAtivo));
+    when(ciclistaRepository.findById(1)).thenReturn(Optional.of(new Ciclista()));
+    when(externoService.enviarParaFilaCobranca(anyDouble(), eq(1), any())).thenReturn(cobrancaExtra);
+
+    aluguelService.realizarDevolucao(dto);
+
+    // Repetir a devolução deste aluguel no Externo não gera uma segunda cobrança
+    verify(externoService).enviarParaFilaCobranca(anyDouble(), eq(1), eq("aluguel-7-devolucao"));
+}
+
+@Test
+void realizarDevolucao_Falha_SemAluguelAtivo() {
+    DevolucaoDTO dto = new DevolucaoDTO();
+    dto.setIdBicicleta(100);
+    dto.setIdTranca(20);
+
+    when(alugueisAtivos.iniciarDevolucao(100)).thenReturn(true);
+    when(alugueisAtivos.daBicicleta(100)).thenReturn(Optional.empty());
+
+    IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+        aluguelService.realizarDevolucao(dto);
+    });
+
+    assertEquals("Nenhum aluguel ativo encontrado para esta bicicleta", exception.getMessage());
+    verify(aluguelRepository, never()).save(any());
+}
+
+@Test
+void realizarDevolucao_Falha_DevolucaoConcorrente() {
+    DevolucaoDTO dto = new DevolucaoDTO();
+    dto.setIdBicicleta(100);
+    dto.setIdTranca(20);
+
+    // Outra devolução da mesma bicicleta já está em andamento
+    when(alugueisAtivos.iniciarDevolucao(100)).thenReturn(false);
+
+    IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+        aluguelService.realizarDevolucao(dto);
+    });
+
+    assertEquals("Devolução desta bicicleta já está em andamento", exception.getMessage());
+    verify(alugueisAtivos, never()).daBicicleta(any());
+    verify(alugueisAtivos, never()).encerrarDevolucao(any());
+}
 }
-}
\ No newline at end of file
@@ -0,0 +1,133 @@
+package bicicletario.aluguel;
+
+import bicicletario.idempotencia.ArmazemIdempotencia;
+import bicicletario.idempotencia.RespostaArmazenada;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Só memória (idempotencia.persistir=false); o caminho com banco é coberto pelo IdempotenciaTest
+class ArmazemIdempotenciaTest {
+
+private final AtomicLong agora = new AtomicLong(1_000_000L);
+private ArmazemIdempotencia armazem;
+
+@BeforeEach
+void setUp() {
+    armazem = new ArmazemIdempotencia();
+    ReflectionTestUtils.setField(armazem, "maxEntradas", 2);
+    ReflectionTestUtils.setField(armazem, "ttlMs", 10_000L);
+    ReflectionTestUtils.setField(armazem, "emAndamentoExpiraMs", 1_000L);
+    ReflectionTestUtils.setField(armazem, "relogio", (LongSupplier) agora::get);
+}
+
+private void concluir(String chave) {
+    armazem.concluir(chave, "abc", 200, "application/json", "{}".getBytes(StandardCharsets.UTF_8));
+}
+
+@Test
+void primeiraReserva_ChaveFicaEmAndamento() {
+    assertNull(armazem.reservar("POST /aluguel k1", "abc"));
+
+    RespostaArmazenada repetida = armazem.reservar("POST /aluguel k1", "abc");
+    assertNotNull(repetida);
+    assertTrue(repetida.isEmAndamento());
+}
+
+@Test
+void concluida_RepeticaoRecebeRespostaGuardada() {
+    armazem.reservar("POST /aluguel k1", "abc");
+    concluir("POST /aluguel k1");
+
+    RespostaArmazenada repetida = armazem.reservar("POST /aluguel k1", "abc");
+    assertFalse(repetida.isEmAndamento());
+    assertEquals(200, repetida.getStatus());
+    assertEquals("{}", new String(repetida.getCorpo(), StandardCharsets.UTF_8));
+}
+
+@Test
+void liberada_ProximaTentativaProcessaDeNovo() {
+    armazem.reservar("POST /aluguel k1", "abc");
+    armazem.liberar("POST /aluguel k1");
+
+    assertNull(armazem.reservar("POST /aluguel k1", "abc"));
+}
+
+@Test
+void vencida_ChavePodeSerReusada() {
+    armazem.reservar("POST /aluguel k1", "abc");
+    concluir("POST /aluguel k1");
+
+    agora.addAndGet(10_000L);
+
+    assertNull(armazem.reservar("POST /aluguel k1", "abc"));
+}
+
+@Test
+void emAndamentoAbandonada_ExpiraAntesDoTtl() {
+    armazem.reservar("POST /aluguel k1", "abc");
+
+    agora.addAndGet(1_000L);
+
+    assertNull(armazem.reservar("POST /aluguel k1", "abc"));
+}
+
+@Test
+void limiteDeEntradas_DescartaAMenosUsada() {
+    armazem.reservar("k1", "abc");
+    concluir("k1");
+    armazem.reservar("k2", "abc");
+    concluir("k2");
+    armazem.reservar("k1", "abc"); // k1 acessada: k2 passa a ser a menos usada
+    armazem.reservar("k3", "abc");
+
+    assertEquals(2, armazem.quantidade());
+    assertNotNull(armazem.reservar("k1", "abc"));
+    assertNull(armazem.reservar("k2", "abc"));
+}
+
+@Test
+void limiteDeEntradas_NaoDescartaReservaEmAndamento() {
+    armazem.reservar("k1", "abc"); // em andamento, a menos usada
+    armazem.reservar("k2", "abc");
+    concluir("k2");
+    armazem.reservar("k3", "abc");
+
+    // Sai a concluída: a repetição de k1 ainda vê a reserva e não processa de novo
+    assertEquals(2, armazem.quantidade());
+    assertTrue(armazem.reservar("k1", "abc").isEmAndamento());
+    assertNull(armazem.reservar("k2", "abc"));
+}
+
+@Test
+void limiteDeEntradas_SoEmAndamento_PassaDoLimite() {
+    armazem.reservar("k1", "abc");
+    armazem.reservar("k2", "abc");
+    armazem.reservar("k3", "abc");
+
+    assertEquals(3, armazem.quantidade());
+
+    // Reserva abandonada (venceu) volta a poder ser descartada
+    agora.addAndGet(1_000L);
+    armazem.reservar("k4", "abc");
+    assertEquals(3, armazem.quantidade());
+}
+
+@Test
+void removerVencidas_LimpaMemoria() {
+    armazem.reservar("k1", "abc");
+    concluir("k1");
+    armazem.reservar("k2", "abc");
+
+    agora.addAndGet(5_000L); // k2 (em andamento) venceu, k1 não
+
+    armazem.removerVencidas();
+    assertEquals(1, armazem.quantidade());
+}
+}
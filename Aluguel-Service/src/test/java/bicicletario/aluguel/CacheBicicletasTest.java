@@ -0,0 +1,198 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.dto.BicicletaDTO;
+import bicicletario.aluguel.mock.CacheBicicletas;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheBicicletasTest {
+
+private static final long TTL_MS = 60_000;
+private static final long STATUS_TTL_MS = 1_000;
+
+private final AtomicLong agora = new AtomicLong(1_000_000);
+private final AtomicInteger chamadasRemotas = new AtomicInteger();
+private CacheBicicletas cache;
+
+// Equipamento "no ar": cada chamada devolve a bicicleta com o status atual
+private String statusRemoto = "DISPONIVEL";
+private final Function<Integer, BicicletaDTO> equipamento = id -> {
+    chamadasRemotas.incrementAndGet();
+    return bicicleta(id, statusRemoto);
+};
+private final Function<Integer, BicicletaDTO> equipamentoFora = id -> {
+    chamadasRemotas.incrementAndGet();
+    return null;
+};
+
+@BeforeEach
+void setUp() {
+    cache = new CacheBicicletas(TTL_MS, STATUS_TTL_MS, 100, new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(cache, "relogio", (LongSupplier) agora::get);
+}
+
+@Test
+void dentroDoTtlDoStatus_NaoChamaOEquipamento() {
+    cache.buscar(7, equipamento);
+    BicicletaDTO segunda = cache.buscar(7, equipamento);
+
+    assertEquals(1, chamadasRemotas.get());
+    assertEquals("Caloi", segunda.getMarca());
+}
+
+@Test
+void statusVencido_BuscaDeNovo() {
+    cache.buscar(7, equipamento);
+    statusRemoto = "EM_USO";
+    agora.addAndGet(STATUS_TTL_MS);
+
+    assertEquals("EM_USO", cache.buscar(7, equipamento).getStatus());
+    assertEquals(2, chamadasRemotas.get());
+}
+
+@Test
+void alterarStatus_AtualizaSemChamarOEquipamento() {
+    cache.buscar(7, equipamento);
+    cache.atualizarStatus(7, "EM_REPARO");
+
+    assertEquals("EM_REPARO", cache.buscar(7, equipamento).getStatus());
+    assertEquals(1, chamadasRemotas.get());
+}
+
+@Test
+void invalidarStatus_ProximaLeituraVaiAoEquipamento() {
+    cache.buscar(7, equipamento);
+    cache.invalidarStatus(7);
+    cache.buscar(7, equipamento);
+
+    assertEquals(2, chamadasRemotas.get());
+}
+
+@Test
+void equipamentoFora_ServeAUltimaLeituraDentroDoTtl() {
+    cache.buscar(7, equipamento);
+    agora.addAndGet(STATUS_TTL_MS);
+
+    BicicletaDTO obsoleta = cache.buscar(7, equipamentoFora);
+
+    assertEquals("Caloi", obsoleta.getMarca());
+    assertEquals("DISPONIVEL", obsoleta.getStatus());
+}
+
+@Test
+void equipamentoFora_SemLeituraValida_RetornaNullENaoGuarda() {
+    cache.buscar(7, equipamento);
+    agora.addAndGet(TTL_MS);
+
+    assertNull(cache.buscar(7, equipamentoFora));
+    assertNull(cache.buscar(8, equipamentoFora));
+    assertEquals(0, cache.quantidade());
+}
+
+@Test
+void alterarODtoRetornado_NaoAlteraOCache() {
+    cache.buscar(7, equipamento).setStatus("ALTERADO");
+
+    assertEquals("DISPONIVEL", cache.buscar(7, equipamento).getStatus());
+}
+
+@Test
+void faltasSimultaneas_ViramUmaChamadaRemota() throws Exception {
+    int threads = 8;
+    CountDownLatch carregando = new CountDownLatch(1);
+    CountDownLatch liberar = new CountDownLatch(1);
+    Function<Integer, BicicletaDTO> equipamentoLento = id -> {
+        chamadasRemotas.incrementAndGet();
+        carregando.countDown();
+        try {
+            liberar.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return bicicleta(id, "DISPONIVEL");
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+        List<Future<BicicletaDTO>> resultados = new ArrayList<>();
+        resultados.add(executor.submit(() -> cache.buscar(7, equipamentoLento)));
+        assertTrue(carregando.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < threads; i++) {
+            resultados.add(executor.submit(() -> cache.buscar(7, equipamentoLento)));
+        }
+        // Dá tempo das outras threads encontrarem o carregamento em andamento
+        Thread.sleep(100);
+        liberar.countDown();
+
+        for (Future<BicicletaDTO> resultado : resultados) {
+            assertEquals(7, resultado.get(5, TimeUnit.SECONDS).getId());
+        }
+        assertEquals(1, chamadasRemotas.get());
+    } finally {
+        executor.shutdownNow();
+    }
+}
+
+@Test
+void escritaDuranteCarregamento_SoDescartaOCarregamentoDaMesmaBicicleta() throws Exception {
+    CountDownLatch carregando = new CountDownLatch(2);
+    CountDownLatch liberar = new CountDownLatch(1);
+    Function<Integer, BicicletaDTO> equipamentoLento = id -> {
+        chamadasRemotas.incrementAndGet();
+        carregando.countDown();
+        try {
+            liberar.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return bicicleta(id, "DISPONIVEL");
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+        Future<BicicletaDTO> sete = executor.submit(() -> cache.buscar(7, equipamentoLento));
+        Future<BicicletaDTO> oito = executor.submit(() -> cache.buscar(8, equipamentoLento));
+        assertTrue(carregando.await(5, TimeUnit.SECONDS));
+        // Devolução da bicicleta 7 enquanto as duas leituras estão no Equipamento
+        cache.atualizarStatus(7, "EM_USO");
+        liberar.countDown();
+        sete.get(5, TimeUnit.SECONDS);
+        oito.get(5, TimeUnit.SECONDS);
+    } finally {
+        executor.shutdownNow();
+    }
+
+    // A 8 entrou no cache; a 7 (lida antes da escrita) não
+    cache.buscar(8, equipamento);
+    assertEquals(2, chamadasRemotas.get());
+    cache.buscar(7, equipamento);
+    assertEquals(3, chamadasRemotas.get());
+}
+
+private BicicletaDTO bicicleta(Integer id, String status) {
+    BicicletaDTO bicicleta = new BicicletaDTO();
+    bicicleta.setId(id);
+    bicicleta.setMarca("Caloi");
+    bicicleta.setModelo("Urbana");
+    bicicleta.setAno("2022");
+    bicicleta.setNumero(id);
+    bicicleta.setStatus(status);
+    return bicicleta;
+}
+}
@@ -0,0 +1,122 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.dto.NovoCartaoDeCreditoDTO;
+import bicicletario.aluguel.mock.ExternoService;
+import bicicletario.aluguel.model.CartaoDeCredito;
+import bicicletario.aluguel.model.Ciclista;
+import bicicletario.aluguel.repository.CartaoDeCreditoRepository;
+import bicicletario.aluguel.repository.CiclistaRepository;
+import bicicletario.aluguel.repository.NotificacaoEmailRepository;
+import bicicletario.aluguel.service.CacheCiclistas;
+import bicicletario.aluguel.service.CiclistaService;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cache de leitura de Ciclista/CartaoDeCredito: a segunda leitura não vai ao
+ * banco, e toda gravação pelo JPA (editar, ativar, alterar cartão) invalida.
+ */
+@SpringBootTest
+class CacheCiclistasTest {
+
+@Autowired
+private CacheCiclistas cacheCiclistas;
+@Autowired
+private CiclistaService ciclistaService;
+@Autowired
+private CiclistaRepository ciclistaRepository;
+@Autowired
+private CartaoDeCreditoRepository cartaoRepository;
+@Autowired
+private NotificacaoEmailRepository notificacaoEmailRepository;
+@Autowired
+private CacheManager cacheManager;
+
+@MockBean
+private ExternoService externoService;
+
+private Integer idCiclista;
+
+@BeforeEach
+void setUp() {
+    Ciclista ciclista = new Ciclista();
+    ciclista.setNome("Ciclista Cache");
+    ciclista.setEmail("cache@teste.com");
+    ciclista.setStatus("AGUARDANDO_CONFIRMACAO");
+    idCiclista = ciclistaRepository.save(ciclista).getId();
+
+    CartaoDeCredito cartao = new CartaoDeCredito();
+    cartao.setIdCiclista(idCiclista);
+    cartao.setNumero("1111222233334444");
+    cartaoRepository.save(cartao);
+
+    cacheManager.getCacheNames().forEach(nome -> cacheManager.getCache(nome).clear());
+}
+
+@AfterEach
+void tearDown() {
+    cartaoRepository.deleteAll();
+    ciclistaRepository.deleteAll();
+    notificacaoEmailRepository.deleteAll();
+}
+
+private CacheStats estatisticas(String nome) {
+    return ((CaffeineCache) cacheManager.getCache(nome)).getNativeCache().stats();
+}
+
+@Test
+void segundaLeitura_VemDoCache() {
+    long acertosAntes = estatisticas(CacheCiclistas.CICLISTAS).hitCount();
+
+    Ciclista primeira = cacheCiclistas.buscarCiclista(idCiclista).get();
+    Ciclista segunda = cacheCiclistas.buscarCiclista(idCiclista).get();
+
+    assertSame(primeira, segunda);
+    assertEquals(acertosAntes + 1, estatisticas(CacheCiclistas.CICLISTAS).hitCount());
+}
+
+@Test
+void ativarCiclista_InvalidaOCache() {
+    assertEquals("AGUARDANDO_CONFIRMACAO", cacheCiclistas.buscarCiclista(idCiclista).get().getStatus());
+
+    ciclistaService.ativarCiclista(idCiclista);
+
+    assertEquals("ATIVO", cacheCiclistas.buscarCiclista(idCiclista).get().getStatus());
+}
+
+@Test
+void alterarCartaoDeCredito_InvalidaOCache() {
+    assertEquals("1111222233334444", cacheCiclistas.buscarCartao(idCiclista).get().getNumero());
+    when(externoService.validarCartaoDeCredito(any())).thenReturn(true);
+
+    NovoCartaoDeCreditoDTO novoCartao = new NovoCartaoDeCreditoDTO();
+    novoCartao.setNomeTitular("Ciclista Cache");
+    novoCartao.setNumero("5555666677778888");
+    novoCartao.setValidade("2030-01-01");
+    novoCartao.setCvv("123");
+    ciclistaService.alterarCartaoDeCredito(idCiclista, novoCartao);
+
+    assertEquals("5555666677778888", cacheCiclistas.buscarCartao(idCiclista).get().getNumero());
+}
+
+@Test
+void removerCiclista_InvalidaOCache() {
+    assertTrue(cacheCiclistas.buscarCiclista(idCiclista).isPresent());
+
+    cartaoRepository.deleteAll();
+    ciclistaRepository.deleteById(idCiclista);
+
+    assertFalse(cacheCiclistas.buscarCiclista(idCiclista).isPresent());
+}
+}
@@ -0,0 +1,93 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.dto.ComandoEquipamentoDTO;
+import bicicletario.aluguel.dto.ResultadoComandoDTO;
+import bicicletario.aluguel.mock.CanalComandosEquipamento;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Threads do canal sem Equipamento de verdade: quem faz a chamada e o que acontece com a fila de envio cheia
+class CanalComandosEquipamentoTest {
+
+private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+private final Set<String> threadsQueEnviaram = ConcurrentHashMap.newKeySet();
+private final CountDownLatch liberarEquipamento = new CountDownLatch(1);
+private CanalComandosEquipamento canal;
+
+@AfterEach
+void tearDown() {
+    liberarEquipamento.countDown();
+    canal.encerrar();
+}
+
+private ResultadoComandoDTO enviarUm(ComandoEquipamentoDTO comando) {
+    threadsQueEnviaram.add(Thread.currentThread().getName());
+    try {
+        liberarEquipamento.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+    }
+    return new ResultadoComandoDTO(comando.getId(), ResultadoComandoDTO.OK, 200, null);
+}
+
+private List<ResultadoComandoDTO> enviarLote(List<ComandoEquipamentoDTO> comandos) {
+    threadsQueEnviaram.add(Thread.currentThread().getName());
+    List<ResultadoComandoDTO> resultados = new ArrayList<>();
+    for (ComandoEquipamentoDTO comando : comandos) {
+        resultados.add(new ResultadoComandoDTO(comando.getId(), ResultadoComandoDTO.OK, 200, null));
+    }
+    return resultados;
+}
+
+@Test
+void janelaFechadaPorTempo_EnviadaNaThreadDeEnvio() throws Exception {
+    liberarEquipamento.countDown();
+    canal = new CanalComandosEquipamento(50, 20, 60_000, 2, 10, this::enviarLote, this::enviarUm, meterRegistry);
+
+    CompletableFuture<ResultadoComandoDTO> primeiro = canal.enfileirar(ComandoEquipamentoDTO.destrancar(1));
+    CompletableFuture<ResultadoComandoDTO> segundo = canal.enfileirar(ComandoEquipamentoDTO.destrancar(2));
+
+    assertTrue(primeiro.get(5, TimeUnit.SECONDS).isOk());
+    assertTrue(segundo.get(5, TimeUnit.SECONDS).isOk());
+    assertFalse(threadsQueEnviaram.isEmpty());
+    for (String thread : threadsQueEnviaram) {
+        assertTrue(thread.startsWith("comandos-equipamento-envio-"), "Enviado pela thread " + thread);
+    }
+}
+
+@Test
+void filaDeEnvioCheia_ComandoFalhaSemEnviarNaThreadQueChamou() throws Exception {
+    // Uma thread de envio e uma vaga na fila; janela de 1 comando = cada enfileirar entrega um envio
+    canal = new CanalComandosEquipamento(1, 20, 60_000, 1, 1, this::enviarLote, this::enviarUm, meterRegistry);
+
+    CompletableFuture<ResultadoComandoDTO> enviando = canal.enfileirar(ComandoEquipamentoDTO.destrancar(1));
+    // Espera o primeiro ocupar a thread de envio (preso no Equipamento lento)
+    long limite = System.currentTimeMillis() + 5_000;
+    while (threadsQueEnviaram.isEmpty() && System.currentTimeMillis() < limite) {
+        Thread.sleep(5);
+    }
+    CompletableFuture<ResultadoComandoDTO> naFila = canal.enfileirar(ComandoEquipamentoDTO.destrancar(2));
+    CompletableFuture<ResultadoComandoDTO> recusado = canal.enfileirar(ComandoEquipamentoDTO.destrancar(3));
+
+    assertTrue(recusado.isDone());
+    assertEquals(ResultadoComandoDTO.FALHA, recusado.get().getStatus());
+    assertFalse(threadsQueEnviaram.contains(Thread.currentThread().getName()));
+    assertEquals(1.0, meterRegistry.counter("equipamento.comandos", "envio", "rejeitado").count());
+
+    liberarEquipamento.countDown();
+    assertTrue(enviando.get(5, TimeUnit.SECONDS).isOk());
+    assertTrue(naFila.get(5, TimeUnit.SECONDS).isOk());
+    assertEquals(0, canal.getAguardandoConfirmacao());
+}
+}
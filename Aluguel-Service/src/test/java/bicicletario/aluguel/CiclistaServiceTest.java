@@ -9,12 +9,16 @@ import bicicletario.aluguel.model.CartaoDeCredito;
 import bicicletario.aluguel.model.Ciclista;
 import bicicletario.aluguel.repository.CartaoDeCreditoRepository;
 import bicicletario.aluguel.repository.CiclistaRepository;
+import bicicletario.aluguel.service.NotificacaoService;
 import bicicletario.aluguel.service.CiclistaService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.util.Optional;
 
@@ -34,6 +38,14 @@ private CiclistaRepository ciclistaRepository;
 private CartaoDeCreditoRepository cartaoRepository;
 @Mock
 private ExternoService externoService;
+@Mock
+private NotificacaoService notificacaoService;
+
+@BeforeEach
+void setUp() {
+    // Sem Spring: o bloco transacional roda direto, sem transação real
+    ReflectionTestUtils.setField(ciclistaService, "transactionTemplate", TransactionOperations.withoutTransaction());
+}
 
 // --- TESTES DE CADASTRO (UC01) ---
 
@@ -60,7 +72,7 @@ void cadastrarCiclista_Sucesso() {
 
     // Verifica se salvou o cartão e enviou email
     verify(cartaoRepository).save(any(CartaoDeCredito.class));
-    verify(externoService).enviarEmail(eq("teste@email.com"), anyString(), anyString());
+    verify(notificacaoService).agendarEmail(eq("teste@email.com"), anyString(), anyString());
 }
 
 @Test
@@ -78,7 +90,7 @@ void cadastrarCiclista_Falha_CartaoInvalido() {
     assertEquals("Cartão de crédito inválido", ex.getMessage());
     // Garante que NÃO salvou nada
     verify(ciclistaRepository, never()).save(any());
-    verify(externoService, never()).enviarEmail(any(), any(), any());
+    verify(notificacaoService, never()).agendarEmail(any(), any(), any());
 }
 
 // --- TESTES DE EDIÇÃO (UC06) ---
@@ -103,7 +115,7 @@ void editarCiclista_Sucesso() {
     // Assert
     assertEquals("Nome Novo", resultado.getNome());
     // Agora o mock vai receber o email correto "email@teste.com"
-    verify(externoService).enviarEmail(eq("email@teste.com"), anyString(), anyString());
+    verify(notificacaoService).agendarEmail(eq("email@teste.com"), anyString(), anyString());
 }
 
 @Test
@@ -148,7 +160,7 @@ void alterarCartao_Sucesso() {
     ciclistaService.alterarCartaoDeCredito(1, dto);
 
     verify(cartaoRepository).save(any(CartaoDeCredito.class));
-    verify(externoService).enviarEmail(eq("ciclista@email.com"), anyString(), anyString());
+    verify(notificacaoService).agendarEmail(eq("ciclista@email.com"), anyString(), anyString());
 }
 
 // --- HELPER ---
@@ -0,0 +1,88 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.resiliencia.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+private AtomicLong agora;
+private CircuitBreaker circuito;
+
+@BeforeEach
+void setUp() {
+    agora = new AtomicLong(0);
+    // Janela 10, mínimo 4 chamadas, abre com 50%, 1s aberto, 2 sondas
+    circuito = new CircuitBreaker("teste", 10, 4, 50, 1000, 2, agora::get);
+}
+
+private void falhar(int vezes) {
+    for (int i = 0; i < vezes; i++) {
+        assertTrue(circuito.permiteChamada());
+        circuito.registrarFalha();
+    }
+}
+
+@Test
+void naoAbreAntesDoMinimoDeChamadas() {
+    falhar(3);
+    assertEquals(CircuitBreaker.Estado.FECHADO, circuito.getEstado());
+}
+
+@Test
+void abreQuandoTaxaDeFalhaAtingeLimite_ERejeitaSemChamar() {
+    circuito.registrarSucesso();
+    circuito.registrarSucesso();
+    falhar(2);
+
+    assertEquals(CircuitBreaker.Estado.ABERTO, circuito.getEstado());
+    assertFalse(circuito.permiteChamada());
+    assertEquals(1, circuito.getEstadoAtual().getChamadasRejeitadas());
+}
+
+@Test
+void janelaDeslizanteDescartaResultadosAntigos() {
+    falhar(2);
+    for (int i = 0; i < 10; i++) {
+        circuito.registrarSucesso();
+    }
+    // As 2 falhas saíram da janela: 1 falha em 10 não abre
+    falhar(1);
+    assertEquals(CircuitBreaker.Estado.FECHADO, circuito.getEstado());
+    assertEquals(10.0, circuito.getEstadoAtual().getTaxaFalhaPercentual(), 0.001);
+}
+
+@Test
+void meioAberto_FechaQuandoTodasAsSondasDaoCerto() {
+    falhar(4);
+    agora.set(1000);
+
+    assertTrue(circuito.permiteChamada());
+    assertTrue(circuito.permiteChamada());
+    assertFalse(circuito.permiteChamada()); // Só 2 sondas por vez
+    assertEquals(CircuitBreaker.Estado.MEIO_ABERTO, circuito.getEstado());
+
+    circuito.registrarSucesso();
+    circuito.registrarSucesso();
+    assertEquals(CircuitBreaker.Estado.FECHADO, circuito.getEstado());
+    assertEquals(0, circuito.getEstadoAtual().getChamadasNaJanela());
+}
+
+@Test
+void meioAberto_ReabreNaPrimeiraFalha() {
+    falhar(4);
+    agora.set(1000);
+
+    assertTrue(circuito.permiteChamada());
+    circuito.registrarFalha();
+
+    assertEquals(CircuitBreaker.Estado.ABERTO, circuito.getEstado());
+    assertFalse(circuito.permiteChamada());
+    agora.set(2000);
+    assertTrue(circuito.permiteChamada());
+}
+}
@@ -0,0 +1,221 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.mock.EquipamentoService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comandos ao Equipamento em lote (equipamento.comandos.lote.habilitado=true)
+ * contra um Equipamento falso na rede (HttpServer do JDK): a rajada de
+ * devoluções vira poucas requisições a POST /comandos/lote, cada comando com
+ * a própria confirmação, e sem o endpoint de lote os comandos seguem um a um.
+ */
+@SpringBootTest(properties = {
+        "equipamento.comandos.lote.habilitado=true",
+        "equipamento.comandos.lote.max-comandos=25",
+        "equipamento.comandos.lote.max-espera-ms=100"})
+class ComandosEquipamentoTest {
+
+private static final int RAJADA = 40;
+// Tranca que o Equipamento recusa (422) dentro do lote e na chamada avulsa
+private static final int TRANCA_RECUSADA = 13;
+
+private static HttpServer equipamento;
+private static final ObjectMapper json = new ObjectMapper();
+private static final Map<String, AtomicInteger> chamadas = new ConcurrentHashMap<>();
+private static final List<Integer> tamanhosDosLotes = new ArrayList<>();
+private static volatile boolean loteDisponivel = true;
+
+@Autowired
+private EquipamentoService equipamentoService;
+
+@DynamicPropertySource
+static void equipamentoFalso(DynamicPropertyRegistry registro) throws IOException {
+    equipamento = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    equipamento.createContext("/", ComandosEquipamentoTest::responder);
+    equipamento.setExecutor(Executors.newCachedThreadPool());
+    equipamento.start();
+    String url = "http://127.0.0.1:" + equipamento.getAddress().getPort();
+    registro.add("url.equipamento", () -> url);
+}
+
+@AfterAll
+static void pararEquipamento() {
+    equipamento.stop(0);
+}
+
+@BeforeEach
+void setUp() {
+    chamadas.clear();
+    synchronized (tamanhosDosLotes) {
+        tamanhosDosLotes.clear();
+    }
+    loteDisponivel = true;
+    // Um teste anterior sem lote não deve deixar o canal no modo um a um
+    ReflectionTestUtils.setField(ReflectionTestUtils.getField(equipamentoService, "canalComandos"),
+            "loteIndisponivelAte", 0L);
+}
+
+@Test
+void rajadaDeDevolucoes_PoucasRequisicoesDeLote() throws Exception {
+    rajada(i -> equipamentoService.trancarTranca(100 + i, 500 + i));
+
+    int lotes = chamadasA("/comandos/lote");
+    assertTrue(lotes >= 2 && lotes <= 4, "requisições de lote: " + lotes);
+    assertEquals(0, chamadasA("/tranca/{id}/trancar"));
+    synchronized (tamanhosDosLotes) {
+        assertEquals(RAJADA, tamanhosDosLotes.stream().mapToInt(Integer::intValue).sum());
+        // max-comandos=25 divide a rajada
+        assertTrue(tamanhosDosLotes.stream().allMatch(tamanho -> tamanho <= 25), tamanhosDosLotes.toString());
+    }
+}
+
+@Test
+void comandoRecusadoNoLote_SoEleFalha() throws Exception {
+    List<Throwable> erros = rajada(i -> equipamentoService.destrancarTranca(i + 1));
+
+    assertEquals(1, erros.size());
+    assertTrue(erros.get(0) instanceof IllegalArgumentException);
+    assertEquals("Equipamento recusou o destrancamento: 422 UNPROCESSABLE_ENTITY", erros.get(0).getMessage());
+    assertEquals(0, chamadasA("/tranca/{id}/destrancar"));
+}
+
+@Test
+void equipamentoSemLote_EnviaUmAUmENaoTentaOLoteDeNovo() throws Exception {
+    loteDisponivel = false;
+
+    rajada(i -> equipamentoService.alterarStatusBicicleta(500 + i, "DISPONIVEL"));
+    // Uma tentativa por janela já fechada antes do primeiro 404 (max-comandos=25: até 2)
+    int tentativas = chamadasA("/comandos/lote");
+    assertTrue(tentativas >= 1 && tentativas <= 2, "tentativas de lote: " + tentativas);
+    assertEquals(RAJADA, chamadasA("/bicicleta/{id}/status/DISPONIVEL"));
+
+    List<Throwable> erros = rajada(i -> equipamentoService.destrancarTranca(i + 1));
+    // A segunda rajada já sai um a um, sem nova tentativa do lote
+    assertEquals(tentativas, chamadasA("/comandos/lote"));
+    assertEquals(RAJADA, chamadasA("/tranca/{id}/destrancar"));
+    // A recusa da chamada avulsa vale o mesmo que a do lote
+    assertEquals(1, erros.size());
+    assertTrue(erros.get(0) instanceof IllegalArgumentException);
+}
+
+// --- Rajada: RAJADA comandos ao mesmo tempo; devolve as exceções ---
+
+private interface Comando {
+    void executar(int i);
+}
+
+private List<Throwable> rajada(Comando comando) throws Exception {
+    ExecutorService clientes = Executors.newFixedThreadPool(RAJADA);
+    List<Throwable> erros = new ArrayList<>();
+    try {
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> execucoes = new ArrayList<>();
+        for (int i = 0; i < RAJADA; i++) {
+            int indice = i;
+            execucoes.add(clientes.submit(() -> {
+                largada.await();
+                comando.executar(indice);
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> execucao : execucoes) {
+            try {
+                execucao.get(30, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                erros.add(e.getCause());
+            }
+        }
+    } finally {
+        clientes.shutdownNow();
+    }
+    return erros;
+}
+
+// --- Equipamento falso ---
+
+private static void responder(HttpExchange troca) throws IOException {
+    String caminho = troca.getRequestURI().getPath();
+    String rota = caminho.replaceAll("/\\d+", "/{id}");
+    chamadas.computeIfAbsent(rota, r -> new AtomicInteger()).incrementAndGet();
+    byte[] entrada = StreamUtils.copyToByteArray(troca.getRequestBody());
+    try {
+        if ("/comandos/lote".equals(rota)) {
+            if (!loteDisponivel) {
+                enviar(troca, 404, "{\"codigo\": \"404\", \"mensagem\": \"Not Found\"}");
+                return;
+            }
+            List<Map<String, Object>> comandos = json.readValue(entrada, new TypeReference<List<Map<String, Object>>>() { });
+            synchronized (tamanhosDosLotes) {
+                tamanhosDosLotes.add(comandos.size());
+            }
+            List<Map<String, Object>> resultados = new ArrayList<>();
+            for (Map<String, Object> comando : comandos) {
+                Map<String, Object> resultado = new HashMap<>();
+                resultado.put("id", comando.get("id"));
+                if (Integer.valueOf(TRANCA_RECUSADA).equals(comando.get("idTranca"))) {
+                    resultado.put("status", "RECUSADO");
+                    resultado.put("codigo", 422);
+                    resultado.put("mensagem", "Tranca em reparo");
+                } else {
+                    resultado.put("status", "OK");
+                }
+                resultados.add(resultado);
+            }
+            enviar(troca, 200, json.writeValueAsString(resultados));
+        } else if (("/tranca/" + TRANCA_RECUSADA + "/destrancar").equals(caminho)) {
+            enviar(troca, 422, "{\"codigo\": \"422\", \"mensagem\": \"Tranca em reparo\"}");
+        } else {
+            enviar(troca, 200, null);
+        }
+    } finally {
+        troca.close();
+    }
+}
+
+private static void enviar(HttpExchange troca, int status, String corpoJson) throws IOException {
+    if (corpoJson == null) {
+        troca.sendResponseHeaders(status, -1);
+        return;
+    }
+    byte[] corpo = corpoJson.getBytes(StandardCharsets.UTF_8);
+    troca.getResponseHeaders().set("Content-Type", "application/json");
+    troca.sendResponseHeaders(status, corpo.length);
+    troca.getResponseBody().write(corpo);
+}
+
+private int chamadasA(String rota) {
+    AtomicInteger total = chamadas.get(rota);
+    return total == null ? 0 : total.get();
+}
+}
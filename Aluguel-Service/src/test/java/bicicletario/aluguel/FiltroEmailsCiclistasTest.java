@@ -0,0 +1,139 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.repository.CiclistaRepository;
+import bicicletario.aluguel.service.FiltroBloom;
+import bicicletario.aluguel.service.FiltroEmailsCiclistas;
+import bicicletario.aluguel.service.SnapshotInicializacao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FiltroEmailsCiclistasTest {
+
+@InjectMocks
+private FiltroEmailsCiclistas filtroEmails;
+
+@Mock
+private CiclistaRepository ciclistaRepository;
+
+// Sem snapshot: carga completa do banco
+@Mock
+private SnapshotInicializacao snapshot;
+
+private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+@BeforeEach
+void setUp() {
+    ReflectionTestUtils.setField(filtroEmails, "meterRegistry", meterRegistry);
+    ReflectionTestUtils.setField(filtroEmails, "capacidade", 1000L);
+    ReflectionTestUtils.setField(filtroEmails, "taxaFalsoPositivo", 0.01);
+    when(ciclistaRepository.count()).thenReturn(2L);
+    when(ciclistaRepository.findAllEmails()).thenReturn(Arrays.asList("ana@teste.com", "Bruno@Teste.com"));
+    filtroEmails.carregar();
+}
+
+@Test
+void filtroBloom_SemFalsoNegativoETaxaPertoDaPedida() {
+    FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+    for (int i = 0; i < 10_000; i++) {
+        filtro.adicionar("ciclista" + i + "@teste.com");
+    }
+    for (int i = 0; i < 10_000; i++) {
+        assertTrue(filtro.podeConter("ciclista" + i + "@teste.com"));
+    }
+    int falsosPositivos = 0;
+    for (int i = 0; i < 100_000; i++) {
+        if (filtro.podeConter("outro" + i + "@teste.com")) {
+            falsosPositivos++;
+        }
+    }
+    assertTrue(falsosPositivos < 2_000, "Falsos positivos: " + falsosPositivos); // Pedido: ~1%
+    assertEquals(0.01, filtro.taxaFalsoPositivoEstimada(), 0.005);
+}
+
+@Test
+void emailNuncaCadastrado_RespondeSemIrAoBanco() {
+    assertFalse(filtroEmails.emailEmUso("novo@teste.com"));
+
+    verify(ciclistaRepository, never()).existsByEmail(anyString());
+    assertEquals(1.0, meterRegistry.counter("ciclista.email.filtro.consultas", "resultado", "negativo").count());
+}
+
+@Test
+void emailTalvezCadastrado_ConfirmaNoBanco() {
+    when(ciclistaRepository.existsByEmail("ana@teste.com")).thenReturn(true);
+
+    assertTrue(filtroEmails.emailEmUso("ana@teste.com"));
+    verify(ciclistaRepository).existsByEmail("ana@teste.com");
+}
+
+@Test
+void adicionar_EmailPassaAIrAoBanco() {
+    filtroEmails.adicionar("Carla@Teste.com");
+    when(ciclistaRepository.existsByEmail("carla@teste.com")).thenReturn(false);
+
+    // Maiúsculas/minúsculas caem no mesmo bit; a resposta final é a do banco
+    assertFalse(filtroEmails.emailEmUso("carla@teste.com"));
+    verify(ciclistaRepository).existsByEmail("carla@teste.com");
+    assertEquals(1.0, meterRegistry.get("ciclista.email.filtro.falsos.positivos").counter().count());
+}
+
+@Test
+void reconstruir_DescartaEmailsQueSairamDoBanco() {
+    when(ciclistaRepository.count()).thenReturn(1L);
+    when(ciclistaRepository.findAllEmails()).thenReturn(Arrays.asList("ana@teste.com"));
+
+    filtroEmails.reconstruir();
+
+    assertFalse(filtroEmails.emailEmUso("bruno@teste.com"));
+    assertEquals(1, filtroEmails.getEstado().getElementos());
+}
+
+@Test
+void sincronizar_TrazEmailsCadastradosEmOutraInstancia() {
+    ReflectionTestUtils.setField(filtroEmails, "margemSincronizacaoMs", 60_000L);
+    when(ciclistaRepository.findEmailsAlteradosDesde(any(LocalDateTime.class)))
+            .thenReturn(Arrays.asList("Dora@Teste.com"));
+    when(ciclistaRepository.existsByEmail("dora@teste.com")).thenReturn(true);
+
+    filtroEmails.sincronizar();
+
+    assertTrue(filtroEmails.emailEmUso("dora@teste.com"));
+    verify(ciclistaRepository).existsByEmail("dora@teste.com");
+}
+
+@Test
+void sincronizar_PedeSoOQueMudouDesdeAUltimaLeituraMenosAMargem() {
+    ReflectionTestUtils.setField(filtroEmails, "margemSincronizacaoMs", 60_000L);
+    when(ciclistaRepository.findEmailsAlteradosDesde(any(LocalDateTime.class))).thenReturn(Collections.emptyList());
+
+    filtroEmails.sincronizar();
+    LocalDateTime entreAsPassadas = LocalDateTime.now();
+    filtroEmails.sincronizar();
+
+    ArgumentCaptor<LocalDateTime> desde = ArgumentCaptor.forClass(LocalDateTime.class);
+    verify(ciclistaRepository, times(2)).findEmailsAlteradosDesde(desde.capture());
+    // 1a passada: desde a carga inicial; 2a: desde o início da 1a (ambas menos a margem)
+    LocalDateTime primeira = desde.getAllValues().get(0);
+    LocalDateTime segunda = desde.getAllValues().get(1);
+    assertFalse(primeira.isAfter(entreAsPassadas.minusSeconds(60)));
+    assertFalse(segunda.isBefore(primeira));
+    assertFalse(segunda.isAfter(entreAsPassadas.minusSeconds(60)));
+}
+}
@@ -11,7 +11,12 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -121,6 +126,59 @@ void testRecuperarFuncionarios_DeveRetornar200OK() throws Exception {
             .andExpect(jsonPath("$[0].nome").value("Funcionario Teste")); // Pega o primeiro da lista
 }
 
+/**
+ * GET /funcionario paginado e ordenado: só a página pedida no corpo, total no X-Total-Count.
+ */
+@Test
+void testRecuperarFuncionarios_Paginado_DeveRetornarPaginaETotal() throws Exception {
+    // --- 1. Organizar (Arrange) ---
+    for (String nome : new String[] {"Carla", "Ana", "Bruno", "Davi", "Eva"}) {
+        Funcionario funcionario = converterDtoParaEntidade(criarNovoFuncionarioDTOValido());
+        funcionario.setNome(nome);
+        repository.save(funcionario);
+    }
+
+    // --- 2. Agir (Act) ---
+    mockMvc.perform(get("/funcionario").param("page", "1").param("size", "2").param("sort", "nome,asc"))
+
+            // --- 3. Afirmar (Assert) ---
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "5"))
+            .andExpect(header().string("Link", containsString("rel=\"prev\"")))
+            .andExpect(header().string("Link", containsString("rel=\"next\"")))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].nome").value("Carla"))
+            .andExpect(jsonPath("$[1].nome").value("Davi"));
+}
+
+/**
+ * GET /funcionario/exportar: todos os funcionários, um JSON por linha (NDJSON).
+ */
+@Test
+void testExportarFuncionarios_DeveRetornarUmaLinhaPorFuncionario() throws Exception {
+    // --- 1. Organizar (Arrange) ---
+    for (int i = 0; i < 3; i++) {
+        repository.save(converterDtoParaEntidade(criarNovoFuncionarioDTOValido()));
+    }
+
+    // --- 2. Agir (Act) ---
+    MvcResult resultado = mockMvc.perform(get("/funcionario/exportar"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // --- 3. Afirmar (Assert) ---
+    String corpo = mockMvc.perform(asyncDispatch(resultado))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andReturn().getResponse().getContentAsString();
+    String[] linhas = corpo.split("\n");
+    assertEquals(3, linhas.length);
+    for (String linha : linhas) {
+        assertTrue(objectMapper.readTree(linha).has("nome"));
+        assertFalse(objectMapper.readTree(linha).has("senha"));
+    }
+}
+
 // --- TESTES PARA GET /funcionario/{id} ---
 
 /**
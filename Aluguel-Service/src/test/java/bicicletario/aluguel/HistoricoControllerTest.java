@@ -0,0 +1,124 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.model.Aluguel;
+import bicicletario.aluguel.repository.AluguelRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class HistoricoControllerTest {
+
+private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 8, 0);
+
+@Autowired
+private MockMvc mockMvc;
+
+@Autowired
+private AluguelRepository aluguelRepository;
+
+@Autowired
+private ObjectMapper objectMapper;
+
+// Ids na ordem esperada do histórico (mais recente primeiro)
+private final List<Integer> esperadosCiclista = new ArrayList<>();
+
+@BeforeEach
+void setUp() {
+    aluguelRepository.deleteAll();
+    // Ciclista 1: 5 aluguéis fechados, dois com a mesma horaInicio (desempate pelo id)
+    int[] horas = {0, 1, 1, 2, 3};
+    List<Aluguel> salvos = new ArrayList<>();
+    for (int hora : horas) {
+        salvos.add(aluguelRepository.save(aluguel(1, 100 + hora, BASE.plusHours(hora))));
+    }
+    for (int i = salvos.size() - 1; i >= 0; i--) {
+        esperadosCiclista.add(salvos.get(i).getId());
+    }
+    // Outro ciclista, mesma bicicleta de um dos aluguéis acima
+    aluguelRepository.save(aluguel(2, 101, BASE.plusDays(1)));
+}
+
+@AfterEach
+void tearDown() {
+    aluguelRepository.deleteAll();
+}
+
+@Test
+void historicoDoCiclista_PercorreTodasAsPaginasSemRepetir() throws Exception {
+    List<Integer> recebidos = new ArrayList<>();
+    String cursor = null;
+    int paginas = 0;
+    do {
+        MockHttpServletRequestBuilder requisicao = get("/ciclista/1/alugueis").param("limite", "2");
+        if (cursor != null) {
+            requisicao.param("cursor", cursor);
+        }
+        JsonNode pagina = ler(requisicao);
+        pagina.get("alugueis").forEach(a -> recebidos.add(a.get("id").asInt()));
+        cursor = pagina.get("proximoCursor").isNull() ? null : pagina.get("proximoCursor").asText();
+        paginas++;
+    } while (cursor != null);
+
+    assertEquals(esperadosCiclista, recebidos);
+    assertEquals(3, paginas);
+}
+
+@Test
+void historicoDaBicicleta_SoOsAlugueisDela() throws Exception {
+    JsonNode pagina = ler(get("/bicicleta/101/alugueis"));
+
+    assertEquals(3, pagina.get("alugueis").size());
+    assertEquals(2, pagina.get("alugueis").get(0).get("ciclista").asInt());
+    assertTrue(pagina.get("proximoCursor").isNull());
+}
+
+@Test
+void historicoDoPeriodo_DeInclusivoAteExclusivo() throws Exception {
+    JsonNode pagina = ler(get("/alugueis")
+            .param("de", BASE.plusHours(1).toString())
+            .param("ate", BASE.plusHours(3).toString()));
+
+    assertEquals(3, pagina.get("alugueis").size());
+}
+
+@Test
+void cursorInvalido_DeveRetornar400() throws Exception {
+    mockMvc.perform(get("/ciclista/1/alugueis").param("cursor", "nao-e-um-cursor"))
+            .andExpect(status().isBadRequest());
+}
+
+private JsonNode ler(MockHttpServletRequestBuilder requisicao) throws Exception {
+    String corpo = mockMvc.perform(requisicao)
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+    return objectMapper.readTree(corpo);
+}
+
+private Aluguel aluguel(Integer ciclista, Integer bicicleta, LocalDateTime inicio) {
+    Aluguel aluguel = new Aluguel();
+    aluguel.setCiclista(ciclista);
+    aluguel.setBicicleta(bicicleta);
+    aluguel.setTrancaInicio(10);
+    aluguel.setTrancaFim(20);
+    aluguel.setHoraInicio(inicio);
+    aluguel.setHoraFim(inicio.plusMinutes(30));
+    return aluguel;
+}
+}
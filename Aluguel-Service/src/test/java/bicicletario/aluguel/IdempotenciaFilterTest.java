@@ -0,0 +1,93 @@
+package bicicletario.aluguel;
+
+import bicicletario.idempotencia.ArmazemIdempotencia;
+import bicicletario.idempotencia.IdempotenciaFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// O controller recebe uma cópia do corpo já lido pelo filtro: leitura bloqueante e não bloqueante
+class IdempotenciaFilterTest {
+
+private IdempotenciaFilter filtro;
+
+@BeforeEach
+void setUp() {
+    ArmazemIdempotencia armazem = new ArmazemIdempotencia();
+    ReflectionTestUtils.setField(armazem, "maxEntradas", 10);
+    ReflectionTestUtils.setField(armazem, "ttlMs", 10_000L);
+    ReflectionTestUtils.setField(armazem, "emAndamentoExpiraMs", 1_000L);
+    filtro = new IdempotenciaFilter(armazem, new SimpleMeterRegistry(), new ObjectMapper());
+}
+
+private MockHttpServletRequest requisicao(String corpo) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/aluguel");
+    request.addHeader(IdempotenciaFilter.CABECALHO_CHAVE, "k1");
+    request.setContent(corpo.getBytes(StandardCharsets.UTF_8));
+    return request;
+}
+
+@Test
+void corpoEmCache_LeituraNaoBloqueanteRecebeOCorpoInteiro() throws Exception {
+    List<String> eventos = new ArrayList<>();
+    ByteArrayOutputStream lido = new ByteArrayOutputStream();
+    FilterChain controller = (request, response) -> {
+        ServletInputStream entrada = request.getInputStream();
+        entrada.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                eventos.add("dados");
+                int b;
+                while (entrada.isReady() && !entrada.isFinished() && (b = entrada.read()) != -1) {
+                    lido.write(b);
+                }
+            }
+            @Override
+            public void onAllDataRead() { eventos.add("fim"); }
+            @Override
+            public void onError(Throwable t) { eventos.add("erro"); }
+        });
+        response.getWriter().write("ok");
+    };
+
+    filtro.doFilter(requisicao("{\"ciclista\": 1}"), new MockHttpServletResponse(), controller);
+
+    assertEquals("{\"ciclista\": 1}", new String(lido.toByteArray(), StandardCharsets.UTF_8));
+    assertEquals(2, eventos.size());
+    assertEquals("dados", eventos.get(0));
+    assertEquals("fim", eventos.get(1));
+}
+
+@Test
+void corpoVazio_LeituraNaoBloqueanteSoRecebeOFim() throws Exception {
+    List<String> eventos = new ArrayList<>();
+    FilterChain controller = (request, response) -> request.getInputStream().setReadListener(new ReadListener() {
+        @Override
+        public void onDataAvailable() { eventos.add("dados"); }
+        @Override
+        public void onAllDataRead() { eventos.add("fim"); }
+        @Override
+        public void onError(Throwable t) { eventos.add("erro"); }
+    });
+
+    filtro.doFilter(requisicao(""), new MockHttpServletResponse(), controller);
+
+    assertEquals(1, eventos.size());
+    assertEquals("fim", eventos.get(0));
+}
+}
@@ -0,0 +1,141 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.dto.BicicletaDTO;
+import bicicletario.aluguel.dto.CobrancaDTO;
+import bicicletario.aluguel.mock.EquipamentoService;
+import bicicletario.aluguel.mock.ExternoService;
+import bicicletario.aluguel.model.Ciclista;
+import bicicletario.aluguel.repository.AluguelRepository;
+import bicicletario.aluguel.repository.CiclistaRepository;
+import bicicletario.aluguel.repository.NotificacaoEmailRepository;
+import bicicletario.idempotencia.RespostaIdempotenteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * POST /aluguel repetido com a mesma Idempotency-Key (cliente que reenvia após
+ * timeout): um único aluguel e uma única cobrança. Roda com a persistência no
+ * banco ligada, o caminho usado com várias instâncias.
+ */
+@SpringBootTest(properties = "idempotencia.persistir=true")
+@AutoConfigureMockMvc
+class IdempotenciaTest {
+
+@Autowired
+private MockMvc mockMvc;
+@Autowired
+private AluguelRepository aluguelRepository;
+@Autowired
+private CiclistaRepository ciclistaRepository;
+@Autowired
+private NotificacaoEmailRepository notificacaoEmailRepository;
+@Autowired
+private RespostaIdempotenteRepository respostaIdempotenteRepository;
+
+// Serviços remotos simulados: sem rede no teste
+@MockBean
+private EquipamentoService equipamentoService;
+@MockBean
+private ExternoService externoService;
+
+private String corpoAluguel;
+
+@BeforeEach
+void setUp() {
+    Ciclista ciclista = new Ciclista();
+    ciclista.setStatus("ATIVO");
+    ciclista.setNome("Cliente Repetido");
+    ciclista.setEmail("repetido@teste.com");
+    Integer idCiclista = ciclistaRepository.save(ciclista).getId();
+    corpoAluguel = "{\"ciclista\": " + idCiclista + ", \"trancaInicio\": 10}";
+
+    BicicletaDTO bicicleta = new BicicletaDTO();
+    bicicleta.setId(77);
+    bicicleta.setStatus("DISPONIVEL");
+    when(equipamentoService.getBicicletaDaTranca(any())).thenReturn(bicicleta);
+    CobrancaDTO cobranca = new CobrancaDTO();
+    cobranca.setId(1);
+    cobranca.setStatus("PAGA");
+    when(externoService.realizarCobranca(anyDouble(), any(), any())).thenReturn(cobranca);
+}
+
+@AfterEach
+void tearDown() {
+    aluguelRepository.deleteAll();
+    ciclistaRepository.deleteAll();
+    notificacaoEmailRepository.deleteAll();
+    respostaIdempotenteRepository.deleteAll();
+}
+
+@Test
+void mesmaChave_RepeticaoDevolveMesmaRespostaSemCobrarDeNovo() throws Exception {
+    MvcResult primeira = mockMvc.perform(post("/aluguel")
+                    .header("Idempotency-Key", "chave-1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(corpoAluguel))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("Idempotent-Replayed"))
+            .andReturn();
+
+    MvcResult repetida = mockMvc.perform(post("/aluguel")
+                    .header("Idempotency-Key", "chave-1")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(corpoAluguel))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Idempotent-Replayed", "true"))
+            .andReturn();
+
+    assertEquals(primeira.getResponse().getContentAsString(), repetida.getResponse().getContentAsString());
+    assertEquals(1, aluguelRepository.count());
+    verify(externoService, times(1)).realizarCobranca(anyDouble(), any(), any());
+    verify(equipamentoService, times(1)).destrancarTranca(10);
+}
+
+@Test
+void mesmaChave_OutroCorpo_Retorna422() throws Exception {
+    mockMvc.perform(post("/aluguel")
+                    .header("Idempotency-Key", "chave-2")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(corpoAluguel))
+            .andExpect(status().isOk());
+
+    mockMvc.perform(post("/aluguel")
+                    .header("Idempotency-Key", "chave-2")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"ciclista\": 999, \"trancaInicio\": 10}"))
+            .andExpect(status().isUnprocessableEntity())
+            .andExpect(jsonPath("$.codigo").value("Idempotency-Key"));
+}
+
+@Test
+void semChave_CadaRequisicaoEProcessada() throws Exception {
+    mockMvc.perform(post("/aluguel")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(corpoAluguel))
+            .andExpect(status().isOk());
+
+    // Sem a chave não há deduplicação: a segunda esbarra na regra de um aluguel por ciclista
+    mockMvc.perform(post("/aluguel")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(corpoAluguel))
+            .andExpect(status().isUnprocessableEntity());
+    assertEquals(0, respostaIdempotenteRepository.count());
+}
+}
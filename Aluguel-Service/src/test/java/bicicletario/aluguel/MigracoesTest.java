@@ -0,0 +1,124 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.model.Aluguel;
+import bicicletario.aluguel.model.Ciclista;
+import bicicletario.aluguel.repository.AluguelRepository;
+import bicicletario.aluguel.repository.CiclistaRepository;
+import bicicletario.aluguel.repository.DevolucaoRepository;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Esquema criado só pelas migrações do H2 e conferido pelo Hibernate (ddl-auto=validate):
+// o contexto nem sobe se uma entidade não bate com os scripts. O banco parte do formato
+// da linha de base (ddl-auto=update), como uma base de produção antiga: coluna nova numa
+// entidade sem o ALTER TABLE correspondente derruba este teste.
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + MigracoesTest.URL_LINHA_DE_BASE,
+        "spring.flyway.enabled=true",
+        "spring.flyway.locations=classpath:db/migration/{vendor}",
+        "spring.flyway.baseline-on-migrate=true",
+        "spring.flyway.baseline-version=0",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+class MigracoesTest {
+
+static final String URL_LINHA_DE_BASE = "jdbc:h2:mem:migracoes;DB_CLOSE_DELAY=-1";
+
+@Autowired
+private Flyway flyway;
+
+@Autowired
+private AluguelRepository aluguelRepository;
+
+@Autowired
+private CiclistaRepository ciclistaRepository;
+
+@Autowired
+private DevolucaoRepository devolucaoRepository;
+
+// Roda antes do contexto (e do Flyway) subir
+@BeforeAll
+static void criarLinhaDeBase() throws SQLException {
+    try (Connection conexao = DriverManager.getConnection(URL_LINHA_DE_BASE, "sa", "")) {
+        ScriptUtils.executeSqlScript(conexao, new ClassPathResource("db/linha-de-base-h2.sql"));
+    }
+}
+
+@Test
+void linhaDeBase_MigradaAteAsEntidadesAtuais() {
+    MigrationInfo[] aplicadas = flyway.info().applied();
+    assertEquals(MigrationType.BASELINE, aplicadas[0].getType());
+    assertEquals("0", aplicadas[0].getVersion().getVersion());
+    assertEquals(0, flyway.info().pending().length);
+
+    // Os dados da linha de base continuam lá, com as colunas novas nulas
+    Ciclista antigo = ciclistaRepository.findAll().stream()
+            .filter(c -> "linhadebase@teste.com".equals(c.getEmail())).findFirst().get();
+    assertNull(antigo.getPlano());
+    assertNull(antigo.getAtualizadoEm());
+    assertTrue(aluguelRepository.findByCiclistaAndHoraFimIsNull(antigo.getId()).isPresent());
+
+    // Rodar de novo não aplica nada
+    assertEquals(0, flyway.migrate().migrationsExecuted);
+}
+
+@Test
+void esquema_GravaELeAsEntidades() {
+    Aluguel aluguel = new Aluguel();
+    aluguel.setCiclista(1);
+    aluguel.setBicicleta(20);
+    aluguel.setHoraInicio(LocalDateTime.now().minusHours(1));
+    aluguel.setHoraFim(LocalDateTime.now());
+    aluguel = aluguelRepository.save(aluguel);
+
+    Ciclista ciclista = new Ciclista();
+    ciclista.setEmail("migracoes@teste.com");
+    ciclista.setPlano("ESTUDANTE");
+    ciclista = ciclistaRepository.save(ciclista);
+
+    // Devolucao é a projeção dos aluguéis fechados sobre a tabela aluguel
+    assertTrue(devolucaoRepository.findById(aluguel.getId()).isPresent());
+    Ciclista lido = ciclistaRepository.findById(ciclista.getId()).get();
+    assertNotNull(lido.getAtualizadoEm());
+    assertEquals("ESTUDANTE", lido.getPlano());
+    assertTrue(ciclistaRepository.existsByEmail("migracoes@teste.com"));
+
+    aluguelRepository.delete(aluguel);
+    ciclistaRepository.delete(ciclista);
+}
+
+// Banco novo: mesmas migrações, sem linha de base
+@Nested
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:migracoes-vazio")
+class BancoVazio {
+
+    @Autowired
+    private Flyway flywayVazio;
+
+    @Test
+    void migracoes_AplicadasUmaVezEEsquemaValido() {
+        MigrationInfo[] aplicadas = flywayVazio.info().applied();
+        assertEquals("1", aplicadas[0].getVersion().getVersion());
+        assertEquals(flyway.info().current().getVersion(), flywayVazio.info().current().getVersion());
+        assertEquals(0, flywayVazio.info().pending().length);
+
+        assertEquals(0, flywayVazio.migrate().migrationsExecuted);
+    }
+}
+}
@@ -0,0 +1,126 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.model.RegraTarifa;
+import bicicletario.aluguel.model.TabelaTarifa;
+import bicicletario.aluguel.tarifa.MotorTarifa;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MotorTarifaTest {
+
+private static final LocalDateTime RETIRADA = LocalDateTime.of(2024, 5, 10, 9, 0);
+
+private MotorTarifa motor;
+
+@BeforeEach
+void setUp() {
+    motor = new MotorTarifa();
+    motor.carregar(Collections.singletonList(TabelaTarifa.padrao()));
+}
+
+@Test
+void tabelaPadrao_MesmoValorDaRegraOriginal() {
+    for (long minutos = 0; minutos <= 24 * 60; minutos++) {
+        assertEquals(regraOriginalEmCentavos(minutos),
+                motor.calcularCentavos(RETIRADA, RETIRADA.plusMinutes(minutos), 1, null),
+                "minutos: " + minutos);
+    }
+}
+
+@Test
+void segundosNaoCompletamOMinuto() {
+    LocalDateTime inicio = RETIRADA.plusNanos(500_000_000);
+    // 150min59.5s: 150 minutos completos, como Duration.toMinutes
+    LocalDateTime fim = inicio.plusMinutes(150).plusSeconds(59).plusNanos(500_000_000);
+
+    assertEquals(500, motor.calcularCentavos(inicio, fim, 1, null));
+    assertEquals(1000, motor.calcularCentavos(inicio, fim.plusNanos(500_000_000), 1, null));
+}
+
+@Test
+void valorEmReais_DuasCasasDecimais() {
+    BigDecimal valor = motor.calcularValorExtra(RETIRADA, RETIRADA.plusMinutes(121), 1, null);
+
+    assertEquals(new BigDecimal("5.00"), valor);
+}
+
+@Test
+void primeiraRegraQueSeAplica_Vence() {
+    RegraTarifa estudante = new RegraTarifa();
+    estudante.setPlano("ESTUDANTE");
+    estudante.setFranquiaMinutos(180);
+    RegraTarifa estacaoCentral = new RegraTarifa();
+    estacaoCentral.setTrancas("30, 10, 20");
+    estacaoCentral.setValorPeriodoCentavos(300L);
+    TabelaTarifa tabela = versao(2, LocalDateTime.of(2024, 1, 1, 0, 0), estudante, estacaoCentral);
+    motor.carregar(Collections.singletonList(tabela));
+
+    // 200 min: padrão = 3 períodos de R$ 5,00
+    assertEquals(1500, motor.calcularCentavos(RETIRADA, RETIRADA.plusMinutes(200), 1, null));
+    // Estudante: franquia de 3h, 1 período
+    assertEquals(500, motor.calcularCentavos(RETIRADA, RETIRADA.plusMinutes(200), 20, "ESTUDANTE"));
+    // Estação central: R$ 3,00 por período
+    assertEquals(900, motor.calcularCentavos(RETIRADA, RETIRADA.plusMinutes(200), 20, null));
+}
+
+@Test
+void faixaDeHorario_AtravessaAMeiaNoite() {
+    RegraTarifa noturna = new RegraTarifa();
+    noturna.setRetiradaDe(LocalTime.of(22, 0));
+    noturna.setRetiradaAte(LocalTime.of(6, 0));
+    noturna.setValorPeriodoCentavos(0L);
+    motor.carregar(Collections.singletonList(versao(2, LocalDateTime.of(2024, 1, 1, 0, 0), noturna)));
+
+    LocalDateTime vinteETresHoras = RETIRADA.withHour(23);
+    LocalDateTime cincoHoras = RETIRADA.withHour(5);
+    assertEquals(0, motor.calcularCentavos(vinteETresHoras, vinteETresHoras.plusMinutes(300), 1, null));
+    assertEquals(0, motor.calcularCentavos(cincoHoras, cincoHoras.plusMinutes(300), 1, null));
+    assertEquals(3000, motor.calcularCentavos(RETIRADA, RETIRADA.plusMinutes(300), 1, null));
+}
+
+@Test
+void versaoVigenteNaRetirada_EhAUsada() {
+    TabelaTarifa reajuste = versao(2, RETIRADA);
+    reajuste.setValorPeriodoCentavos(700);
+    motor.carregar(Collections.singletonList(reajuste));
+
+    LocalDateTime antes = RETIRADA.minusMinutes(1);
+    assertEquals(500, motor.calcularCentavos(antes, antes.plusMinutes(150), 1, null));
+    assertEquals(700, motor.calcularCentavos(RETIRADA, RETIRADA.plusMinutes(150), 1, null));
+}
+
+@Test
+void tabelaInvalida_NaoECarregada() {
+    TabelaTarifa invalida = versao(2, RETIRADA);
+    invalida.setPeriodoMinutos(0);
+
+    assertThrows(IllegalArgumentException.class, () -> motor.carregar(Arrays.asList(invalida)));
+    assertEquals(500, motor.calcularCentavos(RETIRADA, RETIRADA.plusMinutes(150), 1, null));
+}
+
+// Implementação anterior (AluguelService.calcularValorExtra), em centavos
+private long regraOriginalEmCentavos(long minutosTotais) {
+    long minutos = Duration.ofMinutes(minutosTotais).toMinutes();
+    if (minutos <= 120) {
+        return 0;
+    }
+    return (long) Math.ceil((minutos - 120) / 30.0) * 500;
+}
+
+private TabelaTarifa versao(int numero, LocalDateTime vigenteDesde, RegraTarifa... regras) {
+    TabelaTarifa tabela = TabelaTarifa.padrao();
+    tabela.setVersao(numero);
+    tabela.setVigenteDesde(vigenteDesde);
+    tabela.setRegras(Arrays.asList(regras));
+    return tabela;
+}
+}
@@ -0,0 +1,140 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.mock.ExternoService;
+import bicicletario.aluguel.model.NotificacaoEmail;
+import bicicletario.aluguel.repository.NotificacaoEmailRepository;
+import bicicletario.aluguel.service.NotificacaoDispatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificacaoDispatcherTest {
+
+@InjectMocks
+private NotificacaoDispatcher dispatcher;
+
+@Mock
+private NotificacaoEmailRepository notificacaoRepository;
+@Mock
+private ExternoService externoService;
+
+@BeforeEach
+void setUp() {
+    ReflectionTestUtils.setField(dispatcher, "tamanhoLote", 10);
+    ReflectionTestUtils.setField(dispatcher, "maxTentativas", 3);
+    ReflectionTestUtils.setField(dispatcher, "backoffInicialMs", 1000L);
+    ReflectionTestUtils.setField(dispatcher, "backoffMaximoMs", 60000L);
+    ReflectionTestUtils.setField(dispatcher, "reivindicacaoExpiraMs", 300000L);
+}
+
+// O email 1 está disponível e esta instância ganha a reivindicação
+private void reivindicado(NotificacaoEmail notificacao) {
+    when(notificacaoRepository.findIdsDisponiveis(any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(Collections.singletonList(notificacao.getId()));
+    when(notificacaoRepository.reivindicar(eq(Collections.singletonList(notificacao.getId())), anyString(),
+            any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(1);
+    when(notificacaoRepository.findByLoteOrderByIdAsc(anyString())).thenReturn(Collections.singletonList(notificacao));
+}
+
+@Test
+void despachar_Sucesso_MarcaComoEnviado() {
+    NotificacaoEmail notificacao = criarPendente(0);
+    reivindicado(notificacao);
+    when(notificacaoRepository.marcarEnviado(eq(1), anyString(), any(LocalDateTime.class))).thenReturn(1);
+
+    dispatcher.despachar();
+
+    verify(externoService).enviarEmail("ciclista@email.com", "Assunto", "Mensagem");
+    verify(notificacaoRepository).marcarEnviado(eq(1), anyString(), any(LocalDateTime.class));
+}
+
+@Test
+void despachar_GravaOResultadoComOMesmoLoteReivindicado() {
+    NotificacaoEmail notificacao = criarPendente(0);
+    reivindicado(notificacao);
+    when(notificacaoRepository.marcarEnviado(eq(1), anyString(), any(LocalDateTime.class))).thenReturn(1);
+
+    dispatcher.despachar();
+
+    ArgumentCaptor<String> loteReivindicado = ArgumentCaptor.forClass(String.class);
+    verify(notificacaoRepository).reivindicar(any(), loteReivindicado.capture(), any(LocalDateTime.class), any(LocalDateTime.class));
+    verify(notificacaoRepository).findByLoteOrderByIdAsc(loteReivindicado.getValue());
+    verify(notificacaoRepository).marcarEnviado(eq(1), eq(loteReivindicado.getValue()), any(LocalDateTime.class));
+}
+
+@Test
+void despachar_OutraInstanciaReivindicouAntes_NaoEnvia() {
+    when(notificacaoRepository.findIdsDisponiveis(any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
+            .thenReturn(Collections.singletonList(1));
+    when(notificacaoRepository.reivindicar(any(), anyString(), any(LocalDateTime.class), any(LocalDateTime.class)))
+            .thenReturn(0);
+
+    dispatcher.despachar();
+
+    verify(externoService, never()).enviarEmail(any(), any(), any());
+    verify(notificacaoRepository, never()).findByLoteOrderByIdAsc(anyString());
+}
+
+@Test
+void despachar_FalhaNoExterno_ReagendaComBackoff() {
+    NotificacaoEmail notificacao = criarPendente(1);
+    reivindicado(notificacao);
+    doThrow(new ResourceAccessException("Connection refused"))
+            .when(externoService).enviarEmail(any(), any(), any());
+
+    LocalDateTime antes = LocalDateTime.now();
+    dispatcher.despachar();
+
+    // O email NÃO é perdido: volta para a fila, com a próxima tentativa adiada (2ª tentativa = 2s)
+    ArgumentCaptor<LocalDateTime> proximaTentativa = ArgumentCaptor.forClass(LocalDateTime.class);
+    verify(notificacaoRepository).devolverParaFila(eq(1), anyString(), eq(2), eq("Connection refused"),
+            proximaTentativa.capture());
+    assertTrue(proximaTentativa.getValue().isAfter(antes.plusSeconds(1)));
+    verify(notificacaoRepository, never()).marcarFalha(any(), any(), anyInt(), any());
+}
+
+@Test
+void despachar_TentativasEsgotadas_MarcaComoFalha() {
+    NotificacaoEmail notificacao = criarPendente(2);
+    reivindicado(notificacao);
+    doThrow(new ResourceAccessException("Connection refused"))
+            .when(externoService).enviarEmail(any(), any(), any());
+
+    dispatcher.despachar();
+
+    verify(notificacaoRepository).marcarFalha(eq(1), anyString(), eq(3), eq("Connection refused"));
+    verify(notificacaoRepository, never()).devolverParaFila(any(), any(), anyInt(), any(), any());
+}
+
+// --- HELPER ---
+private NotificacaoEmail criarPendente(int tentativas) {
+    NotificacaoEmail notificacao = new NotificacaoEmail();
+    notificacao.setId(1);
+    notificacao.setEmail("ciclista@email.com");
+    notificacao.setAssunto("Assunto");
+    notificacao.setMensagem("Mensagem");
+    notificacao.setStatus("ENVIANDO");
+    notificacao.setTentativas(tentativas);
+    notificacao.setProximaTentativa(LocalDateTime.now());
+    return notificacao;
+}
+}
@@ -0,0 +1,95 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.model.NotificacaoEmail;
+import bicicletario.aluguel.repository.NotificacaoEmailRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reivindicação dos lotes da outbox no banco (H2): duas instâncias que leram os
+ * mesmos candidatos não enviam o mesmo email.
+ *
+ * Os emails ficam agendados daqui a 1h, fora do alcance do NotificacaoDispatcher
+ * agendado da aplicação; o teste reivindica "no futuro".
+ */
+@SpringBootTest
+class NotificacaoReivindicacaoTest {
+
+@Autowired
+private NotificacaoEmailRepository notificacaoRepository;
+
+private final List<Integer> criados = new ArrayList<>();
+
+@AfterEach
+void tearDown() {
+    notificacaoRepository.deleteAllById(criados);
+}
+
+private void agendar(int quantidade, LocalDateTime proximaTentativa) {
+    for (int i = 0; i < quantidade; i++) {
+        NotificacaoEmail notificacao = new NotificacaoEmail();
+        notificacao.setEmail("ciclista" + i + "@email.com");
+        notificacao.setStatus("PENDENTE");
+        notificacao.setProximaTentativa(proximaTentativa);
+        criados.add(notificacaoRepository.save(notificacao).getId());
+    }
+}
+
+@Test
+void reivindicar_SegundoLoteNaoLevaOsMesmosEmails() {
+    LocalDateTime daquiAUmaHora = LocalDateTime.now().plusHours(1);
+    agendar(5, daquiAUmaHora);
+    LocalDateTime agora = daquiAUmaHora.plusMinutes(1);
+    LocalDateTime expiradaAntesDe = agora.minusMinutes(5);
+    // As duas instâncias leram os mesmos candidatos antes de reivindicar
+    List<Integer> candidatos = notificacaoRepository.findIdsDisponiveis(agora, expiradaAntesDe, PageRequest.of(0, 50));
+    assertTrue(candidatos.containsAll(criados));
+
+    assertEquals(5, notificacaoRepository.reivindicar(criados, "lote-a", agora, expiradaAntesDe));
+    assertEquals(0, notificacaoRepository.reivindicar(criados, "lote-b", agora, expiradaAntesDe));
+
+    assertEquals(5, notificacaoRepository.findByLoteOrderByIdAsc("lote-a").size());
+    assertTrue(notificacaoRepository.findByLoteOrderByIdAsc("lote-b").isEmpty());
+    // Depois de enviado pelo lote A, o resultado do lote B não vale
+    Integer id = criados.get(0);
+    assertEquals(1, notificacaoRepository.marcarEnviado(id, "lote-a", agora));
+    assertEquals(0, notificacaoRepository.marcarFalha(id, "lote-b", 1, "outro lote"));
+    assertEquals("ENVIADO", notificacaoRepository.findById(id).get().getStatus());
+}
+
+@Test
+void reivindicacaoExpirada_OutraInstanciaRetomaOEmail() {
+    LocalDateTime daquiAUmaHora = LocalDateTime.now().plusHours(1);
+    agendar(1, daquiAUmaHora);
+    LocalDateTime agora = daquiAUmaHora.plusMinutes(1);
+    assertEquals(1, notificacaoRepository.reivindicar(criados, "lote-a", agora, agora.minusMinutes(5)));
+
+    // A instância do lote A parou: 10 min depois a reivindicação expirou
+    LocalDateTime depois = agora.plusMinutes(10);
+    assertTrue(notificacaoRepository.findIdsDisponiveis(depois, depois.minusMinutes(5), PageRequest.of(0, 50))
+            .contains(criados.get(0)));
+    assertEquals(1, notificacaoRepository.reivindicar(criados, "lote-b", depois, depois.minusMinutes(5)));
+    assertEquals(0, notificacaoRepository.marcarEnviado(criados.get(0), "lote-a", depois));
+    assertEquals(1, notificacaoRepository.marcarEnviado(criados.get(0), "lote-b", depois));
+}
+
+@Test
+void emailAindaNoBackoff_NaoEReivindicado() {
+    LocalDateTime daquiAUmaHora = LocalDateTime.now().plusHours(1);
+    agendar(1, daquiAUmaHora);
+    LocalDateTime antes = daquiAUmaHora.minusMinutes(1);
+
+    assertFalse(notificacaoRepository.findIdsDisponiveis(antes, antes.minusMinutes(5), PageRequest.of(0, 50))
+            .contains(criados.get(0)));
+    assertEquals(0, notificacaoRepository.reivindicar(criados, "lote-a", antes, antes.minusMinutes(5)));
+}
+}
@@ -3,7 +3,6 @@ package bicicletario.aluguel;
 import bicicletario.aluguel.dto.DevolucaoDTO;
 import bicicletario.aluguel.dto.NovoAluguelDTO;
 import bicicletario.aluguel.model.Aluguel;
-import bicicletario.aluguel.model.Devolucao;
 import bicicletario.aluguel.model.Ciclista;
 import bicicletario.aluguel.repository.AluguelRepository;
 import bicicletario.aluguel.repository.DevolucaoRepository;
@@ -54,8 +53,7 @@ private Integer ciclistaIdGerado;
 @BeforeEach
 void setUp() {
     // 1. Limpa tudo
-    aluguelRepository.deleteAll();
-    devolucaoRepository.deleteAll();
+    aluguelRepository.deleteAll(); // Devoluções são os próprios aluguéis fechados
     cartaoDeCreditoRepository.deleteAll();
     ciclistaRepository.deleteAll();
 
@@ -224,7 +222,9 @@ void testRealizarDevolucao_SemAluguelAtivo_DeveRetornar404NotFound() throws Exce
 @Test
 void testRestaurarBanco_DeveLimparRepositorios() throws Exception {
     aluguelRepository.save(new Aluguel());
-    devolucaoRepository.save(new Devolucao());
+    Aluguel aluguelFechado = new Aluguel();
+    aluguelFechado.setHoraFim(LocalDateTime.now());
+    aluguelRepository.save(aluguelFechado); // Aparece como Devolucao
 
     mockMvc.perform(get("/restaurarBanco"))
             .andExpect(status().isOk());
@@ -0,0 +1,64 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.http.ClienteHttp;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Prazo total das chamadas remotas (PrazoHttpRequestFactory): o abort agendado
+ * de cada requisição sai da fila do agendador quando ela termina, com sucesso
+ * ou não. As chamadas vão para o próprio serviço, na porta do teste.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class PrazoHttpTest {
+
+@LocalServerPort
+private int porta;
+
+@Autowired
+private ClienteHttp clienteHttp;
+
+@Autowired
+private ScheduledExecutorService prazoHttpScheduler;
+
+private int agendados() {
+    return ((ScheduledThreadPoolExecutor) prazoHttpScheduler).getQueue().size();
+}
+
+@Test
+void respostasLidas_NaoDeixamAbortNaFila() {
+    RestTemplate restTemplate = clienteHttp.para("enviarCobrancasEmLote");
+    int antes = agendados();
+
+    for (int i = 0; i < 20; i++) {
+        assertNotNull(restTemplate.getForObject("http://127.0.0.1:" + porta + "/admin/tarifas", String.class));
+    }
+
+    assertEquals(antes, agendados());
+}
+
+@Test
+void erros_TambemCancelamOAbort() {
+    RestTemplate restTemplate = clienteHttp.para("enviarCobrancasEmLote");
+    int antes = agendados();
+
+    // 4xx: a resposta é fechada pelo RestTemplate depois do tratamento de erro
+    assertThrows(HttpClientErrorException.class,
+            () -> restTemplate.getForObject("http://127.0.0.1:" + porta + "/rota-inexistente", String.class));
+    // Sem resposta: o execute falha
+    assertThrows(ResourceAccessException.class,
+            () -> restTemplate.getForObject("http://127.0.0.1:1/", String.class));
+
+    assertEquals(antes, agendados());
+}
+}
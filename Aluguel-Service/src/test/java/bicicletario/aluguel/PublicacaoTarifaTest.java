@@ -0,0 +1,90 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.model.TabelaTarifa;
+import bicicletario.aluguel.repository.TabelaTarifaRepository;
+import bicicletario.aluguel.tarifa.MotorTarifa;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.*;
+
+/**
+ * Publicação de tarifas contra o H2: o número da versão é disputado entre
+ * instâncias e só a chave primária decide quem fica com ele.
+ *
+ * As tabelas publicadas aqui têm os valores da padrão e começam amanhã: o
+ * MotorTarifa da aplicação pode carregá-las sem mudar o preço de outros testes.
+ */
+@SpringBootTest
+class PublicacaoTarifaTest {
+
+@Autowired
+private TabelaTarifaRepository tabelaRepository;
+
+private final List<Integer> publicadas = new ArrayList<>();
+
+@AfterEach
+void tearDown() {
+    // delete() ignora entidades "novas" (TabelaTarifa sempre é): apaga por consulta
+    tabelaRepository.deleteAllByIdInBatch(publicadas);
+}
+
+private static TabelaTarifa tabela(Integer versao) {
+    TabelaTarifa tabela = TabelaTarifa.padrao();
+    tabela.setVersao(versao);
+    tabela.setVigenteDesde(LocalDateTime.now().plusDays(1));
+    return tabela;
+}
+
+// Outra instância: as primeiras 'atrasadas' leituras da última versão chegam velhas (uma a menos)
+private MotorTarifa outraInstancia(int atrasadas) {
+    TabelaTarifaRepository repositorio = mock(TabelaTarifaRepository.class, delegatesTo(tabelaRepository));
+    int desatualizada = tabelaRepository.findUltimaVersao() - 1;
+    if (atrasadas > 0) {
+        int[] restantes = {atrasadas};
+        doAnswer(chamada -> restantes[0]-- > 0 ? desatualizada : tabelaRepository.findUltimaVersao())
+                .when(repositorio).findUltimaVersao();
+    }
+    MotorTarifa motor = new MotorTarifa();
+    ReflectionTestUtils.setField(motor, "tabelaRepository", repositorio);
+    return motor;
+}
+
+@Test
+void versaoRepetida_FalhaSemSobrescreverAGravada() {
+    int ultima = tabelaRepository.findUltimaVersao();
+    TabelaTarifa repetida = tabela(ultima);
+    repetida.setValorPeriodoCentavos(1);
+
+    assertThrows(DataIntegrityViolationException.class, () -> tabelaRepository.save(repetida));
+    assertEquals(500, tabelaRepository.findById(ultima).get().getValorPeriodoCentavos());
+}
+
+@Test
+void publicar_NumeroTomadoPorOutraInstancia_UsaOSeguinte() {
+    int ultima = tabelaRepository.findUltimaVersao();
+
+    TabelaTarifa gravada = outraInstancia(1).publicar(tabela(null));
+    publicadas.add(gravada.getVersao());
+
+    assertEquals(ultima + 1, gravada.getVersao());
+    assertEquals(ultima + 1, tabelaRepository.findUltimaVersao());
+}
+
+@Test
+void publicar_ConflitoEmTodasAsTentativas_Desiste() {
+    MotorTarifa motor = outraInstancia(Integer.MAX_VALUE);
+
+    assertThrows(DataIntegrityViolationException.class, () -> motor.publicar(tabela(null)));
+}
+}
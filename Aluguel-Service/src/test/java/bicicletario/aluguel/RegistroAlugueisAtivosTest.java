@@ -0,0 +1,198 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.model.Aluguel;
+import bicicletario.aluguel.repository.AluguelRepository;
+import bicicletario.aluguel.service.AluguelListener;
+import bicicletario.aluguel.service.RegistroAlugueisAtivos;
+import bicicletario.aluguel.service.SnapshotInicializacao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegistroAlugueisAtivosTest {
+
+@InjectMocks
+private RegistroAlugueisAtivos registro;
+
+@Mock
+private AluguelRepository aluguelRepository;
+
+// Sem snapshot: carga completa do banco
+@Mock
+private SnapshotInicializacao snapshot;
+
+// Sem transação ativa o listener aplica na hora
+private AluguelListener listener;
+
+@BeforeEach
+void setUp() {
+    listener = new AluguelListener();
+    ReflectionTestUtils.setField(listener, "registro", registro);
+}
+
+private Aluguel criarAluguel(Integer id, Integer ciclista, Integer bicicleta) {
+    Aluguel aluguel = new Aluguel();
+    aluguel.setId(id);
+    aluguel.setCiclista(ciclista);
+    aluguel.setBicicleta(bicicleta);
+    aluguel.setHoraInicio(LocalDateTime.now());
+    return aluguel;
+}
+
+@Test
+void carregar_TrazAlugueisAtivosDoBanco() {
+    when(aluguelRepository.findByHoraFimIsNull()).thenReturn(Collections.singletonList(criarAluguel(1, 10, 100)));
+    when(aluguelRepository.findIdsAindaAbertos(Collections.singletonList(1))).thenReturn(Collections.singletonList(1));
+
+    registro.carregar();
+
+    assertTrue(registro.ciclistaTemAluguelAtivo(10));
+    assertEquals(1, registro.daBicicleta(100).get().getId());
+    assertEquals(1, registro.quantidade());
+}
+
+@Test
+void falta_ConsultaOBancoEGuardaOAluguelDeOutraInstancia() {
+    // Aberto por outra instância: o listener desta nunca viu
+    when(aluguelRepository.findByBicicletaAndHoraFimIsNull(100)).thenReturn(Optional.of(criarAluguel(7, 10, 100)));
+    when(aluguelRepository.findIdsAindaAbertos(Collections.singletonList(7))).thenReturn(Collections.singletonList(7));
+
+    assertEquals(7, registro.daBicicleta(100).get().getId());
+
+    // Aprendido: as próximas consultas (por bicicleta ou por ciclista) não vão ao banco
+    assertTrue(registro.ciclistaTemAluguelAtivo(10));
+    assertTrue(registro.daBicicleta(100).isPresent());
+    verify(aluguelRepository, times(1)).findByBicicletaAndHoraFimIsNull(100);
+    verify(aluguelRepository, never()).findByCiclistaAndHoraFimIsNull(10);
+}
+
+@Test
+void falta_SemConsultaAoBancoRespondeSoDaMemoria() {
+    ReflectionTestUtils.setField(registro, "consultarBancoNaFalta", false);
+
+    assertFalse(registro.ciclistaTemAluguelAtivo(10));
+    verify(aluguelRepository, never()).findByCiclistaAndHoraFimIsNull(any());
+}
+
+@Test
+void devolucao_RemoveDosDoisMapas() {
+    Aluguel aluguel = criarAluguel(1, 10, 100);
+    listener.aposGravar(aluguel);
+
+    aluguel.setHoraFim(LocalDateTime.now());
+    listener.aposGravar(aluguel);
+
+    assertFalse(registro.ciclistaTemAluguelAtivo(10));
+    assertFalse(registro.daBicicleta(100).isPresent());
+}
+
+@Test
+void consulta_DevolveCopia() {
+    listener.aposGravar(criarAluguel(1, 10, 100));
+
+    registro.doCiclista(10).get().setHoraFim(LocalDateTime.now());
+
+    // Alterar a cópia não fecha o aluguel no registro
+    assertTrue(registro.ciclistaTemAluguelAtivo(10));
+}
+
+@Test
+void remocaoDeAluguelAntigo_NaoApagaAluguelNovo() {
+    Aluguel antigo = criarAluguel(1, 10, 100);
+    listener.aposGravar(criarAluguel(2, 10, 200));
+
+    listener.aposRemover(antigo);
+
+    assertEquals(2, registro.doCiclista(10).get().getId());
+}
+
+// Outra instância do serviço, com o mesmo banco (o mesmo repositório mockado)
+private RegistroAlugueisAtivos outraInstancia() {
+    RegistroAlugueisAtivos outra = new RegistroAlugueisAtivos();
+    ReflectionTestUtils.setField(outra, "aluguelRepository", aluguelRepository);
+    ReflectionTestUtils.setField(outra, "snapshot", snapshot);
+    return outra;
+}
+
+@Test
+void duasInstancias_DevolucaoNaOutraLiberaCiclistaEBicicleta() {
+    RegistroAlugueisAtivos outra = outraInstancia();
+    AluguelListener listenerDaOutra = new AluguelListener();
+    ReflectionTestUtils.setField(listenerDaOutra, "registro", outra);
+    Aluguel aluguel = criarAluguel(7, 10, 100);
+
+    // Aberto na outra instância; esta aprende na falta
+    listenerDaOutra.aposGravar(aluguel);
+    when(aluguelRepository.findByCiclistaAndHoraFimIsNull(10)).thenReturn(Optional.of(aluguel.copiar()));
+    assertTrue(registro.ciclistaTemAluguelAtivo(10));
+
+    // Devolvido na outra: esta ainda tem a entrada velha, o banco já não
+    aluguel.setHoraFim(LocalDateTime.now());
+    listenerDaOutra.aposGravar(aluguel);
+    when(aluguelRepository.existsByCiclistaAndHoraFimIsNull(10)).thenReturn(false);
+
+    Aluguel reserva = registro.reservarCiclista(10);
+    registro.reservarBicicleta(reserva, 100);
+
+    assertEquals(100, reserva.getBicicleta());
+    // A entrada velha saiu dos dois mapas na reserva do ciclista
+    verify(aluguelRepository, never()).existsByBicicletaAndHoraFimIsNull(any());
+}
+
+@Test
+void reserva_AluguelDaMemoriaAindaAbertoNoBancoRecusa() {
+    listener.aposGravar(criarAluguel(1, 10, 100));
+    when(aluguelRepository.existsByCiclistaAndHoraFimIsNull(10)).thenReturn(true);
+    when(aluguelRepository.existsByBicicletaAndHoraFimIsNull(100)).thenReturn(true);
+
+    assertThrows(IllegalArgumentException.class, () -> registro.reservarCiclista(10));
+    assertThrows(IllegalArgumentException.class, () -> registro.reservarBicicleta(new Aluguel(), 100));
+}
+
+@Test
+void reserva_OutroPedidoEmAndamentoRecusaSemIrAoBanco() {
+    registro.reservarCiclista(10);
+
+    assertThrows(IllegalArgumentException.class, () -> registro.reservarCiclista(10));
+    verify(aluguelRepository, never()).existsByCiclistaAndHoraFimIsNull(any());
+}
+
+@Test
+void daBicicleta_AluguelFechadoEmOutraInstanciaBuscaOAtual() {
+    listener.aposGravar(criarAluguel(1, 10, 100));
+    // A bicicleta foi devolvida e alugada de novo em outra instância
+    when(aluguelRepository.findIdsAindaAbertos(Collections.singletonList(1))).thenReturn(Collections.<Integer>emptyList());
+    when(aluguelRepository.findByBicicletaAndHoraFimIsNull(100)).thenReturn(Optional.of(criarAluguel(2, 20, 100)));
+
+    assertEquals(2, registro.daBicicleta(100).get().getId());
+    assertFalse(registro.doCiclista(10).isPresent());
+}
+
+@Test
+void sincronizar_TiraAlugueisDevolvidosEmOutraInstancia() {
+    listener.aposGravar(criarAluguel(1, 10, 100));
+    listener.aposGravar(criarAluguel(2, 20, 200));
+    registro.reservarCiclista(30);
+    when(aluguelRepository.findIdsAindaAbertos(any())).thenReturn(Collections.singletonList(2));
+
+    registro.sincronizar();
+
+    // 1 saiu; 2 e a reserva em andamento ficaram
+    assertEquals(2, registro.quantidade());
+    assertFalse(registro.doCiclista(10).isPresent());
+    assertTrue(registro.ciclistaTemAluguelAtivo(20));
+}
+}
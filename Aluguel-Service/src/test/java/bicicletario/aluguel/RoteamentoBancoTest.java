@@ -0,0 +1,86 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.config.BancoConfig;
+import bicicletario.aluguel.config.RotaBanco;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoteamentoBancoTest {
+
+private HikariDataSource oltp;
+private HikariDataSource relatorio;
+private DataSource dataSource;
+
+private static HikariDataSource pool(String nome) {
+    HikariDataSource pool = new HikariDataSource();
+    pool.setPoolName(nome);
+    pool.setJdbcUrl("jdbc:h2:mem:" + nome + ";DB_CLOSE_DELAY=-1");
+    pool.setUsername("sa");
+    pool.setMaximumPoolSize(2);
+    return pool;
+}
+
+@BeforeEach
+void setUp() {
+    oltp = pool("oltp");
+    relatorio = pool("relatorio");
+    dataSource = new BancoConfig().dataSource(oltp, relatorio);
+}
+
+@AfterEach
+void tearDown() {
+    oltp.close();
+    relatorio.close();
+}
+
+private String urlDaConexao() throws SQLException {
+    try (Connection conexao = dataSource.getConnection()) {
+        return conexao.getMetaData().getURL();
+    }
+}
+
+@Test
+void rota_PadraoEOPoolOltp() throws SQLException {
+    assertTrue(urlDaConexao().contains(":oltp"));
+}
+
+@Test
+void rota_DentroDoBlocoUsaOPoolDeRelatorio() throws SQLException {
+    String url = RotaBanco.noRelatorio(() -> {
+        try {
+            return urlDaConexao();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    assertTrue(url.contains(":relatorio"));
+    assertTrue(urlDaConexao().contains(":oltp")); // O bloco não vaza para a thread
+}
+
+@Test
+void rota_EscolhidaNoPrimeiroUsoDaConexao() throws SQLException {
+    // Conexão lógica pega fora do bloco (início de transação), física só no primeiro comando
+    try (Connection conexao = dataSource.getConnection()) {
+        conexao.setAutoCommit(false);
+        String url = RotaBanco.noRelatorio(() -> {
+            try {
+                return conexao.getMetaData().getURL();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertTrue(url.contains(":relatorio"));
+        assertEquals(0, oltp.getHikariPoolMXBean() == null ? 0 : oltp.getHikariPoolMXBean().getActiveConnections());
+    }
+}
+}
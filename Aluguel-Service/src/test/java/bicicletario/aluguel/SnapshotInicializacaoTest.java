@@ -0,0 +1,189 @@
+package bicicletario.aluguel;
+
+import bicicletario.aluguel.dto.EstadoSnapshotDTO;
+import bicicletario.aluguel.model.Aluguel;
+import bicicletario.aluguel.repository.AluguelRepository;
+import bicicletario.aluguel.repository.CiclistaRepository;
+import bicicletario.aluguel.service.FiltroEmailsCiclistas;
+import bicicletario.aluguel.service.RegistroAlugueisAtivos;
+import bicicletario.aluguel.service.SnapshotInicializacao;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class SnapshotInicializacaoTest {
+
+private static final long AGORA = 1_700_000_000_000L;
+private static final long MARGEM = 300_000;
+
+@TempDir
+Path pasta;
+
+// Uma "instância" do serviço: snapshot, registro e filtro ligados como no Spring
+private static class Instancia {
+    final AluguelRepository aluguelRepository = mock(AluguelRepository.class);
+    final CiclistaRepository ciclistaRepository = mock(CiclistaRepository.class);
+    final SnapshotInicializacao snapshot = new SnapshotInicializacao();
+    final RegistroAlugueisAtivos registro = new RegistroAlugueisAtivos();
+    final FiltroEmailsCiclistas filtroEmails = new FiltroEmailsCiclistas();
+
+    Instancia(Path arquivo, boolean habilitado, long agora) {
+        ReflectionTestUtils.setField(snapshot, "aluguelRepository", aluguelRepository);
+        ReflectionTestUtils.setField(snapshot, "ciclistaRepository", ciclistaRepository);
+        ReflectionTestUtils.setField(snapshot, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(snapshot, "registro", registro);
+        ReflectionTestUtils.setField(snapshot, "filtroEmails", filtroEmails);
+        ReflectionTestUtils.setField(snapshot, "habilitado", habilitado);
+        ReflectionTestUtils.setField(snapshot, "arquivo", arquivo.toString());
+        ReflectionTestUtils.setField(snapshot, "margemMs", MARGEM);
+        ReflectionTestUtils.setField(snapshot, "idadeMaxMs", 86_400_000L);
+        ReflectionTestUtils.setField(snapshot, "loteConsulta", 1);
+        ReflectionTestUtils.setField(snapshot, "relogio", (LongSupplier) () -> agora);
+
+        ReflectionTestUtils.setField(registro, "aluguelRepository", aluguelRepository);
+        ReflectionTestUtils.setField(registro, "snapshot", snapshot);
+
+        ReflectionTestUtils.setField(filtroEmails, "ciclistaRepository", ciclistaRepository);
+        ReflectionTestUtils.setField(filtroEmails, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filtroEmails, "snapshot", snapshot);
+        ReflectionTestUtils.setField(filtroEmails, "capacidade", 1000L);
+        ReflectionTestUtils.setField(filtroEmails, "taxaFalsoPositivo", 0.01);
+    }
+
+    void subir() {
+        snapshot.ler();
+        registro.carregar();
+        filtroEmails.carregar();
+    }
+}
+
+private static Aluguel criarAluguel(Integer id, Integer ciclista, Integer bicicleta) {
+    Aluguel aluguel = new Aluguel();
+    aluguel.setId(id);
+    aluguel.setCiclista(ciclista);
+    aluguel.setBicicleta(bicicleta);
+    aluguel.setTrancaInicio(bicicleta);
+    aluguel.setHoraInicio(LocalDateTime.of(2023, 11, 14, 10, 0, 0, 123_000_000));
+    return aluguel;
+}
+
+// Sobe pelo banco (sem snapshot) com dois aluguéis e dois emails e grava o snapshot
+private Path gravarSnapshot() throws Exception {
+    Path arquivo = pasta.resolve("aluguel.snap");
+    Instancia primeira = new Instancia(arquivo, true, AGORA);
+    when(primeira.aluguelRepository.findByHoraFimIsNull())
+            .thenReturn(Arrays.asList(criarAluguel(1, 10, 100), criarAluguel(2, 20, 200)));
+    when(primeira.ciclistaRepository.count()).thenReturn(2L);
+    when(primeira.ciclistaRepository.findAllEmails()).thenReturn(Arrays.asList("ana@teste.com", "bruno@teste.com"));
+    primeira.subir();
+
+    EstadoSnapshotDTO estado = primeira.snapshot.gravar();
+
+    assertTrue(Files.size(arquivo) > 0);
+    assertEquals(Files.size(arquivo), estado.getTamanhoBytes());
+    assertNotNull(estado.getCustoCargaCompletaMs());
+    assertNull(estado.getRestauracaoMs());
+    return arquivo;
+}
+
+@Test
+void subida_PeloSnapshotAplicaOQueMudouNoBanco() throws Exception {
+    Path arquivo = gravarSnapshot();
+    Instancia segunda = new Instancia(arquivo, true, AGORA + 60_000);
+    LocalDateTime desde = LocalDateTime.ofInstant(Instant.ofEpochMilli(AGORA - MARGEM), ZoneId.systemDefault());
+    // O aluguel 2 foi devolvido e o 3 aberto depois do snapshot; a Carla se cadastrou
+    // Lote de 1 id por consulta (loteConsulta = 1)
+    when(segunda.aluguelRepository.findIdsAindaAbertos(Collections.singletonList(1))).thenReturn(Collections.singletonList(1));
+    when(segunda.aluguelRepository.findIdsAindaAbertos(Collections.singletonList(2))).thenReturn(Collections.<Integer>emptyList());
+    when(segunda.aluguelRepository.findByHoraInicioGreaterThanEqualAndHoraFimIsNull(desde))
+            .thenReturn(Collections.singletonList(criarAluguel(3, 30, 300)));
+    when(segunda.ciclistaRepository.findEmailsAlteradosDesde(desde))
+            .thenReturn(Collections.singletonList("Carla@Teste.com"));
+    when(segunda.ciclistaRepository.existsByEmail(any())).thenReturn(true);
+
+    segunda.subir();
+
+    assertTrue(segunda.registro.ciclistaTemAluguelAtivo(10));
+    assertFalse(segunda.registro.ciclistaTemAluguelAtivo(20));
+    assertTrue(segunda.registro.ciclistaTemAluguelAtivo(30));
+    Aluguel restaurado = segunda.registro.daBicicleta(100).get();
+    assertEquals(criarAluguel(1, 10, 100).getHoraInicio(), restaurado.getHoraInicio());
+    assertEquals(100, restaurado.getTrancaInicio());
+    assertNull(restaurado.getCobranca());
+
+    assertEquals(3, segunda.filtroEmails.getEstado().getElementos());
+    assertTrue(segunda.filtroEmails.emailEmUso("ana@teste.com"));
+    assertTrue(segunda.filtroEmails.emailEmUso("carla@teste.com"));
+    assertFalse(segunda.filtroEmails.emailEmUso("daniel@teste.com")); // Negativo certo, sem ir ao banco
+    verify(segunda.ciclistaRepository, never()).existsByEmail("daniel@teste.com");
+
+    // A carga completa não foi feita: o custo dela veio do snapshot
+    verify(segunda.aluguelRepository, never()).findByHoraFimIsNull();
+    verify(segunda.ciclistaRepository, never()).findAllEmails();
+    EstadoSnapshotDTO estado = segunda.snapshot.getEstado();
+    assertNotNull(estado.getCustoCargaCompletaMs());
+    assertNotNull(estado.getRestauracaoMs());
+    assertNull(estado.getUltimoErro());
+}
+
+@Test
+void subida_SnapshotCorrompidoFazCargaCompleta() throws Exception {
+    Path arquivo = gravarSnapshot();
+    byte[] conteudo = Files.readAllBytes(arquivo);
+    conteudo[conteudo.length / 2] ^= 0x5A;
+    Files.write(arquivo, conteudo);
+    Instancia segunda = new Instancia(arquivo, true, AGORA + 60_000);
+    when(segunda.aluguelRepository.findByHoraFimIsNull()).thenReturn(Collections.singletonList(criarAluguel(2, 20, 200)));
+    when(segunda.ciclistaRepository.findAllEmails()).thenReturn(Collections.singletonList("ana@teste.com"));
+
+    segunda.subir();
+
+    assertTrue(segunda.registro.ciclistaTemAluguelAtivo(20));
+    assertFalse(segunda.registro.ciclistaTemAluguelAtivo(10));
+    assertEquals(1, segunda.filtroEmails.getEstado().getElementos());
+    assertNotNull(segunda.snapshot.getEstado().getUltimoErro());
+    verify(segunda.aluguelRepository, never()).findIdsAindaAbertos(anyCollection());
+}
+
+@Test
+void subida_SnapshotVelhoDemaisEIgnorado() throws Exception {
+    Path arquivo = gravarSnapshot();
+    Instancia segunda = new Instancia(arquivo, true, AGORA + 86_400_001L);
+    when(segunda.aluguelRepository.findByHoraFimIsNull()).thenReturn(Collections.<Aluguel>emptyList());
+
+    segunda.subir();
+
+    assertEquals(0, segunda.registro.quantidade());
+    verify(segunda.ciclistaRepository).findAllEmails();
+    assertEquals(0, segunda.snapshot.getEstado().getTempoEconomizadoMs());
+}
+
+@Test
+void subida_DesligadoNaoLeOSnapshot() throws Exception {
+    Path arquivo = gravarSnapshot();
+    Instancia segunda = new Instancia(arquivo, false, AGORA + 60_000);
+    when(segunda.aluguelRepository.findByHoraFimIsNull()).thenReturn(Collections.<Aluguel>emptyList());
+
+    segunda.subir();
+    segunda.snapshot.gravarAoDesligar();
+
+    verify(segunda.aluguelRepository).findByHoraFimIsNull();
+    verify(segunda.ciclistaRepository).findAllEmails();
+    assertNull(segunda.snapshot.getEstado().getUltimaGravacao());
+}
+}
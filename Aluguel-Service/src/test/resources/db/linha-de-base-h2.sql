@@ -0,0 +1,13 @@
+-- Banco como o ddl-auto=update criava antes das migrações (entidades da linha de
+-- base: sem plano/atualizado_em no ciclista, com a tabela devolucao), com alguns
+-- dados. Usado pelo MigracoesTest.
+
+create table aluguel (id integer generated by default as identity, bicicleta integer, ciclista integer, cobranca integer, hora_fim timestamp, hora_inicio timestamp, tranca_fim integer, tranca_inicio integer, primary key (id));
+create table cartao_de_credito (id integer generated by default as identity, cvv varchar(255), id_ciclista integer, nome_titular varchar(255), numero varchar(255), validade varchar(255), primary key (id));
+create table ciclista (id integer generated by default as identity, cpf varchar(255), email varchar(255), nacionalidade varchar(255), nascimento varchar(255), nome varchar(255), passaporte_numero varchar(255), passaporte_pais varchar(255), passaporte_validade varchar(255), senha varchar(255), status varchar(255), url_foto_documento varchar(255), primary key (id));
+create table devolucao (id integer generated by default as identity, bicicleta integer, ciclista integer, cobranca integer, hora_fim timestamp, hora_inicio timestamp, tranca_fim integer, primary key (id));
+create table funcionario (id integer generated by default as identity, cpf varchar(255), email varchar(255), funcao varchar(255), idade integer not null, matricula varchar(255), nome varchar(255), senha varchar(255), primary key (id));
+alter table ciclista add constraint uk_ciclista_email unique (email);
+
+insert into ciclista (nome, email, status) values ('Linha de Base', 'linhadebase@teste.com', 'ATIVO');
+insert into aluguel (ciclista, bicicleta, tranca_inicio, hora_inicio) values (1, 10, 5, timestamp '2024-01-01 10:00:00');
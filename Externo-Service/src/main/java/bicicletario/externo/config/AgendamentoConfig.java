@@ -0,0 +1,10 @@
+package bicicletario.externo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Liga os @Scheduled (ex: ProcessadorFilaCobranca drenando a fila de cobranças)
+@Configuration
+@EnableScheduling
+public class AgendamentoConfig {
+}
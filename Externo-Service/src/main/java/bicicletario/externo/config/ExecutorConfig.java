@@ -0,0 +1,50 @@
+package bicicletario.externo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool usado para enviar em paralelo as cobranças de um lote da fila ao gateway,
+ * e a thread que renova a reivindicação do lote enquanto ele está no gateway.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${fila.cobranca.threads:8}")
+    private int threads;
+
+    /**
+     * Fila sem limite: o processador nunca submete mais que um lote por vez,
+     * então ela não cresce além de fila.cobranca.lote.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService filaCobrancaExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new CustomizableThreadFactory("fila-cobranca-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Fora do taskScheduler do Spring: a thread dele fica presa no
+     * ProcessadorFilaCobranca.processar enquanto o lote está no gateway.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService filaCobrancaRenovacaoExecutor() {
+        CustomizableThreadFactory fabrica = new CustomizableThreadFactory("fila-cobranca-renovacao-");
+        fabrica.setDaemon(true);
+        return Executors.newSingleThreadScheduledExecutor(fabrica);
+    }
+}
@@ -0,0 +1,38 @@
+package bicicletario.externo.config;
+
+import bicicletario.idempotencia.ArmazemIdempotencia;
+import bicicletario.idempotencia.IdempotenciaFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Idempotency-Key nos endpoints que alteram estado do ExternoController:
+ * cobranças (avulsa, fila e lote) e envio de email.
+ *
+ * As classes vêm de bicicletario.idempotencia (código comum com o Aluguel, em
+ * idempotencia/ na raiz do repositório). O pacote entra no escaneamento de
+ * entidades e repositórios do Spring Boot (RespostaIdempotente).
+ */
+@Configuration
+@AutoConfigurationPackage(basePackageClasses = ArmazemIdempotencia.class)
+public class IdempotenciaConfig {
+
+    @Bean
+    public ArmazemIdempotencia armazemIdempotencia() {
+        return new ArmazemIdempotencia();
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotenciaFilter> idempotenciaFilter(
+            ArmazemIdempotencia armazem, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        FilterRegistrationBean<IdempotenciaFilter> registro =
+                new FilterRegistrationBean<>(new IdempotenciaFilter(armazem, meterRegistry, objectMapper));
+        registro.setName("idempotenciaFilter");
+        registro.addUrlPatterns("/cobranca", "/filaCobranca", "/cobrancas/lote", "/enviarEmail");
+        return registro;
+    }
+}
@@ -3,6 +3,7 @@ package bicicletario.externo.controller;
 import bicicletario.externo.dto.CartaoDTO;
 import bicicletario.externo.dto.EmailDTO;
 import bicicletario.externo.dto.NovaCobrancaDTO;
+import bicicletario.externo.dto.ResultadoCobrancaLoteDTO;
 import bicicletario.externo.model.Cobranca;
 import bicicletario.externo.repository.CobrancaRepository; // Apenas para o restaurarDados
 import bicicletario.externo.service.ExternoService;
@@ -11,6 +12,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 public class ExternoController {
@@ -42,6 +44,19 @@ public class ExternoController {
         return ResponseEntity.ok(nova);
     }
 
+    // --- LOTE ---
+    // Várias cobranças numa só requisição; fila=true (padrão) as coloca na fila
+    @PostMapping("/cobrancas/lote")
+    public ResponseEntity<List<ResultadoCobrancaLoteDTO>> criarCobrancasEmLote(
+            @RequestBody List<NovaCobrancaDTO> itens,
+            @RequestParam(defaultValue = "true") boolean fila) {
+        try {
+            return ResponseEntity.ok(externoService.criarCobrancasEmLote(itens, fila));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // --- EMAIL ---
     @PostMapping("/enviarEmail")
     public ResponseEntity<Void> enviarEmail(@RequestBody EmailDTO dto) {
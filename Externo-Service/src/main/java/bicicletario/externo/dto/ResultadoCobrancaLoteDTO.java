@@ -0,0 +1,27 @@
+package bicicletario.externo.dto;
+
+// Resultado de um item de POST /cobrancas/lote, na mesma ordem do pedido
+public class ResultadoCobrancaLoteDTO {
+    private int indice; // Posição do item no pedido
+    private Integer id; // Null se o item foi rejeitado
+    private String status; // 'PAGA', 'PENDENTE' ou 'REJEITADA'
+    private String erro;
+
+    public ResultadoCobrancaLoteDTO() {}
+
+    public ResultadoCobrancaLoteDTO(int indice, Integer id, String status, String erro) {
+        this.indice = indice;
+        this.id = id;
+        this.status = status;
+        this.erro = erro;
+    }
+
+    public int getIndice() { return indice; }
+    public void setIndice(int indice) { this.indice = indice; }
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getErro() { return erro; }
+    public void setErro(String erro) { this.erro = erro; }
+}
@@ -1,19 +1,35 @@
 package bicicletario.externo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_cobranca_status_lote", columnList = "status, lote"),
+        @Index(name = "idx_cobranca_lote", columnList = "lote") // findByLote; parcial no PostgreSQL
+})
 public class Cobranca {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
-    private String status; 
+    private String status; // 'PENDENTE', 'PROCESSANDO', 'PAGA', 'FALHA'
     private LocalDateTime horaSolicitacao;
     private LocalDateTime horaFinalizacao;
     private Double valor;
     private Integer ciclista;
 
+    // Controle da fila (ProcessadorFilaCobranca): não fazem parte da API
+    @JsonIgnore
+    private String lote; // Token da instância que reivindicou a cobrança
+    @JsonIgnore
+    private LocalDateTime reivindicadaEm;
+    @JsonIgnore
+    private Integer tentativas;
+    @JsonIgnore
+    private LocalDateTime proximaTentativa; // Backoff depois de erro no gateway
+
     public Cobranca() {}
 
     // Getters e Setters
@@ -29,4 +45,12 @@ public class Cobranca {
     public void setValor(Double valor) { this.valor = valor; }
     public Integer getCiclista() { return ciclista; }
     public void setCiclista(Integer ciclista) { this.ciclista = ciclista; }
-}
\ No newline at end of file
+    public String getLote() { return lote; }
+    public void setLote(String lote) { this.lote = lote; }
+    public LocalDateTime getReivindicadaEm() { return reivindicadaEm; }
+    public void setReivindicadaEm(LocalDateTime reivindicadaEm) { this.reivindicadaEm = reivindicadaEm; }
+    public Integer getTentativas() { return tentativas; }
+    public void setTentativas(Integer tentativas) { this.tentativas = tentativas; }
+    public LocalDateTime getProximaTentativa() { return proximaTentativa; }
+    public void setProximaTentativa(LocalDateTime proximaTentativa) { this.proximaTentativa = proximaTentativa; }
+}
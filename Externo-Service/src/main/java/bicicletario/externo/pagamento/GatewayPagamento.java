@@ -0,0 +1,23 @@
+package bicicletario.externo.pagamento;
+
+import bicicletario.externo.model.Cobranca;
+
+/**
+ * Operadora de cartão usada pelo ProcessadorFilaCobranca.
+ *
+ * A mesma cobrança pode ser enviada de novo (ex: reivindicação expirada depois
+ * de uma queda da instância), então a implementação deve usar o id da cobrança
+ * como chave de idempotência junto à operadora.
+ *
+ * A reivindicação do lote é renovada enquanto cobrar não retorna, então uma
+ * chamada sem prazo prende a cobrança em PROCESSANDO: a implementação deve ter
+ * os próprios timeouts de conexão e leitura.
+ */
+public interface GatewayPagamento {
+
+    /**
+     * @return true se o pagamento foi aprovado, false se foi recusado (FALHA definitiva).
+     * Exceções são tratadas como erro transitório: a cobrança volta para a fila.
+     */
+    boolean cobrar(Cobranca cobranca);
+}
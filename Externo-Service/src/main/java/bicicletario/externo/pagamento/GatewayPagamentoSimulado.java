@@ -0,0 +1,31 @@
+package bicicletario.externo.pagamento;
+
+import bicicletario.externo.model.Cobranca;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gateway local (padrão): aprova qualquer cobrança com valor positivo depois
+ * de uma latência configurável, para simular a ida à operadora.
+ */
+@Component
+@ConditionalOnProperty(name = "pagamento.gateway", havingValue = "simulado", matchIfMissing = true)
+public class GatewayPagamentoSimulado implements GatewayPagamento {
+
+    @Value("${pagamento.simulado.latencia-ms:50}")
+    private long latenciaMs;
+
+    @Override
+    public boolean cobrar(Cobranca cobranca) {
+        if (latenciaMs > 0) {
+            try {
+                Thread.sleep(latenciaMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Cobrança " + cobranca.getId() + " interrompida", e);
+            }
+        }
+        return cobranca.getValor() != null && cobranca.getValor() > 0;
+    }
+}
@@ -1,9 +1,68 @@
 package bicicletario.externo.repository;
 
 import bicicletario.externo.model.Cobranca;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface CobrancaRepository extends JpaRepository<Cobranca, Integer> {
-}
\ No newline at end of file
+
+    /**
+     * Candidatas da fila: PENDENTE com a próxima tentativa vencida (nula = nunca
+     * tentada), ou PROCESSANDO com a reivindicação expirada (instância caiu).
+     */
+    @Query("select c.id from Cobranca c where (c.status = 'PENDENTE' "
+            + "and (c.proximaTentativa is null or c.proximaTentativa <= :agora)) "
+            + "or (c.status = 'PROCESSANDO' and c.reivindicadaEm < :expiradaAntesDe) order by c.id")
+    List<Integer> findIdsDisponiveis(@Param("agora") LocalDateTime agora,
+                                     @Param("expiradaAntesDe") LocalDateTime expiradaAntesDe, Pageable lote);
+
+    /**
+     * Reivindica as candidatas para o lote. O próprio WHERE é a trava: se outra
+     * instância reivindicou a linha antes, o banco reavalia a condição após o
+     * commit dela e a linha fica de fora. A mesma condição do findIdsDisponiveis:
+     * uma cobrança devolvida para a fila entre a leitura e o UPDATE espera o
+     * backoff. Retorna quantas foram reivindicadas.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Cobranca c set c.status = 'PROCESSANDO', c.lote = :lote, c.reivindicadaEm = :agora "
+            + "where c.id in :ids and (c.status = 'PENDENTE' "
+            + "and (c.proximaTentativa is null or c.proximaTentativa <= :agora) "
+            + "or (c.status = 'PROCESSANDO' and c.reivindicadaEm < :expiradaAntesDe))")
+    int reivindicar(@Param("ids") Collection<Integer> ids, @Param("lote") String lote,
+                    @Param("agora") LocalDateTime agora, @Param("expiradaAntesDe") LocalDateTime expiradaAntesDe);
+
+    List<Cobranca> findByLote(String lote);
+
+    // Renova a reivindicação enquanto o lote ainda está no gateway (instância viva)
+    @Transactional
+    @Modifying
+    @Query("update Cobranca c set c.reivindicadaEm = :agora where c.lote = :lote and c.status = 'PROCESSANDO'")
+    int renovar(@Param("lote") String lote, @Param("agora") LocalDateTime agora);
+
+    // Só finaliza se a cobrança ainda pertence ao lote (a reivindicação não expirou)
+    @Transactional
+    @Modifying
+    @Query("update Cobranca c set c.status = :status, c.horaFinalizacao = :agora, c.tentativas = :tentativas, "
+            + "c.lote = null where c.id = :id and c.lote = :lote")
+    int finalizar(@Param("id") Integer id, @Param("lote") String lote, @Param("status") String status,
+                  @Param("tentativas") int tentativas, @Param("agora") LocalDateTime agora);
+
+    // Erro transitório no gateway: volta para a fila, só disponível de novo a partir de proximaTentativa
+    @Transactional
+    @Modifying
+    @Query("update Cobranca c set c.status = 'PENDENTE', c.tentativas = :tentativas, c.lote = null, "
+            + "c.reivindicadaEm = null, c.proximaTentativa = :proximaTentativa where c.id = :id and c.lote = :lote")
+    int devolverParaFila(@Param("id") Integer id, @Param("lote") String lote, @Param("tentativas") int tentativas,
+                         @Param("proximaTentativa") LocalDateTime proximaTentativa);
+}
@@ -3,12 +3,25 @@ package bicicletario.externo.service;
 import bicicletario.externo.dto.CartaoDTO;
 import bicicletario.externo.dto.EmailDTO;
 import bicicletario.externo.dto.NovaCobrancaDTO;
+import bicicletario.externo.dto.ResultadoCobrancaLoteDTO;
 import bicicletario.externo.model.Cobranca;
 import bicicletario.externo.repository.CobrancaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -17,6 +30,18 @@ public class ExternoService {
     @Autowired
     private CobrancaRepository cobrancaRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${cobranca.lote.max-itens:1000}")
+    private int maxItensLote;
+
+    private static final String INSERT_COBRANCA =
+            "insert into cobranca (status, hora_solicitacao, hora_finalizacao, valor, ciclista) values (?, ?, ?, ?, ?)";
+
     public Cobranca realizarCobranca(NovaCobrancaDTO dto) {
         return criarCobranca(dto, "PAGA");
     }
@@ -25,6 +50,45 @@ public class ExternoService {
         return criarCobranca(dto, "PENDENTE");
     }
 
+    /**
+     * POST /cobrancas/lote: grava todas as cobranças válidas num único batch JDBC
+     * (o Hibernate não agrupa inserts com id IDENTITY) e numa única transação.
+     * Itens inválidos não impedem os demais: voltam como REJEITADA no resultado.
+     *
+     * @param fila true = PENDENTE (processadas pelo ProcessadorFilaCobranca), false = PAGA na hora
+     */
+    @Transactional
+    public List<ResultadoCobrancaLoteDTO> criarCobrancasEmLote(List<NovaCobrancaDTO> itens, boolean fila) {
+        if (itens == null || itens.isEmpty()) {
+            throw new IllegalArgumentException("Lote de cobranças vazio");
+        }
+        if (itens.size() > maxItensLote) {
+            throw new IllegalArgumentException("Lote com " + itens.size() + " cobranças; máximo " + maxItensLote);
+        }
+        String status = fila ? "PENDENTE" : "PAGA";
+        List<ResultadoCobrancaLoteDTO> resultados = new ArrayList<>(itens.size());
+        List<ResultadoCobrancaLoteDTO> aceitos = new ArrayList<>();
+        List<NovaCobrancaDTO> validos = new ArrayList<>();
+        for (int i = 0; i < itens.size(); i++) {
+            NovaCobrancaDTO item = itens.get(i);
+            String erro = validarItem(item);
+            ResultadoCobrancaLoteDTO resultado = new ResultadoCobrancaLoteDTO(i, null, erro == null ? status : "REJEITADA", erro);
+            resultados.add(resultado);
+            if (erro == null) {
+                aceitos.add(resultado);
+                validos.add(item);
+            }
+        }
+        if (!validos.isEmpty()) {
+            List<Integer> ids = inserirEmLote(validos, status);
+            for (int i = 0; i < aceitos.size(); i++) {
+                aceitos.get(i).setId(ids.get(i));
+            }
+            meterRegistry.counter("cobranca.criadas", "status", status).increment(validos.size());
+        }
+        return resultados;
+    }
+
     public Optional<Cobranca> obterCobranca(Integer id) {
         return cobrancaRepository.findById(id);
     }
@@ -40,6 +104,52 @@ public class ExternoService {
         return dto.getNumero() != null && !dto.getNumero().trim().isEmpty();
     }
 
+    private String validarItem(NovaCobrancaDTO item) {
+        if (item == null) {
+            return "Item nulo";
+        }
+        if (item.getCiclista() == null) {
+            return "Ciclista não informado";
+        }
+        if (item.getValor() == null || item.getValor() <= 0) {
+            return "Valor deve ser positivo";
+        }
+        return null;
+    }
+
+    // Um único executeBatch; os ids gerados voltam na mesma ordem dos itens
+    private List<Integer> inserirEmLote(List<NovaCobrancaDTO> itens, String status) {
+        Timestamp agora = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp finalizacao = "PAGA".equals(status) ? agora : null;
+        return jdbcTemplate.execute((ConnectionCallback<List<Integer>>) conexao -> {
+            try (PreparedStatement insert = conexao.prepareStatement(INSERT_COBRANCA, Statement.RETURN_GENERATED_KEYS)) {
+                for (NovaCobrancaDTO item : itens) {
+                    insert.setString(1, status);
+                    insert.setTimestamp(2, agora);
+                    if (finalizacao == null) {
+                        insert.setNull(3, Types.TIMESTAMP);
+                    } else {
+                        insert.setTimestamp(3, finalizacao);
+                    }
+                    insert.setDouble(4, item.getValor());
+                    insert.setInt(5, item.getCiclista());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                List<Integer> ids = new ArrayList<>(itens.size());
+                try (ResultSet chaves = insert.getGeneratedKeys()) {
+                    while (chaves.next()) {
+                        ids.add(chaves.getInt(1));
+                    }
+                }
+                if (ids.size() != itens.size()) {
+                    throw new IllegalStateException("Driver retornou " + ids.size() + " ids para " + itens.size() + " cobranças");
+                }
+                return ids;
+            }
+        });
+    }
+
     // Método auxiliar privado
     private Cobranca criarCobranca(NovaCobrancaDTO dto, String status) {
         Cobranca c = new Cobranca();
@@ -50,6 +160,8 @@ public class ExternoService {
         if ("PAGA".equals(status)) {
             c.setHoraFinalizacao(LocalDateTime.now());
         }
-        return cobrancaRepository.save(c);
+        Cobranca salva = cobrancaRepository.save(c);
+        meterRegistry.counter("cobranca.criadas", "status", status).increment();
+        return salva;
     }
 }
\ No newline at end of file
@@ -0,0 +1,188 @@
+package bicicletario.externo.service;
+
+import bicicletario.externo.model.Cobranca;
+import bicicletario.externo.pagamento.GatewayPagamento;
+import bicicletario.externo.repository.CobrancaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drena a fila de cobranças (status PENDENTE, criadas por POST /filaCobranca)
+ * em lotes: reivindica um lote, cobra cada item no gateway em paralelo e
+ * marca PAGA ou FALHA com a horaFinalizacao.
+ *
+ * Várias instâncias podem rodar ao mesmo tempo: a reivindicação é um UPDATE
+ * condicional que grava o token do lote na cobrança (coluna 'lote'), então
+ * cada cobrança pertence a um único lote. Enquanto o lote está no gateway a
+ * reivindicação é renovada a cada terço de reivindicacao-expira-ms, então ela
+ * só expira (e outra instância retoma as cobranças) se a instância parou: uma
+ * instância lenta, mas viva, não divide a cobrança com outra. O resultado só
+ * é gravado se a cobrança ainda pertence ao lote.
+ *
+ * Erro no gateway devolve a cobrança para a fila com backoff exponencial
+ * (proximaTentativa), como a outbox de emails do Aluguel: uma instabilidade
+ * curta do gateway não consome as max-tentativas de uma vez.
+ */
+@Component
+@ConditionalOnProperty(name = "fila.cobranca.habilitada", havingValue = "true", matchIfMissing = true)
+public class ProcessadorFilaCobranca {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessadorFilaCobranca.class);
+
+    @Autowired
+    private CobrancaRepository cobrancaRepository;
+
+    @Autowired
+    private GatewayPagamento gatewayPagamento;
+
+    @Autowired
+    private ExecutorService filaCobrancaExecutor;
+
+    @Autowired
+    private ScheduledExecutorService filaCobrancaRenovacaoExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${fila.cobranca.lote:50}")
+    private int tamanhoLote;
+
+    @Value("${fila.cobranca.max-tentativas:5}")
+    private int maxTentativas;
+
+    @Value("${fila.cobranca.backoff-inicial-ms:10000}")
+    private long backoffInicialMs;
+
+    @Value("${fila.cobranca.backoff-maximo-ms:600000}")
+    private long backoffMaximoMs;
+
+    // Renovada durante o lote: só expira se a instância realmente parou
+    @Value("${fila.cobranca.reivindicacao-expira-ms:300000}")
+    private long reivindicacaoExpiraMs;
+
+    @Scheduled(fixedDelayString = "${fila.cobranca.intervalo-ms:10000}")
+    public void processar() {
+        ResultadoLote resultado;
+        do {
+            resultado = processarLote();
+            // Lote cheio: pode haver mais pendentes, continua drenando. Se nada foi
+            // finalizado o gateway está com problema: espera a próxima rodada
+        } while (resultado.reivindicadas == tamanhoLote && resultado.finalizadas > 0);
+    }
+
+    // Reivindica e processa um lote
+    ResultadoLote processarLote() {
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime expiradaAntesDe = agora.minus(Duration.ofMillis(reivindicacaoExpiraMs));
+
+        List<Integer> candidatas = cobrancaRepository.findIdsDisponiveis(agora, expiradaAntesDe, PageRequest.of(0, tamanhoLote));
+        if (candidatas.isEmpty()) {
+            return new ResultadoLote(0, 0);
+        }
+        String lote = UUID.randomUUID().toString();
+        int reivindicadas = cobrancaRepository.reivindicar(candidatas, lote, agora, expiradaAntesDe);
+        if (reivindicadas == 0) {
+            // Outra instância levou todas as candidatas: tenta de novo na próxima rodada
+            return new ResultadoLote(0, 0);
+        }
+
+        long intervaloRenovacao = Math.max(1, reivindicacaoExpiraMs / 3);
+        ScheduledFuture<?> renovacao = filaCobrancaRenovacaoExecutor.scheduleWithFixedDelay(
+                () -> renovar(lote), intervaloRenovacao, intervaloRenovacao, TimeUnit.MILLISECONDS);
+        List<CompletableFuture<Boolean>> cobrancas = new ArrayList<>();
+        try {
+            for (Cobranca cobranca : cobrancaRepository.findByLote(lote)) {
+                cobrancas.add(CompletableFuture.supplyAsync(() -> cobrar(cobranca, lote), filaCobrancaExecutor));
+            }
+            CompletableFuture.allOf(cobrancas.toArray(new CompletableFuture[0])).join();
+        } finally {
+            renovacao.cancel(false);
+        }
+        int finalizadas = 0;
+        for (CompletableFuture<Boolean> cobranca : cobrancas) {
+            if (cobranca.join()) {
+                finalizadas++;
+            }
+        }
+        logger.info("Lote {} da fila de cobranças processado ({} cobranças, {} finalizadas)",
+                lote, reivindicadas, finalizadas);
+        return new ResultadoLote(reivindicadas, finalizadas);
+    }
+
+    // true se a cobrança saiu da fila (PAGA ou FALHA)
+    private boolean cobrar(Cobranca cobranca, String lote) {
+        int tentativas = (cobranca.getTentativas() == null ? 0 : cobranca.getTentativas()) + 1;
+        try {
+            String status = gatewayPagamento.cobrar(cobranca) ? "PAGA" : "FALHA";
+            return finalizar(cobranca, lote, status, tentativas);
+        } catch (Exception e) {
+            if (tentativas >= maxTentativas) {
+                logger.error("Cobrança {} marcada como FALHA após {} tentativas. Erro: {}",
+                        cobranca.getId(), tentativas, e.getMessage());
+                return finalizar(cobranca, lote, "FALHA", tentativas);
+            }
+            LocalDateTime proximaTentativa = LocalDateTime.now().plus(Duration.ofMillis(calcularBackoffMs(tentativas)));
+            logger.warn("Erro ao cobrar {} (tentativa {}), volta para a fila a partir de {}. Erro: {}",
+                    cobranca.getId(), tentativas, proximaTentativa, e.getMessage());
+            if (cobrancaRepository.devolverParaFila(cobranca.getId(), lote, tentativas, proximaTentativa) == 0) {
+                logger.warn("Cobrança {} não pertence mais ao lote {}; não volta para a fila", cobranca.getId(), lote);
+            }
+            return false;
+        }
+    }
+
+    // Exceção aqui cancelaria as próximas renovações do lote
+    private void renovar(String lote) {
+        try {
+            cobrancaRepository.renovar(lote, LocalDateTime.now());
+        } catch (RuntimeException e) {
+            logger.warn("Falha ao renovar a reivindicação do lote {}: {}", lote, e.getMessage());
+        }
+    }
+
+    // backoff-inicial * 2^(tentativas-1), limitado ao backoff máximo
+    private long calcularBackoffMs(int tentativas) {
+        int expoente = Math.min(tentativas - 1, 30);
+        return Math.min(backoffInicialMs << expoente, backoffMaximoMs);
+    }
+
+    private boolean finalizar(Cobranca cobranca, String lote, String status, int tentativas) {
+        int atualizadas = cobrancaRepository.finalizar(cobranca.getId(), lote, status, tentativas, LocalDateTime.now());
+        if (atualizadas == 0) {
+            // A reivindicação expirou e outra instância assumiu a cobrança
+            logger.warn("Cobrança {} não pertence mais ao lote {}; resultado {} descartado",
+                    cobranca.getId(), lote, status);
+            return false;
+        }
+        meterRegistry.counter("cobranca.processadas", "status", status).increment();
+        return true;
+    }
+
+    static class ResultadoLote {
+        final int reivindicadas;
+        final int finalizadas;
+
+        ResultadoLote(int reivindicadas, int finalizadas) {
+            this.reivindicadas = reivindicadas;
+            this.finalizadas = finalizadas;
+        }
+    }
+}
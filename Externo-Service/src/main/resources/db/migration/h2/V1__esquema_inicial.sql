@@ -0,0 +1,29 @@
+-- Esquema do Externo-Service no H2 (Flyway: classpath:db/migration/h2).
+-- O H2 roda em memória e sempre começa vazio: um único script com o esquema inteiro.
+
+CREATE TABLE cobranca (
+    id                integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    status            varchar(255),
+    hora_solicitacao  timestamp,
+    hora_finalizacao  timestamp,
+    valor             double precision,
+    ciclista          integer,
+    lote              varchar(255),
+    reivindicada_em   timestamp,
+    tentativas        integer,
+    proxima_tentativa timestamp
+);
+
+CREATE INDEX idx_cobranca_status_lote ON cobranca (status, lote);
+CREATE INDEX idx_cobranca_lote ON cobranca (lote);
+
+CREATE TABLE resposta_idempotente (
+    chave             varchar(400) PRIMARY KEY,
+    impressao_digital varchar(64),
+    status            integer,
+    content_type      varchar(255),
+    corpo             blob,
+    expira_em         timestamp
+);
+
+CREATE INDEX idx_resposta_idempotente_expira ON resposta_idempotente (expira_em);
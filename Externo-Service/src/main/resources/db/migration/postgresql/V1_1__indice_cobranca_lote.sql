@@ -0,0 +1,12 @@
+-- Cobranças de um lote reivindicado (CobrancaRepository.findByLote, a cada rodada
+-- da fila). Parcial: fora da fila o lote é nulo, e a maior parte da tabela são
+-- cobranças já finalizadas.
+--
+-- CONCURRENTLY não trava a tabela para escrita durante a criação; o Flyway
+-- detecta e executa o script sem transação.
+--
+-- Mesmo nome de @Table(indexes = ...) na entidade Cobranca.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_cobranca_lote
+    ON cobranca (lote)
+    WHERE lote IS NOT NULL;
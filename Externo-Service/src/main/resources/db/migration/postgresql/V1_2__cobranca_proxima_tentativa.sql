@@ -0,0 +1,5 @@
+-- Backoff da fila de cobranças: depois de um erro no gateway a cobrança volta
+-- para PENDENTE, mas só é reivindicada de novo a partir de proxima_tentativa
+-- (nula = nunca tentada, disponível já).
+
+ALTER TABLE cobranca ADD COLUMN IF NOT EXISTS proxima_tentativa timestamp;
@@ -0,0 +1,43 @@
+-- Esquema do Externo-Service no PostgreSQL (Flyway: classpath:db/migration/postgresql).
+--
+-- As tabelas são as que o Hibernate criava com ddl-auto=update; agora ele só
+-- confere (ddl-auto=validate). Bases que vieram do ddl-auto=update ganham a
+-- linha de base 0 (spring.flyway.baseline-on-migrate) e rodam este script
+-- também, por isso tudo aqui é IF NOT EXISTS.
+
+CREATE TABLE IF NOT EXISTS cobranca (
+    id                serial PRIMARY KEY,
+    status            varchar(255),
+    hora_solicitacao  timestamp,
+    hora_finalizacao  timestamp,
+    valor             float8,
+    ciclista          integer,
+    lote              varchar(255),
+    reivindicada_em   timestamp,
+    tentativas        integer
+);
+
+-- Bases da linha de base 0 já têm a tabela, mas sem as colunas da fila: entram
+-- aqui, antes dos índices que as usam (este e o do V1_1). Nulas sem DEFAULT,
+-- só mudam o catálogo.
+ALTER TABLE cobranca ADD COLUMN IF NOT EXISTS lote varchar(255);
+ALTER TABLE cobranca ADD COLUMN IF NOT EXISTS reivindicada_em timestamp;
+ALTER TABLE cobranca ADD COLUMN IF NOT EXISTS tentativas integer;
+
+-- Fila de cobranças (ProcessadorFilaCobranca): candidatas por status
+CREATE INDEX IF NOT EXISTS idx_cobranca_status_lote
+    ON cobranca (status, lote);
+
+-- Respostas de Idempotency-Key (idempotencia.persistir=true). @Lob byte[] = oid,
+-- como o Hibernate cria no PostgreSQL
+CREATE TABLE IF NOT EXISTS resposta_idempotente (
+    chave             varchar(400) PRIMARY KEY,
+    impressao_digital varchar(64),
+    status            integer,
+    content_type      varchar(255),
+    corpo             oid,
+    expira_em         timestamp
+);
+
+CREATE INDEX IF NOT EXISTS idx_resposta_idempotente_expira
+    ON resposta_idempotente (expira_em);
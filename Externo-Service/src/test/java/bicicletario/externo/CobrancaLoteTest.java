@@ -0,0 +1,98 @@
+package bicicletario.externo;
+
+import bicicletario.externo.dto.NovaCobrancaDTO;
+import bicicletario.externo.dto.ResultadoCobrancaLoteDTO;
+import bicicletario.externo.model.Cobranca;
+import bicicletario.externo.repository.CobrancaRepository;
+import bicicletario.externo.service.ExternoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * POST /cobrancas/lote grava num único batch JDBC e associa os ids gerados aos
+ * itens pela ordem: se o driver devolvesse os ids em outra ordem, cada cliente
+ * receberia o id da cobrança de outro.
+ */
+@SpringBootTest(properties = {"fila.cobranca.habilitada=false", "pagamento.simulado.latencia-ms=0"})
+class CobrancaLoteTest {
+
+    @Autowired
+    private ExternoService externoService;
+
+    @Autowired
+    private CobrancaRepository cobrancaRepository;
+
+    @BeforeEach
+    void setUp() {
+        cobrancaRepository.deleteAll();
+    }
+
+    private static NovaCobrancaDTO item(Double valor, Integer ciclista) {
+        NovaCobrancaDTO item = new NovaCobrancaDTO();
+        item.setValor(valor);
+        item.setCiclista(ciclista);
+        return item;
+    }
+
+    @Test
+    void lote_IdsGeradosNaOrdemDosItens() {
+        List<NovaCobrancaDTO> itens = new ArrayList<>();
+        for (int i = 1; i <= 300; i++) {
+            itens.add(item(i + 0.5, i));
+        }
+
+        List<ResultadoCobrancaLoteDTO> resultados = externoService.criarCobrancasEmLote(itens, true);
+
+        assertEquals(300, resultados.size());
+        Integer anterior = null;
+        for (int i = 0; i < resultados.size(); i++) {
+            ResultadoCobrancaLoteDTO resultado = resultados.get(i);
+            assertEquals(i, resultado.getIndice());
+            assertEquals("PENDENTE", resultado.getStatus());
+            Cobranca gravada = cobrancaRepository.findById(resultado.getId()).orElseThrow(AssertionError::new);
+            assertEquals(itens.get(i).getCiclista(), gravada.getCiclista());
+            assertEquals(itens.get(i).getValor(), gravada.getValor());
+            assertEquals("PENDENTE", gravada.getStatus());
+            if (anterior != null) {
+                assertTrue(resultado.getId() > anterior);
+            }
+            anterior = resultado.getId();
+        }
+    }
+
+    @Test
+    void lote_ItensInvalidosNaoDeslocamOsIdsDosValidos() {
+        List<NovaCobrancaDTO> itens = Arrays.asList(
+                item(10.0, 1),
+                item(-5.0, 2),
+                null,
+                item(30.0, 3),
+                item(40.0, null),
+                item(50.0, 5));
+
+        List<ResultadoCobrancaLoteDTO> resultados = externoService.criarCobrancasEmLote(itens, false);
+
+        assertEquals(6, resultados.size());
+        assertEquals("REJEITADA", resultados.get(1).getStatus());
+        assertEquals("REJEITADA", resultados.get(2).getStatus());
+        assertEquals("REJEITADA", resultados.get(4).getStatus());
+        assertNull(resultados.get(1).getId());
+        assertEquals(3, cobrancaRepository.count());
+        for (int i : new int[] {0, 3, 5}) {
+            ResultadoCobrancaLoteDTO resultado = resultados.get(i);
+            assertEquals("PAGA", resultado.getStatus());
+            Cobranca gravada = cobrancaRepository.findById(resultado.getId()).orElseThrow(AssertionError::new);
+            assertEquals(itens.get(i).getCiclista(), gravada.getCiclista());
+            assertEquals(itens.get(i).getValor(), gravada.getValor());
+            assertNotNull(gravada.getHoraFinalizacao());
+        }
+    }
+}
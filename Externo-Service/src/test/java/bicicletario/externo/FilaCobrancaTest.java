@@ -0,0 +1,250 @@
+package bicicletario.externo;
+
+import bicicletario.externo.dto.NovaCobrancaDTO;
+import bicicletario.externo.model.Cobranca;
+import bicicletario.externo.pagamento.GatewayPagamento;
+import bicicletario.externo.repository.CobrancaRepository;
+import bicicletario.externo.service.ExternoService;
+import bicicletario.externo.service.ProcessadorFilaCobranca;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProcessadorFilaCobranca contra o H2 de verdade: a reivindicação é um UPDATE
+ * condicional, então só o banco mostra se dois processadores (duas instâncias)
+ * dividem a fila sem cobrar a mesma cobrança duas vezes.
+ *
+ * O processador agendado fica desligado; cada teste monta os seus.
+ */
+@SpringBootTest(properties = {"fila.cobranca.habilitada=false", "pagamento.simulado.latencia-ms=0"})
+class FilaCobrancaTest {
+
+    @Autowired
+    private CobrancaRepository cobrancaRepository;
+
+    @Autowired
+    private ExternoService externoService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ExecutorService executor;
+    private ScheduledExecutorService renovacao;
+
+    @BeforeEach
+    void setUp() {
+        cobrancaRepository.deleteAll();
+        executor = Executors.newFixedThreadPool(8);
+        renovacao = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        renovacao.shutdownNow();
+    }
+
+    private ProcessadorFilaCobranca processador(GatewayPagamento gateway, int tamanhoLote, long backoffInicialMs) {
+        ProcessadorFilaCobranca processador = new ProcessadorFilaCobranca();
+        ReflectionTestUtils.setField(processador, "cobrancaRepository", cobrancaRepository);
+        ReflectionTestUtils.setField(processador, "gatewayPagamento", gateway);
+        ReflectionTestUtils.setField(processador, "filaCobrancaExecutor", executor);
+        ReflectionTestUtils.setField(processador, "filaCobrancaRenovacaoExecutor", renovacao);
+        ReflectionTestUtils.setField(processador, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(processador, "tamanhoLote", tamanhoLote);
+        ReflectionTestUtils.setField(processador, "maxTentativas", 3);
+        ReflectionTestUtils.setField(processador, "backoffInicialMs", backoffInicialMs);
+        ReflectionTestUtils.setField(processador, "backoffMaximoMs", 600_000L);
+        ReflectionTestUtils.setField(processador, "reivindicacaoExpiraMs", 300_000L);
+        return processador;
+    }
+
+    private void enfileirar(int quantidade) {
+        List<NovaCobrancaDTO> itens = new ArrayList<>();
+        for (int i = 1; i <= quantidade; i++) {
+            NovaCobrancaDTO item = new NovaCobrancaDTO();
+            item.setValor(10.0);
+            item.setCiclista(i);
+            itens.add(item);
+        }
+        externoService.criarCobrancasEmLote(itens, true);
+    }
+
+    @Test
+    void reivindicacao_SegundoLoteNaoLevaAsMesmasCobrancas() {
+        enfileirar(5);
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime expiradaAntesDe = agora.minusMinutes(5);
+        // As duas instâncias leram as mesmas candidatas antes de reivindicar
+        List<Integer> candidatas = cobrancaRepository.findIdsDisponiveis(agora, expiradaAntesDe, PageRequest.of(0, 10));
+
+        assertEquals(5, cobrancaRepository.reivindicar(candidatas, "lote-a", agora, expiradaAntesDe));
+        assertEquals(0, cobrancaRepository.reivindicar(candidatas, "lote-b", agora, expiradaAntesDe));
+        assertEquals(5, cobrancaRepository.findByLote("lote-a").size());
+        assertTrue(cobrancaRepository.findByLote("lote-b").isEmpty());
+    }
+
+    @Test
+    void reivindicacao_CobrancaDevolvidaParaAFilaDepoisDaLeituraEsperaOBackoff() {
+        enfileirar(1);
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime expiradaAntesDe = agora.minusMinutes(5);
+        List<Integer> candidatas = cobrancaRepository.findIdsDisponiveis(agora, expiradaAntesDe, PageRequest.of(0, 10));
+        // Entre a leitura e o UPDATE: outra instância tentou, falhou e devolveu com backoff
+        cobrancaRepository.reivindicar(candidatas, "lote-a", agora, expiradaAntesDe);
+        cobrancaRepository.devolverParaFila(candidatas.get(0), "lote-a", 1, agora.plusMinutes(1));
+
+        assertEquals(0, cobrancaRepository.reivindicar(candidatas, "lote-b", agora, expiradaAntesDe));
+    }
+
+    @Test
+    void loteLento_InstanciaVivaNaoPerdeAReivindicacao() throws Exception {
+        enfileirar(1);
+        CountDownLatch liberarGateway = new CountDownLatch(1);
+        AtomicInteger chamadas = new AtomicInteger();
+        GatewayPagamento lento = cobranca -> {
+            chamadas.incrementAndGet();
+            try {
+                liberarGateway.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        };
+        ProcessadorFilaCobranca primeiro = processador(lento, 10, 0);
+        ReflectionTestUtils.setField(primeiro, "reivindicacaoExpiraMs", 300L);
+
+        ExecutorService instancia = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> lote = instancia.submit(primeiro::processar);
+            // Bem mais que reivindicacao-expira-ms com a cobrança ainda no gateway
+            Thread.sleep(1000);
+            // Outra instância, com o mesmo prazo de 300 ms, não vê a cobrança como disponível
+            LocalDateTime agora = LocalDateTime.now();
+            assertTrue(cobrancaRepository.findIdsDisponiveis(agora, agora.minusNanos(300_000_000L),
+                    PageRequest.of(0, 10)).isEmpty());
+            assertEquals(1, chamadas.get());
+
+            liberarGateway.countDown();
+            lote.get(10, TimeUnit.SECONDS);
+        } finally {
+            instancia.shutdownNow();
+        }
+        assertEquals("PAGA", cobrancaRepository.findAll().get(0).getStatus());
+    }
+
+    @Test
+    void doisProcessadores_CadaCobrancaCobradaUmaVez() throws Exception {
+        enfileirar(200);
+        Map<Integer, AtomicInteger> cobradas = new ConcurrentHashMap<>();
+        GatewayPagamento gateway = cobranca -> {
+            cobradas.computeIfAbsent(cobranca.getId(), id -> new AtomicInteger()).incrementAndGet();
+            return true;
+        };
+        ProcessadorFilaCobranca primeiro = processador(gateway, 20, 0);
+        ProcessadorFilaCobranca segundo = processador(gateway, 20, 0);
+
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService instancias = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> a = instancias.submit(() -> { aguardar(largada); primeiro.processar(); });
+            Future<?> b = instancias.submit(() -> { aguardar(largada); segundo.processar(); });
+            largada.countDown();
+            a.get(30, TimeUnit.SECONDS);
+            b.get(30, TimeUnit.SECONDS);
+        } finally {
+            instancias.shutdownNow();
+        }
+
+        assertEquals(200, cobradas.size());
+        for (Map.Entry<Integer, AtomicInteger> cobrada : cobradas.entrySet()) {
+            assertEquals(1, cobrada.getValue().get(), "Cobrança " + cobrada.getKey() + " cobrada mais de uma vez");
+        }
+        for (Cobranca cobranca : cobrancaRepository.findAll()) {
+            assertEquals("PAGA", cobranca.getStatus());
+            assertNull(cobranca.getLote());
+        }
+    }
+
+    @Test
+    void gatewayForaDoAr_EsgotaAsTentativasEMarcaFalha() {
+        enfileirar(3);
+        AtomicInteger chamadas = new AtomicInteger();
+        GatewayPagamento foraDoAr = cobranca -> {
+            chamadas.incrementAndGet();
+            throw new IllegalStateException("gateway indisponível");
+        };
+        // Backoff zero: a cobrança volta disponível já na rodada seguinte
+        ProcessadorFilaCobranca processador = processador(foraDoAr, 3, 0);
+
+        processador.processar();
+        // Lote cheio mas nada finalizado: a rodada para em vez de reivindicar de novo na hora
+        assertEquals(3, chamadas.get());
+        for (Cobranca cobranca : cobrancaRepository.findAll()) {
+            assertEquals("PENDENTE", cobranca.getStatus());
+            assertEquals(1, cobranca.getTentativas());
+            assertNotNull(cobranca.getProximaTentativa());
+        }
+
+        processador.processar();
+        processador.processar();
+
+        assertEquals(9, chamadas.get());
+        for (Cobranca cobranca : cobrancaRepository.findAll()) {
+            assertEquals("FALHA", cobranca.getStatus());
+            assertEquals(3, cobranca.getTentativas());
+            assertNotNull(cobranca.getHoraFinalizacao());
+        }
+
+        processador.processar();
+        assertEquals(9, chamadas.get()); // FALHA saiu da fila
+    }
+
+    @Test
+    void gatewayForaDoAr_CobrancaEsperaOBackoffAntesDeVoltar() {
+        enfileirar(1);
+        AtomicInteger chamadas = new AtomicInteger();
+        GatewayPagamento foraDoAr = cobranca -> {
+            chamadas.incrementAndGet();
+            throw new IllegalStateException("gateway indisponível");
+        };
+        ProcessadorFilaCobranca processador = processador(foraDoAr, 10, 60_000);
+
+        processador.processar();
+        processador.processar();
+
+        assertEquals(1, chamadas.get());
+        Cobranca cobranca = cobrancaRepository.findAll().get(0);
+        assertEquals("PENDENTE", cobranca.getStatus());
+        assertTrue(cobranca.getProximaTentativa().isAfter(LocalDateTime.now().plusSeconds(50)));
+    }
+
+    private static void aguardar(CountDownLatch largada) {
+        try {
+            largada.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
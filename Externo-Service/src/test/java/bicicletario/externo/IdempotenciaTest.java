@@ -0,0 +1,102 @@
+package bicicletario.externo;
+
+import bicicletario.externo.repository.CobrancaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * POST /filaCobranca e /cobrancas/lote repetidos com a mesma Idempotency-Key
+ * (o Aluguel reenviando após timeout): uma única cobrança gravada.
+ */
+@SpringBootTest(properties = {"fila.cobranca.habilitada=false", "pagamento.simulado.latencia-ms=0"})
+@AutoConfigureMockMvc
+class IdempotenciaTest {
+
+    private static final String COBRANCA = "{\"valor\": 10.0, \"ciclista\": 1}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CobrancaRepository cobrancaRepository;
+
+    @BeforeEach
+    void setUp() {
+        cobrancaRepository.deleteAll();
+    }
+
+    @Test
+    void filaCobranca_MesmaChave_UmaCobrancaEMesmaResposta() throws Exception {
+        MvcResult primeira = mockMvc.perform(post("/filaCobranca")
+                        .header("Idempotency-Key", "fila-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(COBRANCA))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn();
+
+        MvcResult repetida = mockMvc.perform(post("/filaCobranca")
+                        .header("Idempotency-Key", "fila-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(COBRANCA))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andReturn();
+
+        assertEquals(primeira.getResponse().getContentAsString(), repetida.getResponse().getContentAsString());
+        assertEquals(1, cobrancaRepository.count());
+    }
+
+    @Test
+    void lote_MesmaChave_GravaOLoteUmaVez() throws Exception {
+        String lote = "[" + COBRANCA + ", {\"valor\": 20.0, \"ciclista\": 2}]";
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/cobrancas/lote")
+                            .header("Idempotency-Key", "lote-1")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(lote))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(2, cobrancaRepository.count());
+    }
+
+    @Test
+    void mesmaChaveOutroCorpo_Recusada() throws Exception {
+        mockMvc.perform(post("/filaCobranca")
+                        .header("Idempotency-Key", "fila-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(COBRANCA))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/filaCobranca")
+                        .header("Idempotency-Key", "fila-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"valor\": 99.0, \"ciclista\": 1}"))
+                .andExpect(status().isUnprocessableEntity());
+
+        assertEquals(1, cobrancaRepository.count());
+    }
+
+    @Test
+    void semChave_CadaRequisicaoGravaUmaCobranca() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/filaCobranca")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(COBRANCA))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(2, cobrancaRepository.count());
+    }
+}
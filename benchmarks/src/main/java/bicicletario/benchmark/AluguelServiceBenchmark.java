@@ -0,0 +1,164 @@
+package bicicletario.benchmark;
+
+import bicicletario.aluguel.dto.DevolucaoDTO;
+import bicicletario.aluguel.dto.NovoAluguelDTO;
+import bicicletario.aluguel.model.Aluguel;
+import bicicletario.aluguel.model.Ciclista;
+import bicicletario.aluguel.model.Devolucao;
+import bicicletario.aluguel.model.TabelaTarifa;
+import bicicletario.aluguel.repository.AluguelRepository;
+import bicicletario.aluguel.repository.CiclistaRepository;
+import bicicletario.aluguel.service.AluguelService;
+import bicicletario.aluguel.service.CacheCiclistas;
+import bicicletario.aluguel.service.RegistroAlugueisAtivos;
+import bicicletario.aluguel.tarifa.MotorTarifa;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UC03 (realizarAluguel) e UC04 (realizarDevolucao) com Equipamento, Externo,
+ * outbox e repositórios simulados: mede só o trabalho do próprio serviço
+ * (validações em paralelo, registro de aluguéis ativos, montagem das entidades,
+ * timers das etapas).
+ *
+ * Sem JPA o AluguelListener não roda, então o aluguel "gravado" não entra no
+ * registro: o mesmo ciclista pode alugar de novo a cada invocação, e o aluguel
+ * devolvido continua lá para a próxima devolução.
+ *
+ * O contador auxiliar "escritasBanco" conta as chamadas de save nos
+ * repositórios: na mesma unidade (ops/s) do resultado principal, escritas
+ * iguais a devoluções = uma escrita por devolução (antes da projeção
+ * Devolucao eram duas: UPDATE no aluguel + INSERT na tabela devolucao).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AluguelServiceBenchmark {
+
+private static final Integer CICLISTA = 1;
+private static final Integer TRANCA_INICIO = 10;
+private static final Integer BICICLETA_DEVOLVIDA = 500;
+
+private AluguelService aluguelService;
+private ExecutorService executor;
+private NovoAluguelDTO novoAluguel;
+private DevolucaoDTO devolucao;
+// Escritas feitas nos repositórios simulados
+private final AtomicLong escritas = new AtomicLong();
+
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public static class Escritas {
+    public long escritasBanco;
+}
+
+@Setup(Level.Trial)
+public void preparar() {
+    Ciclista ciclista = new Ciclista();
+    ciclista.setId(CICLISTA);
+    ciclista.setNome("Ciclista Benchmark");
+    ciclista.setEmail("benchmark@teste.com");
+    ciclista.setStatus("ATIVO");
+
+    Aluguel aluguelAberto = new Aluguel();
+    aluguelAberto.setId(1);
+    aluguelAberto.setCiclista(2);
+    aluguelAberto.setBicicleta(BICICLETA_DEVOLVIDA);
+    aluguelAberto.setTrancaInicio(TRANCA_INICIO);
+    aluguelAberto.setHoraInicio(LocalDateTime.now().minusHours(3)); // Com taxa extra
+
+    AluguelRepository aluguelRepository = Stubs.repositorio(AluguelRepository.class, (metodo, args) -> {
+        if ("save".equals(metodo)) {
+            escritas.incrementAndGet();
+            return args[0];
+        }
+        if ("findByHoraFimIsNull".equals(metodo)) {
+            return Collections.singletonList(aluguelAberto);
+        }
+        throw new UnsupportedOperationException(metodo);
+    });
+    CiclistaRepository ciclistaRepository = Stubs.repositorio(CiclistaRepository.class, (metodo, args) -> {
+        if ("findById".equals(metodo)) {
+            return Optional.of(ciclista);
+        }
+        throw new UnsupportedOperationException(metodo);
+    });
+
+    RegistroAlugueisAtivos registro = new RegistroAlugueisAtivos();
+    Stubs.injetar(registro, "aluguelRepository", aluguelRepository);
+    registro.carregar();
+
+    // Mesmo tamanho de pool que o padrão de aluguel.validacao.threads
+    executor = Executors.newFixedThreadPool(16);
+
+    aluguelService = new AluguelService();
+    Stubs.injetar(aluguelService, "aluguelRepository", aluguelRepository);
+    // Fora do Spring o @Cacheable não atua: cada leitura vai ao stub, como um cache frio
+    CacheCiclistas cacheCiclistas = new CacheCiclistas();
+    Stubs.injetar(cacheCiclistas, "ciclistaRepository", ciclistaRepository);
+    Stubs.injetar(aluguelService, "cacheCiclistas", cacheCiclistas);
+    Stubs.injetar(aluguelService, "equipamentoService", new Stubs.Equipamento());
+    Stubs.injetar(aluguelService, "externoService", new Stubs.Externo());
+    Stubs.injetar(aluguelService, "notificacaoService", new Stubs.Notificacao());
+    Stubs.injetar(aluguelService, "validacaoAluguelExecutor", executor);
+    Stubs.injetar(aluguelService, "transactionTemplate", TransactionOperations.withoutTransaction());
+    Stubs.injetar(aluguelService, "alugueisAtivos", registro);
+    Stubs.injetar(aluguelService, "meterRegistry", new SimpleMeterRegistry());
+    MotorTarifa motorTarifa = new MotorTarifa();
+    motorTarifa.carregar(Collections.singletonList(TabelaTarifa.padrao()));
+    Stubs.injetar(aluguelService, "motorTarifa", motorTarifa);
+
+    novoAluguel = new NovoAluguelDTO();
+    novoAluguel.setCiclista(CICLISTA);
+    novoAluguel.setTrancaInicio(TRANCA_INICIO);
+
+    devolucao = new DevolucaoDTO();
+    devolucao.setIdBicicleta(BICICLETA_DEVOLVIDA);
+    devolucao.setIdTranca(20);
+}
+
+@TearDown(Level.Trial)
+public void encerrar() {
+    executor.shutdownNow();
+}
+
+@Benchmark
+public Aluguel realizarAluguel(Escritas contador) {
+    long antes = escritas.get();
+    Aluguel aluguel = aluguelService.realizarAluguel(novoAluguel);
+    contador.escritasBanco += escritas.get() - antes;
+    return aluguel;
+}
+
+@Benchmark
+public Devolucao realizarDevolucao(Escritas contador) {
+    long antes = escritas.get();
+    Devolucao resposta = aluguelService.realizarDevolucao(devolucao);
+    contador.escritasBanco += escritas.get() - antes;
+    return resposta;
+}
+}
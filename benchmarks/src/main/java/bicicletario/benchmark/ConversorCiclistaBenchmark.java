@@ -0,0 +1,116 @@
+package bicicletario.benchmark;
+
+import bicicletario.aluguel.dto.NovoCartaoDeCreditoDTO;
+import bicicletario.aluguel.dto.NovoCiclistaDTO;
+import bicicletario.aluguel.dto.PassaporteDTO;
+import bicicletario.aluguel.model.CartaoDeCredito;
+import bicicletario.aluguel.model.Ciclista;
+import bicicletario.aluguel.service.CiclistaService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversores DTO -> entidade do CiclistaService (privados, via MethodHandle).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversorCiclistaBenchmark {
+
+private static final MethodHandle CONVERTER_CICLISTA =
+        metodo("converterCiclistaDtoParaEntidade", NovoCiclistaDTO.class);
+private static final MethodHandle CONVERTER_CARTAO =
+        metodo("converterCartaoDtoParaEntidade", NovoCartaoDeCreditoDTO.class, Integer.class);
+private static final MethodHandle ATUALIZAR_CICLISTA =
+        metodo("atualizarEntidadeComDTO", Ciclista.class, NovoCiclistaDTO.class);
+
+private static MethodHandle metodo(String nome, Class<?>... parametros) {
+    try {
+        Method metodo = CiclistaService.class.getDeclaredMethod(nome, parametros);
+        metodo.setAccessible(true);
+        return MethodHandles.lookup().unreflect(metodo);
+    } catch (ReflectiveOperationException e) {
+        throw new ExceptionInInitializerError(e);
+    }
+}
+
+private CiclistaService ciclistaService;
+private NovoCiclistaDTO ciclistaBrasileiro;
+private NovoCiclistaDTO ciclistaEstrangeiro;
+private NovoCartaoDeCreditoDTO cartao;
+private Ciclista entidade;
+private final Integer idCiclista = 42;
+
+@Setup
+public void preparar() {
+    ciclistaService = new CiclistaService();
+
+    ciclistaBrasileiro = new NovoCiclistaDTO();
+    ciclistaBrasileiro.setNome("Fulano de Tal");
+    ciclistaBrasileiro.setNascimento("1990-05-20");
+    ciclistaBrasileiro.setCpf("12345678901");
+    ciclistaBrasileiro.setNacionalidade("BRASILEIRO");
+    ciclistaBrasileiro.setEmail("fulano@teste.com");
+    ciclistaBrasileiro.setUrlFotoDocumento("http://foto.com/doc.png");
+    ciclistaBrasileiro.setSenha("senha123");
+
+    PassaporteDTO passaporte = new PassaporteDTO();
+    passaporte.setNumero("X1234567");
+    passaporte.setValidade("2030-01-01");
+    passaporte.setPais("PT");
+
+    ciclistaEstrangeiro = new NovoCiclistaDTO();
+    ciclistaEstrangeiro.setNome("John Doe");
+    ciclistaEstrangeiro.setNascimento("1985-03-10");
+    ciclistaEstrangeiro.setPassaporte(passaporte);
+    ciclistaEstrangeiro.setNacionalidade("ESTRANGEIRO");
+    ciclistaEstrangeiro.setEmail("john@teste.com");
+    ciclistaEstrangeiro.setUrlFotoDocumento("http://foto.com/passaporte.png");
+    ciclistaEstrangeiro.setSenha("senha123");
+
+    cartao = new NovoCartaoDeCreditoDTO();
+    cartao.setNomeTitular("Fulano de Tal");
+    cartao.setNumero("4111111111111111");
+    cartao.setValidade("2030-12-31");
+    cartao.setCvv("123");
+
+    entidade = new Ciclista();
+}
+
+@Benchmark
+public Ciclista converterCiclistaBrasileiro() throws Throwable {
+    return (Ciclista) CONVERTER_CICLISTA.invokeExact(ciclistaService, ciclistaBrasileiro);
+}
+
+@Benchmark
+public Ciclista converterCiclistaEstrangeiro() throws Throwable {
+    return (Ciclista) CONVERTER_CICLISTA.invokeExact(ciclistaService, ciclistaEstrangeiro);
+}
+
+@Benchmark
+public CartaoDeCredito converterCartao() throws Throwable {
+    return (CartaoDeCredito) CONVERTER_CARTAO.invokeExact(ciclistaService, cartao, idCiclista);
+}
+
+@Benchmark
+public Ciclista atualizarCiclista() throws Throwable {
+    ATUALIZAR_CICLISTA.invokeExact(ciclistaService, entidade, ciclistaEstrangeiro);
+    return entidade;
+}
+}
@@ -0,0 +1,28 @@
+package bicicletario.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main do benchmarks.jar: mesmas opções de linha de comando do JMH, mas sempre
+ * com o profiler de GC ligado (taxa de alocação: gc.alloc.rate e gc.alloc.rate.norm).
+ */
+public class Executar {
+
+public static void main(String[] args) throws Exception {
+    CommandLineOptions linhaDeComando = new CommandLineOptions(args);
+    if (linhaDeComando.shouldHelp() || linhaDeComando.shouldList()) {
+        // Ajuda/listagem: deixa o Main do JMH tratar
+        org.openjdk.jmh.Main.main(args);
+        return;
+    }
+    Options opcoes = new OptionsBuilder()
+            .parent(linhaDeComando)
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(opcoes).run();
+}
+}
@@ -0,0 +1,95 @@
+package bicicletario.benchmark;
+
+import bicicletario.aluguel.model.Aluguel;
+import bicicletario.aluguel.model.Devolucao;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON de Aluguel e Devolucao (respostas de POST /aluguel e POST /devolucao).
+ * O ObjectMapper é montado como o do Spring Boot (JavaTimeModule, datas ISO).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+private ObjectWriter escritorAluguel;
+private ObjectReader leitorAluguel;
+private ObjectWriter escritorDevolucao;
+private ObjectReader leitorDevolucao;
+
+private Aluguel aluguel;
+private Devolucao devolucao;
+private byte[] jsonAluguel;
+private byte[] jsonDevolucao;
+
+@Setup
+public void preparar() throws Exception {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    escritorAluguel = objectMapper.writerFor(Aluguel.class);
+    leitorAluguel = objectMapper.readerFor(Aluguel.class);
+    escritorDevolucao = objectMapper.writerFor(Devolucao.class);
+    leitorDevolucao = objectMapper.readerFor(Devolucao.class);
+
+    LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    aluguel = new Aluguel();
+    aluguel.setId(1);
+    aluguel.setCiclista(7);
+    aluguel.setBicicleta(100);
+    aluguel.setTrancaInicio(10);
+    aluguel.setHoraInicio(inicio);
+    aluguel.setCobranca(500);
+
+    devolucao = new Devolucao();
+    devolucao.setId(1);
+    devolucao.setCiclista(7);
+    devolucao.setBicicleta(100);
+    devolucao.setHoraInicio(inicio);
+    devolucao.setTrancaFim(20);
+    devolucao.setHoraFim(inicio.plusHours(3));
+    devolucao.setCobranca(501);
+
+    jsonAluguel = escritorAluguel.writeValueAsBytes(aluguel);
+    jsonDevolucao = escritorDevolucao.writeValueAsBytes(devolucao);
+}
+
+@Benchmark
+public byte[] serializarAluguel() throws Exception {
+    return escritorAluguel.writeValueAsBytes(aluguel);
+}
+
+@Benchmark
+public Aluguel desserializarAluguel() throws Exception {
+    return leitorAluguel.readValue(jsonAluguel);
+}
+
+@Benchmark
+public byte[] serializarDevolucao() throws Exception {
+    return escritorDevolucao.writeValueAsBytes(devolucao);
+}
+
+@Benchmark
+public Devolucao desserializarDevolucao() throws Exception {
+    return leitorDevolucao.readValue(jsonDevolucao);
+}
+}
@@ -0,0 +1,130 @@
+package bicicletario.benchmark;
+
+import bicicletario.aluguel.dto.BicicletaDTO;
+import bicicletario.aluguel.dto.CobrancaDTO;
+import bicicletario.aluguel.mock.EquipamentoService;
+import bicicletario.aluguel.mock.ExternoService;
+import bicicletario.aluguel.model.NotificacaoEmail;
+import bicicletario.aluguel.service.NotificacaoService;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.function.BiFunction;
+
+/**
+ * Dublês sem rede e sem banco para os benchmarks. São classes simples (e não
+ * mocks do Mockito) para não medir o custo do framework de mock.
+ */
+final class Stubs {
+
+private Stubs() {
+}
+
+/**
+ * Repositório Spring Data de mentira: cada chamada cai na função com o nome do
+ * método e os argumentos.
+ */
+@SuppressWarnings("unchecked")
+static <T> T repositorio(Class<T> tipo, BiFunction<String, Object[], Object> respostas) {
+    return (T) Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] {tipo}, (proxy, metodo, args) -> {
+        if (metodo.getDeclaringClass() == Object.class) {
+            return metodoDeObject(proxy, metodo, args, tipo);
+        }
+        return respostas.apply(metodo.getName(), args);
+    });
+}
+
+private static Object metodoDeObject(Object proxy, Method metodo, Object[] args, Class<?> tipo) {
+    switch (metodo.getName()) {
+        case "equals":
+            return proxy == args[0];
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        default:
+            return "Stub de " + tipo.getSimpleName();
+    }
+}
+
+// Preenche um campo @Autowired privado (os services usam injeção por campo)
+static void injetar(Object alvo, String campo, Object valor) {
+    try {
+        Field field = alvo.getClass().getDeclaredField(campo);
+        field.setAccessible(true);
+        field.set(alvo, valor);
+    } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Campo " + campo + " não encontrado em " + alvo.getClass(), e);
+    }
+}
+
+/**
+ * Equipamento sempre respondendo: a bicicleta da tranca N é a bicicleta N.
+ */
+static class Equipamento extends EquipamentoService {
+
+    @Override
+    public BicicletaDTO getBicicletaDaTranca(Integer idTranca) {
+        BicicletaDTO bicicleta = new BicicletaDTO();
+        bicicleta.setId(idTranca);
+        bicicleta.setNumero(idTranca);
+        bicicleta.setStatus("DISPONIVEL");
+        return bicicleta;
+    }
+
+    @Override
+    public void destrancarTranca(Integer idTranca) {
+        // Sem rede
+    }
+
+    @Override
+    public void trancarTranca(Integer idTranca, Integer idBicicleta) {
+        // Sem rede
+    }
+
+    @Override
+    public void alterarStatusBicicleta(Integer idBicicleta, String status) {
+        // Sem rede
+    }
+}
+
+/**
+ * Externo aprovando todas as cobranças.
+ */
+static class Externo extends ExternoService {
+
+    @Override
+    public CobrancaDTO realizarCobranca(Double valor, Integer ciclistaId, String chaveIdempotencia) {
+        return cobranca(valor, ciclistaId, "PAGA");
+    }
+
+    @Override
+    public CobrancaDTO enviarParaFilaCobranca(Double valor, Integer ciclistaId, String chaveIdempotencia) {
+        return cobranca(valor, ciclistaId, "PENDENTE");
+    }
+
+    private CobrancaDTO cobranca(Double valor, Integer ciclistaId, String status) {
+        CobrancaDTO cobranca = new CobrancaDTO();
+        cobranca.setId(1);
+        cobranca.setValor(valor);
+        cobranca.setCiclista(ciclistaId);
+        cobranca.setStatus(status);
+        return cobranca;
+    }
+}
+
+/**
+ * Outbox sem banco: monta a notificação mas não grava.
+ */
+static class Notificacao extends NotificacaoService {
+
+    @Override
+    public NotificacaoEmail agendarEmail(String email, String assunto, String mensagem) {
+        NotificacaoEmail notificacao = new NotificacaoEmail();
+        notificacao.setEmail(email);
+        notificacao.setAssunto(assunto);
+        notificacao.setMensagem(mensagem);
+        notificacao.setStatus("PENDENTE");
+        return notificacao;
+    }
+}
+}
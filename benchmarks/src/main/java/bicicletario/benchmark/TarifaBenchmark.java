@@ -0,0 +1,94 @@
+package bicicletario.benchmark;
+
+import bicicletario.aluguel.model.RegraTarifa;
+import bicicletario.aluguel.model.TabelaTarifa;
+import bicicletario.aluguel.tarifa.MotorTarifa;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UC04-R1: cálculo da taxa extra. 'regraFixa' é a função que existia no
+ * AluguelService antes do MotorTarifa (2h grátis, R$ 5,00 por 30 min, em
+ * double); 'motorTarifa' é o cálculo atual em centavos com a tabela compilada.
+ * Com 'regras' > 0 a tabela tem regras de plano que nunca batem: mede o pior
+ * caso, em que todas são avaliadas. Rodar com -prof gc para ver que o motor
+ * não aloca.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TarifaBenchmark {
+
+// Dentro das 2h grátis, pouco acima e bem acima
+@Param({"30", "150", "600"})
+private long minutos;
+
+@Param({"0", "16"})
+private int regras;
+
+private MotorTarifa motorTarifa;
+private LocalDateTime inicio;
+private LocalDateTime fim;
+private Integer tranca;
+
+@Setup
+public void preparar() {
+    fim = LocalDateTime.of(2024, 1, 1, 12, 0);
+    inicio = fim.minusMinutes(minutos);
+    tranca = 7;
+
+    TabelaTarifa tabela = TabelaTarifa.padrao();
+    List<RegraTarifa> lista = new ArrayList<>();
+    for (int i = 0; i < regras; i++) {
+        RegraTarifa regra = new RegraTarifa();
+        regra.setPlano("PLANO_" + i);
+        regra.setValorPeriodoCentavos(100L + i);
+        lista.add(regra);
+    }
+    tabela.setRegras(lista);
+    motorTarifa = new MotorTarifa();
+    motorTarifa.carregar(Collections.singletonList(tabela));
+}
+
+@Benchmark
+public double regraFixa() {
+    return calcularValorExtraAnterior(inicio, fim);
+}
+
+@Benchmark
+public long motorTarifa() {
+    return motorTarifa.calcularCentavos(inicio, fim, tranca, null);
+}
+
+// Cópia da implementação anterior, como referência
+private static double calcularValorExtraAnterior(LocalDateTime inicio, LocalDateTime fim) {
+    Duration duracao = Duration.between(inicio, fim);
+    long minutosTotais = duracao.toMinutes();
+
+    if (minutosTotais <= 120) {
+        return 0.0;
+    }
+    long minutosExtras = minutosTotais - 120;
+    long periodosDe30Min = (long) Math.ceil(minutosExtras / 30.0);
+    return periodosDe30Min * 5.0;
+}
+}
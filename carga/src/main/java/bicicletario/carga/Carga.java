@@ -0,0 +1,245 @@
+package bicicletario.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gerador de carga contra o Aluguel: cada cliente é uma thread em laço
+ * fechado (próxima operação só depois da resposta da anterior, mais a pausa)
+ * que cuida de alguns ciclistas e sorteia a operação pela mistura:
+ *
+ * - aluguel: um ciclista sem bicicleta aluga na própria tranca;
+ * - devolucao: um ciclista com bicicleta devolve na mesma tranca;
+ * - cadastro: POST /ciclista (o Aluguel valida o cartão no Externo e agenda
+ *   o email de boas-vindas) seguido de POST /ciclista/{id}/ativar.
+ *
+ * Sem ciclista no estado certo a operação sorteada vira a vizinha (devolução
+ * sem ninguém pedalando vira aluguel, aluguel sem ninguém livre vira
+ * cadastro), então a proporção real pode se afastar um pouco da pedida.
+ */
+class Carga {
+
+private static final String PREFIXO_CLIENTE = ServicoSimulado.PREFIXO_THREADS + "cliente-";
+// Bicicleta (e tranca) do ciclista N do teste: BICICLETA_INICIAL + N
+private static final int BICICLETA_INICIAL = 1000;
+
+private final String urlAluguel;
+private final Map<String, Integer> mistura;
+private final int pesoTotal;
+private final int clientes;
+private final long pausaMs;
+private final ObjectMapper json = new ObjectMapper();
+// Emails e CPFs únicos mesmo contra um Aluguel que já passou por outra rodada
+private final String rodada = Long.toString(System.currentTimeMillis(), 36);
+private final AtomicLong sequencia = new AtomicLong();
+private final List<Cliente> estados = new ArrayList<>();
+
+/**
+ * @param mistura peso de cada operação ("aluguel", "devolucao", "cadastro")
+ */
+Carga(String urlAluguel, Map<String, Integer> mistura, int clientes, long pausaMs) {
+    this.urlAluguel = urlAluguel;
+    this.mistura = new LinkedHashMap<>(mistura);
+    this.clientes = clientes;
+    this.pausaMs = pausaMs;
+    int soma = 0;
+    for (Integer peso : mistura.values()) {
+        soma += peso;
+    }
+    if (soma <= 0) {
+        throw new IllegalArgumentException("Mistura sem nenhuma operação: " + mistura);
+    }
+    this.pesoTotal = soma;
+}
+
+/**
+ * Cadastra e ativa ciclistasPorCliente ciclistas para cada cliente. Fica
+ * fora da medição (vai para a medição recebida, que o chamador descarta).
+ */
+void preparar(int ciclistasPorCliente, Medicao medicao) throws Exception {
+    for (int i = 0; i < clientes; i++) {
+        estados.add(new Cliente());
+    }
+    emParalelo(cliente -> {
+        for (int i = 0; i < ciclistasPorCliente; i++) {
+            cadastrar(cliente, medicao);
+        }
+    });
+}
+
+/**
+ * Todos os clientes ao mesmo tempo até acabar o tempo.
+ */
+void executar(long segundos, Medicao medicao) throws Exception {
+    long fim = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+    emParalelo(cliente -> {
+        while (System.nanoTime() < fim) {
+            executarUma(cliente, medicao);
+            if (pausaMs > 0) {
+                Thread.sleep(pausaMs);
+            }
+        }
+    });
+}
+
+private void executarUma(Cliente cliente, Medicao medicao) throws IOException {
+    String operacao = sortear();
+    if ("devolucao".equals(operacao) && cliente.pedalando.isEmpty()) {
+        operacao = "aluguel";
+    }
+    if ("aluguel".equals(operacao) && cliente.livres.isEmpty()) {
+        operacao = "cadastro";
+    }
+
+    if ("cadastro".equals(operacao)) {
+        cadastrar(cliente, medicao);
+    } else if ("aluguel".equals(operacao)) {
+        Ciclista ciclista = cliente.livres.remove(ThreadLocalRandom.current().nextInt(cliente.livres.size()));
+        medir(medicao, "aluguel", "/aluguel",
+                "{\"ciclista\": " + ciclista.id + ", \"trancaInicio\": " + ciclista.bicicleta + "}");
+        // Mesmo numa falha: se o aluguel ficou gravado (prazo estourado no
+        // cliente), o ciclista precisa devolver antes de alugar de novo
+        cliente.pedalando.add(ciclista);
+    } else {
+        Ciclista ciclista = cliente.pedalando.remove(ThreadLocalRandom.current().nextInt(cliente.pedalando.size()));
+        medir(medicao, "devolucao", "/devolucao",
+                "{\"idTranca\": " + ciclista.bicicleta + ", \"idBicicleta\": " + ciclista.bicicleta + "}");
+        cliente.livres.add(ciclista);
+    }
+}
+
+private void cadastrar(Cliente cliente, Medicao medicao) throws IOException {
+    long n = sequencia.incrementAndGet();
+    String cadastro = "{\"ciclista\": {"
+            + "\"nome\": \"Carga " + n + "\", \"nascimento\": \"1990-01-01\", "
+            + "\"cpf\": \"" + String.format("%011d", n) + "\", \"nacionalidade\": \"BRASILEIRO\", "
+            + "\"email\": \"carga-" + rodada + "-" + n + "@teste.com\", \"senha\": \"senha\"}, "
+            + "\"meioDePagamento\": {\"nomeTitular\": \"Carga " + n + "\", \"numero\": \"4111111111111111\", "
+            + "\"validade\": \"2030-12-01\", \"cvv\": \"123\"}}";
+    Resposta resposta = medir(medicao, "cadastro", "/ciclista", cadastro);
+    if (resposta.status != 201) {
+        return;
+    }
+    JsonNode id = json.readTree(resposta.corpo).get("id");
+    Resposta ativacao = medir(medicao, "ativacao", "/ciclista/" + id.asInt() + "/ativar", null);
+    if (ativacao.status == 200) {
+        cliente.livres.add(new Ciclista(id.asInt(), BICICLETA_INICIAL + (int) n));
+    }
+}
+
+private String sortear() {
+    int sorteado = ThreadLocalRandom.current().nextInt(pesoTotal);
+    for (Map.Entry<String, Integer> operacao : mistura.entrySet()) {
+        sorteado -= operacao.getValue();
+        if (sorteado < 0) {
+            return operacao.getKey();
+        }
+    }
+    throw new IllegalStateException("Mistura inconsistente: " + mistura);
+}
+
+private Resposta medir(Medicao medicao, String operacao, String caminho, String corpoJson) {
+    long inicio = System.nanoTime();
+    Resposta resposta;
+    try {
+        resposta = postar(caminho, corpoJson);
+    } catch (IOException e) {
+        resposta = new Resposta(Medicao.SEM_RESPOSTA, null);
+    }
+    medicao.registrar(operacao, System.nanoTime() - inicio, resposta.status);
+    return resposta;
+}
+
+private Resposta postar(String caminho, String corpoJson) throws IOException {
+    HttpURLConnection conexao = (HttpURLConnection) new URL(urlAluguel + caminho).openConnection();
+    conexao.setRequestMethod("POST");
+    conexao.setConnectTimeout(5000);
+    conexao.setReadTimeout(30000);
+    if (corpoJson != null) {
+        conexao.setDoOutput(true);
+        conexao.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream saida = conexao.getOutputStream()) {
+            saida.write(corpoJson.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    int status = conexao.getResponseCode();
+    // Lê o corpo inteiro para a conexão voltar ao keep-alive
+    InputStream entrada = status < 400 ? conexao.getInputStream() : conexao.getErrorStream();
+    String corpo = null;
+    if (entrada != null) {
+        try {
+            corpo = StreamUtils.copyToString(entrada, StandardCharsets.UTF_8);
+        } finally {
+            entrada.close();
+        }
+    }
+    return new Resposta(status, corpo);
+}
+
+private interface Tarefa {
+    void executar(Cliente cliente) throws Exception;
+}
+
+private void emParalelo(Tarefa tarefa) throws Exception {
+    ExecutorService threads = Executors.newFixedThreadPool(clientes, new CustomizableThreadFactory(PREFIXO_CLIENTE));
+    try {
+        List<Future<?>> execucoes = new ArrayList<>();
+        for (Cliente cliente : estados) {
+            execucoes.add(threads.submit(() -> {
+                tarefa.executar(cliente);
+                return null;
+            }));
+        }
+        for (Future<?> execucao : execucoes) {
+            execucao.get();
+        }
+    } finally {
+        threads.shutdownNow();
+    }
+}
+
+// Só a thread do próprio cliente mexe nas listas
+private static class Cliente {
+    final List<Ciclista> livres = new ArrayList<>();
+    final List<Ciclista> pedalando = new ArrayList<>();
+}
+
+private static class Ciclista {
+    final int id;
+    final int bicicleta;
+
+    Ciclista(int id, int bicicleta) {
+        this.id = id;
+        this.bicicleta = bicicleta;
+    }
+}
+
+private static class Resposta {
+    final int status;
+    final String corpo;
+
+    Resposta(int status, String corpo) {
+        this.status = status;
+        this.corpo = corpo;
+    }
+}
+}
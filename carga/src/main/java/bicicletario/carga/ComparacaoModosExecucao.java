@@ -0,0 +1,228 @@
+package bicicletario.carga;
+
+import bicicletario.aluguel.AluguelApplication;
+import bicicletario.aluguel.model.Ciclista;
+import bicicletario.aluguel.repository.CiclistaRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Teste de carga de POST /aluguel + /devolucao em cada aluguel.execucao.modo,
+ * com o Equipamento e o Externo simulados (EquipamentoSimulado e
+ * ExternoSimulado, sem variação nem erros injetados). Sobe o serviço inteiro
+ * (Tomcat, H2, WebClient) uma vez por modo, na mesma JVM, e mostra vazão,
+ * latência e o pico de threads do serviço (sem contar as do cliente e dos
+ * simuladores).
+ *
+ * Uso:
+ *   java -cp target/carga.jar bicicletario.carga.ComparacaoModosExecucao \
+ *        [clientes=200] [segundos=20] [latenciaMs=100] [modos=bloqueante,reativo,virtual]
+ *
+ * O modo virtual só sobe em Java 21+; antes disso aparece como indisponível.
+ */
+public class ComparacaoModosExecucao {
+
+// Threads do próprio teste (clientes, simuladores, amostrador): fora da contagem
+private static final String PREFIXO_CLIENTE = ServicoSimulado.PREFIXO_THREADS + "cliente-";
+// Bicicleta (e tranca) do cliente N: BICICLETA_INICIAL + N
+private static final int BICICLETA_INICIAL = 1000;
+
+public static void main(String[] args) throws Exception {
+    int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+    int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+    long latenciaMs = args.length > 2 ? Long.parseLong(args[2]) : 100;
+    List<String> modos = Arrays.asList((args.length > 3 ? args[3] : "bloqueante,reativo,virtual").split(","));
+
+    EquipamentoSimulado equipamento = new EquipamentoSimulado(latenciaMs, 0, 0, true);
+    ExternoSimulado externo = new ExternoSimulado(latenciaMs, 0, 0);
+    equipamento.iniciar();
+    externo.iniciar();
+    try {
+        System.out.printf("%d clientes, %ds por modo, %dms por chamada ao Equipamento/Externo%n%n",
+                clientes, segundos, latenciaMs);
+        System.out.printf("%-11s %12s %9s %9s %9s %8s %14s %14s%n",
+                "modo", "operacoes/s", "p50 ms", "p99 ms", "max ms", "erros", "pico threads", "(do Tomcat)");
+        for (String modo : modos) {
+            try {
+                System.out.println(medir(modo, clientes, segundos, equipamento.getUrl(), externo.getUrl()));
+            } catch (Exception e) {
+                Throwable causa = e;
+                while (causa.getCause() != null) {
+                    causa = causa.getCause();
+                }
+                System.out.printf("%-11s indisponível: %s%n", modo, causa.getMessage());
+            }
+        }
+    } finally {
+        equipamento.parar();
+        externo.parar();
+    }
+}
+
+private static String medir(String modo, int clientes, int segundos, String urlEquipamento, String urlExterno)
+        throws Exception {
+    Map<String, Object> propriedades = new HashMap<>();
+    propriedades.put("aluguel.execucao.modo", modo);
+    propriedades.put("server.port", "0");
+    propriedades.put("spring.datasource.url", "jdbc:h2:mem:carga-" + modo);
+    propriedades.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+    propriedades.put("url.equipamento", urlEquipamento);
+    propriedades.put("url.externo", urlExterno);
+    propriedades.put("http.cliente.hosts.equipamento.url", urlEquipamento);
+    propriedades.put("http.cliente.hosts.externo.url", urlExterno);
+    // O bloqueante precisa de uma conexão por requisição em espera
+    propriedades.put("http.cliente.pool.max-total", String.valueOf(clientes * 2));
+    propriedades.put("http.cliente.pool.max-por-host", String.valueOf(clientes * 2));
+    propriedades.put("spring.main.banner-mode", "off");
+    propriedades.put("logging.level.root", "WARN");
+    propriedades.put("logging.level.bicicletario", "ERROR");
+
+    SpringApplication aplicacao = new SpringApplication(AluguelApplication.class);
+    aplicacao.setDefaultProperties(propriedades);
+    try (ConfigurableApplicationContext contexto = aplicacao.run()) {
+        int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+        List<Integer> ciclistas = criarCiclistas(contexto.getBean(CiclistaRepository.class), clientes);
+
+        // Aquecimento (JIT, pools) e depois a medição
+        executar(porta, ciclistas, 2, new Medicao());
+        Medicao medicao = new Medicao();
+        AtomicInteger picoThreads = new AtomicInteger();
+        AtomicInteger picoThreadsTomcat = new AtomicInteger();
+        AtomicBoolean medindo = new AtomicBoolean(true);
+        Thread amostrador = new Thread(() -> amostrarThreads(picoThreads, picoThreadsTomcat, medindo),
+                ServicoSimulado.PREFIXO_THREADS + "amostrador");
+        amostrador.setDaemon(true);
+        amostrador.start();
+        long inicio = System.nanoTime();
+        executar(porta, ciclistas, segundos, medicao);
+        double decorrido = (System.nanoTime() - inicio) / 1e9;
+        medindo.set(false);
+        amostrador.join();
+
+        List<Medicao.Resumo> resumos = medicao.resumir(decorrido);
+        Medicao.Resumo total = resumos.get(resumos.size() - 1);
+        return String.format("%-11s %12.1f %9.0f %9.0f %9.0f %8d %14d %14d", modo, total.porSegundo,
+                total.p50Ms, total.p99Ms, total.maxMs, total.erros, picoThreads.get(), picoThreadsTomcat.get());
+    }
+}
+
+/**
+ * Cada cliente aluga e devolve a própria bicicleta em laço até acabar o tempo.
+ */
+private static void executar(int porta, List<Integer> ciclistas, int segundos, Medicao medicao) throws Exception {
+    long fim = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+    ExecutorService clientes = Executors.newFixedThreadPool(ciclistas.size(), new CustomizableThreadFactory(PREFIXO_CLIENTE));
+    try {
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int i = 0; i < ciclistas.size(); i++) {
+            int tranca = BICICLETA_INICIAL + i;
+            Integer ciclista = ciclistas.get(i);
+            tarefas.add(clientes.submit(() -> {
+                while (System.nanoTime() < fim) {
+                    boolean alugou = registrar(medicao, porta, "aluguel", "/aluguel",
+                            "{\"ciclista\": " + ciclista + ", \"trancaInicio\": " + tranca + "}");
+                    if (alugou) {
+                        registrar(medicao, porta, "devolucao", "/devolucao",
+                                "{\"idTranca\": " + tranca + ", \"idBicicleta\": " + tranca + "}");
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get();
+        }
+    } finally {
+        clientes.shutdownNow();
+    }
+}
+
+private static List<Integer> criarCiclistas(CiclistaRepository repositorio, int quantidade) {
+    List<Integer> ids = new ArrayList<>();
+    for (int i = 0; i < quantidade; i++) {
+        Ciclista ciclista = new Ciclista();
+        ciclista.setStatus("ATIVO");
+        ciclista.setNome("Carga " + i);
+        ciclista.setEmail("carga" + i + "@teste.com");
+        ids.add(repositorio.save(ciclista).getId());
+    }
+    return ids;
+}
+
+// Pico de threads do serviço: todas as vivas menos as do cliente e dos simuladores
+private static void amostrarThreads(AtomicInteger picoThreads, AtomicInteger picoThreadsTomcat, AtomicBoolean medindo) {
+    while (medindo.get()) {
+        int doServico = 0;
+        int doTomcat = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            String nome = thread.getName();
+            if (!nome.startsWith(ServicoSimulado.PREFIXO_THREADS)) {
+                doServico++;
+            }
+            // Workers do Tomcat: http-nio-<porta>-exec-N
+            if (nome.startsWith("http-nio-") && nome.contains("-exec-")) {
+                doTomcat++;
+            }
+        }
+        picoThreads.accumulateAndGet(doServico, Math::max);
+        picoThreadsTomcat.accumulateAndGet(doTomcat, Math::max);
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+    }
+}
+
+private static boolean registrar(Medicao medicao, int porta, String operacao, String caminho, String json) {
+    long inicio = System.nanoTime();
+    int status;
+    try {
+        status = postar(porta, caminho, json);
+    } catch (IOException e) {
+        status = Medicao.SEM_RESPOSTA;
+    }
+    medicao.registrar(operacao, System.nanoTime() - inicio, status);
+    return status == 200;
+}
+
+private static int postar(int porta, String caminho, String json) throws IOException {
+    HttpURLConnection conexao = (HttpURLConnection) new URL("http://127.0.0.1:" + porta + caminho).openConnection();
+    conexao.setRequestMethod("POST");
+    conexao.setDoOutput(true);
+    conexao.setRequestProperty("Content-Type", "application/json");
+    try (OutputStream saida = conexao.getOutputStream()) {
+        saida.write(json.getBytes(StandardCharsets.UTF_8));
+    }
+    int status = conexao.getResponseCode();
+    // Consome o corpo para a conexão voltar ao keep-alive
+    InputStream entrada = status < 400 ? conexao.getInputStream() : conexao.getErrorStream();
+    if (entrada != null) {
+        StreamUtils.copyToByteArray(entrada);
+        entrada.close();
+    }
+    return status;
+}
+}
@@ -0,0 +1,62 @@
+package bicicletario.carga;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Equipamento falso. A tranca N guarda a bicicleta N, sempre DISPONIVEL:
+ * cada cliente do teste usa as próprias trancas e não disputa bicicleta com
+ * os outros. Aceita POST /comandos/lote (equipamento.comandos.lote) a não
+ * ser que seja criado sem lote, caso em que responde 404 como um Equipamento
+ * antigo.
+ */
+class EquipamentoSimulado extends ServicoSimulado {
+
+private final ObjectMapper json = new ObjectMapper();
+private final boolean aceitaLote;
+
+EquipamentoSimulado(long latenciaMs, long variacaoMs, double taxaErro, boolean aceitaLote) {
+    super("equipamento", latenciaMs, variacaoMs, taxaErro);
+    this.aceitaLote = aceitaLote;
+}
+
+@Override
+Resposta responder(String metodo, String caminho, byte[] corpo) throws IOException {
+    String[] partes = caminho.split("/");
+    if ("GET".equals(metodo) && partes.length == 4 && "tranca".equals(partes[1]) && "bicicleta".equals(partes[3])) {
+        return Resposta.ok(bicicleta(partes[2]));
+    }
+    if ("GET".equals(metodo) && partes.length == 3 && "bicicleta".equals(partes[1])) {
+        return Resposta.ok(bicicleta(partes[2]));
+    }
+    if ("POST".equals(metodo) && "/comandos/lote".equals(caminho)) {
+        if (!aceitaLote) {
+            return new Resposta(404, "{\"codigo\": \"404\", \"mensagem\": \"Not Found\"}");
+        }
+        List<Map<String, Object>> comandos = json.readValue(corpo, new TypeReference<List<Map<String, Object>>>() { });
+        List<Map<String, Object>> resultados = new ArrayList<>(comandos.size());
+        for (Map<String, Object> comando : comandos) {
+            Map<String, Object> resultado = new HashMap<>();
+            resultado.put("id", comando.get("id"));
+            resultado.put("status", "OK");
+            resultados.add(resultado);
+        }
+        return Resposta.ok(json.writeValueAsString(resultados));
+    }
+    // destrancar, trancar e alterar status: 200 sem corpo
+    if ("POST".equals(metodo) && (caminho.startsWith("/tranca/") || caminho.startsWith("/bicicleta/"))) {
+        return Resposta.ok(null);
+    }
+    return new Resposta(404, "{\"codigo\": \"404\", \"mensagem\": \"Rota não simulada: " + caminho + "\"}");
+}
+
+private static String bicicleta(String id) {
+    return "{\"id\": " + id + ", \"numero\": " + id + ", \"status\": \"DISPONIVEL\"}";
+}
+}
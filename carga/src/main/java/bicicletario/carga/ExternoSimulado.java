@@ -0,0 +1,57 @@
+package bicicletario.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Externo falso: aprova toda cobrança e todo cartão e aceita os emails. Usado
+ * com -externo=simulado, quando só o Aluguel está sendo medido ou quando se
+ * quer injetar erros nas chamadas ao Externo.
+ */
+class ExternoSimulado extends ServicoSimulado {
+
+private final ObjectMapper json = new ObjectMapper();
+private final AtomicInteger idsCobranca = new AtomicInteger();
+
+ExternoSimulado(long latenciaMs, long variacaoMs, double taxaErro) {
+    super("externo", latenciaMs, variacaoMs, taxaErro);
+}
+
+@Override
+Resposta responder(String metodo, String caminho, byte[] corpo) throws IOException {
+    if ("POST".equals(metodo) && "/cobranca".equals(caminho)) {
+        return Resposta.ok(cobranca(idsCobranca.incrementAndGet(), "PAGA"));
+    }
+    if ("POST".equals(metodo) && "/filaCobranca".equals(caminho)) {
+        return Resposta.ok(cobranca(idsCobranca.incrementAndGet(), "PENDENTE"));
+    }
+    if ("GET".equals(metodo) && caminho.startsWith("/cobranca/")) {
+        return Resposta.ok(cobranca(Integer.parseInt(caminho.substring("/cobranca/".length())), "PAGA"));
+    }
+    if ("POST".equals(metodo) && "/cobrancas/lote".equals(caminho)) {
+        // Um resultado por item, na ordem do pedido (ResultadoCobrancaLoteDTO)
+        JsonNode itens = json.readTree(corpo);
+        ArrayNode resultados = json.createArrayNode();
+        for (int i = 0; i < itens.size(); i++) {
+            ObjectNode resultado = resultados.addObject();
+            resultado.put("indice", i);
+            resultado.put("id", idsCobranca.incrementAndGet());
+            resultado.put("status", "PENDENTE");
+        }
+        return Resposta.ok(json.writeValueAsString(resultados));
+    }
+    if ("POST".equals(metodo) && ("/enviarEmail".equals(caminho) || "/validaCartaoDeCredito".equals(caminho))) {
+        return Resposta.ok(null);
+    }
+    return new Resposta(404, "{\"codigo\": \"404\", \"mensagem\": \"Rota não simulada: " + caminho + "\"}");
+}
+
+private static String cobranca(int id, String status) {
+    return "{\"id\": " + id + ", \"status\": \"" + status + "\"}";
+}
+}
@@ -0,0 +1,124 @@
+package bicicletario.carga;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Latências e respostas de cada operação do teste de carga. Guarda todas as
+ * latências (em microssegundos) para percentis exatos: numa rodada de
+ * minutos são poucos MB.
+ */
+class Medicao {
+
+// Sem resposta HTTP (conexão recusada, leitura estourou o prazo)
+static final int SEM_RESPOSTA = -1;
+
+private final ConcurrentMap<String, Operacao> operacoes = new ConcurrentHashMap<>();
+
+void registrar(String operacao, long duracaoNanos, int status) {
+    operacoes.computeIfAbsent(operacao, nome -> new Operacao()).registrar(duracaoNanos / 1000, status);
+}
+
+/**
+ * Uma linha por operação, em ordem alfabética (rodadas comparáveis entre
+ * si), e a linha "total" no fim.
+ */
+List<Resumo> resumir(double segundos) {
+    List<Resumo> resumos = new ArrayList<>();
+    Operacao total = new Operacao();
+    for (Map.Entry<String, Operacao> operacao : new TreeMap<>(operacoes).entrySet()) {
+        resumos.add(operacao.getValue().resumir(operacao.getKey(), segundos));
+        total.somar(operacao.getValue());
+    }
+    resumos.add(total.resumir("total", segundos));
+    return resumos;
+}
+
+private static class Operacao {
+    private long[] latencias = new long[1024];
+    private int quantidade;
+    private long erros;
+    private final Map<Integer, Long> porStatus = new TreeMap<>();
+
+    synchronized void registrar(long latenciaMicros, int status) {
+        adicionar(latenciaMicros);
+        porStatus.merge(status, 1L, Long::sum);
+        if (status < 200 || status >= 300) {
+            erros++;
+        }
+    }
+
+    // Só para o total, depois da rodada: nada mais registra em outra
+    synchronized void somar(Operacao outra) {
+        synchronized (outra) {
+            for (int i = 0; i < outra.quantidade; i++) {
+                adicionar(outra.latencias[i]);
+            }
+            erros += outra.erros;
+            for (Map.Entry<Integer, Long> status : outra.porStatus.entrySet()) {
+                porStatus.merge(status.getKey(), status.getValue(), Long::sum);
+            }
+        }
+    }
+
+    private void adicionar(long latenciaMicros) {
+        if (quantidade == latencias.length) {
+            latencias = Arrays.copyOf(latencias, quantidade * 2);
+        }
+        latencias[quantidade++] = latenciaMicros;
+    }
+
+    synchronized Resumo resumir(String nome, double segundos) {
+        long[] ordenadas = Arrays.copyOf(latencias, quantidade);
+        Arrays.sort(ordenadas);
+        Resumo resumo = new Resumo();
+        resumo.operacao = nome;
+        resumo.requisicoes = quantidade;
+        resumo.porSegundo = quantidade / segundos;
+        resumo.erros = erros;
+        resumo.taxaErro = quantidade == 0 ? 0 : (double) erros / quantidade;
+        resumo.p50Ms = percentil(ordenadas, 0.50);
+        resumo.p90Ms = percentil(ordenadas, 0.90);
+        resumo.p99Ms = percentil(ordenadas, 0.99);
+        resumo.p999Ms = percentil(ordenadas, 0.999);
+        resumo.maxMs = quantidade == 0 ? 0 : ordenadas[quantidade - 1] / 1000.0;
+        resumo.porStatus = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Long> status : porStatus.entrySet()) {
+            resumo.porStatus.put(status.getKey() == SEM_RESPOSTA ? "sem resposta" : String.valueOf(status.getKey()),
+                    status.getValue());
+        }
+        return resumo;
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1);
+        return ordenadas[Math.max(0, indice)] / 1000.0;
+    }
+}
+
+/**
+ * Uma linha do relatório. Campos públicos: também vai para o JSON de -saida.
+ */
+public static class Resumo {
+    public String operacao;
+    public long requisicoes;
+    public double porSegundo;
+    public long erros;
+    public double taxaErro;
+    public double p50Ms;
+    public double p90Ms;
+    public double p99Ms;
+    public double p999Ms;
+    public double maxMs;
+    public Map<String, Long> porStatus;
+}
+}
@@ -0,0 +1,140 @@
+package bicicletario.carga;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serviço remoto falso (HttpServer do JDK) para o teste de carga: cada
+ * requisição espera latenciaMs ± variacaoMs e, com probabilidade taxaErro,
+ * responde 503 no lugar da resposta normal. Conta as chamadas por rota
+ * (números do caminho viram {id}) e os erros injetados.
+ */
+abstract class ServicoSimulado {
+
+// Threads do simulador começam com "carga-": ficam fora das contagens do serviço
+static final String PREFIXO_THREADS = "carga-";
+
+private final String nome;
+private final long latenciaMs;
+private final long variacaoMs;
+private final double taxaErro;
+private final Map<String, AtomicLong> chamadas = new ConcurrentHashMap<>();
+private final AtomicLong errosInjetados = new AtomicLong();
+private HttpServer servidor;
+private ExecutorService threads;
+
+ServicoSimulado(String nome, long latenciaMs, long variacaoMs, double taxaErro) {
+    this.nome = nome;
+    this.latenciaMs = latenciaMs;
+    this.variacaoMs = variacaoMs;
+    this.taxaErro = taxaErro;
+}
+
+/**
+ * Resposta normal da rota; a latência e o erro injetado já foram aplicados.
+ */
+abstract Resposta responder(String metodo, String caminho, byte[] corpo) throws IOException;
+
+void iniciar() throws IOException {
+    servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+    servidor.createContext("/", this::atender);
+    threads = Executors.newCachedThreadPool(new CustomizableThreadFactory(PREFIXO_THREADS + nome + "-"));
+    servidor.setExecutor(threads);
+    servidor.start();
+}
+
+void parar() {
+    if (servidor != null) {
+        servidor.stop(0);
+        threads.shutdownNow();
+    }
+}
+
+String getNome() {
+    return nome;
+}
+
+String getUrl() {
+    return "http://127.0.0.1:" + servidor.getAddress().getPort();
+}
+
+long getErrosInjetados() {
+    return errosInjetados.get();
+}
+
+// Ordenado por rota, para o relatório
+Map<String, Long> getChamadas() {
+    Map<String, Long> copia = new TreeMap<>();
+    for (Map.Entry<String, AtomicLong> rota : chamadas.entrySet()) {
+        copia.put(rota.getKey(), rota.getValue().get());
+    }
+    return copia;
+}
+
+String descricao() {
+    return String.format("%s: %s, %dms ± %dms, %.1f%% de erros", nome, getUrl(), latenciaMs, variacaoMs, taxaErro * 100);
+}
+
+private void atender(HttpExchange troca) throws IOException {
+    try {
+        String caminho = troca.getRequestURI().getPath();
+        chamadas.computeIfAbsent(troca.getRequestMethod() + " " + caminho.replaceAll("/\\d+", "/{id}"),
+                rota -> new AtomicLong()).incrementAndGet();
+        byte[] corpo = StreamUtils.copyToByteArray(troca.getRequestBody());
+
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        long espera = latenciaMs + (variacaoMs > 0 ? aleatorio.nextLong(-variacaoMs, variacaoMs + 1) : 0);
+        if (espera > 0) {
+            Thread.sleep(espera);
+        }
+        if (taxaErro > 0 && aleatorio.nextDouble() < taxaErro) {
+            errosInjetados.incrementAndGet();
+            enviar(troca, new Resposta(503, "{\"codigo\": \"503\", \"mensagem\": \"Erro injetado pelo teste de carga\"}"));
+            return;
+        }
+        enviar(troca, responder(troca.getRequestMethod(), caminho, corpo));
+    } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+    } finally {
+        troca.close();
+    }
+}
+
+private static void enviar(HttpExchange troca, Resposta resposta) throws IOException {
+    if (resposta.corpoJson == null) {
+        troca.sendResponseHeaders(resposta.status, -1);
+        return;
+    }
+    byte[] corpo = resposta.corpoJson.getBytes(StandardCharsets.UTF_8);
+    troca.getResponseHeaders().set("Content-Type", "application/json");
+    troca.sendResponseHeaders(resposta.status, corpo.length);
+    troca.getResponseBody().write(corpo);
+}
+
+static class Resposta {
+    final int status;
+    final String corpoJson;
+
+    Resposta(int status, String corpoJson) {
+        this.status = status;
+        this.corpoJson = corpoJson;
+    }
+
+    static Resposta ok(String corpoJson) {
+        return new Resposta(200, corpoJson);
+    }
+}
+}
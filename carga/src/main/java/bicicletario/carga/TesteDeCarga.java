@@ -0,0 +1,282 @@
+package bicicletario.carga;
+
+import bicicletario.aluguel.AluguelApplication;
+import bicicletario.externo.ExternoApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Teste de carga do Aluguel e do Externo sem depender de nada fora da
+ * máquina: o Equipamento é sempre simulado (EquipamentoSimulado); o Externo
+ * sobe de verdade na mesma JVM (-externo=real, com o gateway de pagamento
+ * simulado) ou também é simulado (-externo=simulado, aceita injeção de erros).
+ * O Aluguel sobe na mesma JVM, ou -aluguel=URL aponta para um já rodando
+ * (configurado com as URLs dos simuladores impressas no início).
+ *
+ * Mostra vazão, percentis de latência e taxa de erro por operação, e as
+ * chamadas que chegaram aos simuladores. Com -max-erros / -max-p99-ms termina
+ * com código 1 quando passa do limite, para pegar regressão num script.
+ *
+ * Uso: java -jar target/carga.jar [-opcao=valor ...]   (-ajuda lista as opções)
+ */
+public class TesteDeCarga {
+
+private static final Map<String, String[]> OPCOES = new LinkedHashMap<>();
+
+static {
+    opcao("clientes", "50", "threads do gerador, cada uma em laço fechado");
+    opcao("ciclistas-por-cliente", "4", "ciclistas cadastrados por cliente antes da medição");
+    opcao("segundos", "30", "duração da medição");
+    opcao("aquecimento", "10", "segundos de carga antes da medição (JIT, pools), fora do relatório");
+    opcao("pausa-ms", "0", "pausa de cada cliente entre uma operação e a próxima");
+    opcao("mistura", "aluguel:45,devolucao:45,cadastro:10", "peso de cada operação");
+    opcao("latencia-equipamento", "50", "ms por chamada ao Equipamento simulado");
+    opcao("latencia-externo", "80", "ms por chamada ao Externo simulado, ou do gateway de pagamento do Externo real");
+    opcao("variacao", "20", "± ms sorteados em cada chamada simulada");
+    opcao("erros-equipamento", "0", "fração das chamadas ao Equipamento respondidas com 503 (0.05 = 5%)");
+    opcao("erros-externo", "0", "o mesmo para o Externo (só com -externo=simulado)");
+    opcao("externo", "real", "real (Externo-Service na mesma JVM) ou simulado");
+    opcao("aluguel", "", "URL de um Aluguel já rodando; vazio = sobe um na mesma JVM");
+    opcao("modo", "bloqueante", "aluguel.execucao.modo do Aluguel da mesma JVM");
+    opcao("comandos-lote", "false", "equipamento.comandos.lote.habilitado do Aluguel da mesma JVM");
+    opcao("equipamento-aceita-lote", "true", "false = Equipamento simulado responde 404 em POST /comandos/lote");
+    opcao("saida", "", "arquivo JSON com o relatório, para comparar rodadas");
+    opcao("max-erros", "", "taxa de erro total acima da qual o teste falha (0.01 = 1%)");
+    opcao("max-p99-ms", "", "p99 total acima do qual o teste falha");
+}
+
+private static void opcao(String nome, String padrao, String descricao) {
+    OPCOES.put(nome, new String[] {padrao, descricao});
+}
+
+public static void main(String[] args) throws Exception {
+    Map<String, String> opcoes = lerOpcoes(args);
+    if (opcoes == null) {
+        ajuda();
+        return;
+    }
+    System.exit(executar(opcoes) ? 0 : 1);
+}
+
+private static boolean executar(Map<String, String> opcoes) throws Exception {
+    int clientes = Integer.parseInt(opcoes.get("clientes"));
+    long variacao = Long.parseLong(opcoes.get("variacao"));
+    boolean externoReal = "real".equals(opcoes.get("externo"));
+    if (!externoReal && !"simulado".equals(opcoes.get("externo"))) {
+        throw new IllegalArgumentException("-externo deve ser real ou simulado: " + opcoes.get("externo"));
+    }
+
+    List<ServicoSimulado> simulados = new ArrayList<>();
+    List<ConfigurableApplicationContext> servicos = new ArrayList<>();
+    try {
+        EquipamentoSimulado equipamento = new EquipamentoSimulado(Long.parseLong(opcoes.get("latencia-equipamento")),
+                variacao, Double.parseDouble(opcoes.get("erros-equipamento")),
+                Boolean.parseBoolean(opcoes.get("equipamento-aceita-lote")));
+        equipamento.iniciar();
+        simulados.add(equipamento);
+
+        String urlExterno;
+        if (externoReal) {
+            Map<String, Object> propriedades = propriedadesComuns("externo");
+            propriedades.put("pagamento.simulado.latencia-ms", opcoes.get("latencia-externo"));
+            ConfigurableApplicationContext externo = subir(ExternoApplication.class, propriedades);
+            servicos.add(externo);
+            urlExterno = url(externo);
+            System.out.println("externo: " + urlExterno + " (Externo-Service, gateway simulado com "
+                    + opcoes.get("latencia-externo") + "ms)");
+        } else {
+            ExternoSimulado externo = new ExternoSimulado(Long.parseLong(opcoes.get("latencia-externo")),
+                    variacao, Double.parseDouble(opcoes.get("erros-externo")));
+            externo.iniciar();
+            simulados.add(externo);
+            urlExterno = externo.getUrl();
+            System.out.println(externo.descricao());
+        }
+        System.out.println(equipamento.descricao());
+
+        String urlAluguel = opcoes.get("aluguel");
+        if (urlAluguel.isEmpty()) {
+            Map<String, Object> propriedades = propriedadesComuns("aluguel");
+            propriedades.put("aluguel.execucao.modo", opcoes.get("modo"));
+            propriedades.put("equipamento.comandos.lote.habilitado", opcoes.get("comandos-lote"));
+            propriedades.put("url.equipamento", equipamento.getUrl());
+            propriedades.put("url.externo", urlExterno);
+            propriedades.put("http.cliente.hosts.equipamento.url", equipamento.getUrl());
+            propriedades.put("http.cliente.hosts.externo.url", urlExterno);
+            // No bloqueante cada requisição em espera segura uma conexão
+            propriedades.put("http.cliente.pool.max-total", String.valueOf(Math.max(100, clientes * 2)));
+            propriedades.put("http.cliente.pool.max-por-host", String.valueOf(Math.max(20, clientes * 2)));
+            ConfigurableApplicationContext aluguel = subir(AluguelApplication.class, propriedades);
+            servicos.add(aluguel);
+            urlAluguel = url(aluguel);
+            System.out.println("aluguel: " + urlAluguel + " (modo " + opcoes.get("modo") + ", comandos em lote "
+                    + opcoes.get("comandos-lote") + ")");
+        } else {
+            System.out.println("aluguel: " + urlAluguel + " (externo: use url.equipamento=" + equipamento.getUrl()
+                    + " e url.externo=" + urlExterno + ")");
+        }
+
+        Carga carga = new Carga(urlAluguel, lerMistura(opcoes.get("mistura")), clientes,
+                Long.parseLong(opcoes.get("pausa-ms")));
+        System.out.printf("%n%d clientes, mistura %s, %ss de aquecimento + %ss medidos%n",
+                clientes, opcoes.get("mistura"), opcoes.get("aquecimento"), opcoes.get("segundos"));
+
+        carga.preparar(Integer.parseInt(opcoes.get("ciclistas-por-cliente")), new Medicao());
+        carga.executar(Long.parseLong(opcoes.get("aquecimento")), new Medicao());
+
+        Medicao medicao = new Medicao();
+        long inicio = System.nanoTime();
+        carga.executar(Long.parseLong(opcoes.get("segundos")), medicao);
+        double decorrido = (System.nanoTime() - inicio) / 1e9;
+        // Antes do relatório: o que os serviços ainda imprimem ao terminar não se mistura com ele
+        encerrar(servicos);
+
+        List<Medicao.Resumo> resumos = medicao.resumir(decorrido);
+        imprimir(resumos, simulados);
+        if (!opcoes.get("saida").isEmpty()) {
+            gravar(new File(opcoes.get("saida")), opcoes, resumos, simulados);
+        }
+        return dentroDosLimites(resumos.get(resumos.size() - 1), opcoes);
+    } finally {
+        encerrar(servicos);
+        for (ServicoSimulado simulado : simulados) {
+            simulado.parar();
+        }
+    }
+}
+
+// --- Serviços na mesma JVM ---
+
+private static Map<String, Object> propriedadesComuns(String nome) {
+    Map<String, Object> propriedades = new HashMap<>();
+    propriedades.put("server.port", "0");
+    propriedades.put("spring.application.name", nome + "-carga");
+    propriedades.put("spring.datasource.url", "jdbc:h2:mem:carga-" + nome);
+    propriedades.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+    propriedades.put("spring.main.banner-mode", "off");
+    propriedades.put("logging.level.root", "WARN");
+    propriedades.put("logging.level.bicicletario", "ERROR");
+    // Pools que param depois do Tomcat no close(): aviso de "memory leak" sem importância aqui
+    propriedades.put("logging.level.org.apache.catalina.loader", "ERROR");
+    return propriedades;
+}
+
+// Sem os application.properties dos serviços no classpath: só os padrões do código e estas propriedades
+private static ConfigurableApplicationContext subir(Class<?> aplicacao, Map<String, Object> propriedades) {
+    SpringApplication spring = new SpringApplication(aplicacao);
+    spring.setDefaultProperties(propriedades);
+    return spring.run();
+}
+
+private static void encerrar(List<ConfigurableApplicationContext> servicos) {
+    for (ConfigurableApplicationContext servico : servicos) {
+        servico.close();
+    }
+}
+
+private static String url(ConfigurableApplicationContext servico) {
+    return "http://127.0.0.1:" + ((WebServerApplicationContext) servico).getWebServer().getPort();
+}
+
+// --- Relatório ---
+
+private static void imprimir(List<Medicao.Resumo> resumos, List<ServicoSimulado> simulados) {
+    System.out.printf("%n%-10s %10s %9s %8s %9s %9s %9s %9s %9s  %s%n", "operacao", "requisicoes", "por s",
+            "erros", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "respostas");
+    for (Medicao.Resumo resumo : resumos) {
+        System.out.printf("%-10s %10d %9.1f %7.2f%% %9.1f %9.1f %9.1f %9.1f %9.1f  %s%n", resumo.operacao,
+                resumo.requisicoes, resumo.porSegundo, resumo.taxaErro * 100, resumo.p50Ms, resumo.p90Ms,
+                resumo.p99Ms, resumo.p999Ms, resumo.maxMs, resumo.porStatus);
+    }
+    for (ServicoSimulado simulado : simulados) {
+        System.out.printf("%n%s: %d erros injetados%n", simulado.getNome(), simulado.getErrosInjetados());
+        for (Map.Entry<String, Long> rota : simulado.getChamadas().entrySet()) {
+            System.out.printf("  %-40s %10d%n", rota.getKey(), rota.getValue());
+        }
+    }
+}
+
+private static void gravar(File arquivo, Map<String, String> opcoes, List<Medicao.Resumo> resumos,
+                           List<ServicoSimulado> simulados) throws Exception {
+    Map<String, Object> relatorio = new LinkedHashMap<>();
+    relatorio.put("opcoes", opcoes);
+    relatorio.put("operacoes", resumos);
+    Map<String, Object> chamadas = new LinkedHashMap<>();
+    for (ServicoSimulado simulado : simulados) {
+        Map<String, Object> porServico = new LinkedHashMap<>();
+        porServico.put("errosInjetados", simulado.getErrosInjetados());
+        porServico.put("rotas", simulado.getChamadas());
+        chamadas.put(simulado.getNome(), porServico);
+    }
+    relatorio.put("simulados", chamadas);
+    new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(arquivo, relatorio);
+    System.out.println("\nRelatório gravado em " + arquivo.getAbsolutePath());
+}
+
+private static boolean dentroDosLimites(Medicao.Resumo total, Map<String, String> opcoes) {
+    boolean ok = true;
+    if (!opcoes.get("max-erros").isEmpty() && total.taxaErro > Double.parseDouble(opcoes.get("max-erros"))) {
+        System.out.printf("%nFALHOU: taxa de erro %.2f%% acima de %s%n", total.taxaErro * 100, opcoes.get("max-erros"));
+        ok = false;
+    }
+    if (!opcoes.get("max-p99-ms").isEmpty() && total.p99Ms > Double.parseDouble(opcoes.get("max-p99-ms"))) {
+        System.out.printf("%nFALHOU: p99 de %.1fms acima de %sms%n", total.p99Ms, opcoes.get("max-p99-ms"));
+        ok = false;
+    }
+    return ok;
+}
+
+// --- Linha de comando ---
+
+// null = pediu ajuda
+private static Map<String, String> lerOpcoes(String[] args) {
+    Map<String, String> opcoes = new LinkedHashMap<>();
+    for (Map.Entry<String, String[]> opcao : OPCOES.entrySet()) {
+        opcoes.put(opcao.getKey(), opcao.getValue()[0]);
+    }
+    for (String arg : args) {
+        if ("-ajuda".equals(arg) || "-h".equals(arg) || "--help".equals(arg)) {
+            return null;
+        }
+        int igual = arg.indexOf('=');
+        String nome = arg.startsWith("-") && igual > 0 ? arg.substring(1, igual) : null;
+        if (nome == null || !OPCOES.containsKey(nome)) {
+            throw new IllegalArgumentException("Opção desconhecida: " + arg + " (use -ajuda)");
+        }
+        opcoes.put(nome, arg.substring(igual + 1));
+    }
+    return opcoes;
+}
+
+private static Map<String, Integer> lerMistura(String mistura) {
+    Map<String, Integer> pesos = new LinkedHashMap<>();
+    for (String item : mistura.split(",")) {
+        String[] partes = item.trim().split(":");
+        if (partes.length != 2 || !("aluguel".equals(partes[0]) || "devolucao".equals(partes[0])
+                || "cadastro".equals(partes[0]))) {
+            throw new IllegalArgumentException("Item de mistura inválido: '" + item
+                    + "' (use aluguel:N, devolucao:N e cadastro:N)");
+        }
+        pesos.put(partes[0], Integer.parseInt(partes[1]));
+    }
+    return pesos;
+}
+
+private static void ajuda() {
+    System.out.println("Uso: java -jar carga.jar [-opcao=valor ...]\n");
+    for (Map.Entry<String, String[]> opcao : OPCOES.entrySet()) {
+        System.out.printf("  -%-24s %s (padrão: %s)%n", opcao.getKey(), opcao.getValue()[1],
+                opcao.getValue()[0].isEmpty() ? "-" : opcao.getValue()[0]);
+    }
+}
+}
@@ -0,0 +1,193 @@
+package bicicletario.idempotencia;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Respostas das requisições com Idempotency-Key (ver IdempotenciaFilter).
+ *
+ * Em memória: LRU limitado a idempotencia.max-entradas (só respostas
+ * concluídas são descartadas pelo limite), cada entrada vence após
+ * idempotencia.ttl-ms. Com idempotencia.persistir=true as respostas também
+ * vão para o banco (tabela resposta_idempotente): sobrevivem a um restart e são
+ * vistas por todas as instâncias, e a reserva da chave passa a ser o INSERT da
+ * linha (chave primária), o que impede duas instâncias de processarem a mesma chave.
+ *
+ * Código comum do Aluguel e do Externo (compilado em cada um a partir de
+ * idempotencia/): cada serviço declara o bean e o filtro no seu IdempotenciaConfig.
+ */
+public class ArmazemIdempotencia {
+
+    @Value("${idempotencia.max-entradas:10000}")
+    private int maxEntradas;
+
+    @Value("${idempotencia.ttl-ms:86400000}")
+    private long ttlMs;
+
+    // Reserva de uma requisição que nunca terminou (instância caiu) não bloqueia a chave para sempre
+    @Value("${idempotencia.em-andamento-expira-ms:60000}")
+    private long emAndamentoExpiraMs;
+
+    @Value("${idempotencia.persistir:false}")
+    private boolean persistir;
+
+    @Autowired
+    private RespostaIdempotenteRepository respostaRepository;
+
+    LongSupplier relogio = System::currentTimeMillis;
+
+    // Ordem de acesso: o mais antigo sem uso sai primeiro quando passa do limite.
+    // Reservas em andamento não saem (a repetição da requisição seria processada
+    // de novo): o limite pode ser ultrapassado pelas requisições em curso, que
+    // somem ao concluir ou ao vencer idempotencia.em-andamento-expira-ms
+    private final Map<String, RespostaArmazenada> entradas = new LinkedHashMap<String, RespostaArmazenada>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RespostaArmazenada> maisAntiga) {
+            if (size() <= maxEntradas) {
+                return false;
+            }
+            long agora = relogio.getAsLong();
+            Iterator<RespostaArmazenada> iterador = values().iterator();
+            while (iterador.hasNext()) {
+                RespostaArmazenada entrada = iterador.next();
+                if (!entrada.isEmAndamento() || entrada.expirouEm(agora)) {
+                    iterador.remove();
+                    return false;
+                }
+            }
+            return false;
+        }
+    };
+
+    /**
+     * Reserva a chave para quem chamou (retorno null): ele processa a requisição e
+     * depois chama concluir() ou liberar(). Se a chave já existe, retorna a entrada
+     * atual (em andamento ou concluída) e nada é reservado.
+     */
+    public RespostaArmazenada reservar(String chave, String impressaoDigital) {
+        long agora = relogio.getAsLong();
+        synchronized (entradas) {
+            RespostaArmazenada existente = entradas.get(chave);
+            if (existente != null && !existente.expirouEm(agora)) {
+                return existente;
+            }
+            if (!persistir) {
+                entradas.put(chave, RespostaArmazenada.emAndamento(impressaoDigital, agora + emAndamentoExpiraMs));
+                return null;
+            }
+        }
+        return reservarNoBanco(chave, impressaoDigital, agora, true);
+    }
+
+    private RespostaArmazenada reservarNoBanco(String chave, String impressaoDigital, long agora, boolean tentarDeNovo) {
+        RespostaIdempotente linha = new RespostaIdempotente();
+        linha.setChave(chave);
+        linha.setImpressaoDigital(impressaoDigital);
+        linha.setExpiraEm(paraData(agora + emAndamentoExpiraMs));
+        try {
+            respostaRepository.saveAndFlush(linha);
+        } catch (DataIntegrityViolationException e) {
+            // Chave já gravada (por esta ou outra instância)
+            Optional<RespostaIdempotente> gravada = respostaRepository.findById(chave);
+            if (!gravada.isPresent()) {
+                // Apagada entre o INSERT e a leitura: trata como em andamento, o cliente tenta de novo
+                return RespostaArmazenada.emAndamento(impressaoDigital, agora + emAndamentoExpiraMs);
+            }
+            RespostaArmazenada existente = converter(gravada.get());
+            if (existente.expirouEm(agora) && tentarDeNovo) {
+                apagarDoBanco(chave);
+                return reservarNoBanco(chave, impressaoDigital, agora, false);
+            }
+            if (!existente.isEmAndamento()) {
+                synchronized (entradas) {
+                    entradas.put(chave, existente);
+                }
+            }
+            return existente;
+        }
+        synchronized (entradas) {
+            entradas.put(chave, RespostaArmazenada.emAndamento(impressaoDigital, agora + emAndamentoExpiraMs));
+        }
+        return null;
+    }
+
+    // Guarda a resposta da requisição reservada; repetições passam a recebê-la até vencer
+    public void concluir(String chave, String impressaoDigital, int status, String contentType, byte[] corpo) {
+        long expiraEm = relogio.getAsLong() + ttlMs;
+        synchronized (entradas) {
+            entradas.put(chave, new RespostaArmazenada(impressaoDigital, status, contentType, corpo, expiraEm));
+        }
+        if (persistir) {
+            RespostaIdempotente linha = respostaRepository.findById(chave).orElseGet(RespostaIdempotente::new);
+            linha.setChave(chave);
+            linha.setImpressaoDigital(impressaoDigital);
+            linha.setStatus(status);
+            linha.setContentType(contentType);
+            linha.setCorpo(corpo);
+            linha.setExpiraEm(paraData(expiraEm));
+            respostaRepository.save(linha);
+        }
+    }
+
+    // Desfaz a reserva (ex: erro 5xx): a próxima tentativa do cliente processa de novo
+    public void liberar(String chave) {
+        synchronized (entradas) {
+            entradas.remove(chave);
+        }
+        if (persistir) {
+            apagarDoBanco(chave);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotencia.limpeza-ms:600000}")
+    public void removerVencidas() {
+        long agora = relogio.getAsLong();
+        synchronized (entradas) {
+            Iterator<RespostaArmazenada> iterador = entradas.values().iterator();
+            while (iterador.hasNext()) {
+                if (iterador.next().expirouEm(agora)) {
+                    iterador.remove();
+                }
+            }
+        }
+        if (persistir) {
+            respostaRepository.apagarVencidas(paraData(agora));
+        }
+    }
+
+    public int quantidade() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    private void apagarDoBanco(String chave) {
+        try {
+            respostaRepository.deleteById(chave);
+        } catch (EmptyResultDataAccessException e) {
+            // Já apagada por outra instância
+        }
+    }
+
+    private RespostaArmazenada converter(RespostaIdempotente linha) {
+        long expiraEm = linha.getExpiraEm().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new RespostaArmazenada(linha.getImpressaoDigital(), linha.getStatus(),
+                linha.getContentType(), linha.getCorpo(), expiraEm);
+    }
+
+    private LocalDateTime paraData(long epochMs) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneId.systemDefault());
+    }
+}
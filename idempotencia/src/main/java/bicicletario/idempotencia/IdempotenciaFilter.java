@@ -0,0 +1,257 @@
+package bicicletario.idempotencia;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * POST com o cabeçalho Idempotency-Key: a primeira requisição com a chave é
+ * processada e a resposta guardada no ArmazemIdempotencia; repetições recebem a
+ * mesma resposta (cabeçalho Idempotent-Replayed: true) sem passar pelo controller,
+ * ou seja, sem repetir o efeito (aluguel, cobrança, email...).
+ *
+ * - Repetição enquanto a original ainda roda: 409.
+ * - Mesma chave com outro corpo: 422 (a chave não pode ser reaproveitada).
+ * - Resposta 5xx não é guardada: o cliente pode tentar de novo com a mesma chave.
+ * Sem o cabeçalho a requisição segue normalmente.
+ *
+ * No modo reativo o controller devolve um CompletableFuture: a resposta só
+ * existe no despacho assíncrono, e é nele que é guardada.
+ */
+public class IdempotenciaFilter extends OncePerRequestFilter {
+
+    public static final String CABECALHO_CHAVE = "Idempotency-Key";
+    public static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+    // Chave e impressão digital da requisição original, lidas no despacho assíncrono
+    private static final String ATRIBUTO_CHAVE = IdempotenciaFilter.class.getName() + ".chave";
+    private static final String ATRIBUTO_IMPRESSAO = IdempotenciaFilter.class.getName() + ".impressaoDigital";
+
+    private final ArmazemIdempotencia armazem;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    public IdempotenciaFilter(ArmazemIdempotencia armazem, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.armazem = armazem;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(CABECALHO_CHAVE) == null;
+    }
+
+    // O despacho assíncrono também passa por aqui, para guardar a resposta
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            concluirDespachoAssincrono(request, response, chain);
+            return;
+        }
+        String chaveCliente = request.getHeader(CABECALHO_CHAVE).trim();
+        if (chaveCliente.isEmpty() || chaveCliente.length() > TAMANHO_MAXIMO_CHAVE) {
+            responderErro(response, HttpStatus.BAD_REQUEST, "Idempotency-Key deve ter de 1 a " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+            return;
+        }
+        byte[] corpo = StreamUtils.copyToByteArray(request.getInputStream());
+        // A mesma chave em endpoints diferentes são chaves diferentes
+        String chave = request.getMethod() + " " + request.getRequestURI() + " " + chaveCliente;
+        String impressaoDigital = calcularImpressaoDigital(request.getQueryString(), corpo);
+
+        RespostaArmazenada existente = armazem.reservar(chave, impressaoDigital);
+        if (existente != null) {
+            responderRepeticao(response, existente, impressaoDigital);
+            return;
+        }
+        contar("nova");
+
+        ContentCachingResponseWrapper respostaEmCache = new ContentCachingResponseWrapper(response);
+        HttpServletRequest requisicao = new RequisicaoComCorpo(request, corpo);
+        boolean processada = false;
+        try {
+            chain.doFilter(requisicao, respostaEmCache);
+            processada = true;
+        } finally {
+            if (processada && requisicao.isAsyncStarted()) {
+                // Resposta ainda não existe: fica para o despacho assíncrono
+                requisicao.setAttribute(ATRIBUTO_CHAVE, chave);
+                requisicao.setAttribute(ATRIBUTO_IMPRESSAO, impressaoDigital);
+            } else {
+                concluir(chave, impressaoDigital, respostaEmCache, processada);
+            }
+        }
+    }
+
+    private void concluirDespachoAssincrono(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String chave = (String) request.getAttribute(ATRIBUTO_CHAVE);
+        ContentCachingResponseWrapper respostaEmCache =
+                WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        if (chave == null || respostaEmCache == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        boolean processada = false;
+        try {
+            chain.doFilter(request, response);
+            processada = true;
+        } finally {
+            if (!processada || !request.isAsyncStarted()) {
+                concluir(chave, (String) request.getAttribute(ATRIBUTO_IMPRESSAO), respostaEmCache, processada);
+            }
+        }
+    }
+
+    // Guarda a resposta (menos 5xx ou exceção, que liberam a chave) e a envia ao cliente
+    private void concluir(String chave, String impressaoDigital, ContentCachingResponseWrapper respostaEmCache,
+                          boolean processada) throws IOException {
+        boolean guardada = false;
+        try {
+            if (processada && respostaEmCache.getStatus() < 500) {
+                armazem.concluir(chave, impressaoDigital, respostaEmCache.getStatus(),
+                        respostaEmCache.getContentType(), respostaEmCache.getContentAsByteArray());
+                guardada = true;
+            }
+        } finally {
+            if (!guardada) {
+                armazem.liberar(chave);
+            }
+            respostaEmCache.copyBodyToResponse();
+        }
+    }
+
+    private void responderRepeticao(HttpServletResponse response, RespostaArmazenada existente, String impressaoDigital)
+            throws IOException {
+        if (!existente.getImpressaoDigital().equals(impressaoDigital)) {
+            contar("divergente");
+            responderErro(response, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key já usada com outra requisição");
+        } else if (existente.isEmAndamento()) {
+            contar("em_andamento");
+            responderErro(response, HttpStatus.CONFLICT, "Requisição com esta Idempotency-Key ainda em andamento");
+        } else {
+            contar("repetida");
+            response.setStatus(existente.getStatus());
+            response.setHeader(CABECALHO_REPETIDA, "true");
+            if (existente.getContentType() != null) {
+                response.setContentType(existente.getContentType());
+            }
+            byte[] corpo = existente.getCorpo() == null ? new byte[0] : existente.getCorpo();
+            response.setContentLength(corpo.length);
+            response.getOutputStream().write(corpo);
+        }
+    }
+
+    private void responderErro(HttpServletResponse response, HttpStatus status, String mensagem) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        // Mesmo formato do schema 'Erro' dos serviços (codigo, mensagem)
+        Map<String, String> erro = new LinkedHashMap<>();
+        erro.put("codigo", CABECALHO_CHAVE);
+        erro.put("mensagem", mensagem);
+        objectMapper.writeValue(response.getOutputStream(), erro);
+    }
+
+    private void contar(String resultado) {
+        meterRegistry.counter("idempotencia.requisicoes", "resultado", resultado).increment();
+    }
+
+    // SHA-256 da query string + corpo: detecta a mesma chave reaproveitada para outro pedido
+    private String calcularImpressaoDigital(String queryString, byte[] corpo) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (queryString != null) {
+                digest.update(queryString.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '\n');
+            byte[] hash = digest.digest(corpo);
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    // O corpo já foi lido para a impressão digital: o controller recebe uma cópia
+    private static class RequisicaoComCorpo extends HttpServletRequestWrapper {
+
+        private final byte[] corpo;
+
+        RequisicaoComCorpo(HttpServletRequest request, byte[] corpo) {
+            super(request);
+            this.corpo = corpo;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream entrada = new ByteArrayInputStream(corpo);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() { return entrada.available() == 0; }
+                @Override
+                public boolean isReady() { return true; }
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // Leitura não bloqueante: o corpo já está todo em memória, disponível e completo de imediato
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+                @Override
+                public int read() { return entrada.read(); }
+                @Override
+                public int read(byte[] b, int off, int len) { return entrada.read(b, off, len); }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() { return corpo.length; }
+
+        @Override
+        public long getContentLengthLong() { return corpo.length; }
+    }
+}
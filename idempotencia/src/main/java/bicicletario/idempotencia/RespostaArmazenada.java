@@ -0,0 +1,32 @@
+package bicicletario.idempotencia;
+
+// Entrada do ArmazemIdempotencia. Sem status = a requisição original ainda está rodando.
+public class RespostaArmazenada {
+
+    private final String impressaoDigital;
+    private final Integer status;
+    private final String contentType;
+    private final byte[] corpo;
+    private final long expiraEm; // epoch ms
+
+    RespostaArmazenada(String impressaoDigital, Integer status, String contentType, byte[] corpo, long expiraEm) {
+        this.impressaoDigital = impressaoDigital;
+        this.status = status;
+        this.contentType = contentType;
+        this.corpo = corpo;
+        this.expiraEm = expiraEm;
+    }
+
+    static RespostaArmazenada emAndamento(String impressaoDigital, long expiraEm) {
+        return new RespostaArmazenada(impressaoDigital, null, null, null, expiraEm);
+    }
+
+    public boolean isEmAndamento() { return status == null; }
+    boolean expirouEm(long agora) { return expiraEm <= agora; }
+
+    public String getImpressaoDigital() { return impressaoDigital; }
+    public Integer getStatus() { return status; }
+    public String getContentType() { return contentType; }
+    public byte[] getCorpo() { return corpo; }
+    public long getExpiraEm() { return expiraEm; }
+}
@@ -0,0 +1,62 @@
+package bicicletario.idempotencia;
+
+// Resposta guardada de uma requisição com Idempotency-Key (persistência opcional
+// do ArmazemIdempotencia, ligada por idempotencia.persistir=true). Enquanto a
+// requisição original roda, a linha existe com status nulo (em andamento).
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(indexes = @Index(name = "idx_resposta_idempotente_expira", columnList = "expiraEm"))
+public class RespostaIdempotente implements Persistable<String> {
+
+    @Id
+    @Column(length = 400)
+    private String chave; // "POST /aluguel <Idempotency-Key>": método, URI e chave do cliente
+
+    @Column(length = 64)
+    private String impressaoDigital; // SHA-256 do corpo da requisição original
+
+    private Integer status; // Status HTTP; null = em andamento
+    private String contentType;
+    @Lob
+    private byte[] corpo;
+    private LocalDateTime expiraEm;
+
+    // Sempre INSERT na primeira gravação: chave duplicada = outra requisição chegou antes
+    @Transient
+    private boolean nova = true;
+
+    // Getters e Setters
+    @Override
+    public String getId() { return chave; }
+    @Override
+    public boolean isNew() { return nova; }
+    @PostLoad
+    @PostPersist
+    void marcarComoExistente() { this.nova = false; }
+
+    public String getChave() { return chave; }
+    public void setChave(String chave) { this.chave = chave; }
+    public String getImpressaoDigital() { return impressaoDigital; }
+    public void setImpressaoDigital(String impressaoDigital) { this.impressaoDigital = impressaoDigital; }
+    public Integer getStatus() { return status; }
+    public void setStatus(Integer status) { this.status = status; }
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    public byte[] getCorpo() { return corpo; }
+    public void setCorpo(byte[] corpo) { this.corpo = corpo; }
+    public LocalDateTime getExpiraEm() { return expiraEm; }
+    public void setExpiraEm(LocalDateTime expiraEm) { this.expiraEm = expiraEm; }
+}
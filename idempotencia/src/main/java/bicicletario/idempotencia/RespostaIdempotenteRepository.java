@@ -0,0 +1,19 @@
+package bicicletario.idempotencia;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RespostaIdempotenteRepository extends JpaRepository<RespostaIdempotente, String> {
+    // Limpeza periódica das chaves vencidas
+    @Transactional
+    @Modifying
+    @Query("delete from RespostaIdempotente r where r.expiraEm < :agora")
+    int apagarVencidas(@Param("agora") LocalDateTime agora);
+}